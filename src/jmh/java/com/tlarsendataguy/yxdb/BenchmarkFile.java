@@ -0,0 +1,39 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Holds one of the bundled test files in memory so the benchmarks measure decoding rather than disk access.
+ */
+class BenchmarkFile {
+    BenchmarkFile(String name) throws IOException {
+        path = Path.of("src/test/resources", name).toString();
+        bytes = Files.readAllBytes(Path.of(path));
+        var header = ByteBuffer.wrap(bytes, 0, 512).order(ByteOrder.LITTLE_ENDIAN);
+        numRecords = header.getLong(104);
+        recordsStart = 512 + (header.getInt(80) * 2);
+    }
+    final String path;
+    final byte[] bytes;
+    final long numRecords;
+    final int recordsStart;
+
+    BufferedInputStream stream() {
+        return new BufferedInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    InputStream recordStream() {
+        return new ByteArrayInputStream(bytes, recordsStart, bytes.length - recordsStart);
+    }
+
+    int recordBytes() {
+        return bytes.length - recordsStart;
+    }
+}
@@ -0,0 +1,48 @@
+package com.tlarsendataguy.yxdb;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scans a file from disk over and over, moving through every record without decoding its fields, with and without a
+ * shared YxdbBlockCache. With the cache, every scan after the first takes its blocks from memory instead of reading
+ * and decompressing them. MB/s is measured against the size of the file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BlockCacheBenchmark {
+    @Param({"TutorialData.yxdb", "LotsOfRecords.yxdb", "VeryLongField.yxdb"})
+    public String file;
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private BenchmarkFile data;
+    private YxdbReaderOptions options;
+
+    @Setup
+    public void setup() throws IOException {
+        data = new BenchmarkFile(file);
+        options = new YxdbReaderOptions();
+        if (cached) {
+            options.blockCache(new YxdbBlockCache(64L * 1024 * 1024));
+        }
+    }
+
+    @Benchmark
+    public long scan(ThroughputCounters counters) throws IOException {
+        var reader = new YxdbReader(data.path, options);
+        long records = 0;
+        while (reader.next()) {
+            records++;
+        }
+        counters.add(records, data.bytes.length);
+        return records;
+    }
+}
@@ -0,0 +1,71 @@
+package com.tlarsendataguy.yxdb;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads every record of a file through BufferedRecordReader without touching the fields.
+ * <p>
+ * The fixed schema is LotsOfRecords.yxdb (a single Int32 field) and the variable schema is VeryLongField.yxdb
+ * (a Byte field and a very large Blob field). MB/s is measured against the compressed record bytes.
+ * <p>
+ * readAhead is the number of blocks decompressed on a background thread. 0 decompresses on the calling thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class BufferedRecordReaderBenchmark {
+    @Param({"fixed", "variable"})
+    public String schema;
+
+    @Param({"0", "2"})
+    public int readAhead;
+
+    private BenchmarkFile data;
+    private int fixedLen;
+    private boolean hasVarFields;
+
+    @Setup
+    public void setup() throws IOException {
+        switch (schema) {
+            case "fixed" -> {
+                data = new BenchmarkFile("LotsOfRecords.yxdb");
+                fixedLen = 5;
+                hasVarFields = false;
+            }
+            case "variable" -> {
+                data = new BenchmarkFile("VeryLongField.yxdb");
+                fixedLen = 6;
+                hasVarFields = true;
+            }
+            default -> throw new IllegalArgumentException("unknown schema " + schema);
+        }
+    }
+
+    @Benchmark
+    public long nextRecord(ThroughputCounters counters) throws IOException {
+        var reader = new BufferedRecordReader(new StreamBlockSource(data.recordStream()), fixedLen, hasVarFields, data.numRecords, readAhead);
+        long records = 0;
+        while (reader.nextRecord()) {
+            records++;
+        }
+        counters.add(records, data.recordBytes());
+        return records;
+    }
+
+    /**
+     * Skips every record without copying it, as YxdbReader.skip() does between index blocks.
+     */
+    @Benchmark
+    public long skipRecords(ThroughputCounters counters) throws IOException {
+        var reader = new BufferedRecordReader(new StreamBlockSource(data.recordStream()), fixedLen, hasVarFields, data.numRecords, readAhead);
+        var records = reader.skipRecords(data.numRecords);
+        counters.add(records, data.recordBytes());
+        return records;
+    }
+}
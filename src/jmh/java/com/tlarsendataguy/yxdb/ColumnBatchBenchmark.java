@@ -0,0 +1,96 @@
+package com.tlarsendataguy.yxdb;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sums the integer and double fields of every record, comparing the boxed readX methods, one record at a time, with
+ * ColumnBatch batches of 4096 records. Both readers are limited to the summed fields with YxdbReaderOptions.fields(),
+ * so neither decodes the other fields. The file is read from memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ColumnBatchBenchmark {
+    @Param({"LotsOfRecords.yxdb", "TutorialData.yxdb", "AllNormalFields.yxdb"})
+    public String file;
+
+    private BenchmarkFile data;
+    private YxdbReaderOptions options;
+    private final ColumnBatch batch = new ColumnBatch();
+
+    @Setup
+    public void setup() throws IOException {
+        data = new BenchmarkFile(file);
+        var reader = new YxdbReader(data.stream());
+        var fields = reader.listFields();
+        var numeric = new ArrayList<Integer>();
+        for (int i = 0; i < fields.size(); i++) {
+            var type = fields.get(i).type();
+            if (type == YxdbField.DataType.LONG || type == YxdbField.DataType.DOUBLE) {
+                numeric.add(i);
+            }
+        }
+        reader.close();
+        options = new YxdbReaderOptions().fields(numeric.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    @Benchmark
+    public double rows(ThroughputCounters counters) throws IOException {
+        var reader = new YxdbReader(data.stream(), options);
+        var fields = reader.listFields();
+        double sum = 0;
+        while (reader.next()) {
+            for (int i = 0; i < fields.size(); i++) {
+                switch (fields.get(i).type()) {
+                    case LONG -> {
+                        var value = reader.readLong(i);
+                        sum += value == null ? 0 : value;
+                    }
+                    case DOUBLE -> {
+                        var value = reader.readDouble(i);
+                        sum += value == null ? 0 : value;
+                    }
+                    default -> { }
+                }
+            }
+        }
+        counters.add(reader.numRecords, data.bytes.length);
+        return sum;
+    }
+
+    @Benchmark
+    public double batches(ThroughputCounters counters) throws IOException {
+        var reader = new YxdbReader(data.stream(), options);
+        var fields = reader.listFields();
+        double sum = 0;
+        while (reader.nextBatch(batch, 4096) > 0) {
+            var rows = batch.rowCount();
+            for (int i = 0; i < fields.size(); i++) {
+                switch (fields.get(i).type()) {
+                    case LONG -> {
+                        var values = batch.longs(i);
+                        for (int row = 0; row < rows; row++) {
+                            sum += values[row];
+                        }
+                    }
+                    case DOUBLE -> {
+                        var values = batch.doubles(i);
+                        for (int row = 0; row < rows; row++) {
+                            sum += values[row];
+                        }
+                    }
+                    default -> { }
+                }
+            }
+        }
+        counters.add(reader.numRecords, data.bytes.length);
+        return sum;
+    }
+}
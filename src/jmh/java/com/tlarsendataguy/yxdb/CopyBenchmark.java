@@ -0,0 +1,79 @@
+package com.tlarsendataguy.yxdb;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies every record of TutorialData, held in memory, into a temporary file. The raw copy hands each record's bytes
+ * to the writer as they are, while the decoded copy reads every field and sets it on the writer, which is what a copy
+ * through the readX and setX methods costs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CopyBenchmark {
+    private BenchmarkFile source;
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        source = new BenchmarkFile("TutorialData.yxdb");
+        file = Files.createTempFile("CopyBenchmark", ".yxdb");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long raw(ThroughputCounters counters) throws IOException {
+        var reader = new YxdbReader(source.stream());
+        long copied;
+        try (var writer = new YxdbWriter(file.toString(), YxdbSchema.of(reader), 1)) {
+            copied = writer.writeRecords(reader);
+        }
+        counters.add(copied, source.recordBytes());
+        return copied;
+    }
+
+    @Benchmark
+    public long decoded(ThroughputCounters counters) throws IOException {
+        var reader = new YxdbReader(source.stream());
+        var schema = YxdbSchema.of(reader);
+        var fields = schema.fields;
+        long copied;
+        try (var writer = new YxdbWriter(file.toString(), schema, 1)) {
+            while (reader.next()) {
+                for (int i = 0; i < fields.size(); i++) {
+                    if (reader.isNull(i)) {
+                        writer.setNull(i);
+                        continue;
+                    }
+                    switch (fields.get(i).type()) {
+                        case "Bool" -> writer.setBoolean(i, reader.readBooleanValue(i));
+                        case "Byte" -> writer.setByte(i, reader.readByteValue(i));
+                        case "Int16", "Int32", "Int64" -> writer.setLong(i, reader.readLongValue(i));
+                        case "Float", "Double" -> writer.setDouble(i, reader.readDoubleValue(i));
+                        case "FixedDecimal" -> writer.setDecimal(i, reader.readDecimal(i));
+                        case "Date" -> writer.setDate(i, reader.readLocalDate(i));
+                        case "DateTime" -> writer.setDateTime(i, reader.readLocalDateTime(i));
+                        case "Blob", "SpatialObj" -> writer.setBlob(i, reader.readBlob(i));
+                        default -> writer.setString(i, reader.readString(i));
+                    }
+                }
+                writer.writeRecord();
+            }
+            copied = writer.numRecords();
+        }
+        counters.add(copied, source.recordBytes());
+        return copied;
+    }
+}
@@ -0,0 +1,74 @@
+package com.tlarsendataguy.yxdb;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes every record as CSV to a stream that discards its input, comparing YxdbExporter with formatting the values of
+ * the readX methods into a StringBuilder. The file is read from memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ExportBenchmark {
+    @Param({"LotsOfRecords.yxdb", "TutorialData.yxdb", "AllNormalFields.yxdb"})
+    public String file;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private BenchmarkFile data;
+    private final OutputStream out = OutputStream.nullOutputStream();
+
+    @Setup
+    public void setup() throws IOException {
+        data = new BenchmarkFile(file);
+    }
+
+    @Benchmark
+    public long readValues(ThroughputCounters counters) throws IOException {
+        var reader = new YxdbReader(data.stream());
+        var fields = reader.listFields();
+        var line = new StringBuilder();
+        long records = 0;
+        while (reader.next()) {
+            line.setLength(0);
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                Object value = switch (fields.get(i).type()) {
+                    case BLOB -> reader.readBlob(i);
+                    case BOOLEAN -> reader.readBoolean(i);
+                    case BYTE -> reader.readByte(i);
+                    case DATE -> reader.readLocalDateTime(i);
+                    case DOUBLE -> reader.readDouble(i);
+                    case LONG -> reader.readLong(i);
+                    case STRING -> "\"" + reader.readString(i) + "\"";
+                };
+                if (value != null) {
+                    line.append(value);
+                }
+            }
+            line.append('\n');
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+            records++;
+        }
+        counters.add(records, data.bytes.length);
+        return records;
+    }
+
+    @Benchmark
+    public long exporter(ThroughputCounters counters) throws IOException {
+        var records = new YxdbExporter(new YxdbReader(data.stream()), threads).writeCsv(out);
+        counters.add(records, data.bytes.length);
+        return records;
+    }
+}
@@ -0,0 +1,137 @@
+package com.tlarsendataguy.yxdb;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs each extractor against the single record in AllNormalFields.yxdb. Every benchmark decodes one value, so
+ * ops/s is values/s and the gc profiler's alloc rate norm is the allocation cost of one value.
+ * <p>
+ * The start positions match the field layout that YxdbRecord.newFromFieldList computes for AllNormalFields.yxdb.
+ * V_StringLongField holds 500 characters, so it also serves as the Blob input.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ExtractorsBenchmark {
+    private final Function<ByteBuffer, Boolean> bool = Extractors.NewBoolExtractor(2);
+    private final Function<ByteBuffer, Byte> byteValue = Extractors.NewByteExtractor(0);
+    private final Function<ByteBuffer, Long> int16 = Extractors.NewInt16Extractor(3);
+    private final Function<ByteBuffer, Long> int32 = Extractors.NewInt32Extractor(6);
+    private final Function<ByteBuffer, Long> int64 = Extractors.NewInt64Extractor(11);
+    private final Function<ByteBuffer, Double> fixedDecimal = Extractors.NewFixedDecimalExtractor(20, 19);
+    private final Function<ByteBuffer, Double> floatValue = Extractors.NewFloatExtractor(40);
+    private final Function<ByteBuffer, Double> doubleValue = Extractors.NewDoubleExtractor(45);
+    private final Function<ByteBuffer, String> string = Extractors.NewStringExtractor(54, 64);
+    private final Function<ByteBuffer, String> wString = Extractors.NewWStringExtractor(119, 64);
+    private final Function<ByteBuffer, String> vString = Extractors.NewV_StringExtractor(248);
+    private final Function<ByteBuffer, String> vStringLong = Extractors.NewV_StringExtractor(252);
+    private final Function<ByteBuffer, String> vWString = Extractors.NewV_WStringExtractor(256);
+    private final Function<ByteBuffer, String> vWStringLong = Extractors.NewV_WStringExtractor(260);
+    private final Function<ByteBuffer, byte[]> blob = Extractors.NewBlobExtractor(252);
+    private final Function<ByteBuffer, Date> date = Extractors.NewDateExtractor(264);
+    private final Function<ByteBuffer, Date> dateTime = Extractors.NewDateTimeExtractor(275);
+
+    private ByteBuffer record;
+
+    @Setup
+    public void setup() throws IOException {
+        var data = new BenchmarkFile("AllNormalFields.yxdb");
+        var reader = new BufferedRecordReader(data.recordStream(), 295, true, data.numRecords);
+        reader.nextRecord();
+        record = reader.recordBuffer;
+    }
+
+    @Benchmark
+    public Boolean bool() {
+        return bool.apply(record);
+    }
+
+    @Benchmark
+    public Byte byteValue() {
+        return byteValue.apply(record);
+    }
+
+    @Benchmark
+    public Long int16() {
+        return int16.apply(record);
+    }
+
+    @Benchmark
+    public Long int32() {
+        return int32.apply(record);
+    }
+
+    @Benchmark
+    public Long int64() {
+        return int64.apply(record);
+    }
+
+    @Benchmark
+    public Double fixedDecimal() {
+        return fixedDecimal.apply(record);
+    }
+
+    @Benchmark
+    public Double floatValue() {
+        return floatValue.apply(record);
+    }
+
+    @Benchmark
+    public Double doubleValue() {
+        return doubleValue.apply(record);
+    }
+
+    @Benchmark
+    public String string() {
+        return string.apply(record);
+    }
+
+    @Benchmark
+    public String wString() {
+        return wString.apply(record);
+    }
+
+    @Benchmark
+    public String vString() {
+        return vString.apply(record);
+    }
+
+    @Benchmark
+    public String vStringLong() {
+        return vStringLong.apply(record);
+    }
+
+    @Benchmark
+    public String vWString() {
+        return vWString.apply(record);
+    }
+
+    @Benchmark
+    public String vWStringLong() {
+        return vWStringLong.apply(record);
+    }
+
+    @Benchmark
+    public byte[] blob() {
+        return blob.apply(record);
+    }
+
+    @Benchmark
+    public Date date() {
+        return date.apply(record);
+    }
+
+    @Benchmark
+    public Date dateTime() {
+        return dateTime.apply(record);
+    }
+}
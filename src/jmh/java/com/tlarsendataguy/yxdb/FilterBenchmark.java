@@ -0,0 +1,52 @@
+package com.tlarsendataguy.yxdb;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the records of TutorialData.yxdb whose Prefix is "Mr" and whose UserID is over 1000, comparing a
+ * RecordFilter tested on the raw record bytes with reading and comparing the boxed values of each record. The file is
+ * read from memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class FilterBenchmark {
+    private BenchmarkFile data;
+
+    @Setup
+    public void setup() throws IOException {
+        data = new BenchmarkFile("TutorialData.yxdb");
+    }
+
+    @Benchmark
+    public long boxedValues(ThroughputCounters counters) throws IOException {
+        var reader = new YxdbReader(data.stream());
+        long matches = 0;
+        while (reader.next()) {
+            var userId = reader.readLong("UserID");
+            if (userId != null && userId > 1000 && "Mr".equals(reader.readString("Prefix"))) {
+                matches++;
+            }
+        }
+        counters.add(reader.numRecords, data.bytes.length);
+        return matches;
+    }
+
+    @Benchmark
+    public long recordFilter(ThroughputCounters counters) throws IOException {
+        var reader = new YxdbReader(data.stream());
+        reader.filter(reader.longField("UserID").whereGreaterThan(1000).and(reader.stringField("Prefix").whereEquals("Mr")));
+        long matches = 0;
+        while (reader.next()) {
+            matches++;
+        }
+        counters.add(reader.numRecords, data.bytes.length);
+        return matches;
+    }
+}
@@ -0,0 +1,56 @@
+package com.tlarsendataguy.yxdb;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decompresses the first LZF block of each file, and compresses it again. MB/s is measured against the decompressed
+ * bytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class LzfBenchmark {
+    @Param({"LotsOfRecords.yxdb", "TutorialData.yxdb", "VeryLongField.yxdb"})
+    public String file;
+
+    private Lzf lzf;
+    private int blockLength;
+    private final LzfCompressor compressor = new LzfCompressor();
+    private byte[] decompressed;
+    private int decompressedLength;
+    private final byte[] compressed = new byte[BufferedRecordReader.lzfBufferSize];
+
+    @Setup
+    public void setup() throws IOException {
+        var data = new BenchmarkFile(file);
+        blockLength = ByteBuffer.wrap(data.bytes).order(ByteOrder.LITTLE_ENDIAN).getInt(data.recordsStart);
+        var blockStart = data.recordsStart + 4;
+        var in = Arrays.copyOfRange(data.bytes, blockStart, blockStart + blockLength);
+        lzf = new Lzf(in, new byte[BufferedRecordReader.lzfBufferSize]);
+        decompressedLength = lzf.decompress(blockLength);
+        decompressed = Arrays.copyOf(lzf.outBuffer, decompressedLength);
+    }
+
+    @Benchmark
+    public int decompress(ThroughputCounters counters) {
+        var written = lzf.decompress(blockLength);
+        counters.add(0, written);
+        return written;
+    }
+
+    @Benchmark
+    public int compress(ThroughputCounters counters) {
+        var written = compressor.compress(decompressed, decompressedLength, compressed);
+        counters.add(0, decompressedLength);
+        return written;
+    }
+}
@@ -0,0 +1,60 @@
+package com.tlarsendataguy.yxdb;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the non-null values of the first field of every record with YxdbParallelScanner, against a single
+ * YxdbReader reading the same file. The scanner only spreads work across threads on files with more than one LZF block.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ParallelScanBenchmark {
+    @Param({"LotsOfRecords.yxdb", "VeryLongField.yxdb"})
+    public String file;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private BenchmarkFile data;
+    private YxdbParallelScanner scanner;
+
+    @Setup
+    public void setup() throws IOException {
+        data = new BenchmarkFile(file);
+        scanner = new YxdbParallelScanner(data.path, threads);
+    }
+
+    @Benchmark
+    public long reader(ThroughputCounters counters) throws IOException {
+        var reader = new YxdbReader(data.path);
+        long records = 0;
+        while (reader.next()) {
+            if (!reader.isNull(0)) {
+                records++;
+            }
+        }
+        counters.add(records, data.bytes.length);
+        return records;
+    }
+
+    @Benchmark
+    public long scanner(ThroughputCounters counters) throws IOException {
+        var records = scanner.scan(() -> new long[1], (count, row) -> {
+            if (!row.isNull(0)) {
+                count[0]++;
+            }
+        }, (a, b) -> {
+            a[0] += b[0];
+            return a;
+        })[0];
+        counters.add(records, data.bytes.length);
+        return records;
+    }
+}
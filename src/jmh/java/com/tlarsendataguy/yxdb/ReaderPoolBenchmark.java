@@ -0,0 +1,47 @@
+package com.tlarsendataguy.yxdb;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a small file and reads the first field of every record, over and over, with new YxdbReader(path) or with a
+ * YxdbReaderPool. Both measure the cost of opening a file more than of reading it. The GC profiler shows how much
+ * each open allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ReaderPoolBenchmark {
+    @Param({"AllNormalFields.yxdb", "TutorialData.yxdb"})
+    public String file;
+
+    @Param({"new", "pooled"})
+    public String open;
+
+    private BenchmarkFile data;
+    private YxdbReaderPool pool;
+
+    @Setup
+    public void setup() throws IOException {
+        data = new BenchmarkFile(file);
+        pool = new YxdbReaderPool(16);
+    }
+
+    @Benchmark
+    public long openAndScan(ThroughputCounters counters, Blackhole blackhole) throws IOException {
+        var reader = open.equals("pooled") ? pool.open(data.path) : new YxdbReader(data.path);
+        long records = 0;
+        while (reader.next()) {
+            blackhole.consume(reader.isNull(0));
+            records++;
+        }
+        counters.add(records, data.bytes.length);
+        return records;
+    }
+}
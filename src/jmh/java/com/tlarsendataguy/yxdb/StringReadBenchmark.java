@@ -0,0 +1,85 @@
+package com.tlarsendataguy.yxdb;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashes every text field of TutorialData.yxdb, which holds String, V_String and V_WString fields, comparing
+ * readString with the copy-free StringView and readStringInto paths. The file is read from memory.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class StringReadBenchmark {
+    private BenchmarkFile data;
+    private final StringBuilder builder = new StringBuilder();
+
+    @Setup
+    public void setup() throws IOException {
+        data = new BenchmarkFile("TutorialData.yxdb");
+    }
+
+    @Benchmark
+    public long readString(ThroughputCounters counters) throws IOException {
+        var reader = new YxdbReader(data.stream());
+        var fields = textFields(reader);
+        long hash = 0;
+        while (reader.next()) {
+            for (var field : fields) {
+                var value = field.read();
+                hash += value == null ? 0 : value.hashCode();
+            }
+        }
+        counters.add(reader.numRecords, data.bytes.length);
+        return hash;
+    }
+
+    @Benchmark
+    public long readView(ThroughputCounters counters) throws IOException {
+        var reader = new YxdbReader(data.stream());
+        var fields = textFields(reader);
+        long hash = 0;
+        while (reader.next()) {
+            for (var field : fields) {
+                var value = field.readView();
+                hash += value == null ? 0 : value.contentHashCode();
+            }
+        }
+        counters.add(reader.numRecords, data.bytes.length);
+        return hash;
+    }
+
+    @Benchmark
+    public long readInto(ThroughputCounters counters) throws IOException {
+        var reader = new YxdbReader(data.stream());
+        var fields = textFields(reader);
+        long hash = 0;
+        while (reader.next()) {
+            for (var field : fields) {
+                builder.setLength(0);
+                if (field.readInto(builder)) {
+                    hash += builder.length();
+                }
+            }
+        }
+        counters.add(reader.numRecords, data.bytes.length);
+        return hash;
+    }
+
+    private static List<FieldHandle.StringField> textFields(YxdbReader reader) {
+        var handles = new ArrayList<FieldHandle.StringField>();
+        for (var field : reader.listFields()) {
+            if (field.type() == YxdbField.DataType.STRING) {
+                handles.add(reader.stringField(field.name()));
+            }
+        }
+        return handles;
+    }
+}
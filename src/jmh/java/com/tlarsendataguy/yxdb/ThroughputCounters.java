@@ -0,0 +1,29 @@
+package com.tlarsendataguy.yxdb;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary JMH results. Because the counters are of the OPERATIONS type, JMH reports them as rates, so megabytes
+ * shows up as MB/s and records as records/s next to the primary ops/s score.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ThroughputCounters {
+    public double megabytes;
+    public long records;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        megabytes = 0;
+        records = 0;
+    }
+
+    void add(long records, long bytes) {
+        this.records += records;
+        this.megabytes += bytes / 1048576.0;
+    }
+}
@@ -0,0 +1,68 @@
+package com.tlarsendataguy.yxdb;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes 100,000 records of integers, doubles, datetimes and text to a temporary file with YxdbWriter. The values are
+ * generated up front, so the benchmark measures laying out, compressing and writing the records, with blocks compressed
+ * on the calling thread or on worker threads.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class WriterBenchmark {
+    private static final int records = 100000;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private final YxdbSchema schema = new YxdbSchema().addInt64("Id").addDouble("Amount").addDateTime("Created")
+            .addVString("Code").addVWString("Name");
+    private final double[] amounts = new double[records];
+    private final LocalDateTime[] created = new LocalDateTime[records];
+    private final String[] codes = new String[records];
+    private final String[] names = new String[records];
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        var start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        for (int i = 0; i < records; i++) {
+            amounts[i] = i * 1.25;
+            created[i] = start.plusMinutes(i);
+            codes[i] = "C" + (i % 1000);
+            names[i] = "Customer number " + i;
+        }
+        file = Files.createTempFile("WriterBenchmark", ".yxdb");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public long write(ThroughputCounters counters) throws IOException {
+        try (var writer = new YxdbWriter(file.toString(), schema, threads)) {
+            for (int i = 0; i < records; i++) {
+                writer.setLong(0, i);
+                writer.setDouble(1, amounts[i]);
+                writer.setDateTime(2, created[i]);
+                writer.setString(3, codes[i]);
+                writer.setString(4, names[i]);
+                writer.writeRecord();
+            }
+        }
+        counters.add(records, Files.size(file));
+        return records;
+    }
+}
@@ -0,0 +1,209 @@
+package com.tlarsendataguy.yxdb;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens a file with YxdbReader and reads every field of every record through the public readX methods.
+ * MB/s is measured against the size of the file.
+ * <p>
+ * The memory source reads from a copy of the file held in memory, file reads through a FileInputStream, and
+ * mapped reads through a memory-mapped file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class YxdbReaderBenchmark {
+    @Param({"LotsOfRecords.yxdb", "VeryLongField.yxdb", "AllNormalFields.yxdb"})
+    public String file;
+
+    @Param({"memory", "file", "mapped"})
+    public String source;
+
+    private BenchmarkFile data;
+
+    @Setup
+    public void setup() throws IOException {
+        data = new BenchmarkFile(file);
+    }
+
+    @Benchmark
+    public long scan(ThroughputCounters counters, Blackhole blackhole) throws IOException {
+        var reader = openReader();
+        var fields = reader.listFields();
+        long records = 0;
+        while (reader.next()) {
+            for (int i = 0; i < fields.size(); i++) {
+                switch (fields.get(i).type()) {
+                    case BLOB -> blackhole.consume(reader.readBlob(i));
+                    case BOOLEAN -> blackhole.consume(reader.readBoolean(i));
+                    case BYTE -> blackhole.consume(reader.readByte(i));
+                    case DATE -> blackhole.consume(reader.readDate(i));
+                    case DOUBLE -> blackhole.consume(reader.readDouble(i));
+                    case LONG -> blackhole.consume(reader.readLong(i));
+                    case STRING -> blackhole.consume(reader.readString(i));
+                }
+            }
+            records++;
+        }
+        counters.add(records, data.bytes.length);
+        return records;
+    }
+
+    /**
+     * Reads the byte, boolean and numeric fields through isNull and the primitive readXValue methods, which do not box.
+     */
+    @Benchmark
+    public long scanPrimitives(ThroughputCounters counters, Blackhole blackhole) throws IOException {
+        var reader = openReader();
+        var fields = reader.listFields();
+        long records = 0;
+        while (reader.next()) {
+            for (int i = 0; i < fields.size(); i++) {
+                if (reader.isNull(i)) {
+                    continue;
+                }
+                switch (fields.get(i).type()) {
+                    case BOOLEAN -> blackhole.consume(reader.readBooleanValue(i));
+                    case BYTE -> blackhole.consume(reader.readByteValue(i));
+                    case DOUBLE -> blackhole.consume(reader.readDoubleValue(i));
+                    case LONG -> blackhole.consume(reader.readLongValue(i));
+                    default -> { }
+                }
+            }
+            records++;
+        }
+        counters.add(records, data.bytes.length);
+        return records;
+    }
+
+    /**
+     * Same reads as scanPrimitives, but addressing each field by name on every record.
+     */
+    @Benchmark
+    public long scanPrimitivesByName(ThroughputCounters counters, Blackhole blackhole) throws IOException {
+        var reader = openReader();
+        var fields = reader.listFields();
+        long records = 0;
+        while (reader.next()) {
+            for (var field : fields) {
+                var name = field.name();
+                if (reader.isNull(name)) {
+                    continue;
+                }
+                switch (field.type()) {
+                    case BOOLEAN -> blackhole.consume(reader.readBooleanValue(name));
+                    case BYTE -> blackhole.consume(reader.readByteValue(name));
+                    case DOUBLE -> blackhole.consume(reader.readDoubleValue(name));
+                    case LONG -> blackhole.consume(reader.readLongValue(name));
+                    default -> { }
+                }
+            }
+            records++;
+        }
+        counters.add(records, data.bytes.length);
+        return records;
+    }
+
+    /**
+     * Same reads as scanPrimitivesByName, through field handles resolved by name before the loop.
+     */
+    @Benchmark
+    public long scanFieldHandles(ThroughputCounters counters, Blackhole blackhole) throws IOException {
+        var reader = openReader();
+        var handles = new ArrayList<FieldHandle>();
+        for (var field : reader.listFields()) {
+            handles.add(reader.field(field.name()));
+        }
+        long records = 0;
+        while (reader.next()) {
+            for (var handle : handles) {
+                if (handle.isNull()) {
+                    continue;
+                }
+                if (handle instanceof FieldHandle.BooleanField bool) {
+                    blackhole.consume(bool.readValue());
+                } else if (handle instanceof FieldHandle.ByteField byteField) {
+                    blackhole.consume(byteField.readValue());
+                } else if (handle instanceof FieldHandle.DoubleField doubleField) {
+                    blackhole.consume(doubleField.readValue());
+                } else if (handle instanceof FieldHandle.LongField longField) {
+                    blackhole.consume(longField.readValue());
+                }
+            }
+            records++;
+        }
+        counters.add(records, data.bytes.length);
+        return records;
+    }
+
+    /**
+     * Checks only the first field of every record, with and without a projection on that field. Files whose first
+     * field is fixed-size skip their variable-length data when projected.
+     */
+    @Benchmark
+    public long firstField(ThroughputCounters counters) throws IOException {
+        return countFirstField(openReader(new YxdbReaderOptions()), counters);
+    }
+
+    @Benchmark
+    public long firstFieldProjected(ThroughputCounters counters) throws IOException {
+        return countFirstField(openReader(new YxdbReaderOptions().fields(0)), counters);
+    }
+
+    private long countFirstField(YxdbReader reader, ThroughputCounters counters) throws IOException {
+        long records = 0;
+        while (reader.next()) {
+            if (!reader.isNull(0)) {
+                records++;
+            }
+        }
+        counters.add(records, data.bytes.length);
+        return records;
+    }
+
+    /**
+     * Copies every record into a YxdbRow through stream(), sequentially and in parallel. Streams over the memory
+     * source cannot split, so only the file and mapped sources show a parallel speedup, and only on files with more
+     * than one record block.
+     */
+    @Benchmark
+    public long stream(ThroughputCounters counters) throws IOException {
+        long records;
+        try (var rows = openReader().stream()) {
+            records = rows.filter(row -> !row.isNull(0)).count();
+        }
+        counters.add(records, data.bytes.length);
+        return records;
+    }
+
+    @Benchmark
+    public long parallelStream(ThroughputCounters counters) throws IOException {
+        long records;
+        try (var rows = openReader().stream()) {
+            records = rows.parallel().filter(row -> !row.isNull(0)).count();
+        }
+        counters.add(records, data.bytes.length);
+        return records;
+    }
+
+    private YxdbReader openReader() throws IOException {
+        return openReader(new YxdbReaderOptions());
+    }
+
+    private YxdbReader openReader(YxdbReaderOptions options) throws IOException {
+        return switch (source) {
+            case "memory" -> new YxdbReader(data.stream(), options);
+            case "file" -> new YxdbReader(data.path, options);
+            case "mapped" -> new YxdbReader(data.path, options.memoryMapped(true));
+            default -> throw new IllegalArgumentException("unknown source " + source);
+        };
+    }
+}
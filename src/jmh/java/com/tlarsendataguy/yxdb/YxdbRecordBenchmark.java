@@ -0,0 +1,129 @@
+package com.tlarsendataguy.yxdb;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the YxdbRecord accessors that back the readX methods, using the single record in
+ * AllNormalFields.yxdb. Reading every field of the record in turn keeps the per-field dispatch from being
+ * specialized to a single field type, which is how the accessors are called in a real scan.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class YxdbRecordBenchmark {
+    private YxdbRecord record;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup() throws IOException {
+        record = YxdbRecord.newFromFieldList(List.of(
+                new MetaInfoField("ByteField", "Byte", 1, 0),
+                new MetaInfoField("BoolField", "Bool", 1, 0),
+                new MetaInfoField("Int16Field", "Int16", 2, 0),
+                new MetaInfoField("Int32Field", "Int32", 4, 0),
+                new MetaInfoField("Int64Field", "Int64", 8, 0),
+                new MetaInfoField("FixedDecimalField", "FixedDecimal", 19, 6),
+                new MetaInfoField("FloatField", "Float", 4, 0),
+                new MetaInfoField("DoubleField", "Double", 8, 0),
+                new MetaInfoField("StringField", "String", 64, 0),
+                new MetaInfoField("WStringField", "WString", 64, 0),
+                new MetaInfoField("V_StringShortField", "V_String", 4, 0),
+                new MetaInfoField("V_StringLongField", "V_String", 4, 0),
+                new MetaInfoField("V_WStringShortField", "V_WString", 4, 0),
+                new MetaInfoField("V_WStringLongField", "V_WString", 4, 0),
+                new MetaInfoField("DateField", "Date", 10, 0),
+                new MetaInfoField("DateTimeField", "DateTime", 19, 0)
+        ));
+        var data = new BenchmarkFile("AllNormalFields.yxdb");
+        var reader = new BufferedRecordReader(data.recordStream(), record.fixedSize, record.hasVar, data.numRecords);
+        reader.nextRecord();
+        buffer = reader.recordBuffer;
+    }
+
+    /**
+     * Reads all 16 fields of the record through the boxed accessors.
+     */
+    @Benchmark
+    public void boxedFields(Blackhole blackhole) {
+        var fields = record.fields;
+        for (int i = 0; i < fields.size(); i++) {
+            switch (fields.get(i).type()) {
+                case BLOB -> blackhole.consume(record.extractBlobFrom(i, buffer));
+                case BOOLEAN -> blackhole.consume(record.extractBooleanFrom(i, buffer));
+                case BYTE -> blackhole.consume(record.extractByteFrom(i, buffer));
+                case DATE -> blackhole.consume(record.extractDateFrom(i, buffer));
+                case DOUBLE -> blackhole.consume(record.extractDoubleFrom(i, buffer));
+                case LONG -> blackhole.consume(record.extractLongFrom(i, buffer));
+                case STRING -> blackhole.consume(record.extractStringFrom(i, buffer));
+            }
+        }
+    }
+
+    /**
+     * Reads the 7 fixed-width numeric fields (Byte, Bool, Int16, Int32, Int64, Float, Double) through isNull and the
+     * primitive accessors. The per-field cost is the score divided by 7.
+     */
+    @Benchmark
+    public void primitiveFields(Blackhole blackhole) {
+        var fields = record.fields;
+        for (int i = 0; i < 8; i++) {
+            if (i == 5 || record.isNull(i, buffer)) { // skip FixedDecimal, its parsing cost would dominate
+                continue;
+            }
+            switch (fields.get(i).type()) {
+                case BOOLEAN -> blackhole.consume(record.extractBooleanValueFrom(i, buffer));
+                case BYTE -> blackhole.consume(record.extractByteValueFrom(i, buffer));
+                case DOUBLE -> blackhole.consume(record.extractDoubleValueFrom(i, buffer));
+                case LONG -> blackhole.consume(record.extractLongValueFrom(i, buffer));
+                default -> { }
+            }
+        }
+    }
+
+    /**
+     * Checks every field of the record for null.
+     */
+    @Benchmark
+    public void isNull(Blackhole blackhole) {
+        for (int i = 0; i < 16; i++) {
+            blackhole.consume(record.isNull(i, buffer));
+        }
+    }
+
+    /**
+     * Reads the Date and DateTime fields as java.util.Date.
+     */
+    @Benchmark
+    public void dates(Blackhole blackhole) {
+        blackhole.consume(record.extractDateFrom(14, buffer));
+        blackhole.consume(record.extractDateFrom(15, buffer));
+    }
+
+    /**
+     * Reads the Date and DateTime fields as epoch milliseconds, which allocates nothing.
+     */
+    @Benchmark
+    public void epochMillis(Blackhole blackhole) {
+        blackhole.consume(record.extractEpochMillisValueFrom(14, buffer));
+        blackhole.consume(record.extractEpochMillisValueFrom(15, buffer));
+    }
+
+    /**
+     * Reads the FixedDecimal field as a double, as an unscaled long, and as a BigDecimal.
+     */
+    @Benchmark
+    public void fixedDecimal(Blackhole blackhole) {
+        blackhole.consume(record.extractDoubleValueFrom(5, buffer));
+        blackhole.consume(record.extractUnscaledLongValueFrom(5, buffer));
+        blackhole.consume(record.extractDecimalFrom(5, buffer));
+    }
+}
@@ -0,0 +1,53 @@
+package com.tlarsendataguy.yxdb;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+
+/**
+ * Lends out the 256 KB buffers that LZF blocks are read and decompressed into.
+ * <p>
+ * Every reader needs at least 2 of these buffers. Readers that are opened and closed over and over would otherwise
+ * allocate new ones each time and leave the old ones to the garbage collector, where the buffers of long scans are
+ * promoted to the old generation before they die. Readers take their buffers from the pool and give them back when
+ * they are closed, which happens on its own once the last record has been read, so the number of buffers follows the
+ * number of readers in use at the same time rather than the number of readers opened. A buffer that is never given
+ * back, for example by a reader dropped part way through a file, is collected as usual.
+ * <p>
+ * The most recently returned buffer is lent out first. At most maxIdle buffers are kept while no reader is using them.
+ */
+class BlockBufferPool {
+    static final BlockBufferPool shared = new BlockBufferPool(64);
+
+    BlockBufferPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    private final int maxIdle;
+    private final ArrayDeque<ByteBuffer> idle = new ArrayDeque<>();
+
+    /**
+     * @return a little-endian heap buffer of BufferedRecordReader.lzfBufferSize bytes, cleared. Its contents are left
+     *         over from its last user.
+     */
+    synchronized ByteBuffer take() {
+        var buffer = idle.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(BufferedRecordReader.lzfBufferSize).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return buffer.clear().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns a buffer to the pool. The caller must not use the buffer afterwards, or give it back twice.
+     */
+    synchronized void give(ByteBuffer buffer) {
+        if (idle.size() < maxIdle && buffer.capacity() == BufferedRecordReader.lzfBufferSize) {
+            idle.push(buffer);
+        }
+    }
+
+    synchronized int idle() {
+        return idle.size();
+    }
+}
@@ -0,0 +1,125 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Lists points in a .yxdb file where reading can start without reading the records before them.
+ * <p>
+ * Each entry is the file offset of an LZF block, the number of the first record that starts in that block, and the
+ * position in the decompressed block where that record starts. A BufferedRecordReader started at an entry reads the
+ * records from that entry on.
+ * <p>
+ * Every .yxdb file ends with such an index, found at the offset stored at position 96 of the header. It holds a
+ * 4-byte entry count followed by the 8-byte offset of each entry. Entries start a new LZF block every 65,536 records,
+ * so the record always starts at position 0 of the block. A YxdbIndex built from the file lists every block instead.
+ */
+class BlockIndex {
+    static final int recordsPerNativeBlock = 65536;
+
+    BlockIndex(long[] offsets, long[] firstRecords, int[] recordOffsets, long numRecords) {
+        this.offsets = offsets;
+        this.firstRecords = firstRecords;
+        this.recordOffsets = recordOffsets;
+        this.numRecords = numRecords;
+    }
+    final long[] offsets;
+    final long[] firstRecords;
+    final int[] recordOffsets;
+    final long numRecords;
+
+    int blockCount() {
+        return offsets.length;
+    }
+
+    long offset(int block) {
+        return offsets[block];
+    }
+
+    int recordOffset(int block) {
+        return recordOffsets[block];
+    }
+
+    /**
+     * @return the last entry whose first record is at or before the given record
+     */
+    int entryFor(long record) {
+        var low = 0;
+        var high = offsets.length - 1;
+        while (low < high) {
+            var middle = (low + high + 1) >>> 1;
+            if (firstRecords[middle] <= record) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Starts reading the records of an entry.
+     * @param source a block source positioned at the offset of the entry
+     * @param toRecord the number of the record after the last one to read
+     * @param pool the pool to take the record buffer from, or null
+     */
+    BufferedRecordReader openAt(int block, LzfBlockSource source, YxdbRecord record, long toRecord, int readAheadBlocks, YxdbReaderPool pool) throws IOException {
+        var reader = new BufferedRecordReader(source, record.fixedSize, record.hasVar, toRecord, readAheadBlocks, pool);
+        reader.skipVarData = !record.readsVarData;
+        reader.startAt(firstRecords[block], recordOffsets[block]);
+        return reader;
+    }
+
+    // Returns numRecords for block == blockCount(), so the records of a range of blocks are firstRecord(to) - firstRecord(from).
+    long firstRecord(int block) {
+        if (block == offsets.length) {
+            return numRecords;
+        }
+        return firstRecords[block];
+    }
+
+    /**
+     * Reads the record block index stored at the end of a .yxdb file.
+     * @return the index, or null if the index does not match the layout described above
+     */
+    static BlockIndex readNative(FileChannel channel, long indexPosition, long recordsStart, long numRecords) throws IOException {
+        var fileSize = channel.size();
+        if (indexPosition < recordsStart || indexPosition + 4 > fileSize) {
+            return null;
+        }
+        var countBuffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, countBuffer, indexPosition);
+        var count = countBuffer.getInt(0);
+        var expected = Math.max(1, (numRecords + recordsPerNativeBlock - 1) / recordsPerNativeBlock);
+        if (count != expected || indexPosition + 4 + (count * 8L) > fileSize) {
+            return null;
+        }
+
+        var entries = ByteBuffer.allocate(count * 8).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, entries, indexPosition + 4);
+        var offsets = new long[count];
+        var firstRecords = new long[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = entries.getLong(i * 8);
+            firstRecords[i] = (long) i * recordsPerNativeBlock;
+            var previous = i == 0 ? recordsStart - 1 : offsets[i - 1];
+            if (offsets[i] <= previous || offsets[i] >= indexPosition) {
+                return null;
+            }
+        }
+        if (offsets[0] != recordsStart) {
+            return null;
+        }
+        return new BlockIndex(offsets, firstRecords, new int[count], numRecords);
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("yxdb file is not valid");
+            }
+        }
+    }
+}
@@ -8,39 +8,59 @@ import java.nio.ByteOrder;
 class BufferedRecordReader {
     static int lzfBufferSize = 262144;
     public BufferedRecordReader(InputStream stream, int fixedLen, boolean hasVarFields, long totalRecords) {
+        this(new StreamBlockSource(stream), fixedLen, hasVarFields, totalRecords);
+    }
+    public BufferedRecordReader(LzfBlockSource source, int fixedLen, boolean hasVarFields, long totalRecords) {
+        this(source, fixedLen, hasVarFields, totalRecords, 0);
+    }
+    public BufferedRecordReader(LzfBlockSource source, int fixedLen, boolean hasVarFields, long totalRecords, int readAheadBlocks) {
+        this(source, fixedLen, hasVarFields, totalRecords, readAheadBlocks, null);
+    }
+    // With a pool, the record buffer is taken from the pool and given back by releaseRecordBuffer().
+    public BufferedRecordReader(LzfBlockSource source, int fixedLen, boolean hasVarFields, long totalRecords, int readAheadBlocks, YxdbReaderPool pool) {
         this.totalRecords = totalRecords;
-        this.stream = stream;
+        this.source = source;
         this.fixedLen = fixedLen;
         this.hasVarFields = hasVarFields;
-        if (hasVarFields) {
-            recordBuffer = ByteBuffer.allocate(fixedLen + 4 + 1000).order(ByteOrder.LITTLE_ENDIAN);
+        this.pool = pool;
+        var capacity = hasVarFields ? fixedLen + 4 + 1000 : fixedLen;
+        if (pool == null) {
+            recordBuffer = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        } else {
+            recordBuffer = pool.takeRecordBuffer(capacity);
+        }
+        if (readAheadBlocks > 0) {
+            readAhead = new ReadAheadDecompressor(source, readAheadBlocks);
+            lzf = null;
         } else {
-            recordBuffer = ByteBuffer.allocate(fixedLen).order(ByteOrder.LITTLE_ENDIAN);
+            readAhead = null;
+            lzfOut = BlockBufferPool.shared.take();
+            lzf = new Lzf(source.lzfIn.array(), lzfOut.array());
         }
-        lzfIn = ByteBuffer.allocate(lzfBufferSize).order(ByteOrder.LITTLE_ENDIAN);
-        lzfOut = ByteBuffer.allocate(lzfBufferSize).order(ByteOrder.LITTLE_ENDIAN);
-        lzf = new Lzf(lzfIn.array(), lzfOut.array());
-        lzfLengthBuffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
     }
-    final InputStream stream;
+    final LzfBlockSource source;
     final int fixedLen;
     final boolean hasVarFields;
-    final long totalRecords;
+    final YxdbReaderPool pool;
+    long totalRecords;
 
-    final ByteBuffer lzfIn;
-    final ByteBuffer lzfOut;
+    ByteBuffer lzfOut;
     int lzfOutIndex;
     int lzfOutSize;
     final Lzf lzf;
-    final ByteBuffer lzfLengthBuffer;
+    final ReadAheadDecompressor readAhead;
     ByteBuffer recordBuffer;
     int recordBufferIndex;
     long currentRecord;
+    // When set, records are read up to their variable-length data, which is skipped without being copied.
+    boolean skipVarData;
+    private boolean closed;
+    private boolean recordBufferReleased;
 
     public boolean nextRecord() throws IOException {
         currentRecord++;
         if (currentRecord > totalRecords) {
-            stream.close();
+            close();
             return false;
         }
         recordBufferIndex = 0;
@@ -52,9 +72,87 @@ class BufferedRecordReader {
         return true;
     }
 
+    /**
+     * Moves past the next records without copying them into recordBuffer. Fixed-size records are skipped as one run of
+     * bytes. For records with variable-length data, only the 4-byte length of the variable data is read from each
+     * record. Blocks that hold no wanted bytes are decompressed, but nothing is copied out of them.
+     * <p>
+     * recordBuffer is left as it was, so it does not hold the current record until the next call to nextRecord().
+     * @param count the number of records to skip
+     * @return the number of records skipped, which is less than count if the last record is reached first
+     */
+    long skipRecords(long count) throws IOException {
+        var toSkip = Math.max(0, Math.min(count, totalRecords - currentRecord));
+        if (!hasVarFields) {
+            skip(toSkip * fixedLen);
+            currentRecord += toSkip;
+            return toSkip;
+        }
+        for (long i = 0; i < toSkip; i++) {
+            skip(fixedLen);
+            var varLength = readVarLength();
+            if (varLength < 0) {
+                throw new IOException("yxdb file is not valid");
+            }
+            skip(varLength);
+            currentRecord++;
+        }
+        return toSkip;
+    }
+
+    private void skip(long size) throws IOException {
+        while (size > 0) {
+            if (lzfOutIndex == lzfOutSize) {
+                lzfOutSize = readNextLzfBlock();
+                lzfOutIndex = 0;
+            }
+            var step = (int) Math.min(size, lzfOutSize - lzfOutIndex);
+            lzfOutIndex += step;
+            size -= step;
+        }
+    }
+
+    private int readVarLength() throws IOException {
+        if (lzfOutSize - lzfOutIndex >= 4) {
+            var varLength = lzfOut.getInt(lzfOutIndex);
+            lzfOutIndex += 4;
+            return varLength;
+        }
+        var varLength = 0;
+        for (int i = 0; i < 4; i++) {
+            if (lzfOutIndex == lzfOutSize) {
+                lzfOutSize = readNextLzfBlock();
+                lzfOutIndex = 0;
+            }
+            varLength |= (lzfOut.get(lzfOutIndex) & 0xff) << (8 * i);
+            lzfOutIndex++;
+        }
+        return varLength;
+    }
+
+    /**
+     * Moves the reader to a record that starts part way into the first block of the source.
+     * @param record the number of the record, counting from 0. The next call to nextRecord() reads it.
+     * @param blockOffset where the record starts in the decompressed block
+     */
+    void startAt(long record, int blockOffset) throws IOException {
+        currentRecord = record;
+        if (blockOffset > 0) {
+            lzfOutSize = readNextLzfBlock();
+            if (blockOffset > lzfOutSize) {
+                throw new IOException("yxdb file is not valid");
+            }
+            lzfOutIndex = blockOffset;
+        }
+    }
+
     private void readVariableRecord() throws IOException {
         read(fixedLen+4);
         var varLength = recordBuffer.getInt(recordBufferIndex-4);
+        if (skipVarData) {
+            skip(varLength);
+            return;
+        }
         if (fixedLen+4+varLength > recordBuffer.capacity()) {
             var newLength = (fixedLen+4+varLength) * 2;
             var newBuffer = ByteBuffer.allocate(newLength).order(ByteOrder.LITTLE_ENDIAN);
@@ -91,23 +189,47 @@ class BufferedRecordReader {
         return remainingLzf;
     }
 
-    private int readNextLzfBlock() throws IOException{
-        var lzfBlockLength = readLzfBlockLength();
-        var checkbit = (long)lzfBlockLength & 0x80000000L;
-        if (checkbit > 0) {
-            lzfBlockLength &= 0x7ffffff;
-            return stream.readNBytes(lzfOut.array(),0, lzfBlockLength);
-        } else {
-            var readIn = stream.readNBytes(lzfIn.array(), 0, lzfBlockLength);
-            return lzf.decompress(readIn);
+    /**
+     * Closes the source and gives the block buffers back to BlockBufferPool. The record buffer is kept, so the last
+     * record stays readable. Calling close() again has no effect.
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        var stopped = true;
+        try {
+            if (readAhead != null) {
+                stopped = readAhead.close();
+            } else {
+                BlockBufferPool.shared.give(lzfOut);
+            }
+            source.close();
+        } finally {
+            // lzfIn stays out of the pool while a read-ahead producer that did not stop may still be reading into it
+            if (stopped) {
+                source.release();
+            }
         }
     }
 
-    private int readLzfBlockLength() throws IOException {
-        var read = stream.readNBytes(lzfLengthBuffer.array(), 0, 4);
-        if (read < 4) {
-            throw new IOException("yxdb file is not valid");
+    /**
+     * Gives the record buffer back to the reader pool, if there is one. Nothing may be read from the reader afterwards.
+     * Calling releaseRecordBuffer() again has no effect.
+     */
+    void releaseRecordBuffer() {
+        if (pool != null && !recordBufferReleased) {
+            recordBufferReleased = true;
+            pool.giveRecordBuffer(recordBuffer);
+        }
+    }
+
+    private int readNextLzfBlock() throws IOException{
+        if (readAhead != null) {
+            lzfOut = readAhead.nextBlock();
+            return lzfOut.limit();
         }
-        return lzfLengthBuffer.getInt(0);
+        return source.readNextBlockInto(lzf);
     }
 }
@@ -0,0 +1,65 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads LZF blocks from a FileChannel with positional reads, starting at a given offset.
+ * <p>
+ * Positional reads do not move the channel's own position, so several sources on different threads can share one
+ * channel. A shared channel belongs to whoever opened it: closing the source only closes the channel if the source
+ * was created as its owner.
+ */
+class ChannelBlockSource extends LzfBlockSource {
+    ChannelBlockSource(FileChannel channel, long start) {
+        this(channel, start, false);
+    }
+
+    ChannelBlockSource(FileChannel channel, long start, boolean ownsChannel) {
+        this.channel = channel;
+        this.position = start;
+        this.ownsChannel = ownsChannel;
+        lzfLengthBuffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    final FileChannel channel;
+    final ByteBuffer lzfLengthBuffer;
+    final boolean ownsChannel;
+
+    @Override
+    void readNextBlock() throws IOException {
+        lzfLengthBuffer.clear();
+        readFully(lzfLengthBuffer);
+        var lzfBlockLength = lzfLengthBuffer.getInt(0);
+        compressed = isCompressed(lzfBlockLength);
+        blockLength = blockLength(lzfBlockLength);
+        if (blockLength < 0 || blockLength > lzfIn.capacity()) {
+            throw new IOException("yxdb file is not valid");
+        }
+        lzfIn.clear().limit(blockLength);
+        readFully(lzfIn);
+    }
+
+    @Override
+    void skipBlock(int storedLength) {
+        position += storedLength;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (ownsChannel) {
+            channel.close();
+        }
+    }
+
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            var read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("yxdb file is not valid");
+            }
+            position += read;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package com.tlarsendataguy.yxdb;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A batch of records decoded column by column into primitive arrays, filled by YxdbReader.nextBatch().
+ * <p>
+ * Each field of the file is a column, at the same index as in YxdbReader.listFields(). The values of a column are
+ * read with the accessor for its type:
+ * <ul>
+ * <li>longs() for Byte, Int16, Int32 and Int64 fields</li>
+ * <li>doubles() for Float, Double and FixedDecimal fields</li>
+ * <li>booleans() for Bool fields</li>
+ * <li>epochDays() for Date fields, as days since 1970-01-01</li>
+ * <li>epochMillis() for DateTime fields, as milliseconds since 1970-01-01 00:00:00 UTC</li>
+ * <li>bytes() and offsets() for text and blob fields. The bytes of row r run from offsets[r] to offsets[r + 1]. Text
+ * is left in the field's raw encoding, given by charset().</li>
+ * </ul>
+ * Only the first rowCount() entries of each array hold values from the batch. Nulls are marked in a bitmap returned
+ * by nulls(), one bit per row, and hold 0, false or an empty byte range in the value arrays. Dates that are not valid
+ * are returned as nulls.
+ * <p>
+ * <code>
+ * var batch = new ColumnBatch();
+ * var amount = reader.field("Amount").index();
+ * while (reader.nextBatch(batch, 4096) > 0) {
+ *     var values = batch.doubles(amount);
+ *     for (int row = 0; row < batch.rowCount(); row++) {
+ *         total += values[row];
+ *     }
+ * }
+ * </code>
+ * <p>
+ * The arrays are reused by the next call to nextBatch(), and are only replaced when they need to grow, so copy any
+ * values that must outlive the batch. A batch can be reused across readers; its columns are rebuilt when the reader's
+ * fields differ from the previous one's.
+ */
+public final class ColumnBatch {
+    public ColumnBatch() {}
+
+    private YxdbRecord record;
+    private int rowCount;
+    private int capacity;
+    private long[][] nulls;
+    private long[][] longs;
+    private double[][] doubles;
+    private boolean[][] booleans;
+    private int[][] epochDays;
+    private long[][] epochMillis;
+    private byte[][] bytes;
+    private int[][] offsets;
+
+    // The raw records of the batch, one after the other, and where each one starts. Each column is decoded from
+    // them in one pass once the batch is full.
+    private ByteBuffer rows = ByteBuffer.allocate(0).order(ByteOrder.LITTLE_ENDIAN);
+    private int[] rowStarts = new int[0];
+    private int rowsLength;
+
+    /**
+     * @return the number of records in the batch
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the number of columns in the batch, which is the number of fields in the file
+     */
+    public int columnCount() {
+        return record == null ? 0 : record.types.length;
+    }
+
+    /**
+     * @param  column the index of the column, starting at 0
+     * @param  row    the index of the row, starting at 0
+     * @return true if the value of the column is null in the row
+     * @throws IllegalArgumentException thrown when the column or row is out of range
+     */
+    public boolean isNull(int column, int row) {
+        var bitmap = nulls(column);
+        if (row < 0 || row >= rowCount) {
+            throw new IllegalArgumentException("row " + row + " is out of range");
+        }
+        return (bitmap[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * @param  column the index of the column, starting at 0
+     * @return the null bitmap of the column. Bit (row % 64) of word (row / 64) is set when the row holds a null.
+     * @throws IllegalArgumentException thrown when the column is out of range or not in the reader's projection
+     */
+    public long[] nulls(int column) {
+        return checked(nulls, column, "valid");
+    }
+
+    /**
+     * @param  column the index of the column, starting at 0
+     * @return the values of a Byte, Int16, Int32 or Int64 column
+     * @throws IllegalArgumentException thrown when the column is out of range or is not an integer column
+     */
+    public long[] longs(int column) {
+        return checked(longs, column, "long integer or byte");
+    }
+
+    /**
+     * @param  column the index of the column, starting at 0
+     * @return the values of a Float, Double or FixedDecimal column
+     * @throws IllegalArgumentException thrown when the column is out of range or is not a numeric column
+     */
+    public double[] doubles(int column) {
+        return checked(doubles, column, "numeric");
+    }
+
+    /**
+     * @param  column the index of the column, starting at 0
+     * @return the values of a Bool column
+     * @throws IllegalArgumentException thrown when the column is out of range or is not a boolean column
+     */
+    public boolean[] booleans(int column) {
+        return checked(booleans, column, "boolean");
+    }
+
+    /**
+     * @param  column the index of the column, starting at 0
+     * @return the values of a Date column, as days since 1970-01-01
+     * @throws IllegalArgumentException thrown when the column is out of range or is not a date column
+     */
+    public int[] epochDays(int column) {
+        return checked(epochDays, column, "date");
+    }
+
+    /**
+     * @param  column the index of the column, starting at 0
+     * @return the values of a DateTime column, as milliseconds since 1970-01-01 00:00:00 UTC
+     * @throws IllegalArgumentException thrown when the column is out of range or is not a datetime column
+     */
+    public long[] epochMillis(int column) {
+        return checked(epochMillis, column, "datetime");
+    }
+
+    /**
+     * @param  column the index of the column, starting at 0
+     * @return the bytes of a text or blob column, one value after the other. Use offsets() to find each row's bytes.
+     * @throws IllegalArgumentException thrown when the column is out of range or is not a text or blob column
+     */
+    public byte[] bytes(int column) {
+        return checked(bytes, column, "string or blob");
+    }
+
+    /**
+     * @param  column the index of the column, starting at 0
+     * @return where each row's value starts in bytes(). The array holds rowCount() + 1 offsets, so the value of row r ends at offsets[r + 1].
+     * @throws IllegalArgumentException thrown when the column is out of range or is not a text or blob column
+     */
+    public int[] offsets(int column) {
+        return checked(offsets, column, "string or blob");
+    }
+
+    /**
+     * @param  column the index of the column, starting at 0
+     * @return the encoding of a text column's bytes: ISO-8859-1 for String and V_String fields, and UTF-16LE for WString and V_WString fields
+     * @throws IllegalArgumentException thrown when the column is out of range or is not a text column
+     */
+    public Charset charset(int column) {
+        checked(bytes, column, "string");
+        var type = record.types[column];
+        if (type == YxdbRecord.BLOB) {
+            throw wrongType(column, "string");
+        }
+        return Extractors.charsetOf(Extractors.charSizeOf(type));
+    }
+
+    /**
+     * Decodes one value of a text column into a String. Prefer bytes() and offsets() for bulk processing.
+     * @param  column the index of the column, starting at 0
+     * @param  row    the index of the row, starting at 0
+     * @return the text in the row. May be null.
+     * @throws IllegalArgumentException thrown when the column or row is out of range or the column is not a text column
+     */
+    public String string(int column, int row) {
+        var charset = charset(column);
+        if (isNull(column, row)) {
+            return null;
+        }
+        var columnOffsets = offsets[column];
+        return new String(bytes[column], columnOffsets[row], columnOffsets[row + 1] - columnOffsets[row], charset);
+    }
+
+    // Empties the batch and lays out its columns for the record, with room for at least maxRows rows.
+    void reset(YxdbRecord record, int maxRows) {
+        if (this.record != record) {
+            this.record = record;
+            capacity = 0;
+            var count = record.types.length;
+            nulls = new long[count][];
+            longs = new long[count][];
+            doubles = new double[count][];
+            booleans = new boolean[count][];
+            epochDays = new int[count][];
+            epochMillis = new long[count][];
+            bytes = new byte[count][];
+            offsets = new int[count][];
+        }
+        if (maxRows > capacity) {
+            capacity = maxRows;
+            rowStarts = new int[maxRows];
+            for (int i = 0; i < record.types.length; i++) {
+                allocate(i);
+            }
+        }
+        rowCount = 0;
+        rowsLength = 0;
+    }
+
+    void add(ByteBuffer buffer, int length) {
+        if (rowsLength + length > rows.capacity()) {
+            var grown = ByteBuffer.allocate(Math.max(rowsLength + length, rows.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN);
+            System.arraycopy(rows.array(), 0, grown.array(), 0, rowsLength);
+            rows = grown;
+        }
+        System.arraycopy(buffer.array(), 0, rows.array(), rowsLength, length);
+        rowStarts[rowCount] = rowsLength;
+        rowsLength += length;
+        rowCount++;
+    }
+
+    void decode() {
+        for (int i = 0; i < record.types.length; i++) {
+            if (record.types[i] != YxdbRecord.NOT_PROJECTED) {
+                Arrays.fill(nulls[i], 0, (rowCount + 63) >>> 6, 0);
+                decodeColumn(i);
+            }
+        }
+    }
+
+    private void allocate(int column) {
+        switch (record.types[column]) {
+            case YxdbRecord.NOT_PROJECTED -> {
+                return;
+            }
+            case YxdbRecord.BYTE, YxdbRecord.INT16, YxdbRecord.INT32, YxdbRecord.INT64 -> longs[column] = new long[capacity];
+            case YxdbRecord.FLOAT, YxdbRecord.DOUBLE, YxdbRecord.FIXED_DECIMAL -> doubles[column] = new double[capacity];
+            case YxdbRecord.BOOL -> booleans[column] = new boolean[capacity];
+            case YxdbRecord.DATE -> epochDays[column] = new int[capacity];
+            case YxdbRecord.DATETIME -> epochMillis[column] = new long[capacity];
+            default -> {
+                offsets[column] = new int[capacity + 1];
+                if (bytes[column] == null) {
+                    bytes[column] = new byte[0];
+                }
+            }
+        }
+        nulls[column] = new long[(capacity + 63) >>> 6];
+    }
+
+    private void decodeColumn(int column) {
+        var buffer = rows;
+        var start = record.starts[column];
+        var size = record.sizes[column];
+        var nullFlag = record.nullFlags[column];
+        var bitmap = nulls[column];
+        var type = record.types[column];
+        switch (type) {
+            case YxdbRecord.BYTE, YxdbRecord.INT16, YxdbRecord.INT32, YxdbRecord.INT64 -> {
+                var values = longs[column];
+                for (int row = 0; row < rowCount; row++) {
+                    var at = rowStarts[row];
+                    if (buffer.get(at + nullFlag) == 1) {
+                        bitmap[row >>> 6] |= 1L << row;
+                        values[row] = 0;
+                        continue;
+                    }
+                    values[row] = switch (type) {
+                        case YxdbRecord.BYTE -> buffer.get(at + start);
+                        case YxdbRecord.INT16 -> buffer.getShort(at + start);
+                        case YxdbRecord.INT32 -> buffer.getInt(at + start);
+                        default -> buffer.getLong(at + start);
+                    };
+                }
+            }
+            case YxdbRecord.FLOAT, YxdbRecord.DOUBLE, YxdbRecord.FIXED_DECIMAL -> {
+                var values = doubles[column];
+                for (int row = 0; row < rowCount; row++) {
+                    var at = rowStarts[row];
+                    if (buffer.get(at + nullFlag) == 1) {
+                        bitmap[row >>> 6] |= 1L << row;
+                        values[row] = 0;
+                        continue;
+                    }
+                    values[row] = switch (type) {
+                        case YxdbRecord.FLOAT -> buffer.getFloat(at + start);
+                        case YxdbRecord.DOUBLE -> buffer.getDouble(at + start);
+                        default -> Extractors.getFixedDecimal(buffer, at + start, size);
+                    };
+                }
+            }
+            case YxdbRecord.BOOL -> {
+                var values = booleans[column];
+                for (int row = 0; row < rowCount; row++) {
+                    var value = buffer.get(rowStarts[row] + start);
+                    if (value == 2) {
+                        bitmap[row >>> 6] |= 1L << row;
+                    }
+                    values[row] = value == 1;
+                }
+            }
+            case YxdbRecord.DATE -> {
+                var values = epochDays[column];
+                for (int row = 0; row < rowCount; row++) {
+                    var at = rowStarts[row];
+                    var day = buffer.get(at + nullFlag) == 1 ? Extractors.invalidDate : Extractors.getEpochDay(buffer, at + start);
+                    if (day == Extractors.invalidDate) {
+                        bitmap[row >>> 6] |= 1L << row;
+                        values[row] = 0;
+                    } else {
+                        values[row] = (int) day;
+                    }
+                }
+            }
+            case YxdbRecord.DATETIME -> {
+                var values = epochMillis[column];
+                for (int row = 0; row < rowCount; row++) {
+                    var at = rowStarts[row];
+                    var millis = buffer.get(at + nullFlag) == 1 ? Extractors.invalidDate : Extractors.getEpochMillis(buffer, at + start, true);
+                    if (millis == Extractors.invalidDate) {
+                        bitmap[row >>> 6] |= 1L << row;
+                        values[row] = 0;
+                    } else {
+                        values[row] = millis;
+                    }
+                }
+            }
+            default -> decodeBytes(column, type, start, size, nullFlag, bitmap);
+        }
+    }
+
+    private void decodeBytes(int column, byte type, int start, int size, int nullFlag, long[] bitmap) {
+        var buffer = rows;
+        var columnOffsets = offsets[column];
+        var columnBytes = bytes[column];
+        var length = 0;
+        for (int row = 0; row < rowCount; row++) {
+            columnOffsets[row] = length;
+            var at = rowStarts[row];
+            long location;
+            if (type == YxdbRecord.STRING || type == YxdbRecord.WSTRING) {
+                location = Extractors.locateText(buffer, type, at + start, size, at + nullFlag);
+            } else {
+                location = Extractors.locateBlob(buffer, at + start);
+            }
+            if (location == Extractors.nullLocation) {
+                bitmap[row >>> 6] |= 1L << row;
+                continue;
+            }
+            var valueLength = Extractors.locationLength(location);
+            if (length + valueLength > columnBytes.length) {
+                columnBytes = Arrays.copyOf(columnBytes, Math.max(length + valueLength, columnBytes.length * 2));
+            }
+            System.arraycopy(buffer.array(), Extractors.locationStart(location), columnBytes, length, valueLength);
+            length += valueLength;
+        }
+        columnOffsets[rowCount] = length;
+        bytes[column] = columnBytes;
+    }
+
+    private <T> T checked(T[] columns, int column, String expectedType) {
+        if (record == null || column < 0 || column >= record.types.length) {
+            throw new IllegalArgumentException("index " + column + " is not a valid index");
+        }
+        if (record.types[column] == YxdbRecord.NOT_PROJECTED) {
+            throw record.notProjected(column);
+        }
+        var values = columns[column];
+        if (values == null) {
+            throw wrongType(column, expectedType);
+        }
+        return values;
+    }
+
+    private static IllegalArgumentException wrongType(int column, String expectedType) {
+        return new IllegalArgumentException("index " + column + " is not a valid index or is not a " + expectedType + " column");
+    }
+}
@@ -1,18 +1,31 @@
 package com.tlarsendataguy.yxdb;
 
 
+import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.text.DateFormat;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.function.Function;
 
 class Extractors {
-    private static final DateFormat date = new SimpleDateFormat("yyyy-MM-dd");
-    private static final DateFormat dateTime = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss");
+    static final long invalidDate = Long.MIN_VALUE;
+    static final long notALong = Long.MIN_VALUE;
+    static final long nullLocation = -1;
+    private static final long[] longPowersOf10 = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+    private static final double[] doublePowersOf10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18,
+            1e19, 1e20, 1e21, 1e22
+    };
 
     public static Function<ByteBuffer, Boolean> NewBoolExtractor(int start) {
         return (buffer) -> {
@@ -67,8 +80,7 @@ class Extractors {
             if (buffer.get(start + fieldLength) == 1){
                 return null;
             }
-            var str = getString(buffer, start, fieldLength, 1);
-            return Double.parseDouble(str);
+            return getFixedDecimal(buffer, start, fieldLength);
         };
     }
 
@@ -95,7 +107,7 @@ class Extractors {
             if (buffer.get(start+10) == 1) {
                 return null;
             }
-            return parseDate(buffer, start, 10, date);
+            return getDate(buffer, start);
         };
     }
 
@@ -104,7 +116,7 @@ class Extractors {
             if (buffer.get(start+19) == 1) {
                 return null;
             }
-            return parseDate(buffer, start, 19, dateTime);
+            return getDateTime(buffer, start);
         };
     }
 
@@ -127,65 +139,320 @@ class Extractors {
     }
 
     public static Function<ByteBuffer, String> NewV_StringExtractor(int start) {
-        return (buffer) -> {
-            var bytes = parseBlob(buffer, start);
-            if (bytes == null) {
-                return null;
-            }
-            return new String(bytes, StandardCharsets.ISO_8859_1);
-        };
+        return (buffer) -> getV_String(buffer, start);
     }
 
     public static Function<ByteBuffer, String> NewV_WStringExtractor(int start) {
-        return (buffer) -> {
-            var bytes = parseBlob(buffer, start);
-            if (bytes == null) {
-                return null;
-            }
-            return new String(bytes, StandardCharsets.UTF_16LE);
-        };
+        return (buffer) -> getV_WString(buffer, start);
     }
 
     public static Function<ByteBuffer, byte[]> NewBlobExtractor(int start) {
         return (buffer) -> parseBlob(buffer, start);
     }
 
-    private static byte[] parseBlob(ByteBuffer buffer, int start) {
+    // A mantissa below 2^53 and a power of ten up to 10^22 are both exact doubles, so dividing one by the other rounds
+    // once and gives the same result as Double.parseDouble on the text. Anything else falls back to parsing the text.
+    static double getFixedDecimal(ByteBuffer buffer, int start, int fieldLength) {
+        var mantissa = parseMantissa(buffer, start, fieldLength);
+        if (mantissa != notALong && Math.abs(mantissa) < (1L << 53)) {
+            var fractionDigits = countFractionDigits(buffer, start, fieldLength);
+            if (fractionDigits < doublePowersOf10.length) {
+                if (mantissa == 0 && buffer.get(start) == '-') {
+                    return -0.0;
+                }
+                return mantissa / doublePowersOf10[fractionDigits];
+            }
+        }
+        var str = getString(buffer, start, fieldLength, 1);
+        return Double.parseDouble(str);
+    }
+
+    // Returns the value multiplied by 10^scale, or notALong if the text has more fractional digits than the scale,
+    // the result does not fit in a long, or the text is not a plain decimal number.
+    static long getUnscaledFixedDecimal(ByteBuffer buffer, int start, int fieldLength, int scale) {
+        var mantissa = parseMantissa(buffer, start, fieldLength);
+        if (mantissa == notALong) {
+            return notALong;
+        }
+        var shift = scale - countFractionDigits(buffer, start, fieldLength);
+        if (shift < 0 || shift >= longPowersOf10.length) {
+            return notALong;
+        }
+        var multiplier = longPowersOf10[shift];
+        if (Math.abs(mantissa) > Long.MAX_VALUE / multiplier) {
+            return notALong;
+        }
+        return mantissa * multiplier;
+    }
+
+    static BigDecimal getBigDecimal(ByteBuffer buffer, int start, int fieldLength, int scale) {
+        var unscaled = getUnscaledFixedDecimal(buffer, start, fieldLength, scale);
+        if (unscaled != notALong) {
+            return BigDecimal.valueOf(unscaled, scale);
+        }
+        var value = new BigDecimal(getString(buffer, start, fieldLength, 1));
+        if (value.scale() < scale) {
+            return value.setScale(scale);
+        }
+        return value;
+    }
+
+    static Date getDate(ByteBuffer buffer, int start) {
+        var value = getLocalDate(buffer, start);
+        if (value == null) {
+            return null;
+        }
+        return Date.from(value.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    static Date getDateTime(ByteBuffer buffer, int start) {
+        var value = getLocalDateTime(buffer, start, true);
+        if (value == null) {
+            return null;
+        }
+        return Date.from(value.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    // Returns null if the field does not hold a valid yyyy-MM-dd date.
+    static LocalDate getLocalDate(ByteBuffer buffer, int start) {
+        var epochDay = parseEpochDay(buffer, start);
+        if (epochDay == invalidDate) {
+            return null;
+        }
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    // Returns null if the field does not hold a valid yyyy-MM-dd date, or a valid yyyy-MM-dd HH:mm:ss datetime when hasTime is true.
+    static LocalDateTime getLocalDateTime(ByteBuffer buffer, int start, boolean hasTime) {
+        var epochSecond = parseEpochSecond(buffer, start, hasTime);
+        if (epochSecond == invalidDate) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+
+    // Reads the date part of a date or datetime as days since 1970-01-01. Returns invalidDate if the date is not valid.
+    static long getEpochDay(ByteBuffer buffer, int start) {
+        return parseEpochDay(buffer, start);
+    }
+
+    // Reads the date or datetime as milliseconds since 1970-01-01 00:00:00 UTC. Returns invalidDate if the value is not valid.
+    static long getEpochMillis(ByteBuffer buffer, int start, boolean hasTime) {
+        var epochSecond = parseEpochSecond(buffer, start, hasTime);
+        if (epochSecond == invalidDate) {
+            return invalidDate;
+        }
+        return epochSecond * 1000;
+    }
+
+    static String getV_String(ByteBuffer buffer, int start) {
+        var location = locateBlob(buffer, start);
+        if (location == nullLocation) {
+            return null;
+        }
+        return new String(buffer.array(), locationStart(location), locationLength(location), StandardCharsets.ISO_8859_1);
+    }
+
+    static String getV_WString(ByteBuffer buffer, int start) {
+        var location = locateBlob(buffer, start);
+        if (location == nullLocation) {
+            return null;
+        }
+        return new String(buffer.array(), locationStart(location), locationLength(location), StandardCharsets.UTF_16LE);
+    }
+
+    static byte[] parseBlob(ByteBuffer buffer, int start) {
+        var location = locateBlob(buffer, start);
+        if (location == nullLocation) {
+            return null;
+        }
+        var blobStart = locationStart(location);
+        return Arrays.copyOfRange(buffer.array(), blobStart, blobStart + locationLength(location));
+    }
+
+    // Finds the bytes of a blob, or of a V_String or V_WString, in the buffer without copying them. The start and
+    // length are packed into one long so that nothing is allocated; unpack them with locationStart and locationLength.
+    static long locateBlob(ByteBuffer buffer, int start) {
         var fixedPortion = buffer.getInt(start);
         if (fixedPortion == 0) {
-            return new byte[]{};
+            return location(start, 0);
         }
         if (fixedPortion == 1) {
-            return null;
+            return nullLocation;
         }
 
         if (isTiny(fixedPortion)) {
-            return getTinyBlob(start, buffer);
+            return location(start, fixedPortion >> 28);
         }
 
         var blockStart = start + (fixedPortion & 0x7fffffff);
         var blockFirstByte = buffer.get(blockStart);
         if (isSmallBlock(blockFirstByte)) {
-            return getSmallBlob(buffer, blockStart);
+            return location(blockStart + 1, unsign(blockFirstByte) >> 1);
         }
-        return getNormalBlob(buffer, blockStart);
+        var blobLen = buffer.getInt(blockStart) / 2; // why divided by 2? not sure
+        return location(blockStart + 4, blobLen);
     }
 
-    private static Date parseDate(ByteBuffer buffer, int start, int length, DateFormat format) {
-        var str = new String(buffer.array(), start, length, StandardCharsets.ISO_8859_1);
-        try {
-            return format.parse(str);
-        } catch (ParseException ex) {
-            return null;
+    // Finds the characters of a text field in the buffer without copying them. Returns nullLocation if the field is null.
+    static long locateText(ByteBuffer buffer, byte type, int start, int fieldLength, int nullFlag) {
+        return switch (type) {
+            case YxdbRecord.STRING, YxdbRecord.WSTRING -> {
+                if (buffer.get(nullFlag) == 1) {
+                    yield nullLocation;
+                }
+                var charSize = type == YxdbRecord.STRING ? 1 : 2;
+                yield location(start, getEndOfStringPos(buffer.array(), start, fieldLength, charSize) - start);
+            }
+            default -> locateBlob(buffer, start);
+        };
+    }
+
+    static void appendText(StringBuilder builder, ByteBuffer buffer, int start, int byteLength, int charSize) {
+        var end = start + byteLength;
+        if (charSize == 1) {
+            for (var i = start; i < end; i++) {
+                builder.append((char) (buffer.get(i) & 0xff));
+            }
+            return;
+        }
+        for (var i = start; i < end; i += 2) {
+            builder.append(buffer.getChar(i));
+        }
+    }
+
+    static int charSizeOf(byte type) {
+        return type == YxdbRecord.STRING || type == YxdbRecord.V_STRING ? 1 : 2;
+    }
+
+    static Charset charsetOf(int charSize) {
+        return charSize == 1 ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_16LE;
+    }
+
+    static long location(int start, int length) {
+        return ((long) start << 32) | (length & 0xffffffffL);
+    }
+
+    static int locationStart(long location) {
+        return (int) (location >>> 32);
+    }
+
+    static int locationLength(long location) {
+        return (int) location;
+    }
+
+    // Dates are stored as yyyy-MM-dd text and datetimes as yyyy-MM-dd HH:mm:ss text. The digits are read straight from
+    // the buffer, without building a String, and the date is converted to a day count with the proleptic Gregorian
+    // calendar, the same calendar java.time uses. Fields past their range roll over into the next one, as they did with
+    // the lenient SimpleDateFormat this replaced: 2021-02-30 reads as 2021-03-02, 2021-13-01 as 2022-01-01 and
+    // 24:00:00 as midnight of the next day. Text that is not digits and separators reads as null.
+    private static long parseEpochSecond(ByteBuffer buffer, int start, boolean hasTime) {
+        var epochDay = parseEpochDay(buffer, start);
+        if (epochDay == invalidDate) {
+            return invalidDate;
+        }
+        if (!hasTime) {
+            return epochDay * 86400;
+        }
+        var hour = parseDigits(buffer, start+11, 2);
+        var minute = parseDigits(buffer, start+14, 2);
+        var second = parseDigits(buffer, start+17, 2);
+        if (buffer.get(start+10) != ' ' || buffer.get(start+13) != ':' || buffer.get(start+16) != ':' ||
+                hour < 0 || minute < 0 || second < 0) {
+            return invalidDate;
+        }
+        return (epochDay * 86400) + (hour * 3600L) + (minute * 60L) + second;
+    }
+
+    private static long parseEpochDay(ByteBuffer buffer, int start) {
+        var year = parseDigits(buffer, start, 4);
+        var month = parseDigits(buffer, start+5, 2);
+        var day = parseDigits(buffer, start+8, 2);
+        if (buffer.get(start+4) != '-' || buffer.get(start+7) != '-' || year < 0 || month < 0 || day < 0) {
+            return invalidDate;
         }
+        year += Math.floorDiv(month - 1, 12);
+        month = Math.floorMod(month - 1, 12) + 1;
+
+        // Counts days from 0000-03-01 so that the leap day falls at the end of each year, then shifts to 1970-01-01.
+        // The count grows by one per day, so days past the end of the month carry into the months after it.
+        var y = month <= 2 ? year - 1 : year;
+        var era = Math.floorDiv(y, 400);
+        var yearOfEra = y - (era * 400);
+        var dayOfYear = ((153 * (month > 2 ? month - 3 : month + 9)) + 2) / 5 + day - 1;
+        var dayOfEra = (yearOfEra * 365) + (yearOfEra / 4) - (yearOfEra / 100) + dayOfYear;
+        return (era * 146097L) + dayOfEra - 719468;
+    }
+
+    // Parses the null-terminated decimal text, ignoring the decimal point. Returns notALong if the text is not an
+    // optional minus sign followed by digits with at most one decimal point, or has too many digits for a long.
+    private static long parseMantissa(ByteBuffer buffer, int start, int fieldLength) {
+        var end = start + fieldLength;
+        var i = start;
+        var negative = buffer.get(i) == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        var digits = 0;
+        var seenPoint = false;
+        for (; i < end; i++) {
+            var value = buffer.get(i);
+            if (value == 0) {
+                break;
+            }
+            if (value == '.' && !seenPoint) {
+                seenPoint = true;
+                continue;
+            }
+            var digit = value - '0';
+            if (digit < 0 || digit > 9 || mantissa > (Long.MAX_VALUE - digit) / 10) {
+                return notALong;
+            }
+            mantissa = (mantissa * 10) + digit;
+            digits++;
+        }
+        if (digits == 0) {
+            return notALong;
+        }
+        return negative ? -mantissa : mantissa;
     }
 
-    private static String getString(ByteBuffer buffer, int start, int fieldLength, int charSize) {
+    private static int countFractionDigits(ByteBuffer buffer, int start, int fieldLength) {
+        var end = start + fieldLength;
+        var i = start;
+        while (i < end && buffer.get(i) != '.' && buffer.get(i) != 0) {
+            i++;
+        }
+        if (i == end || buffer.get(i) == 0) {
+            return 0;
+        }
+        var count = 0;
+        for (i++; i < end && buffer.get(i) != 0; i++) {
+            count++;
+        }
+        return count;
+    }
+
+    // Returns -1 if any of the bytes is not an ASCII digit.
+    private static int parseDigits(ByteBuffer buffer, int start, int count) {
+        var value = 0;
+        for (var i = start; i < start + count; i++) {
+            var digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = (value * 10) + digit;
+        }
+        return value;
+    }
+
+    static String getString(ByteBuffer buffer, int start, int fieldLength, int charSize) {
         int end = getEndOfStringPos(buffer.array(), start, fieldLength, charSize);
         if (charSize == 1) {
-            return new String(Arrays.copyOfRange(buffer.array(), start, end), StandardCharsets.ISO_8859_1);
+            return new String(buffer.array(), start, end - start, StandardCharsets.ISO_8859_1);
         }
-        return new String(Arrays.copyOfRange(buffer.array(), start, end), StandardCharsets.UTF_16LE);
+        return new String(buffer.array(), start, end - start, StandardCharsets.UTF_16LE);
     }
 
     private static int getEndOfStringPos(byte[] buffer, int start, int fieldLength, int charSize) {
@@ -210,28 +477,6 @@ class Extractors {
         return (value & 1) == 1;
     }
 
-    private static byte[] getNormalBlob(ByteBuffer buffer, int blockStart) {
-        var blobLen = buffer.getInt(blockStart) / 2; // why divided by 2? not sure
-        var blobStart = blockStart + 4;
-        var blobEnd = blobStart + blobLen;
-        return Arrays.copyOfRange(buffer.array(), blobStart, blobEnd);
-    }
-
-    private static byte[] getSmallBlob(ByteBuffer buffer, int blockStart) {
-        var blockFirstByte = buffer.get(blockStart);
-        var blobLen = unsign(blockFirstByte) >> 1;
-        var blobStart = blockStart + 1;
-        var blobEnd = blobStart + blobLen;
-        return Arrays.copyOfRange(buffer.array(), blobStart, blobEnd);
-    }
-
-    private static byte[] getTinyBlob(int start, ByteBuffer buffer) {
-        var intVal = buffer.getInt(start);
-        var length = intVal >> 28;
-        var end = start + length;
-        return Arrays.copyOfRange(buffer.array(), start, end);
-    }
-
     private static int unsign(byte value) {
         return value & 0xff; // Java's bytes are signed while the original algorithm is written for unsigned bytes
     }
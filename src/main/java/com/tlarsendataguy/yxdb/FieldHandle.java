@@ -0,0 +1,577 @@
+package com.tlarsendataguy.yxdb;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * A field of a .yxdb file that has been resolved once, by name, against a YxdbReader.
+ * <p>
+ * Obtain handles from YxdbReader.field(name) or one of the typed variants, such as YxdbReader.longField(name), before
+ * iterating. Each read goes straight to the field's position in the current record, without looking up the name or
+ * checking the field's type again.
+ * <p>
+ * <code>
+ * var amount = reader.doubleField("Amount");
+ * while (reader.next()) {
+ *     total += amount.readValue();
+ * }
+ * </code>
+ * <p>
+ * A handle reads from the reader that created it and is only valid for that reader.
+ */
+public abstract class FieldHandle {
+    FieldHandle(YxdbReader reader, YxdbRecord record, int index) {
+        this.reader = reader;
+        this.index = index;
+        field = record.fields.get(index);
+        start = record.starts[index];
+        size = record.sizes[index];
+        nullFlag = record.nullFlags[index];
+        type = record.types[index];
+    }
+
+    final YxdbReader reader;
+    final int index;
+    final int start;
+    final int size;
+    final int nullFlag;
+    final byte type;
+    private final YxdbField field;
+
+    static FieldHandle resolve(YxdbReader reader, YxdbRecord record, int index) {
+        return switch (record.types[index]) {
+            case YxdbRecord.BOOL -> new BooleanField(reader, record, index);
+            case YxdbRecord.BYTE -> new ByteField(reader, record, index);
+            case YxdbRecord.INT16, YxdbRecord.INT32, YxdbRecord.INT64 -> new LongField(reader, record, index);
+            case YxdbRecord.FLOAT, YxdbRecord.DOUBLE -> new DoubleField(reader, record, index);
+            case YxdbRecord.FIXED_DECIMAL -> new DecimalField(reader, record, index);
+            case YxdbRecord.STRING, YxdbRecord.WSTRING, YxdbRecord.V_STRING, YxdbRecord.V_WSTRING -> new StringField(reader, record, index);
+            case YxdbRecord.DATE, YxdbRecord.DATETIME -> new DateField(reader, record, index);
+            case YxdbRecord.NOT_PROJECTED -> throw record.notProjected(index);
+            default -> new BlobField(reader, record, index);
+        };
+    }
+
+    /**
+     * @return the name of the field
+     */
+    public String name() {
+        return field.name();
+    }
+
+    /**
+     * @return the index of the field, starting at 0
+     */
+    public int index() {
+        return index;
+    }
+
+    /**
+     * @return the data type contained in the field
+     */
+    public YxdbField.DataType type() {
+        return field.type();
+    }
+
+    /**
+     * @return true if the field is null in the current record
+     */
+    public boolean isNull() {
+        return isNullIn(reader.currentRecord());
+    }
+
+    /**
+     * @return a filter that passes records in which the field is null
+     * @see RecordFilter
+     */
+    public RecordFilter whereNull() {
+        return new RecordFilter(this::isNullIn);
+    }
+
+    /**
+     * @return a filter that passes records in which the field is not null
+     * @see RecordFilter
+     */
+    public RecordFilter whereNotNull() {
+        return new RecordFilter(buffer -> !isNullIn(buffer));
+    }
+
+    final boolean isNullIn(ByteBuffer buffer) {
+        return switch (type) {
+            case YxdbRecord.BOOL -> buffer.get(start) == 2;
+            case YxdbRecord.V_STRING, YxdbRecord.V_WSTRING, YxdbRecord.BLOB -> buffer.getInt(start) == 1;
+            default -> buffer.get(nullFlag) == 1;
+        };
+    }
+
+    /**
+     * A handle to a long integer field.
+     */
+    public static final class LongField extends FieldHandle {
+        LongField(YxdbReader reader, YxdbRecord record, int index) {
+            super(reader, record, index);
+        }
+
+        /**
+         * @return the value of the field in the current record. May be null.
+         */
+        public Long read() {
+            var buffer = reader.currentRecord();
+            if (buffer.get(nullFlag) == 1) {
+                return null;
+            }
+            return valueFrom(buffer);
+        }
+
+        /**
+         * @return the value of the field in the current record without boxing, or 0 if the field is null. Use isNull to tell a null from 0.
+         */
+        public long readValue() {
+            var buffer = reader.currentRecord();
+            if (buffer.get(nullFlag) == 1) {
+                return 0;
+            }
+            return valueFrom(buffer);
+        }
+
+        /**
+         * @param  value the value to compare with
+         * @return a filter that passes records in which the field equals the value
+         */
+        public RecordFilter whereEquals(long value) {
+            return whereBetween(value, value);
+        }
+
+        /**
+         * @param  value the value to compare with
+         * @return a filter that passes records in which the field is less than the value
+         */
+        public RecordFilter whereLessThan(long value) {
+            if (value == Long.MIN_VALUE) {
+                return new RecordFilter(buffer -> false);
+            }
+            return whereBetween(Long.MIN_VALUE, value - 1);
+        }
+
+        /**
+         * @param  value the value to compare with
+         * @return a filter that passes records in which the field is greater than the value
+         */
+        public RecordFilter whereGreaterThan(long value) {
+            if (value == Long.MAX_VALUE) {
+                return new RecordFilter(buffer -> false);
+            }
+            return whereBetween(value + 1, Long.MAX_VALUE);
+        }
+
+        /**
+         * @param  min the lowest value that passes
+         * @param  max the highest value that passes
+         * @return a filter that passes records in which the field is between min and max, both included
+         */
+        public RecordFilter whereBetween(long min, long max) {
+            return new RecordFilter(buffer -> {
+                if (buffer.get(nullFlag) == 1) {
+                    return false;
+                }
+                var value = valueFrom(buffer);
+                return value >= min && value <= max;
+            });
+        }
+
+        private long valueFrom(ByteBuffer buffer) {
+            return switch (size) {
+                case 2 -> buffer.getShort(start);
+                case 4 -> buffer.getInt(start);
+                default -> buffer.getLong(start);
+            };
+        }
+    }
+
+    /**
+     * A handle to a numeric field. Handles to FixedDecimal fields are DecimalFields, which can also read exact values.
+     */
+    public static class DoubleField extends FieldHandle {
+        DoubleField(YxdbReader reader, YxdbRecord record, int index) {
+            super(reader, record, index);
+        }
+
+        /**
+         * @return the value of the field in the current record. May be null.
+         */
+        public Double read() {
+            var buffer = reader.currentRecord();
+            if (buffer.get(nullFlag) == 1) {
+                return null;
+            }
+            return valueFrom(buffer);
+        }
+
+        /**
+         * @return the value of the field in the current record without boxing, or 0 if the field is null. Use isNull to tell a null from 0.
+         */
+        public double readValue() {
+            var buffer = reader.currentRecord();
+            if (buffer.get(nullFlag) == 1) {
+                return 0;
+            }
+            return valueFrom(buffer);
+        }
+
+        /**
+         * @param  value the value to compare with
+         * @return a filter that passes records in which the field is less than the value
+         */
+        public RecordFilter whereLessThan(double value) {
+            return new RecordFilter(buffer -> buffer.get(nullFlag) != 1 && valueFrom(buffer) < value);
+        }
+
+        /**
+         * @param  value the value to compare with
+         * @return a filter that passes records in which the field is greater than the value
+         */
+        public RecordFilter whereGreaterThan(double value) {
+            return new RecordFilter(buffer -> buffer.get(nullFlag) != 1 && valueFrom(buffer) > value);
+        }
+
+        /**
+         * @param  min the lowest value that passes
+         * @param  max the highest value that passes
+         * @return a filter that passes records in which the field is between min and max, both included
+         */
+        public RecordFilter whereBetween(double min, double max) {
+            return new RecordFilter(buffer -> {
+                if (buffer.get(nullFlag) == 1) {
+                    return false;
+                }
+                var value = valueFrom(buffer);
+                return value >= min && value <= max;
+            });
+        }
+
+        private double valueFrom(ByteBuffer buffer) {
+            return switch (type) {
+                case YxdbRecord.FLOAT -> buffer.getFloat(start);
+                case YxdbRecord.DOUBLE -> buffer.getDouble(start);
+                default -> Extractors.getFixedDecimal(buffer, start, size);
+            };
+        }
+    }
+
+    /**
+     * A handle to a FixedDecimal field.
+     */
+    public static final class DecimalField extends DoubleField {
+        DecimalField(YxdbReader reader, YxdbRecord record, int index) {
+            super(reader, record, index);
+            scale = record.scales[index];
+        }
+
+        private final int scale;
+
+        /**
+         * @return the number of digits after the decimal point, from the field's metadata
+         */
+        public int scale() {
+            return scale;
+        }
+
+        /**
+         * @return the exact value of the field in the current record. May be null.
+         */
+        public BigDecimal readDecimal() {
+            var buffer = reader.currentRecord();
+            if (buffer.get(nullFlag) == 1) {
+                return null;
+            }
+            return Extractors.getBigDecimal(buffer, start, size, scale);
+        }
+
+        /**
+         * @return the value of the field in the current record multiplied by 10^scale, or 0 if the field is null. Use isNull to tell a null from 0.
+         * @throws ArithmeticException thrown when the value does not fit in a long at the field's scale
+         */
+        public long readUnscaledLong() throws ArithmeticException {
+            var buffer = reader.currentRecord();
+            if (buffer.get(nullFlag) == 1) {
+                return 0;
+            }
+            return YxdbRecord.unscaledLong(buffer, start, size, scale);
+        }
+    }
+
+    /**
+     * A handle to a text field.
+     */
+    public static final class StringField extends FieldHandle {
+        StringField(YxdbReader reader, YxdbRecord record, int index) {
+            super(reader, record, index);
+            charSize = Extractors.charSizeOf(type);
+        }
+
+        private final int charSize;
+        private final StringView view = new StringView();
+
+        /**
+         * @return the value of the field in the current record. May be null.
+         */
+        public String read() {
+            var buffer = reader.currentRecord();
+            return switch (type) {
+                case YxdbRecord.STRING -> buffer.get(nullFlag) == 1 ? null : Extractors.getString(buffer, start, size, 1);
+                case YxdbRecord.WSTRING -> buffer.get(nullFlag) == 1 ? null : Extractors.getString(buffer, start, size, 2);
+                case YxdbRecord.V_STRING -> Extractors.getV_String(buffer, start);
+                default -> Extractors.getV_WString(buffer, start);
+            };
+        }
+
+        /**
+         * Points this handle's StringView at the field in the current record. The same view is returned by every call,
+         * and its contents are only valid until the next call to next() or readView().
+         * @return the view, or null if the field is null
+         */
+        public StringView readView() {
+            var buffer = reader.currentRecord();
+            var location = Extractors.locateText(buffer, type, start, size, nullFlag);
+            if (location == Extractors.nullLocation) {
+                return null;
+            }
+            view.point(buffer, Extractors.locationStart(location), Extractors.locationLength(location), charSize);
+            return view;
+        }
+
+        /**
+         * Appends the value of the field in the current record to a StringBuilder, without building a String.
+         * @param  builder the builder the field's characters are appended to
+         * @return true if the field was appended, or false if the field is null
+         */
+        public boolean readInto(StringBuilder builder) {
+            var buffer = reader.currentRecord();
+            var location = Extractors.locateText(buffer, type, start, size, nullFlag);
+            if (location == Extractors.nullLocation) {
+                return false;
+            }
+            Extractors.appendText(builder, buffer, Extractors.locationStart(location), Extractors.locationLength(location), charSize);
+            return true;
+        }
+
+        /**
+         * Copies the raw bytes of the field in the current record into a ByteBuffer, without decoding them.
+         * @param  target the buffer the bytes are put into, starting at its position
+         * @return the number of bytes copied, or -1 if the field is null
+         * @throws java.nio.BufferOverflowException thrown when the field does not fit in the remaining space of target
+         * @see #charset()
+         */
+        public int readBytes(ByteBuffer target) {
+            var buffer = reader.currentRecord();
+            var location = Extractors.locateText(buffer, type, start, size, nullFlag);
+            if (location == Extractors.nullLocation) {
+                return -1;
+            }
+            var length = Extractors.locationLength(location);
+            target.put(buffer.array(), Extractors.locationStart(location), length);
+            return length;
+        }
+
+        /**
+         * @return the encoding of the field's raw bytes: ISO-8859-1 for String and V_String fields, and UTF-16LE for WString and V_WString fields
+         */
+        public Charset charset() {
+            return Extractors.charsetOf(charSize);
+        }
+
+        /**
+         * The value is encoded once, in the field's charset, and compared byte by byte with the field's raw bytes.
+         * @param  value the text to compare with
+         * @return a filter that passes records in which the field equals the value
+         */
+        public RecordFilter whereEquals(String value) {
+            var bytes = encode(value);
+            if (bytes == null) {
+                return new RecordFilter(buffer -> false);
+            }
+            return new RecordFilter(buffer -> {
+                var location = Extractors.locateText(buffer, type, start, size, nullFlag);
+                if (location == Extractors.nullLocation || Extractors.locationLength(location) != bytes.length) {
+                    return false;
+                }
+                var from = Extractors.locationStart(location);
+                return Arrays.equals(buffer.array(), from, from + bytes.length, bytes, 0, bytes.length);
+            });
+        }
+
+        /**
+         * The prefix is encoded once, in the field's charset, and compared byte by byte with the field's raw bytes.
+         * @param  prefix the text the field must start with
+         * @return a filter that passes records in which the field starts with the prefix
+         */
+        public RecordFilter whereStartsWith(String prefix) {
+            var bytes = encode(prefix);
+            if (bytes == null) {
+                return new RecordFilter(buffer -> false);
+            }
+            return new RecordFilter(buffer -> {
+                var location = Extractors.locateText(buffer, type, start, size, nullFlag);
+                if (location == Extractors.nullLocation || Extractors.locationLength(location) < bytes.length) {
+                    return false;
+                }
+                var from = Extractors.locationStart(location);
+                return Arrays.equals(buffer.array(), from, from + bytes.length, bytes, 0, bytes.length);
+            });
+        }
+
+        // Returns null for text that the field's charset cannot hold, which no value of the field can match.
+        private byte[] encode(String value) {
+            var charset = charset();
+            if (!charset.newEncoder().canEncode(value)) {
+                return null;
+            }
+            return value.getBytes(charset);
+        }
+    }
+
+    /**
+     * A handle to a date/datetime field.
+     */
+    public static final class DateField extends FieldHandle {
+        DateField(YxdbReader reader, YxdbRecord record, int index) {
+            super(reader, record, index);
+        }
+
+        /**
+         * @return the value of the field in the current record. May be null.
+         */
+        public Date read() {
+            var buffer = reader.currentRecord();
+            if (buffer.get(nullFlag) == 1) {
+                return null;
+            }
+            if (type == YxdbRecord.DATE) {
+                return Extractors.getDate(buffer, start);
+            }
+            return Extractors.getDateTime(buffer, start);
+        }
+
+        /**
+         * @return the value of the field in the current record as a LocalDate. May be null.
+         */
+        public LocalDate readLocalDate() {
+            var buffer = reader.currentRecord();
+            if (buffer.get(nullFlag) == 1) {
+                return null;
+            }
+            return Extractors.getLocalDate(buffer, start);
+        }
+
+        /**
+         * @return the value of the field in the current record as a LocalDateTime. May be null.
+         */
+        public LocalDateTime readLocalDateTime() {
+            var buffer = reader.currentRecord();
+            if (buffer.get(nullFlag) == 1) {
+                return null;
+            }
+            return Extractors.getLocalDateTime(buffer, start, type == YxdbRecord.DATETIME);
+        }
+
+        /**
+         * @return the value of the field in the current record as milliseconds since 1970-01-01 00:00:00 UTC, or 0 if the field is null. Use isNull to tell a null from 0.
+         */
+        public long readEpochMillis() {
+            var buffer = reader.currentRecord();
+            if (buffer.get(nullFlag) == 1) {
+                return 0;
+            }
+            var millis = Extractors.getEpochMillis(buffer, start, type == YxdbRecord.DATETIME);
+            return millis == Extractors.invalidDate ? 0 : millis;
+        }
+    }
+
+    /**
+     * A handle to a boolean field.
+     */
+    public static final class BooleanField extends FieldHandle {
+        BooleanField(YxdbReader reader, YxdbRecord record, int index) {
+            super(reader, record, index);
+        }
+
+        /**
+         * @return the value of the field in the current record. May be null.
+         */
+        public Boolean read() {
+            var value = reader.currentRecord().get(start);
+            if (value == 2) {
+                return null;
+            }
+            return value == 1;
+        }
+
+        /**
+         * @return the value of the field in the current record without boxing, or false if the field is null. Use isNull to tell a null from false.
+         */
+        public boolean readValue() {
+            return reader.currentRecord().get(start) == 1;
+        }
+
+        /**
+         * @param  value the value to compare with
+         * @return a filter that passes records in which the field equals the value
+         */
+        public RecordFilter whereEquals(boolean value) {
+            var stored = (byte) (value ? 1 : 0);
+            return new RecordFilter(buffer -> buffer.get(start) == stored);
+        }
+    }
+
+    /**
+     * A handle to a byte field.
+     */
+    public static final class ByteField extends FieldHandle {
+        ByteField(YxdbReader reader, YxdbRecord record, int index) {
+            super(reader, record, index);
+        }
+
+        /**
+         * @return the value of the field in the current record. May be null.
+         */
+        public Byte read() {
+            var buffer = reader.currentRecord();
+            if (buffer.get(nullFlag) == 1) {
+                return null;
+            }
+            return buffer.get(start);
+        }
+
+        /**
+         * @return the value of the field in the current record without boxing, or 0 if the field is null. Use isNull to tell a null from 0.
+         */
+        public byte readValue() {
+            var buffer = reader.currentRecord();
+            if (buffer.get(nullFlag) == 1) {
+                return 0;
+            }
+            return buffer.get(start);
+        }
+    }
+
+    /**
+     * A handle to a blob field.
+     */
+    public static final class BlobField extends FieldHandle {
+        BlobField(YxdbReader reader, YxdbRecord record, int index) {
+            super(reader, record, index);
+        }
+
+        /**
+         * @return the value of the field in the current record, as an array of bytes. May be null.
+         */
+        public byte[] read() {
+            return Extractors.parseBlob(reader.currentRecord(), start);
+        }
+    }
+}
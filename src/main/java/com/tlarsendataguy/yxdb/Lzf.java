@@ -1,85 +1,75 @@
 package com.tlarsendataguy.yxdb;
 
+import java.util.Arrays;
+
+/**
+ * Decompresses LZF blocks from inBuffer into outBuffer.
+ * <p>
+ * The loop keeps its positions in local variables and checks the output bounds once per literal run or match rather
+ * than once per copy. Literal runs, and matches that do not overlap their own output, are copied with a single
+ * System.arraycopy. Overlapping matches are handled by their distance back: a distance of 1 repeats one byte with
+ * Arrays.fill, and other overlapping matches, which are a few bytes long, are copied byte by byte instead of with one
+ * System.arraycopy per repeat of the pattern.
+ * <p>
+ * Copying short runs 8 bytes at a time through a long view of the arrays measured slower than System.arraycopy on the
+ * bundled files, whose literal runs are mostly 8 to 32 bytes long, so the decoder does not use word copies.
+ */
 class Lzf {
     Lzf(byte[] inBuffer, byte[] outBuffer){
         this.inBuffer = inBuffer;
         this.outBuffer = outBuffer;
     }
-    byte[] inBuffer;
-    byte[] outBuffer;
-    int inIndex;
-    int outIndex;
-    int inLen;
+    final byte[] inBuffer;
+    final byte[] outBuffer;
 
     public int decompress(int len) throws IllegalArgumentException {
-        inLen = len;
-        reset();
+        final var in = inBuffer;
+        final var out = outBuffer;
+        final var outLength = out.length;
+        var inIndex = 0;
+        var outIndex = 0;
 
-        if (inLen == 0) {
-            return 0;
-        }
-
-        while (inIndex < inLen) {
-            int ctrl = unsign(inBuffer[inIndex]);
-            inIndex++;
+        while (inIndex < len) {
+            var ctrl = in[inIndex++] & 0xff; // Java's bytes are signed while the original algorithm is written for unsigned bytes
 
             if (ctrl < 32) {
-                copyByteSequence(ctrl);
-            } else {
-                expandRepeatedBytes(ctrl);
+                var length = ctrl + 1;
+                if (outIndex + length > outLength) {
+                    throw new IllegalArgumentException("output array is too small");
+                }
+                System.arraycopy(in, inIndex, out, outIndex, length);
+                inIndex += length;
+                outIndex += length;
+                continue;
             }
-        }
-
-        return outIndex;
-    }
 
-    private void reset() {
-        this.inIndex = 0;
-        this.outIndex = 0;
-    }
-
-    private void copyByteSequence(int ctrl) throws IllegalArgumentException {
-        int len = ctrl+1;
-        if (outIndex + len > outBuffer.length) {
-            throw new IllegalArgumentException("output array is too small");
-        }
-        System.arraycopy(inBuffer, inIndex, outBuffer, outIndex, len);
-        outIndex += len;
-        inIndex += len;
-    }
-
-    private void expandRepeatedBytes(int ctrl) throws IllegalArgumentException {
-        int length = ctrl >> 5;
-        int reference = outIndex - ((ctrl & 0x1f) << 8) - 1; // magic
-
-        if (length == 7) { // when length is 7, the next byte has additional length
-            length += unsign(inBuffer[inIndex]);
-            inIndex++;
-        }
-
-        if (outIndex +length+2 > outBuffer.length) {
-            throw new IllegalArgumentException("output array is too small");
-        }
-
-        reference -= unsign(inBuffer[inIndex]); // the next byte tells how far back the repeated bytes begin
-        inIndex++;
-
-        length += 2;
+            var length = ctrl >>> 5;
+            if (length == 7) { // when length is 7, the next byte has additional length
+                length += in[inIndex++] & 0xff;
+            }
+            // the next byte tells how far back the repeated bytes begin
+            var reference = outIndex - ((ctrl & 0x1f) << 8) - 1 - (in[inIndex++] & 0xff);
+            length += 2;
+            if (outIndex + length > outLength) {
+                throw new IllegalArgumentException("output array is too small");
+            }
+            if (reference < 0) {
+                throw new IllegalArgumentException("reference is before the start of the output");
+            }
 
-        while (length > 0) {
-            var size = Math.min(length, outIndex - reference);
-            reference = copyFromReferenceAndIncrement(reference, size);
-            length -= size;
+            var distance = outIndex - reference;
+            if (distance >= length) {
+                System.arraycopy(out, reference, out, outIndex, length);
+            } else if (distance == 1) {
+                Arrays.fill(out, outIndex, outIndex + length, out[reference]);
+            } else {
+                for (var i = 0; i < length; i++) {
+                    out[outIndex + i] = out[reference + i];
+                }
+            }
+            outIndex += length;
         }
-    }
 
-    private int copyFromReferenceAndIncrement(int reference, int size) {
-        System.arraycopy(outBuffer, reference, outBuffer, outIndex, size);
-        outIndex += size;
-        return reference + size;
-    }
-
-    private static int unsign(byte value) {
-        return value & 0xff; // Java's bytes are signed while the original algorithm is written for unsigned bytes
+        return outIndex;
     }
 }
@@ -0,0 +1,104 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Reads the LZF blocks that hold the records of a .yxdb file, one block at a time.
+ * <p>
+ * Each block starts with a 4-byte length. If the high bit of the length is set, the block is stored uncompressed.
+ * After readNextBlock(), the bytes of the block are in lzfIn, from 0 to blockLength. They stay valid until the next
+ * call to readNextBlock().
+ * <p>
+ * With a YxdbBlockCache, readNextBlockInto() looks the next block up by its file offset before reading it. A cached
+ * block is skipped in the source and copied out of the cache instead of being read and decompressed.
+ */
+abstract class LzfBlockSource implements Closeable {
+    LzfBlockSource() {
+        lzfIn = BlockBufferPool.shared.take();
+    }
+    final ByteBuffer lzfIn;
+    int blockLength;
+    boolean compressed;
+    // The file offset of the length of the next block.
+    long position;
+    // The file offset where the blocks holding records end, if it is known.
+    long end = Long.MAX_VALUE;
+    private YxdbBlockCache cache;
+    private YxdbBlockCache.FileKey file;
+    private boolean released;
+
+    abstract void readNextBlock() throws IOException;
+
+    /**
+     * Moves past the next block without reading it.
+     * @param storedLength the length of the block in the file, including its 4-byte length
+     */
+    abstract void skipBlock(int storedLength) throws IOException;
+
+    /**
+     * Makes readNextBlockInto() take the blocks of the file from the cache when it has them, and add the blocks it
+     * decompresses to the cache.
+     */
+    void useCache(YxdbBlockCache cache, YxdbBlockCache.FileKey file) {
+        this.cache = cache;
+        this.file = file;
+    }
+
+    /**
+     * Reads the next block and writes its decompressed bytes into the output buffer of lzf.
+     * @param lzf a decompressor whose input buffer is lzfIn
+     * @return the number of decompressed bytes
+     */
+    int readNextBlockInto(Lzf lzf) throws IOException {
+        if (cache == null) {
+            return decompressNextBlock(lzf);
+        }
+        var at = position;
+        var cached = cache.get(file, at);
+        if (cached != null) {
+            skipBlock(cached.storedLength());
+            System.arraycopy(cached.data(), 0, lzf.outBuffer, 0, cached.data().length);
+            return cached.data().length;
+        }
+        var size = decompressNextBlock(lzf);
+        if (compressed) {
+            cache.put(file, at, Arrays.copyOf(lzf.outBuffer, size), (int) (position - at));
+        }
+        return size;
+    }
+
+    private int decompressNextBlock(Lzf lzf) throws IOException {
+        readNextBlock();
+        if (compressed) {
+            return lzf.decompress(blockLength);
+        }
+        System.arraycopy(lzfIn.array(), 0, lzf.outBuffer, 0, blockLength);
+        return blockLength;
+    }
+
+    /**
+     * Gives lzfIn back to BlockBufferPool. Nothing may be read from the source afterwards. Calling release() again has
+     * no effect.
+     */
+    void release() {
+        if (!released) {
+            released = true;
+            BlockBufferPool.shared.give(lzfIn);
+        }
+    }
+
+    static boolean isCompressed(int lzfBlockLength) {
+        var checkbit = (long)lzfBlockLength & 0x80000000L;
+        return checkbit == 0;
+    }
+
+    static int blockLength(int lzfBlockLength) {
+        if (isCompressed(lzfBlockLength)) {
+            return lzfBlockLength;
+        }
+        return lzfBlockLength & 0x7ffffff;
+    }
+}
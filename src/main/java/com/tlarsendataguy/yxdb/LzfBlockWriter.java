@@ -0,0 +1,144 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Compresses blocks of record bytes into LZF and writes them to a file, in the order they were submitted.
+ * <p>
+ * The caller fills the array returned by block() and hands it over with submit(). Blocks are independent of each
+ * other, so with more than 1 thread they are compressed through OrderedWorkers, each worker with its own
+ * LzfCompressor, while the caller fills the next block. The calling thread writes the compressed blocks out in order.
+ * <p>
+ * Each block is written as a 4-byte length followed by its bytes. A block that does not get smaller is written as it
+ * is, with the high bit of the length set.
+ * <p>
+ * A submitted block can be marked as the start of a record block index entry. The file offsets of the marked blocks
+ * are listed by indexOffsets() once finish() has been called.
+ */
+class LzfBlockWriter implements Closeable {
+    LzfBlockWriter(FileChannel channel, long position, int threads) throws IOException {
+        this.channel = channel;
+        this.position = position;
+        if (threads == 1) {
+            workers = null;
+            current = new Block();
+        } else {
+            workers = new OrderedWorkers<>("yxdb-compress-", threads, Block::new, LzfBlockWriter::newCompressJob, this::write);
+            current = workers.next();
+        }
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer blockHeader = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+    private final OrderedWorkers<Block> workers;
+    private LzfCompressor compressor;
+    private Block current;
+    private long position;
+    private long[] indexOffsets = new long[16];
+    private int indexOffsetCount;
+
+    /**
+     * @return the array to copy the bytes of the next block into, BufferedRecordReader.lzfBufferSize long
+     */
+    byte[] block() {
+        return current.data;
+    }
+
+    /**
+     * Compresses and writes the first length bytes of block(). block() returns a different array afterwards.
+     * @param startsIndexEntry true if a record block index entry points at this block
+     */
+    void submit(int length, boolean startsIndexEntry) throws IOException {
+        current.length = length;
+        current.startsIndexEntry = startsIndexEntry;
+        if (workers == null) {
+            if (compressor == null) {
+                compressor = new LzfCompressor();
+            }
+            current.compress(compressor);
+            write(current);
+            return;
+        }
+        workers.submit(current);
+        current = workers.next();
+    }
+
+    /**
+     * Writes every submitted block that has not been written yet and stops the worker threads.
+     * @return the file offset after the last block
+     */
+    long finish() throws IOException {
+        if (workers != null) {
+            workers.finish();
+        }
+        close();
+        return position;
+    }
+
+    /**
+     * @return the file offsets of the blocks marked as starting an index entry, in order
+     */
+    long[] indexOffsets() {
+        return Arrays.copyOf(indexOffsets, indexOffsetCount);
+    }
+
+    @Override
+    public void close() {
+        if (workers != null) {
+            workers.close();
+        }
+    }
+
+    private static Consumer<Block> newCompressJob() {
+        var compressor = new LzfCompressor();
+        return block -> block.compress(compressor);
+    }
+
+    private void write(Block block) throws IOException {
+        ByteBuffer data;
+        if (block.compressedLength < 0) {
+            blockHeader.putInt(0, block.length | 0x80000000);
+            data = ByteBuffer.wrap(block.data, 0, block.length);
+        } else {
+            blockHeader.putInt(0, block.compressedLength);
+            data = ByteBuffer.wrap(block.compressed, 0, block.compressedLength);
+        }
+        if (block.startsIndexEntry) {
+            if (indexOffsetCount == indexOffsets.length) {
+                indexOffsets = Arrays.copyOf(indexOffsets, indexOffsetCount * 2);
+            }
+            indexOffsets[indexOffsetCount++] = position;
+        }
+        blockHeader.clear();
+        var length = data.remaining();
+        writeFully(channel, blockHeader, position);
+        writeFully(channel, data, position + 4);
+        position += 4 + length;
+    }
+
+    static void writeFully(FileChannel channel, ByteBuffer buffer, long at) throws IOException {
+        var start = buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, at + buffer.position() - start);
+        }
+    }
+
+    // A block of record bytes and its compressed copy.
+    private static class Block extends OrderedWorkers.Item {
+        final byte[] data = new byte[BufferedRecordReader.lzfBufferSize];
+        final byte[] compressed = new byte[BufferedRecordReader.lzfBufferSize];
+        int length;
+        int compressedLength;
+        boolean startsIndexEntry;
+
+        void compress(LzfCompressor compressor) {
+            compressedLength = compressor.compress(data, length, compressed);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.tlarsendataguy.yxdb;
+
+import java.util.Arrays;
+
+/**
+ * Compresses blocks into the LZF format that Lzf decompresses.
+ * <p>
+ * Matches are found with a hash table of the last position at which each 3-byte sequence was seen. A match is a run
+ * of 3 to 264 bytes that repeats bytes at most 8 KB back; everything else is copied as literal runs of up to 32 bytes.
+ * The hash table belongs to the compressor and is reused for every block, so compressing allocates nothing. A
+ * compressor is not safe to use from several threads at once.
+ */
+class LzfCompressor {
+    private static final int hashLog = 14;
+    private static final int maxOffset = 1 << 13;
+    private static final int maxLiteral = 32;
+    private static final int maxMatch = 264;
+
+    private final int[] table = new int[1 << hashLog];
+
+    /**
+     * Compresses the first inLen bytes of in into out.
+     * @return the compressed length, or -1 if the compressed block would not be smaller than the input or would not
+     *         fit in out. Callers store such blocks uncompressed.
+     */
+    int compress(byte[] in, int inLen, byte[] out) {
+        var limit = Math.min(inLen, out.length);
+        if (inLen == 0 || limit < 2) {
+            return -1;
+        }
+        Arrays.fill(table, -1);
+        var ip = 0;
+        var op = 1; // out[0] is kept for the length of the first literal run
+        var literalStart = 0;
+        var literals = 0;
+        while (ip < inLen) {
+            if (ip + 2 < inLen) {
+                var slot = hash(in, ip);
+                var ref = table[slot];
+                table[slot] = ip;
+                var offset = ip - ref - 1;
+                if (ref >= 0 && offset < maxOffset && in[ref] == in[ip] && in[ref + 1] == in[ip + 1] && in[ref + 2] == in[ip + 2]) {
+                    if (literals == 0) {
+                        op--;
+                    } else {
+                        out[literalStart] = (byte) (literals - 1);
+                    }
+                    if (op + 3 > limit) {
+                        return -1;
+                    }
+                    var length = 3;
+                    var maxLength = Math.min(inLen - ip, maxMatch);
+                    while (length < maxLength && in[ref + length] == in[ip + length]) {
+                        length++;
+                    }
+                    var stored = length - 2;
+                    if (stored < 7) {
+                        out[op++] = (byte) ((offset >>> 8) + (stored << 5));
+                    } else {
+                        out[op++] = (byte) ((offset >>> 8) + (7 << 5));
+                        out[op++] = (byte) (stored - 7);
+                    }
+                    out[op++] = (byte) offset;
+                    ip += length;
+                    // Index the last positions of the match so the bytes right after it can refer back into it.
+                    for (var p = Math.max(ip - 2, 0); p < ip && p + 2 < inLen; p++) {
+                        table[hash(in, p)] = p;
+                    }
+                    literalStart = op++;
+                    literals = 0;
+                    continue;
+                }
+            }
+            if (op >= limit) {
+                return -1;
+            }
+            out[op++] = in[ip++];
+            if (++literals == maxLiteral) {
+                out[literalStart] = (byte) (maxLiteral - 1);
+                literalStart = op++;
+                literals = 0;
+            }
+        }
+        if (literals == 0) {
+            op--;
+        } else {
+            out[literalStart] = (byte) (literals - 1);
+        }
+        return op < inLen ? op : -1;
+    }
+
+    private static int hash(byte[] in, int position) {
+        var value = ((in[position] & 0xff) << 16) | ((in[position + 1] & 0xff) << 8) | (in[position + 2] & 0xff);
+        return (value * 0x9E3779B1) >>> (32 - hashLog);
+    }
+}
@@ -0,0 +1,68 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads LZF blocks from a memory-mapped file.
+ * <p>
+ * Each block is moved from the mapping into lzfIn with a single bulk copy, which replaces the read system calls
+ * and intermediate buffers of the stream path. Decompressing from the heap copy measured faster than decompressing
+ * byte by byte from the mapped buffer itself.
+ * <p>
+ * A single MappedByteBuffer cannot address more than 2 GB, so the file is mapped in segments of segmentSize bytes.
+ * When the next block does not fit in the current segment, a new segment is mapped starting at that block.
+ */
+class MappedBlockSource extends LzfBlockSource {
+    static int segmentSize = 1 << 30;
+
+    MappedBlockSource(FileChannel channel, long start) throws IOException {
+        this.channel = channel;
+        this.fileSize = channel.size();
+        this.position = start;
+    }
+    final FileChannel channel;
+    final long fileSize;
+    MappedByteBuffer segment;
+    long segmentStart;
+
+    @Override
+    void readNextBlock() throws IOException {
+        var lengthAt = ensureMapped(4);
+        var lzfBlockLength = segment.getInt(lengthAt);
+        compressed = isCompressed(lzfBlockLength);
+        blockLength = blockLength(lzfBlockLength);
+        if (blockLength < 0 || blockLength > lzfIn.capacity()) {
+            throw new IOException("yxdb file is not valid");
+        }
+        var blockAt = ensureMapped(4 + blockLength) + 4;
+        segment.get(blockAt, lzfIn.array(), 0, blockLength);
+        position += 4 + blockLength;
+    }
+
+    @Override
+    void skipBlock(int storedLength) {
+        position += storedLength;
+    }
+
+    @Override
+    public void close() throws IOException {
+        segment = null;
+        channel.close();
+    }
+
+    private int ensureMapped(int length) throws IOException {
+        if (position + length > fileSize) {
+            throw new IOException("yxdb file is not valid");
+        }
+        if (segment == null || position + length > segmentStart + segment.limit()) {
+            var size = Math.min(Math.max(segmentSize, length), fileSize - position);
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            segment.order(ByteOrder.LITTLE_ENDIAN);
+            segmentStart = position;
+        }
+        return (int)(position - segmentStart);
+    }
+}
@@ -0,0 +1,181 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Processes items on worker threads and writes them out on the calling thread, in the order they were submitted.
+ * <p>
+ * The caller fills the item returned by next() and hands it over with submit(). Each worker runs the job made for it
+ * by newJob on the items it takes, so a job can keep its own state, such as a compressor. A fixed number of items is
+ * reused, 2 per thread, which bounds memory no matter how many items are submitted. Items are created as they are
+ * needed, so short runs do not allocate all of them. Once every item is in use, next() waits for the oldest one to be
+ * processed, writes it and hands it back.
+ * <p>
+ * An error thrown by a job is rethrown on the calling thread when the item it failed on is written. close() stops the
+ * workers, and must be called once writing is finished or has failed.
+ */
+class OrderedWorkers<T extends OrderedWorkers.Item> implements Closeable {
+    /**
+     * @param name    the prefix of the worker thread names
+     * @param threads the number of worker threads
+     * @param newItem creates an item when fewer than 2 per thread exist
+     * @param newJob  creates the job each worker thread runs on the items it takes
+     * @param writer  writes out a processed item on the calling thread
+     */
+    OrderedWorkers(String name, int threads, Supplier<T> newItem, Supplier<Consumer<T>> newJob, Writer<T> writer) {
+        this.name = name;
+        this.threads = threads;
+        this.newItem = newItem;
+        this.newJob = newJob;
+        this.writer = writer;
+        maxItems = threads * 2;
+        free = new ArrayDeque<>(maxItems);
+        inOrder = new ArrayDeque<>(maxItems);
+        toProcess = new ArrayBlockingQueue<>(maxItems);
+    }
+
+    private final String name;
+    private final int threads;
+    private final int maxItems;
+    private final Supplier<T> newItem;
+    private final Supplier<Consumer<T>> newJob;
+    private final Writer<T> writer;
+    private final ArrayDeque<T> free;
+    private final ArrayDeque<T> inOrder;
+    private final BlockingQueue<T> toProcess;
+    private ArrayList<Thread> workers;
+    private int created;
+
+    /**
+     * @return an item for the caller to fill: a free one, a new one, or else the oldest submitted item once it has
+     *         been processed and written
+     */
+    T next() throws IOException {
+        var item = free.poll();
+        if (item != null) {
+            return item;
+        }
+        if (created < maxItems) {
+            created++;
+            return newItem.get();
+        }
+        item = inOrder.poll();
+        write(item);
+        return item;
+    }
+
+    /**
+     * Queues the item for a worker. The caller must not touch the item until next() returns it again.
+     */
+    void submit(T item) {
+        if (workers == null) {
+            startWorkers();
+        }
+        item.reset();
+        inOrder.add(item);
+        toProcess.add(item);
+    }
+
+    /**
+     * Writes every submitted item that has not been written yet, in order. Items that are not given back by next()
+     * are kept for the next call.
+     */
+    void finish() throws IOException {
+        while (!inOrder.isEmpty()) {
+            var item = inOrder.poll();
+            write(item);
+            free.add(item);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (workers != null) {
+            for (var worker : workers) {
+                worker.interrupt();
+            }
+            workers = null;
+        }
+    }
+
+    private void write(T item) throws IOException {
+        item.awaitProcessed();
+        writer.write(item);
+    }
+
+    private void startWorkers() {
+        workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            var worker = new Thread(this::process, name + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    private void process() {
+        var job = newJob.get();
+        try {
+            while (true) {
+                var item = toProcess.take();
+                try {
+                    job.accept(item);
+                    item.finish(null);
+                } catch (Throwable ex) {
+                    item.finish(ex);
+                }
+            }
+        } catch (InterruptedException ex) {
+            // close() interrupts the workers once every item has been written, or when writing fails
+        }
+    }
+
+    interface Writer<T> {
+        void write(T item) throws IOException;
+    }
+
+    // The state shared by the calling thread and the worker that processes an item.
+    abstract static class Item {
+        private boolean done;
+        private Throwable error;
+
+        synchronized void reset() {
+            done = false;
+            error = null;
+        }
+
+        synchronized void finish(Throwable ex) {
+            done = true;
+            error = ex;
+            notifyAll();
+        }
+
+        synchronized void awaitProcessed() throws IOException {
+            try {
+                while (!done) {
+                    wait();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for a worker thread");
+            }
+            if (error instanceof RuntimeException runtimeEx) {
+                throw runtimeEx;
+            }
+            if (error instanceof Error err) {
+                throw err;
+            }
+            if (error != null) {
+                throw new IOException(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads and decompresses LZF blocks on a background thread so the next blocks are ready by the time the consumer
+ * needs them.
+ * <p>
+ * The blocks are decompressed into a fixed ring of blocks + 1 buffers. The consumer holds one buffer while the
+ * producer fills up to blocks others, so memory use is bounded no matter how large the file is. A buffer goes back
+ * to the producer when the consumer asks for the next block. The buffers are taken from BlockBufferPool and given
+ * back by close().
+ * <p>
+ * The producer stops at the end of the source's record region, so it never reads, or looks up in a block cache, the
+ * bytes after the last record block. A failure, or asking for a block past the end of the region, is handed to the
+ * consumer only when the consumer asks for that block, and then again on every later call.
+ */
+class ReadAheadDecompressor {
+    private static final Slot failed = new Slot(null, null);
+
+    ReadAheadDecompressor(LzfBlockSource source, int blocks) {
+        if (blocks < 1) {
+            throw new IllegalArgumentException("read ahead must be at least 1 block");
+        }
+        this.source = source;
+        free = new ArrayBlockingQueue<>(blocks + 1);
+        filled = new ArrayBlockingQueue<>(blocks + 1);
+        outs = new ByteBuffer[blocks + 1];
+        for (int i = 0; i <= blocks; i++) {
+            var out = BlockBufferPool.shared.take();
+            outs[i] = out;
+            free.add(new Slot(out, new Lzf(source.lzfIn.array(), out.array())));
+        }
+    }
+    private final LzfBlockSource source;
+    private final BlockingQueue<Slot> free;
+    private final BlockingQueue<Slot> filled;
+    private final ByteBuffer[] outs;
+    private Thread producer;
+    private Slot current;
+    private volatile Throwable error;
+    private volatile boolean closed;
+    private boolean stopped;
+
+    /**
+     * @return a buffer holding the next decompressed block from 0 to its limit. The buffer is valid until the next call.
+     */
+    ByteBuffer nextBlock() throws IOException {
+        if (producer == null) {
+            producer = new Thread(this::produce, "yxdb-read-ahead");
+            producer.setDaemon(true);
+            producer.start();
+        }
+        if (current == failed) {
+            throwProducerError();
+        }
+        if (current != null) {
+            free.add(current);
+        }
+        try {
+            current = filled.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for the next block");
+        }
+        if (current == failed) {
+            throwProducerError();
+        }
+        return current.out;
+    }
+
+    /**
+     * Stops the producer and gives the output buffers back to BlockBufferPool.
+     * @return false if the calling thread was interrupted before the producer stopped. The producer may then still be
+     *         reading into the source's lzfIn and the output buffers, so none of them may go back to the pool.
+     */
+    boolean close() {
+        if (closed) {
+            return stopped;
+        }
+        closed = true;
+        if (producer != null) {
+            producer.interrupt();
+            try {
+                producer.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        stopped = true;
+        for (var out : outs) {
+            BlockBufferPool.shared.give(out);
+        }
+        return true;
+    }
+
+    private void produce() {
+        try {
+            while (!closed) {
+                var slot = free.take();
+                if (source.position >= source.end) {
+                    throw new IOException("yxdb file is not valid");
+                }
+                var size = source.readNextBlockInto(slot.lzf);
+                slot.out.limit(size);
+                filled.put(slot);
+            }
+        } catch (InterruptedException ex) {
+            // close() interrupts the producer to stop it
+        } catch (Throwable ex) {
+            if (!closed) {
+                error = ex;
+                filled.add(failed);
+            }
+        }
+    }
+
+    private void throwProducerError() throws IOException {
+        var ex = error;
+        if (ex instanceof IOException) {
+            throw new IOException(ex.getMessage(), ex);
+        }
+        if (ex instanceof RuntimeException runtimeEx) {
+            throw runtimeEx;
+        }
+        if (ex instanceof Error err) {
+            throw err;
+        }
+        throw new IOException(ex);
+    }
+
+    private record Slot(ByteBuffer out, Lzf lzf) { }
+}
@@ -0,0 +1,68 @@
+package com.tlarsendataguy.yxdb;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A condition on the fields of a record, tested against the record's raw bytes.
+ * <p>
+ * Filters are built from field handles, for example FieldHandle.LongField.whereGreaterThan(), and combined with and(),
+ * or() and negate(). Passing a filter to YxdbReader.filter() makes next() skip the records that fail it. Numbers are
+ * compared where they are stored in the record, and text is compared byte by byte against the bytes of the constant,
+ * so rejecting a record decodes nothing and allocates nothing.
+ * <p>
+ * <code>
+ * var amount = reader.doubleField("Amount");
+ * var country = reader.stringField("Country");
+ * reader.filter(amount.whereGreaterThan(1000).and(country.whereEquals("US")));
+ * while (reader.next()) {
+ *     // only records with an Amount over 1000 in the US
+ * }
+ * </code>
+ * <p>
+ * Comparisons are false when the field is null, so a filter never has to check for nulls separately. A filter built
+ * from a reader's handles can only be used with that reader, and it holds no state, so it can be tested from
+ * several threads.
+ */
+public final class RecordFilter {
+    RecordFilter(Condition condition) {
+        this.condition = condition;
+    }
+
+    final Condition condition;
+
+    interface Condition {
+        boolean test(ByteBuffer record);
+    }
+
+    boolean test(ByteBuffer record) {
+        return condition.test(record);
+    }
+
+    /**
+     * @param  other the filter to combine with this one
+     * @return a filter that passes records that pass both this filter and the other one. The other filter is only tested if this one passes.
+     */
+    public RecordFilter and(RecordFilter other) {
+        var first = condition;
+        var second = other.condition;
+        return new RecordFilter(record -> first.test(record) && second.test(record));
+    }
+
+    /**
+     * @param  other the filter to combine with this one
+     * @return a filter that passes records that pass this filter or the other one. The other filter is only tested if this one fails.
+     */
+    public RecordFilter or(RecordFilter other) {
+        var first = condition;
+        var second = other.condition;
+        return new RecordFilter(record -> first.test(record) || second.test(record));
+    }
+
+    /**
+     * @return a filter that passes the records this filter rejects
+     */
+    public RecordFilter negate() {
+        var inner = condition;
+        return new RecordFilter(record -> !inner.test(record));
+    }
+}
@@ -0,0 +1,155 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Produces a YxdbRow for each record of a .yxdb file, for YxdbReader.stream().
+ * <p>
+ * A spliterator over a file with a usable BlockIndex covers a range of index entries, and trySplit hands the first half
+ * of the range to a new spliterator. Each spliterator opens its own BufferedRecordReader, with its own decompression
+ * state and record buffer, at its first entry, and closes it after the last record of its range so the reader's
+ * block buffers go back to BlockBufferPool. All of them share one FileChannel through positional reads. The channel
+ * counts the spliterators that have not finished their range: trySplit adds one, each spliterator takes one off when
+ * it finishes, and the channel is closed when none are left.
+ * <p>
+ * Without an index, for example when reading from an InputStream, the spliterator reads the records in order through
+ * a single BufferedRecordReader and does not split.
+ * <p>
+ * With a RecordFilter, records that fail the filter are read and dropped before a YxdbRow is made for them. The
+ * record count is then only an upper bound, so the spliterator is not SIZED.
+ * <p>
+ * With a YxdbBlockCache, each spliterator's block source takes its blocks from the cache. Streams of readers opened by
+ * a YxdbReaderPool take each spliterator's record buffer from the pool.
+ */
+class RecordSpliterator implements Spliterator<YxdbRow> {
+    RecordSpliterator(YxdbRecord record, BufferedRecordReader reader, long remaining, RecordFilter filter) {
+        this.record = record;
+        this.reader = reader;
+        this.remaining = remaining;
+        this.filter = filter;
+        channel = null;
+        index = null;
+        openSplits = null;
+        cache = null;
+        cacheKey = null;
+        pool = null;
+    }
+
+    RecordSpliterator(YxdbRecord record, FileChannel channel, BlockIndex index, RecordFilter filter, YxdbBlockCache cache, YxdbBlockCache.FileKey cacheKey, YxdbReaderPool pool) {
+        this(record, channel, index, 0, index.blockCount(), new AtomicInteger(1), filter, cache, cacheKey, pool);
+    }
+
+    private RecordSpliterator(YxdbRecord record, FileChannel channel, BlockIndex index, int fromBlock, int toBlock, AtomicInteger openSplits, RecordFilter filter, YxdbBlockCache cache, YxdbBlockCache.FileKey cacheKey, YxdbReaderPool pool) {
+        this.record = record;
+        this.cache = cache;
+        this.cacheKey = cacheKey;
+        this.pool = pool;
+        this.filter = filter;
+        this.channel = channel;
+        this.index = index;
+        this.fromBlock = fromBlock;
+        this.toBlock = toBlock;
+        this.openSplits = openSplits;
+        remaining = index.firstRecord(toBlock) - index.firstRecord(fromBlock);
+    }
+
+    private final YxdbRecord record;
+    private final FileChannel channel;
+    private final BlockIndex index;
+    private final AtomicInteger openSplits;
+    private final RecordFilter filter;
+    private final YxdbBlockCache cache;
+    private final YxdbBlockCache.FileKey cacheKey;
+    private final YxdbReaderPool pool;
+    private int fromBlock;
+    private int toBlock;
+    private BufferedRecordReader reader;
+    private long remaining;
+    private boolean finished;
+
+    @Override
+    public boolean tryAdvance(Consumer<? super YxdbRow> action) {
+        try {
+            do {
+                if (remaining <= 0) {
+                    finish();
+                    return false;
+                }
+                if (reader == null) {
+                    var source = new ChannelBlockSource(channel, index.offset(fromBlock));
+                    if (cacheKey != null) {
+                        source.useCache(cache, cacheKey);
+                    }
+                    reader = index.openAt(fromBlock, source, record, index.firstRecord(toBlock), 0, pool);
+                }
+                if (!reader.nextRecord()) {
+                    remaining = 0;
+                    finish();
+                    return false;
+                }
+                remaining--;
+            } while (filter != null && !filter.test(reader.recordBuffer));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        var row = new YxdbRow(record, reader.recordBuffer.array(), reader.recordBufferIndex);
+        if (remaining == 0) {
+            finish();
+        }
+        action.accept(row);
+        return true;
+    }
+
+    // Closes the reader once its range has been read. Readers the spliterator opened itself also give their record
+    // buffer back, since every row has been copied out of it, and the last spliterator to finish closes the channel.
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        try {
+            if (reader != null) {
+                reader.close();
+                if (index != null) {
+                    reader.releaseRecordBuffer();
+                }
+            }
+            if (openSplits != null && openSplits.decrementAndGet() == 0) {
+                channel.close();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public Spliterator<YxdbRow> trySplit() {
+        if (index == null || reader != null || toBlock - fromBlock < 2) {
+            return null;
+        }
+        var middle = (fromBlock + toBlock) >>> 1;
+        openSplits.incrementAndGet();
+        var prefix = new RecordSpliterator(record, channel, index, fromBlock, middle, openSplits, filter, cache, cacheKey, pool);
+        fromBlock = middle;
+        remaining = index.firstRecord(toBlock) - index.firstRecord(fromBlock);
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return remaining;
+    }
+
+    @Override
+    public int characteristics() {
+        if (filter != null) {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+        return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+}
@@ -0,0 +1,51 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads LZF blocks from an InputStream. The position of the first block in the file is given so the file offset of
+ * each block is known.
+ */
+class StreamBlockSource extends LzfBlockSource {
+    StreamBlockSource(InputStream stream) {
+        this(stream, 0);
+    }
+
+    StreamBlockSource(InputStream stream, long start) {
+        this.stream = stream;
+        this.position = start;
+        lzfLengthBuffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    final InputStream stream;
+    final ByteBuffer lzfLengthBuffer;
+
+    @Override
+    void readNextBlock() throws IOException {
+        var lzfBlockLength = readLzfBlockLength();
+        compressed = isCompressed(lzfBlockLength);
+        blockLength = stream.readNBytes(lzfIn.array(), 0, blockLength(lzfBlockLength));
+        position += 4 + blockLength;
+    }
+
+    @Override
+    void skipBlock(int storedLength) throws IOException {
+        stream.skipNBytes(storedLength);
+        position += storedLength;
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+
+    private int readLzfBlockLength() throws IOException {
+        var read = stream.readNBytes(lzfLengthBuffer.array(), 0, 4);
+        if (read < 4) {
+            throw new IOException("yxdb file is not valid");
+        }
+        return lzfLengthBuffer.getInt(0);
+    }
+}
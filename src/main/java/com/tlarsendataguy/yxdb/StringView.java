@@ -0,0 +1,80 @@
+package com.tlarsendataguy.yxdb;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A reusable, read-only view of a text field in the current record of a YxdbReader.
+ * <p>
+ * The view reads its characters straight from the record buffer, so no bytes are copied and no String is built.
+ * Each FieldHandle.StringField owns one view and re-points it at the field every time readView() is called.
+ * The contents of a view are only valid until the next call to next() or readView(). Call toString() to keep a copy.
+ */
+public final class StringView implements CharSequence {
+    StringView() { }
+
+    private ByteBuffer buffer;
+    private int start;
+    private int length;
+    private int charSize;
+
+    void point(ByteBuffer buffer, int start, int byteLength, int charSize) {
+        this.buffer = buffer;
+        this.start = start;
+        this.length = byteLength / charSize;
+        this.charSize = charSize;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index " + index + " is out of range for length " + length);
+        }
+        if (charSize == 1) {
+            return (char) (buffer.get(start + index) & 0xff);
+        }
+        return buffer.getChar(start + (index * 2));
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    /**
+     * Compares the characters of the view to another sequence of characters without building a String.
+     * @param  other the characters to compare with
+     * @return true if the view holds exactly the same characters as other
+     */
+    public boolean contentEquals(CharSequence other) {
+        if (other.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (charAt(i) != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the same hash code that toString().hashCode() would return, computed without building a String
+     */
+    public int contentHashCode() {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = (31 * hash) + charAt(i);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer.array(), start, length * charSize, Extractors.charsetOf(charSize));
+    }
+}
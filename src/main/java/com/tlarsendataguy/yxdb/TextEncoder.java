@@ -0,0 +1,462 @@
+package com.tlarsendataguy.yxdb;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes records as UTF-8 text, straight from the raw record bytes, for YxdbExporter.
+ * <p>
+ * Integers are written digit by digit. Fixed decimals, dates and datetimes are stored in the record as text, and that
+ * text is copied as it is. Text fields are transcoded from ISO-8859-1 or UTF-16LE to UTF-8 one character at a time.
+ * Blobs, including spatial objects, are written in base64. No String is built for a field, except for floats and
+ * doubles that are not whole numbers, which are formatted with Float.toString and Double.toString.
+ * <p>
+ * The subclasses add the syntax of each format. An encoder holds no state, so one encoder can be shared by threads
+ * encoding into their own Sinks.
+ */
+abstract class TextEncoder {
+    private static final byte[] base64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] trueBytes = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] falseBytes = "false".getBytes(StandardCharsets.US_ASCII);
+
+    TextEncoder(YxdbRecord record) {
+        this.record = record;
+        var count = 0;
+        var indexes = new int[record.types.length];
+        for (int i = 0; i < record.types.length; i++) {
+            if (record.types[i] != YxdbRecord.NOT_PROJECTED) {
+                indexes[count++] = i;
+            }
+        }
+        columns = Arrays.copyOf(indexes, count);
+    }
+
+    final YxdbRecord record;
+    final int[] columns; // The fields that are written, which are the fields in the record's projection
+
+    abstract void header(Sink sink);
+
+    // Writes the record that starts at position at in the buffer, followed by a line feed.
+    abstract void encode(ByteBuffer buffer, int at, Sink sink);
+
+    // Writes one ASCII character of a text field, escaping it if the format needs to.
+    abstract void putTextChar(Sink sink, int c);
+
+    final boolean isNull(ByteBuffer buffer, int at, int field) {
+        return switch (record.types[field]) {
+            case YxdbRecord.BOOL -> buffer.get(at + record.starts[field]) == 2;
+            case YxdbRecord.V_STRING, YxdbRecord.V_WSTRING, YxdbRecord.BLOB -> buffer.getInt(at + record.starts[field]) == 1;
+            default -> buffer.get(at + record.nullFlags[field]) == 1;
+        };
+    }
+
+    // Writes a value that is not null and is not text or a blob. Returns false if the value cannot be written as a
+    // number, boolean or date in the format, which happens for dates that are not valid and for NaN and infinities.
+    final boolean putScalar(ByteBuffer buffer, int at, int field, Sink sink) {
+        var start = at + record.starts[field];
+        switch (record.types[field]) {
+            case YxdbRecord.BOOL -> sink.put(buffer.get(start) == 1 ? trueBytes : falseBytes);
+            case YxdbRecord.BYTE -> putLong(sink, buffer.get(start));
+            case YxdbRecord.INT16 -> putLong(sink, buffer.getShort(start));
+            case YxdbRecord.INT32 -> putLong(sink, buffer.getInt(start));
+            case YxdbRecord.INT64 -> putLong(sink, buffer.getLong(start));
+            case YxdbRecord.FLOAT -> {
+                var value = buffer.getFloat(start);
+                if (!Float.isFinite(value)) {
+                    return putNonFinite(sink, value);
+                }
+                if (!putWholeNumber(sink, value)) {
+                    putAscii(sink, Float.toString(value));
+                }
+            }
+            case YxdbRecord.DOUBLE -> {
+                var value = buffer.getDouble(start);
+                if (!Double.isFinite(value)) {
+                    return putNonFinite(sink, value);
+                }
+                if (!putWholeNumber(sink, value)) {
+                    putAscii(sink, Double.toString(value));
+                }
+            }
+            case YxdbRecord.FIXED_DECIMAL -> putStoredText(sink, buffer, start, record.sizes[field]);
+            case YxdbRecord.DATE -> {
+                if (Extractors.getEpochDay(buffer, start) == Extractors.invalidDate) {
+                    return false;
+                }
+                putDate(sink, buffer, start, 10);
+            }
+            case YxdbRecord.DATETIME -> {
+                if (Extractors.getEpochMillis(buffer, start, true) == Extractors.invalidDate) {
+                    return false;
+                }
+                putDate(sink, buffer, start, 19);
+            }
+            default -> throw new IllegalStateException("field " + field + " is not a scalar field");
+        }
+        return true;
+    }
+
+    // Dates are written as they are stored, as yyyy-MM-dd or yyyy-MM-dd HH:mm:ss.
+    void putDate(Sink sink, ByteBuffer buffer, int start, int length) {
+        sink.put(buffer.array(), start, length);
+    }
+
+    // NaN and infinities are written as Java formats them, unless the format has no way to write them.
+    boolean putNonFinite(Sink sink, double value) {
+        putAscii(sink, Double.toString(value));
+        return true;
+    }
+
+    final boolean isText(int field) {
+        var type = record.types[field];
+        return type == YxdbRecord.STRING || type == YxdbRecord.WSTRING || type == YxdbRecord.V_STRING || type == YxdbRecord.V_WSTRING;
+    }
+
+    // Writes the characters of a text field as UTF-8, passing ASCII characters through putTextChar so the format can
+    // escape them. UTF-16 surrogates that are not part of a pair are written as '?', as String.getBytes would.
+    final void putText(ByteBuffer buffer, int at, int field, Sink sink) {
+        var type = record.types[field];
+        var location = Extractors.locateText(buffer, type, at + record.starts[field], record.sizes[field], at + record.nullFlags[field]);
+        var start = Extractors.locationStart(location);
+        var end = start + Extractors.locationLength(location);
+        var bytes = buffer.array();
+        if (Extractors.charSizeOf(type) == 1) {
+            for (int i = start; i < end; i++) {
+                putChar(sink, bytes[i] & 0xff);
+            }
+            return;
+        }
+        for (int i = start; i + 1 < end; i += 2) {
+            var c = buffer.getChar(i);
+            if (Character.isHighSurrogate(c) && i + 3 < end && Character.isLowSurrogate(buffer.getChar(i + 2))) {
+                var codePoint = Character.toCodePoint(c, buffer.getChar(i + 2));
+                sink.ensure(4);
+                sink.bytes[sink.length++] = (byte) (0xf0 | (codePoint >> 18));
+                sink.bytes[sink.length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                sink.bytes[sink.length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                sink.bytes[sink.length++] = (byte) (0x80 | (codePoint & 0x3f));
+                i += 2;
+            } else if (Character.isSurrogate(c)) {
+                putChar(sink, '?');
+            } else {
+                putChar(sink, c);
+            }
+        }
+    }
+
+    final void putBase64(ByteBuffer buffer, int at, int field, Sink sink) {
+        var location = Extractors.locateBlob(buffer, at + record.starts[field]);
+        var start = Extractors.locationStart(location);
+        var length = Extractors.locationLength(location);
+        var bytes = buffer.array();
+        sink.ensure(((length + 2) / 3) * 4);
+        var out = sink.bytes;
+        var o = sink.length;
+        var end = start + length - (length % 3);
+        var i = start;
+        for (; i < end; i += 3) {
+            var bits = ((bytes[i] & 0xff) << 16) | ((bytes[i + 1] & 0xff) << 8) | (bytes[i + 2] & 0xff);
+            out[o++] = base64[bits >>> 18];
+            out[o++] = base64[(bits >>> 12) & 0x3f];
+            out[o++] = base64[(bits >>> 6) & 0x3f];
+            out[o++] = base64[bits & 0x3f];
+        }
+        var remaining = start + length - i;
+        if (remaining > 0) {
+            var bits = (bytes[i] & 0xff) << 16;
+            if (remaining == 2) {
+                bits |= (bytes[i + 1] & 0xff) << 8;
+            }
+            out[o++] = base64[bits >>> 18];
+            out[o++] = base64[(bits >>> 12) & 0x3f];
+            out[o++] = remaining == 2 ? base64[(bits >>> 6) & 0x3f] : (byte) '=';
+            out[o++] = '=';
+        }
+        sink.length = o;
+    }
+
+    // Writes a name from the file's metadata through putTextChar, as putText does for text fields.
+    final void putName(Sink sink, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            var c = name.charAt(i);
+            if (Character.isHighSurrogate(c) && i + 1 < name.length() && Character.isLowSurrogate(name.charAt(i + 1))) {
+                var encoded = name.substring(i, i + 2).getBytes(StandardCharsets.UTF_8);
+                sink.put(encoded, 0, encoded.length);
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                putChar(sink, '?');
+            } else {
+                putChar(sink, c);
+            }
+        }
+    }
+
+    private void putChar(Sink sink, int c) {
+        if (c < 0x80) {
+            putTextChar(sink, c);
+        } else if (c < 0x800) {
+            sink.ensure(2);
+            sink.bytes[sink.length++] = (byte) (0xc0 | (c >> 6));
+            sink.bytes[sink.length++] = (byte) (0x80 | (c & 0x3f));
+        } else {
+            sink.ensure(3);
+            sink.bytes[sink.length++] = (byte) (0xe0 | (c >> 12));
+            sink.bytes[sink.length++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            sink.bytes[sink.length++] = (byte) (0x80 | (c & 0x3f));
+        }
+    }
+
+    // Copies null-terminated ASCII text stored in the fixed part of the record.
+    private static void putStoredText(Sink sink, ByteBuffer buffer, int start, int size) {
+        var bytes = buffer.array();
+        var end = start;
+        while (end < start + size && bytes[end] != 0) {
+            end++;
+        }
+        sink.put(bytes, start, end - start);
+    }
+
+    static void putLong(Sink sink, long value) {
+        if (value == Long.MIN_VALUE) {
+            putAscii(sink, Long.toString(value));
+            return;
+        }
+        sink.ensure(20);
+        if (value < 0) {
+            sink.bytes[sink.length++] = '-';
+            value = -value;
+        }
+        var digits = 1;
+        for (var rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        var end = sink.length + digits;
+        for (int i = end - 1; i >= sink.length; i--) {
+            sink.bytes[i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        sink.length = end;
+    }
+
+    // Whole numbers below 10^7 are formatted by Double.toString as their digits followed by ".0", which can be
+    // written without building a String. Returns false for any other value.
+    private static boolean putWholeNumber(Sink sink, double value) {
+        var whole = (long) value;
+        if (whole != value || Math.abs(whole) >= 10_000_000 || (whole == 0 && Double.doubleToRawLongBits(value) != 0)) {
+            return false;
+        }
+        putLong(sink, whole);
+        sink.ensure(2);
+        sink.bytes[sink.length++] = '.';
+        sink.bytes[sink.length++] = '0';
+        return true;
+    }
+
+    static void putAscii(Sink sink, String value) {
+        sink.ensure(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            sink.bytes[sink.length++] = (byte) value.charAt(i);
+        }
+    }
+
+    /**
+     * A growable byte array that encoded text is written to.
+     */
+    static final class Sink {
+        Sink(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        byte[] bytes;
+        int length;
+
+        void ensure(int count) {
+            if (length + count > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(length + count, bytes.length * 2));
+            }
+        }
+
+        void put(int b) {
+            ensure(1);
+            bytes[length++] = (byte) b;
+        }
+
+        void put(byte[] source) {
+            put(source, 0, source.length);
+        }
+
+        void put(byte[] source, int start, int count) {
+            ensure(count);
+            System.arraycopy(source, start, bytes, length, count);
+            length += count;
+        }
+    }
+
+    /**
+     * Writes records as comma-separated values, with a header line of field names.
+     * <p>
+     * Text fields and names are always quoted, with quotes inside them doubled, so an empty string ("") can be told
+     * from a null, which is written as nothing. Blobs are written in base64 without quotes. Lines end with a line feed.
+     */
+    static final class Csv extends TextEncoder {
+        Csv(YxdbRecord record) {
+            super(record);
+        }
+
+        @Override
+        void header(Sink sink) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    sink.put(',');
+                }
+                sink.put('"');
+                putName(sink, record.fields.get(columns[i]).name());
+                sink.put('"');
+            }
+            sink.put('\n');
+        }
+
+        @Override
+        void encode(ByteBuffer buffer, int at, Sink sink) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) {
+                    sink.put(',');
+                }
+                var field = columns[i];
+                if (isNull(buffer, at, field)) {
+                    continue;
+                }
+                if (isText(field)) {
+                    sink.put('"');
+                    putText(buffer, at, field, sink);
+                    sink.put('"');
+                } else if (record.types[field] == YxdbRecord.BLOB) {
+                    putBase64(buffer, at, field, sink);
+                } else {
+                    var mark = sink.length;
+                    if (!putScalar(buffer, at, field, sink)) {
+                        sink.length = mark;
+                    }
+                }
+            }
+            sink.put('\n');
+        }
+
+        @Override
+        void putTextChar(Sink sink, int c) {
+            if (c == '"') {
+                sink.put('"');
+            }
+            sink.put(c);
+        }
+    }
+
+    /**
+     * Writes each record as a JSON object on its own line, keyed by field name.
+     * <p>
+     * Numbers and booleans are written as JSON numbers and booleans. Text, dates and datetimes are written as strings,
+     * and blobs as base64 strings. Nulls, dates that are not valid, NaN and infinities are written as null.
+     */
+    static final class JsonLines extends TextEncoder {
+        private static final byte[] nullBytes = "null".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] hexDigits = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+        JsonLines(YxdbRecord record) {
+            super(record);
+            keys = new byte[columns.length][];
+            var sink = new Sink(64);
+            for (int i = 0; i < columns.length; i++) {
+                sink.length = 0;
+                sink.put(i == 0 ? '{' : ',');
+                sink.put('"');
+                putName(sink, record.fields.get(columns[i]).name());
+                sink.put('"');
+                sink.put(':');
+                keys[i] = Arrays.copyOf(sink.bytes, sink.length);
+            }
+        }
+
+        // The escaped name of each field, with the punctuation that comes before its value.
+        private final byte[][] keys;
+
+        @Override
+        void header(Sink sink) { }
+
+        @Override
+        void encode(ByteBuffer buffer, int at, Sink sink) {
+            if (columns.length == 0) {
+                sink.put('{');
+            }
+            for (int i = 0; i < columns.length; i++) {
+                sink.put(keys[i]);
+                var field = columns[i];
+                if (isNull(buffer, at, field)) {
+                    sink.put(nullBytes);
+                } else if (isText(field)) {
+                    sink.put('"');
+                    putText(buffer, at, field, sink);
+                    sink.put('"');
+                } else if (record.types[field] == YxdbRecord.BLOB) {
+                    sink.put('"');
+                    putBase64(buffer, at, field, sink);
+                    sink.put('"');
+                } else {
+                    var mark = sink.length;
+                    if (!putScalar(buffer, at, field, sink)) {
+                        sink.length = mark;
+                        sink.put(nullBytes);
+                    }
+                }
+            }
+            sink.put('}');
+            sink.put('\n');
+        }
+
+        @Override
+        void putDate(Sink sink, ByteBuffer buffer, int start, int length) {
+            sink.put('"');
+            super.putDate(sink, buffer, start, length);
+            sink.put('"');
+        }
+
+        @Override
+        boolean putNonFinite(Sink sink, double value) {
+            return false;
+        }
+
+        @Override
+        void putTextChar(Sink sink, int c) {
+            switch (c) {
+                case '"', '\\' -> {
+                    sink.put('\\');
+                    sink.put(c);
+                }
+                case '\n' -> {
+                    sink.put('\\');
+                    sink.put('n');
+                }
+                case '\r' -> {
+                    sink.put('\\');
+                    sink.put('r');
+                }
+                case '\t' -> {
+                    sink.put('\\');
+                    sink.put('t');
+                }
+                default -> {
+                    if (c >= 0x20) {
+                        sink.put(c);
+                        return;
+                    }
+                    sink.put('\\');
+                    sink.put('u');
+                    sink.put('0');
+                    sink.put('0');
+                    sink.put(hexDigits[c >> 4]);
+                    sink.put(hexDigits[c & 0xf]);
+                }
+            }
+        }
+    }
+}
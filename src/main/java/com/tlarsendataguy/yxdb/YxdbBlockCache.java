@@ -0,0 +1,184 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+
+/**
+ * Keeps decompressed record blocks in memory so readers that scan the same files again do not decompress them again.
+ * <p>
+ * One cache can be shared by any number of readers on any number of threads by giving it to each reader with
+ * YxdbReaderOptions.blockCache():
+ * <p>
+ * <code>
+ * static final YxdbBlockCache cache = new YxdbBlockCache(256L * 1024 * 1024);
+ * ...
+ * var reader = new YxdbReader(path, new YxdbReaderOptions().blockCache(cache));
+ * </code>
+ * <p>
+ * Blocks are keyed by the file they come from and their offset in the file. A file is identified by its file system
+ * key, which is the device and inode on Unix, or by its real path where there is no file key, together with its size
+ * and last-modified time. A file that is rewritten or replaced is treated as a new file, and the blocks of its old
+ * contents are left to be evicted.
+ * <p>
+ * The cache holds at most maxBytes of decompressed data. It is split into up to 16 stripes by key, each with its own
+ * lock and an equal share of maxBytes, so readers of different blocks rarely wait for each other. Each stripe drops
+ * its least recently used blocks when it is full. Only compressed blocks are cached, since blocks stored uncompressed
+ * cost nothing to decompress.
+ */
+public class YxdbBlockCache {
+    private static final int maxStripes = 16;
+    // Stripes are only added while each can hold at least this many full blocks.
+    private static final int minBlocksPerStripe = 8;
+
+    /**
+     * @param maxBytes                  the most decompressed data the cache holds, in bytes
+     * @throws IllegalArgumentException thrown when maxBytes is less than the size of one block, 256 KB
+     */
+    public YxdbBlockCache(long maxBytes) throws IllegalArgumentException {
+        if (maxBytes < BufferedRecordReader.lzfBufferSize) {
+            throw new IllegalArgumentException("a block cache must hold at least 262144 bytes");
+        }
+        var fit = maxBytes / ((long) minBlocksPerStripe * BufferedRecordReader.lzfBufferSize);
+        var count = Integer.highestOneBit((int) Math.max(1, Math.min(maxStripes, fit)));
+        stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(maxBytes / count);
+        }
+    }
+
+    private final Stripe[] stripes;
+
+    /**
+     * @return the number of blocks that were found in the cache
+     */
+    public long hits() {
+        long hits = 0;
+        for (var stripe : stripes) {
+            hits += stripe.hits();
+        }
+        return hits;
+    }
+
+    /**
+     * @return the number of compressed blocks that were looked up and not found, and so were decompressed
+     */
+    public long misses() {
+        long misses = 0;
+        for (var stripe : stripes) {
+            misses += stripe.misses();
+        }
+        return misses;
+    }
+
+    /**
+     * @return the number of bytes of decompressed data in the cache
+     */
+    public long size() {
+        long size = 0;
+        for (var stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * Removes every block from the cache. The hit and miss counts are kept.
+     */
+    public void clear() {
+        for (var stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    static FileKey fileKey(String path) throws IOException {
+        var file = Path.of(path);
+        var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        var id = attributes.fileKey();
+        if (id == null) {
+            id = file.toRealPath();
+        }
+        return new FileKey(id, attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+
+    // The block of the file that starts at offset, or null if it is not cached. The caller must not change it.
+    Block get(FileKey file, long offset) {
+        var key = new Key(file, offset);
+        return stripeFor(key).get(key);
+    }
+
+    void put(FileKey file, long offset, byte[] data, int storedLength) {
+        var key = new Key(file, offset);
+        stripeFor(key).put(key, new Block(data, storedLength));
+    }
+
+    private Stripe stripeFor(Key key) {
+        var hash = key.hashCode() * 0x9E3779B9;
+        return stripes[(hash >>> 24) & (stripes.length - 1)];
+    }
+
+    // One version of one file.
+    record FileKey(Object id, long size, long lastModified) { }
+
+    // The decompressed bytes of a block, and the length of the block in the file including its 4-byte length.
+    record Block(byte[] data, int storedLength) { }
+
+    private record Key(FileKey file, long offset) { }
+
+    private static class Stripe {
+        Stripe(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        private final long maxBytes;
+        private final LinkedHashMap<Key, Block> blocks = new LinkedHashMap<>(16, 0.75f, true);
+        private long size;
+        private long hits;
+        private long misses;
+
+        synchronized Block get(Key key) {
+            var block = blocks.get(key);
+            if (block == null) {
+                misses++;
+            } else {
+                hits++;
+            }
+            return block;
+        }
+
+        synchronized void put(Key key, Block block) {
+            if (block.data.length > maxBytes) {
+                return;
+            }
+            var replaced = blocks.put(key, block);
+            if (replaced != null) {
+                size -= replaced.data.length;
+            }
+            size += block.data.length;
+            var eldest = blocks.values().iterator();
+            while (size > maxBytes) {
+                size -= eldest.next().data.length;
+                eldest.remove();
+            }
+        }
+
+        synchronized void clear() {
+            blocks.clear();
+            size = 0;
+        }
+
+        synchronized long hits() {
+            return hits;
+        }
+
+        synchronized long misses() {
+            return misses;
+        }
+
+        synchronized long size() {
+            return size;
+        }
+    }
+}
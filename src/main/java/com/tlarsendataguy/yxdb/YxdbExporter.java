@@ -0,0 +1,170 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * YxdbExporter writes the records of a YxdbReader to an OutputStream as CSV or as JSON Lines, in UTF-8.
+ * <p>
+ * Values are formatted straight from the raw record bytes, without building a String or boxing a value for each field.
+ * Whole numbers and the decimal, date and datetime text stored in the record are copied as they are, text fields are
+ * transcoded to UTF-8 character by character, and blobs are written in base64.
+ * <p>
+ * The calling thread reads and decompresses the records and copies them into chunks of raw records. Worker threads
+ * encode the chunks into text, and the calling thread writes the encoded chunks in the order they were read, so the
+ * output is in file order. A fixed number of chunks is reused, which bounds memory no matter how large the file is.
+ * <p>
+ * <code>
+ * var reader = new YxdbReader(path);
+ * try (var out = new BufferedOutputStream(new FileOutputStream(csvPath))) {
+ *     new YxdbExporter(reader).writeCsv(out);
+ * }
+ * </code>
+ * <p>
+ * The reader's projection and filter decide which fields and records are written. Export starts at the reader's
+ * current position and consumes it, so do not call next() on the reader during or after an export. The output stream is
+ * flushed but not closed.
+ */
+public class YxdbExporter {
+    private static final int chunkRecords = 4096;
+    private static final int chunkBytes = 1 << 18;
+
+    /**
+     * Returns an exporter for the reader, with one worker thread per available processor.
+     *
+     * @param reader the reader whose remaining records are exported
+     */
+    public YxdbExporter(YxdbReader reader) {
+        this(reader, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns an exporter for the reader, with the given number of threads encoding records. With 1 thread, records
+     * are encoded on the calling thread.
+     *
+     * @param reader                    the reader whose remaining records are exported
+     * @param threads                   the number of threads to encode records with
+     * @throws IllegalArgumentException thrown when threads is less than 1
+     */
+    public YxdbExporter(YxdbReader reader, int threads) throws IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("an export needs at least 1 thread");
+        }
+        this.reader = reader;
+        this.threads = threads;
+    }
+
+    private final YxdbReader reader;
+    private final int threads;
+
+    /**
+     * Writes a header line with the field names, then one line per record with the values separated by commas. Text
+     * fields are always quoted, so an empty string is written as "" and a null as nothing. Lines end with a line feed.
+     *
+     * @param  out         the stream to write to
+     * @return             the number of records written
+     * @throws IOException thrown when there is an error reading the file or writing to the stream
+     */
+    public long writeCsv(OutputStream out) throws IOException {
+        return export(new TextEncoder.Csv(reader.record()), out);
+    }
+
+    /**
+     * Writes one JSON object per line for each record, keyed by field name. Dates, datetimes and text are written as
+     * strings, blobs as base64 strings, and nulls, NaN and infinities as null.
+     *
+     * @param  out         the stream to write to
+     * @return             the number of records written
+     * @throws IOException thrown when there is an error reading the file or writing to the stream
+     */
+    public long writeJsonLines(OutputStream out) throws IOException {
+        return export(new TextEncoder.JsonLines(reader.record()), out);
+    }
+
+    private long export(TextEncoder encoder, OutputStream out) throws IOException {
+        var header = new TextEncoder.Sink(256);
+        encoder.header(header);
+        out.write(header.bytes, 0, header.length);
+        if (threads == 1) {
+            var chunk = new Chunk();
+            long records = 0;
+            while (chunk.fill(reader)) {
+                chunk.encode(encoder);
+                out.write(chunk.text.bytes, 0, chunk.text.length);
+                records += chunk.rowCount;
+            }
+            out.flush();
+            return records;
+        }
+        return new Export(encoder).run(out);
+    }
+
+    // Hands chunks to the workers and writes them out in the order they were read.
+    private class Export {
+        Export(TextEncoder encoder) {
+            this.encoder = encoder;
+        }
+
+        private final TextEncoder encoder;
+        private long records;
+
+        long run(OutputStream out) throws IOException {
+            Supplier<Consumer<Chunk>> newJob = () -> chunk -> chunk.encode(encoder);
+            try (var workers = new OrderedWorkers<>("yxdb-export-", threads, Chunk::new, newJob, chunk -> write(chunk, out))) {
+                while (true) {
+                    var chunk = workers.next();
+                    if (!chunk.fill(reader)) {
+                        break;
+                    }
+                    workers.submit(chunk);
+                }
+                workers.finish();
+            }
+            out.flush();
+            return records;
+        }
+
+        private void write(Chunk chunk, OutputStream out) throws IOException {
+            out.write(chunk.text.bytes, 0, chunk.text.length);
+            records += chunk.rowCount;
+        }
+    }
+
+    // A run of raw records copied from the reader, and the text they are encoded into.
+    private static class Chunk extends OrderedWorkers.Item {
+        private ByteBuffer rows = ByteBuffer.allocate(chunkBytes).order(ByteOrder.LITTLE_ENDIAN);
+        private final int[] rowStarts = new int[chunkRecords];
+        int rowCount;
+        private int rowsLength;
+        final TextEncoder.Sink text = new TextEncoder.Sink(chunkBytes);
+
+        // Copies the next records from the reader. Returns false if there were none left.
+        boolean fill(YxdbReader reader) throws IOException {
+            rowCount = 0;
+            rowsLength = 0;
+            while (rowCount < chunkRecords && rowsLength < chunkBytes && reader.next()) {
+                var length = reader.currentRecordLength();
+                if (rowsLength + length > rows.capacity()) {
+                    var grown = ByteBuffer.allocate(Math.max(rowsLength + length, rows.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN);
+                    System.arraycopy(rows.array(), 0, grown.array(), 0, rowsLength);
+                    rows = grown;
+                }
+                System.arraycopy(reader.currentRecord().array(), 0, rows.array(), rowsLength, length);
+                rowStarts[rowCount++] = rowsLength;
+                rowsLength += length;
+            }
+            return rowCount > 0;
+        }
+
+        void encode(TextEncoder encoder) {
+            text.length = 0;
+            for (int i = 0; i < rowCount; i++) {
+                encoder.encode(rows, rowStarts[i], text);
+            }
+        }
+    }
+}
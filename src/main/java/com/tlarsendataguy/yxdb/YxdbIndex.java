@@ -0,0 +1,309 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * YxdbIndex lists every LZF block of a .yxdb file and the first record that starts in each block.
+ * <p>
+ * Building the index reads the whole file once. After that, the index can be saved next to the file and loaded
+ * again instead of being rebuilt. Pass it to YxdbReader through YxdbReaderOptions.index() so seekToRecord() only
+ * decompresses the block that holds the record, and so stream() can split the file at any block where a record
+ * starts:
+ * <p>
+ * <code>
+ * var index = YxdbIndex.build(path);
+ * index.save(path + ".idx");
+ * var reader = new YxdbReader(path, new YxdbReaderOptions().index(YxdbIndex.load(path + ".idx")));
+ * </code>
+ * <p>
+ * For each block, the index holds its file offset, its stored and decompressed lengths, the number of the first
+ * record that starts in it and where in the decompressed block that record starts. Blocks in the middle of a record
+ * that spans several blocks have no first record. The index also holds the size and last-modified time of the file,
+ * and YxdbReader refuses an index whose file has changed since the index was built.
+ */
+public final class YxdbIndex {
+    private static final byte[] magic = "YXDBIDX2".getBytes(StandardCharsets.US_ASCII);
+    private static final int headerSize = 44;
+    private static final int entrySize = 28;
+
+    private YxdbIndex(long fileSize, long lastModified, long recordsStart, long numRecords, int blockCount) {
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
+        this.recordsStart = recordsStart;
+        this.numRecords = numRecords;
+        offsets = new long[blockCount];
+        lzfBlockLengths = new int[blockCount];
+        uncompressedLengths = new int[blockCount];
+        firstRecords = new long[blockCount];
+        firstRecordOffsets = new int[blockCount];
+    }
+    final long fileSize;
+    final long lastModified;
+    final long recordsStart;
+    final long numRecords;
+    private long[] offsets;
+    private int[] lzfBlockLengths;
+    private int[] uncompressedLengths;
+    private long[] firstRecords;
+    private int[] firstRecordOffsets;
+    private int blockCount;
+    private BlockIndex splitPoints;
+
+    /**
+     * Reads a .yxdb file from start to end and lists its blocks.
+     *
+     * @param path                      the path to a .yxdb file
+     * @return                          the index of the file
+     * @throws IllegalArgumentException thrown when the provided file path does not exist or is not a valid YXDB file
+     * @throws IOException              thrown when there are issues reading the file
+     */
+    public static YxdbIndex build(String path) throws IOException, IllegalArgumentException {
+        var yxdb = new YxdbReader(path);
+        yxdb.close();
+        var record = yxdb.record();
+        var lastModified = new File(path).lastModified();
+        try (var channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            var index = new YxdbIndex(channel.size(), lastModified, yxdb.recordsStart(), yxdb.numRecords, 16);
+            var source = new IndexingBlockSource(channel, index.recordsStart, index);
+            var reader = new BufferedRecordReader(source, record.fixedSize, record.hasVar, index.numRecords);
+            try {
+                for (long current = 0; current < index.numRecords; current++) {
+                    // A record starts in the block that is already loaded, unless that block has been used up
+                    var startsInNextBlock = reader.lzfOutSize == 0 || reader.lzfOutIndex == reader.lzfOutSize;
+                    var block = startsInNextBlock ? index.blockCount : index.blockCount - 1;
+                    var offset = startsInNextBlock ? 0 : reader.lzfOutIndex;
+                    reader.nextRecord();
+                    if (index.firstRecords[block] < 0) {
+                        index.firstRecords[block] = current;
+                        index.firstRecordOffsets[block] = offset;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            index.trim();
+            return index;
+        }
+    }
+
+    /**
+     * Loads an index saved with save().
+     *
+     * @param indexPath    the path of the saved index
+     * @return             the index
+     * @throws IOException thrown when the file cannot be read or does not hold a valid index
+     */
+    public static YxdbIndex load(String indexPath) throws IOException {
+        var bytes = Files.readAllBytes(Path.of(indexPath));
+        var buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.length < headerSize || !Arrays.equals(bytes, 0, magic.length, magic, 0, magic.length)) {
+            throw invalidIndex();
+        }
+        var fileSize = buffer.getLong(8);
+        var lastModified = buffer.getLong(16);
+        var recordsStart = buffer.getLong(24);
+        var numRecords = buffer.getLong(32);
+        var blockCount = buffer.getInt(40);
+        if (blockCount < 0 || bytes.length != headerSize + ((long) blockCount * entrySize)) {
+            throw invalidIndex();
+        }
+
+        var index = new YxdbIndex(fileSize, lastModified, recordsStart, numRecords, blockCount);
+        index.blockCount = blockCount;
+        var previousEnd = recordsStart;
+        var previousRecord = -1L;
+        for (int i = 0; i < blockCount; i++) {
+            var at = headerSize + (i * entrySize);
+            index.offsets[i] = buffer.getLong(at);
+            index.lzfBlockLengths[i] = buffer.getInt(at + 8);
+            index.uncompressedLengths[i] = buffer.getInt(at + 12);
+            index.firstRecords[i] = buffer.getLong(at + 16);
+            index.firstRecordOffsets[i] = buffer.getInt(at + 24);
+            var compressedLength = LzfBlockSource.blockLength(index.lzfBlockLengths[i]);
+            var first = index.firstRecords[i];
+            if (index.offsets[i] != previousEnd || compressedLength < 0 || index.uncompressedLengths[i] < 0 ||
+                    (first >= 0 && (first <= previousRecord || first >= numRecords)) || first < -1 ||
+                    index.firstRecordOffsets[i] < 0 || index.firstRecordOffsets[i] > index.uncompressedLengths[i]) {
+                throw invalidIndex();
+            }
+            previousEnd = index.offsets[i] + 4 + compressedLength;
+            previousRecord = Math.max(previousRecord, first);
+        }
+        if (previousEnd > fileSize || (numRecords > 0 && (blockCount == 0 || index.firstRecords[0] != 0))) {
+            throw invalidIndex();
+        }
+        return index;
+    }
+
+    /**
+     * Saves the index so it can be loaded again with load().
+     *
+     * @param indexPath    the path to save the index to. An existing file is replaced.
+     * @throws IOException thrown when the file cannot be written
+     */
+    public void save(String indexPath) throws IOException {
+        var buffer = ByteBuffer.allocate(headerSize + (blockCount * entrySize)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(magic);
+        buffer.putLong(fileSize);
+        buffer.putLong(lastModified);
+        buffer.putLong(recordsStart);
+        buffer.putLong(numRecords);
+        buffer.putInt(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            buffer.putLong(offsets[i]);
+            buffer.putInt(lzfBlockLengths[i]);
+            buffer.putInt(uncompressedLengths[i]);
+            buffer.putLong(firstRecords[i]);
+            buffer.putInt(firstRecordOffsets[i]);
+        }
+        Files.write(Path.of(indexPath), buffer.array());
+    }
+
+    /**
+     * @return the number of records in the indexed file
+     */
+    public long numRecords() {
+        return numRecords;
+    }
+
+    /**
+     * @return the number of LZF blocks that hold the records of the indexed file
+     */
+    public int blockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @param  block the number of the block, starting at 0
+     * @return the file offset of the block's 4-byte length
+     */
+    public long blockOffset(int block) {
+        return offsets[checkBlock(block)];
+    }
+
+    /**
+     * @param  block the number of the block, starting at 0
+     * @return the number of bytes stored in the file for the block, not counting its 4-byte length
+     */
+    public int compressedLength(int block) {
+        return LzfBlockSource.blockLength(lzfBlockLengths[checkBlock(block)]);
+    }
+
+    /**
+     * @param  block the number of the block, starting at 0
+     * @return the number of bytes in the block after decompression
+     */
+    public int uncompressedLength(int block) {
+        return uncompressedLengths[checkBlock(block)];
+    }
+
+    /**
+     * @param  block the number of the block, starting at 0
+     * @return the number of the first record that starts in the block, counting from 0, or -1 if no record starts in it
+     */
+    public long firstRecord(int block) {
+        return firstRecords[checkBlock(block)];
+    }
+
+    /**
+     * @param  block the number of the block, starting at 0
+     * @return where the first record that starts in the block starts in the decompressed block
+     */
+    public int firstRecordOffset(int block) {
+        return firstRecordOffsets[checkBlock(block)];
+    }
+
+    // Whether the index was built from the file at path as it is now, going by its header, size and last-modified time.
+    boolean matches(String path, long numRecords, long recordsStart) {
+        var file = new File(path);
+        return this.numRecords == numRecords && this.recordsStart == recordsStart && fileSize == file.length() &&
+                lastModified == file.lastModified();
+    }
+
+    // The blocks where a record starts, which is where reading can start.
+    BlockIndex splitPoints() {
+        if (splitPoints == null) {
+            var count = 0;
+            for (int i = 0; i < blockCount; i++) {
+                if (firstRecords[i] >= 0) {
+                    count++;
+                }
+            }
+            var pointOffsets = new long[count];
+            var pointRecords = new long[count];
+            var pointRecordOffsets = new int[count];
+            var point = 0;
+            for (int i = 0; i < blockCount; i++) {
+                if (firstRecords[i] >= 0) {
+                    pointOffsets[point] = offsets[i];
+                    pointRecords[point] = firstRecords[i];
+                    pointRecordOffsets[point] = firstRecordOffsets[i];
+                    point++;
+                }
+            }
+            splitPoints = new BlockIndex(pointOffsets, pointRecords, pointRecordOffsets, numRecords);
+        }
+        return splitPoints;
+    }
+
+    private int checkBlock(int block) {
+        if (block < 0 || block >= blockCount) {
+            throw new IllegalArgumentException("block " + block + " is out of range");
+        }
+        return block;
+    }
+
+    private void addBlock(long offset, int lzfBlockLength, int uncompressedLength) {
+        if (blockCount == offsets.length) {
+            var capacity = blockCount * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lzfBlockLengths = Arrays.copyOf(lzfBlockLengths, capacity);
+            uncompressedLengths = Arrays.copyOf(uncompressedLengths, capacity);
+            firstRecords = Arrays.copyOf(firstRecords, capacity);
+            firstRecordOffsets = Arrays.copyOf(firstRecordOffsets, capacity);
+        }
+        offsets[blockCount] = offset;
+        lzfBlockLengths[blockCount] = lzfBlockLength;
+        uncompressedLengths[blockCount] = uncompressedLength;
+        firstRecords[blockCount] = -1;
+        blockCount++;
+    }
+
+    private void trim() {
+        offsets = Arrays.copyOf(offsets, blockCount);
+        lzfBlockLengths = Arrays.copyOf(lzfBlockLengths, blockCount);
+        uncompressedLengths = Arrays.copyOf(uncompressedLengths, blockCount);
+        firstRecords = Arrays.copyOf(firstRecords, blockCount);
+        firstRecordOffsets = Arrays.copyOf(firstRecordOffsets, blockCount);
+    }
+
+    private static IOException invalidIndex() {
+        return new IOException("yxdb index is not valid");
+    }
+
+    // Adds each block it reads to the index.
+    private static class IndexingBlockSource extends ChannelBlockSource {
+        IndexingBlockSource(FileChannel channel, long start, YxdbIndex index) {
+            super(channel, start);
+            this.index = index;
+        }
+        final YxdbIndex index;
+
+        @Override
+        int readNextBlockInto(Lzf lzf) throws IOException {
+            var offset = position;
+            var size = super.readNextBlockInto(lzf);
+            index.addBlock(offset, lzfLengthBuffer.getInt(0), size);
+            return size;
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * YxdbParallelScanner reads every record of a .yxdb file on several threads.
+ * <p>
+ * The records of a .yxdb file are stored in a chain of LZF blocks, and a record can start in one block and end in a
+ * later one. The scanner's worker threads claim the blocks in file order by reading their 4-byte headers, then read
+ * and decompress their blocks at the same time. Finding where the records of a block start has to happen in file
+ * order, but it only reads the record lengths: each worker waits for the worker holding the previous block, completes
+ * the record that block left unfinished, walks the records of its own block and passes its unfinished tail on.
+ * The records are then decoded and handed to the consumer in parallel.
+ * <p>
+ * Each worker thread gets its own state from the supplier, and the consumer is called with the state of the thread it
+ * runs on, so the consumer does not need to synchronize. When the file has been read, the states are merged with the
+ * combiner:
+ * <p>
+ * <code>
+ * var scanner = new YxdbParallelScanner(path);
+ * var total = scanner.scan(() -> new long[1], (sum, row) -> sum[0] += row.readLongValue("Value"), (a, b) -> { a[0] += b[0]; return a; });
+ * </code>
+ * <p>
+ * Records do not reach the consumer in file order, so the combiner must not depend on order. The row passed to the
+ * consumer is reused for the next record on the same thread. Call copy() on the row to keep it.
+ */
+public class YxdbParallelScanner {
+    /**
+     * Returns a scanner for the .yxdb file specified by the path argument, with one worker thread per available processor.
+     *
+     * @param path                      the path to a .yxdb file
+     * @throws IllegalArgumentException thrown when the provided file path does not exist or is not a valid YXDB file
+     * @throws IOException              thrown when there are issues reading the file
+     */
+    public YxdbParallelScanner(String path) throws IOException, IllegalArgumentException {
+        this(path, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Returns a scanner for the .yxdb file specified by the path argument, with the given number of worker threads.
+     *
+     * @param path                      the path to a .yxdb file
+     * @param threads                   the number of worker threads to scan with
+     * @throws IllegalArgumentException thrown when the provided file path does not exist or is not a valid YXDB file, or threads is less than 1
+     * @throws IOException              thrown when there are issues reading the file
+     */
+    public YxdbParallelScanner(String path, int threads) throws IOException, IllegalArgumentException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("a scan needs at least 1 thread");
+        }
+        this.path = path;
+        this.threads = threads;
+        var reader = new YxdbReader(path);
+        try {
+            numRecords = reader.numRecords;
+            record = reader.record();
+            recordsStart = reader.recordsStart();
+            recordsEnd = reader.recordsEnd();
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * The total number of records in the .yxdb file.
+     */
+    public final long numRecords;
+    private final String path;
+    private final int threads;
+    private final YxdbRecord record;
+    private final long recordsStart;
+    private final long recordsEnd;
+
+    /**
+     * @return the list of fields in the .yxdb file. The index of each field in this list matches the index of the field in the .yxdb file.
+     */
+    public List<YxdbField> listFields() {
+        return record.fields;
+    }
+
+    /**
+     * Reads every record of the file and hands it to the consumer, on the scanner's worker threads.
+     * <p>
+     * If the consumer throws, the scan stops and the exception is thrown from scan().
+     *
+     * @param newState     creates the state of one worker thread. Called once per thread before the scan starts.
+     * @param consumer     called with the state of the current thread and each record. The row is only valid during the call.
+     * @param combiner     merges the states of two threads into one
+     * @param <A>          the type of the state
+     * @return             the states of all worker threads, merged with the combiner
+     * @throws IOException thrown when the file cannot be read or is not valid
+     */
+    public <A> A scan(Supplier<A> newState, BiConsumer<A, YxdbRow> consumer, BinaryOperator<A> combiner) throws IOException {
+        if (numRecords <= 0) {
+            return newState.get();
+        }
+        try (var channel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+            return new Scan<>(channel, consumer).run(newState, combiner);
+        }
+    }
+
+    private static IOException invalidFile() {
+        return new IOException("yxdb file is not valid");
+    }
+
+    private class Scan<A> {
+        Scan(FileChannel channel, BiConsumer<A, YxdbRow> consumer) {
+            this.channel = channel;
+            this.consumer = consumer;
+            nextPosition = recordsStart;
+        }
+        final FileChannel channel;
+        final BiConsumer<A, YxdbRow> consumer;
+        final ByteBuffer blockHeader = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+
+        // Guarded by this.
+        long nextPosition;
+        long nextSequence;
+        boolean claimedAll;
+        long walked = -1;
+        boolean finished;
+        Throwable error;
+
+        // Owned by the worker whose turn it is to walk its block.
+        byte[] carry = new byte[0];
+        int carryLength;
+        long recordsDone;
+
+        A run(Supplier<A> newState, BinaryOperator<A> combiner) throws IOException {
+            var workers = new ArrayList<Worker>(threads);
+            for (int i = 0; i < threads; i++) {
+                var worker = new Worker(newState.get());
+                worker.thread = new Thread(worker, "yxdb-scan-" + i);
+                worker.thread.setDaemon(true);
+                workers.add(worker);
+            }
+            for (var worker : workers) {
+                worker.thread.start();
+            }
+            try {
+                for (var worker : workers) {
+                    worker.thread.join();
+                }
+            } catch (InterruptedException ex) {
+                fail(ex);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for the scan");
+            }
+            if (error != null) {
+                throwWorkerError();
+            }
+            var state = workers.get(0).state;
+            for (int i = 1; i < workers.size(); i++) {
+                state = combiner.apply(state, workers.get(i).state);
+            }
+            return state;
+        }
+
+        // Hands out the blocks in file order. A block whose header cannot be read is handed out with its error, which
+        // only matters if the block turns out to be needed. After the last block, one more claim returns the end of the
+        // blocks so that running out of blocks before the last record is reported.
+        synchronized Block claim() {
+            if (finished || error != null || claimedAll) {
+                return null;
+            }
+            var block = new Block(nextSequence++);
+            if (nextPosition >= recordsEnd) {
+                block.error = invalidFile();
+                claimedAll = true;
+                return block;
+            }
+            try {
+                blockHeader.clear();
+                BlockIndex.readFully(channel, blockHeader, nextPosition);
+                var lzfBlockLength = blockHeader.getInt(0);
+                block.compressed = LzfBlockSource.isCompressed(lzfBlockLength);
+                block.length = LzfBlockSource.blockLength(lzfBlockLength);
+                block.position = nextPosition + 4;
+                if (block.length < 0 || block.length > BufferedRecordReader.lzfBufferSize || block.position + block.length > recordsEnd) {
+                    throw invalidFile();
+                }
+                nextPosition = block.position + block.length;
+            } catch (Throwable ex) {
+                block.error = ex;
+                claimedAll = true;
+            }
+            return block;
+        }
+
+        synchronized boolean awaitTurn(long sequence) throws InterruptedException {
+            while (walked != sequence - 1 && !finished && error == null) {
+                wait();
+            }
+            return !finished && error == null;
+        }
+
+        synchronized void passTurn(long sequence) {
+            walked = sequence;
+            if (recordsDone == numRecords) {
+                finished = true;
+            }
+            notifyAll();
+        }
+
+        synchronized void fail(Throwable ex) {
+            if (error == null) {
+                error = ex;
+            }
+            notifyAll();
+        }
+
+        private void throwWorkerError() throws IOException {
+            var ex = error;
+            if (ex instanceof IOException) {
+                throw new IOException(ex.getMessage(), ex);
+            }
+            if (ex instanceof RuntimeException runtimeEx) {
+                throw runtimeEx;
+            }
+            if (ex instanceof Error err) {
+                throw err;
+            }
+            throw new IOException(ex);
+        }
+
+        private class Worker implements Runnable {
+            Worker(A state) {
+                this.state = state;
+                lzf = new Lzf(lzfIn, lzfOut);
+                recordBuffer = ByteBuffer.allocate(record.fixedSize + (record.hasVar ? 4 + 1000 : 0)).order(ByteOrder.LITTLE_ENDIAN);
+                row = new YxdbRow(record);
+            }
+            final A state;
+            // taken from BlockBufferPool and given back when the worker stops
+            final ByteBuffer inBuffer = BlockBufferPool.shared.take();
+            final ByteBuffer outBuffer = BlockBufferPool.shared.take();
+            final byte[] lzfIn = inBuffer.array();
+            final byte[] lzfOut = outBuffer.array();
+            final Lzf lzf;
+            final YxdbRow row;
+            ByteBuffer recordBuffer;
+            Thread thread;
+
+            // The record completed from the previous blocks' tail, if any, and the records that lie whole in this block.
+            byte[] stitched;
+            int stitchedLength;
+            int blockStart;
+            int blockRecords;
+
+            @Override
+            public void run() {
+                try {
+                    Block block;
+                    while ((block = claim()) != null) {
+                        var size = 0;
+                        if (block.error == null) {
+                            try {
+                                size = readBlock(block);
+                            } catch (Throwable ex) {
+                                block.error = ex;
+                            }
+                        }
+                        if (!awaitTurn(block.sequence)) {
+                            return;
+                        }
+                        if (block.error != null) {
+                            throw block.error;
+                        }
+                        walk(size);
+                        passTurn(block.sequence);
+                        decode();
+                    }
+                } catch (Throwable ex) {
+                    fail(ex);
+                } finally {
+                    BlockBufferPool.shared.give(inBuffer);
+                    BlockBufferPool.shared.give(outBuffer);
+                }
+            }
+
+            private int readBlock(Block block) throws IOException {
+                BlockIndex.readFully(channel, ByteBuffer.wrap(lzfIn, 0, block.length), block.position);
+                if (block.compressed) {
+                    return lzf.decompress(block.length);
+                }
+                System.arraycopy(lzfIn, 0, lzfOut, 0, block.length);
+                return block.length;
+            }
+
+            private void walk(int size) throws IOException {
+                var position = 0;
+                stitched = null;
+                blockRecords = 0;
+                if (carryLength > 0) {
+                    var length = recordLength(carry, 0, carryLength);
+                    while ((length < 0 || carryLength < length) && position < size) {
+                        var wanted = (length < 0 ? record.fixedSize + 4 : length) - carryLength;
+                        var toCopy = Math.min(wanted, size - position);
+                        if (carryLength + toCopy > carry.length) {
+                            carry = Arrays.copyOf(carry, Math.max(carryLength + toCopy, carry.length * 2));
+                        }
+                        System.arraycopy(lzfOut, position, carry, carryLength, toCopy);
+                        carryLength += toCopy;
+                        position += toCopy;
+                        length = recordLength(carry, 0, carryLength);
+                    }
+                    if (length < 0 || carryLength < length) {
+                        blockStart = size;
+                        return;
+                    }
+                    stitched = carry;
+                    stitchedLength = length;
+                    carry = new byte[0];
+                    carryLength = 0;
+                    recordsDone++;
+                }
+
+                blockStart = position;
+                while (recordsDone < numRecords) {
+                    var length = recordLength(lzfOut, position, size - position);
+                    if (length < 0 || length > size - position) {
+                        break;
+                    }
+                    position += length;
+                    blockRecords++;
+                    recordsDone++;
+                }
+                if (recordsDone < numRecords && position < size) {
+                    carry = Arrays.copyOfRange(lzfOut, position, size);
+                    carryLength = size - position;
+                }
+            }
+
+            private void decode() throws IOException {
+                if (stitched != null) {
+                    row.point(ByteBuffer.wrap(stitched).order(ByteOrder.LITTLE_ENDIAN), stitchedLength);
+                    consumer.accept(state, row);
+                }
+                var position = blockStart;
+                for (int i = 0; i < blockRecords; i++) {
+                    var length = recordLength(lzfOut, position, lzfOut.length - position);
+                    if (length > recordBuffer.capacity()) {
+                        recordBuffer = ByteBuffer.allocate(length * 2).order(ByteOrder.LITTLE_ENDIAN);
+                    }
+                    System.arraycopy(lzfOut, position, recordBuffer.array(), 0, length);
+                    position += length;
+                    row.point(recordBuffer, length);
+                    consumer.accept(state, row);
+                }
+            }
+
+            // Returns the length of the record starting at offset, or -1 if fewer bytes are available than are needed
+            // to tell its length.
+            private int recordLength(byte[] buffer, int offset, int available) throws IOException {
+                if (!record.hasVar) {
+                    return record.fixedSize;
+                }
+                if (available < record.fixedSize + 4) {
+                    return -1;
+                }
+                var varOffset = offset + record.fixedSize;
+                var varLength = (buffer[varOffset] & 0xff) |
+                        ((buffer[varOffset + 1] & 0xff) << 8) |
+                        ((buffer[varOffset + 2] & 0xff) << 16) |
+                        ((buffer[varOffset + 3] & 0xff) << 24);
+                if (varLength < 0 || varLength > Integer.MAX_VALUE - record.fixedSize - 4) {
+                    throw invalidFile();
+                }
+                return record.fixedSize + 4 + varLength;
+            }
+        }
+    }
+
+    private static class Block {
+        Block(long sequence) {
+            this.sequence = sequence;
+        }
+        final long sequence;
+        long position;
+        int length;
+        boolean compressed;
+        Throwable error;
+    }
+}
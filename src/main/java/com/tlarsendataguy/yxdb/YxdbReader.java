@@ -8,12 +8,21 @@ import org.xml.sax.InputSource;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.*;
+import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.lang.Integer.parseInt;
 
@@ -38,11 +47,59 @@ public class YxdbReader {
      * @throws IOException              thrown when there are issues reading the file
      */
     public YxdbReader(String path) throws IOException, IllegalArgumentException {
+        this(path, new YxdbReaderOptions());
+    }
+
+    /**
+     * Returns a reader that will parse the .yxdb file specified by the path argument, using the provided options.
+     * <p>
+     * Iterate through the records in the .yxdb file by calling next().
+     * <p>
+     * After each call to next(), access the data fields using the readX methods.
+     * <p>
+     * The reader's stream can be closed early by calling the close() method. If the file is read to the end (i.e. next() returns false), the stream is automatically closed.
+     *
+     * @param path                      the path to a .yxdb file
+     * @param options                   settings that change how the file is read
+     * @throws IllegalArgumentException thrown when the provided file path does not exist or is not a valid YXDB file
+     * @throws IOException              thrown when there are issues reading the file
+     * @see YxdbReaderOptions
+     */
+    public YxdbReader(String path, YxdbReaderOptions options) throws IOException, IllegalArgumentException {
+        this(path, options, null);
+    }
+
+    // Readers from a YxdbReaderPool read the header and meta info straight from a FileChannel into a pooled buffer,
+    // share the layouts the pool has already parsed, and take their record buffer from the pool.
+    YxdbReader(String path, YxdbReaderOptions options, YxdbReaderPool pool) throws IOException, IllegalArgumentException {
         this.path = path;
-        var file = new File(this.path);
-        stream = new BufferedInputStream(new FileInputStream(file));
-        fields = new ArrayList<>();
+        this.options = options;
+        this.pool = pool;
+        if (options.memoryMapped) {
+            channel = FileChannel.open(Path.of(path), StandardOpenOption.READ);
+            stream = pool == null ? new BufferedInputStream(Channels.newInputStream(channel)) : Channels.newInputStream(channel);
+        } else if (pool != null) {
+            stream = Channels.newInputStream(FileChannel.open(Path.of(path), StandardOpenOption.READ));
+        } else {
+            var file = new File(this.path);
+            stream = new BufferedInputStream(new FileInputStream(file));
+        }
+        if (options.blockCache != null) {
+            try {
+                cacheKey = YxdbBlockCache.fileKey(path);
+            } catch (IOException ex) {
+                stream.close();
+                throw ex;
+            }
+        }
         loadHeaderAndMetaInfo();
+        var index = options.index;
+        if (index != null && !index.matches(path, numRecords, recordsStart())) {
+            recordReader.close();
+            recordReader.releaseRecordBuffer();
+            stream.close();
+            throw new IllegalArgumentException("index does not match the file");
+        }
     }
 
     /**
@@ -59,9 +116,29 @@ public class YxdbReader {
      * @throws IOException thrown when there are issues reading the stream
      */
     public YxdbReader(BufferedInputStream stream) throws IOException, IllegalArgumentException {
+        this(stream, new YxdbReaderOptions());
+    }
+
+    /**
+     * Returns a reader that will parse the .yxdb file contained in the stream, using the provided options.
+     * <p>
+     * Iterate through the records in the .yxdb file by calling next().
+     * <p>
+     * After each call to next(), access the data fields using the readX methods.
+     * <p>
+     * The reader's stream can be closed early by calling the close() method. If the file is read to the end (i.e. next() returns false), the stream is automatically closed.
+     *
+     * @param stream       an InputStream for a .yxdb-formatted stream of bytes
+     * @param options      settings that change how the stream is read. Settings that only apply to files are ignored.
+     * @throws IllegalArgumentException thrown when the stream does not contain a valid YXDB file
+     * @throws IOException thrown when there are issues reading the stream
+     * @see YxdbReaderOptions
+     */
+    public YxdbReader(BufferedInputStream stream, YxdbReaderOptions options) throws IOException, IllegalArgumentException {
         path = "";
+        this.options = options;
         this.stream = stream;
-        fields = new ArrayList<>();
+        pool = null;
         loadHeaderAndMetaInfo();
     }
 
@@ -74,26 +151,45 @@ public class YxdbReader {
      * Contains the raw XML metadata from the .yxdb file.
      */
     public String metaInfoStr;
-    private final List<MetaInfoField> fields;
-    private final BufferedInputStream stream;
+    private List<MetaInfoField> fields;
+    private final InputStream stream;
+    private FileChannel channel;
+    private FileChannel streamChannel;
+    private long spatialIndexPos;
+    private long recordBlockIndexPos;
+    private BlockIndex nativeIndex;
+    private boolean nativeIndexRead;
     private final String path;
+    private final YxdbReaderOptions options;
+    private final YxdbReaderPool pool;
+    private YxdbBlockCache.FileKey cacheKey;
     private YxdbRecord record;
+    // record.fields, or an unmodifiable view of them when the record is shared with other readers through a pool
+    private List<YxdbField> listedFields;
     private BufferedRecordReader recordReader;
+    private RecordFilter filter;
 
     /**
      * @return the list of fields in the .yxdb file. The index of each field in this list matches the index of the field in the .yxdb file.
      */
     public List<YxdbField> listFields() {
-        return record.fields;
+        return listedFields;
     }
 
     /**
-     * Closes the stream manually if the reader needs to be ended before reaching the end of the file.
+     * Closes the stream manually if the reader needs to be ended before reaching the end of the file. Readers opened by a
+     * YxdbReaderPool also give their record buffer back to the pool, so they should be closed even after next() has
+     * returned false.
      *
      * @throws IOException thrown when the stream fails to close or closes with an error
      */
     public void close() throws IOException {
+        recordReader.close();
+        recordReader.releaseRecordBuffer();
         stream.close();
+        if (streamChannel != null) {
+            streamChannel.close();
+        }
     }
 
     /**
@@ -111,7 +207,200 @@ public class YxdbReader {
      * @throws IOException thrown when there is an error reading the next record
      */
     public boolean next() throws IOException {
-        return recordReader.nextRecord();
+        if (filter == null) {
+            return recordReader.nextRecord();
+        }
+        while (recordReader.nextRecord()) {
+            if (filter.test(recordReader.recordBuffer)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Makes next() and stream() skip the records that fail the filter. The filter is tested against each record's raw
+     * bytes before any field is decoded. Build it from this reader's field handles:
+     * <p>
+     * <code>
+     * reader.filter(reader.stringField("Country").whereEquals("US"));
+     * </code>
+     * <p>
+     * seekToRecord(), skip() and limit() count the records in the file, whether or not they pass the filter.
+     *
+     * @param filter the filter to apply, or null to read every record again
+     * @see RecordFilter
+     */
+    public void filter(RecordFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Reads up to maxRows records and decodes them column by column into the primitive arrays of a ColumnBatch. The
+     * batch's previous contents are replaced. Records that fail the reader's filter are not added to the batch, and
+     * fields outside the reader's projection are not decoded.
+     * <p>
+     * <code>
+     * var batch = new ColumnBatch();
+     * while (reader.nextBatch(batch, 4096) > 0) {
+     *     // process batch.rowCount() rows
+     * }
+     * </code>
+     *
+     * @param  batch                    the batch to fill
+     * @param  maxRows                  the largest number of records to read
+     * @return                          the number of records in the batch, which is 0 once the end of the file is reached
+     * @throws IllegalArgumentException thrown when maxRows is less than 1
+     * @throws IOException              thrown when there is an error reading the file
+     * @see ColumnBatch
+     */
+    public int nextBatch(ColumnBatch batch, int maxRows) throws IOException, IllegalArgumentException {
+        if (maxRows < 1) {
+            throw new IllegalArgumentException("maxRows must be at least 1");
+        }
+        batch.reset(record, maxRows);
+        while (batch.rowCount() < maxRows && next()) {
+            batch.add(recordReader.recordBuffer, currentRecordLength());
+        }
+        batch.decode();
+        return batch.rowCount();
+    }
+
+    /**
+     * Moves the reader so the next call to next() loads the given record.
+     * <p>
+     * Readers created from a file path can seek in both directions. They use the record block index at the end of the
+     * file to start at the block holding the record, so only the records of that block up to the given one are
+     * decompressed. Blocks in the file's index hold 65,536 records each. With a YxdbIndex in the reader's options, the
+     * reader starts at the LZF block where the record is stored instead, which holds at most 256 KB of records. If the
+     * file's index is not usable, the reader reads forward from the current record, or from the start of the file when
+     * seeking backwards. Readers created from an InputStream can only seek forward.
+     *
+     * @param  recordNumber             the number of the record to load next, counting from 0. Seeking to numRecords moves to the end of the file.
+     * @throws IllegalArgumentException thrown when the record number is out of range, or is behind the current record of a reader created from an InputStream
+     * @throws IOException              thrown when there is an error reading the file
+     */
+    public void seekToRecord(long recordNumber) throws IOException, IllegalArgumentException {
+        if (recordNumber < 0 || recordNumber > numRecords) {
+            throw new IllegalArgumentException("record " + recordNumber + " is out of range");
+        }
+        var current = recordReader.currentRecord;
+        var end = recordReader.totalRecords;
+        if (path.isEmpty()) {
+            if (recordNumber < current) {
+                throw new IllegalArgumentException("cannot seek backwards in a stream");
+            }
+        } else {
+            var index = seekIndex();
+            var entry = index == null ? -1 : index.entryFor(recordNumber);
+            var entryRecord = entry < 0 ? 0 : index.firstRecord(entry);
+            if (recordNumber < current || entryRecord > current) {
+                recordReader.close();
+                recordReader.releaseRecordBuffer();
+                stream.close();
+                var offset = entry < 0 ? recordsStart() : index.offset(entry);
+                var seekChannel = FileChannel.open(Path.of(path), StandardOpenOption.READ);
+                LzfBlockSource source;
+                if (options.memoryMapped) {
+                    source = new MappedBlockSource(seekChannel, offset);
+                } else {
+                    source = new ChannelBlockSource(seekChannel, offset, true);
+                }
+                prepare(source);
+                if (entry >= 0) {
+                    recordReader = index.openAt(entry, source, record, end, options.readAheadBlocks, pool);
+                } else {
+                    recordReader = newRecordReader(source, end);
+                }
+            }
+        }
+        if (recordReader.currentRecord < recordNumber) {
+            recordReader.skipRecords(recordNumber - recordReader.currentRecord);
+        }
+    }
+
+    /**
+     * Skips the next records without decoding them or copying their bytes. Records with variable-length data are
+     * skipped by reading only the length of each record's variable data. When the reader was created from a file
+     * path and the skipped records span whole record blocks, those blocks are not read at all.
+     * <p>
+     * The readX methods do not return data again until the next call to next().
+     *
+     * @param  count                    the number of records to skip
+     * @return                          the number of records skipped, which is less than count if the end of the file, or the limit set with limit(), is reached first
+     * @throws IllegalArgumentException thrown when count is negative
+     * @throws IOException              thrown when there is an error reading the file
+     */
+    public long skip(long count) throws IOException, IllegalArgumentException {
+        if (count < 0) {
+            throw new IllegalArgumentException("cannot skip a negative number of records");
+        }
+        var current = recordReader.currentRecord;
+        var end = recordReader.totalRecords;
+        if (count == 0 || current >= end) {
+            return 0;
+        }
+        var target = count > end - current ? end : current + count;
+        seekToRecord(target);
+        return target - current;
+    }
+
+    /**
+     * Stops the reader after the next records. Once they have been read, next() returns false and closes the file,
+     * as it does at the end of the file. Calling limit() again can only lower the limit.
+     *
+     * @param  count                    the number of records that can still be read
+     * @throws IllegalArgumentException thrown when count is negative
+     */
+    public void limit(long count) throws IllegalArgumentException {
+        if (count < 0) {
+            throw new IllegalArgumentException("cannot limit to a negative number of records");
+        }
+        var current = Math.min(recordReader.currentRecord, recordReader.totalRecords);
+        if (count < recordReader.totalRecords - current) {
+            recordReader.totalRecords = current + count;
+        }
+    }
+
+    /**
+     * Returns the number of record blocks listed in the record block index at the end of the file. Each block starts
+     * with a whole record and holds up to 65,536 records, so the blocks can be read independently of each other.
+     *
+     * @return             the number of record blocks, or 0 if the reader was created from an InputStream or the file's index is not usable
+     * @throws IOException thrown when there is an error reading the index
+     */
+    public int blockCount() throws IOException {
+        var index = nativeIndex();
+        return index == null ? 0 : index.blockCount();
+    }
+
+    /**
+     * Returns the records of the .yxdb file as a Stream of YxdbRow, each row holding its own copy of the record.
+     * <p>
+     * The stream is SIZED from the record count in the file header, and it can be processed in parallel. When the
+     * reader was created from a file path, the stream splits the file at the record blocks listed in the index at the
+     * end of the file, one block every 65,536 records, or at every block where a record starts when the reader's
+     * options hold a YxdbIndex. Each split decompresses and decodes its own blocks with its own buffers, so
+     * reader.stream().parallel() spreads the work over the common fork-join pool. Streams over an InputStream, over
+     * files with a single record block, or over a reader that has already been advanced with next() read the remaining
+     * records in order and do not split.
+     * <p>
+     * When a filter has been set with filter(), the stream only holds the records that pass it and is not SIZED.
+     * <p>
+     * The stream takes over the reader: do not call next() after calling stream(). The file is closed once every
+     * record has been read. Close the stream, or the reader, to release the file if the stream is not read to the end.
+     *
+     * @return             a stream of the remaining records
+     * @throws IOException thrown when the file cannot be opened for splitting
+     */
+    public Stream<YxdbRow> stream() throws IOException {
+        return StreamSupport.stream(newSpliterator(), false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
     }
 
     /**
@@ -194,6 +483,50 @@ public class YxdbReader {
         return record.extractDoubleFrom(name, recordReader.recordBuffer);
     }
 
+    /**
+     * Reads a FixedDecimal field from the .yxdb file without rounding it to a double
+     * @param  index the index of the field to read, starting at 0
+     * @return the exact value of the FixedDecimal field at the specified index, with at least the field's scale. May be null.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a FixedDecimal field
+     */
+    public BigDecimal readDecimal(int index) throws IllegalArgumentException {
+        return record.extractDecimalFrom(index, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a FixedDecimal field from the .yxdb file without rounding it to a double
+     * @param  name the name of the field to read
+     * @return the exact value of the specified FixedDecimal field, with at least the field's scale. May be null.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a FixedDecimal field
+     */
+    public BigDecimal readDecimal(String name) throws IllegalArgumentException {
+        return record.extractDecimalFrom(name, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a FixedDecimal field from the .yxdb file as a long holding the value multiplied by 10^scale, where scale is
+     * the scale in the field's metadata. For example, 123.45 in a field with a scale of 6 is read as 123450000.
+     * @param  index the index of the field to read, starting at 0
+     * @return the unscaled value of the FixedDecimal field at the specified index, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a FixedDecimal field
+     * @throws ArithmeticException      thrown when the value does not fit in a long at the field's scale
+     */
+    public long readUnscaledLong(int index) throws IllegalArgumentException, ArithmeticException {
+        return record.extractUnscaledLongValueFrom(index, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a FixedDecimal field from the .yxdb file as a long holding the value multiplied by 10^scale, where scale is
+     * the scale in the field's metadata. For example, 123.45 in a field with a scale of 6 is read as 123450000.
+     * @param  name the name of the field to read
+     * @return the unscaled value of the specified FixedDecimal field, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a FixedDecimal field
+     * @throws ArithmeticException      thrown when the value does not fit in a long at the field's scale
+     */
+    public long readUnscaledLong(String name) throws IllegalArgumentException, ArithmeticException {
+        return record.extractUnscaledLongValueFrom(name, recordReader.recordBuffer);
+    }
+
     /**
      * Reads a text field from the .yxdb file
      * @param  index the index of the field to read, starting at 0
@@ -214,6 +547,58 @@ public class YxdbReader {
         return record.extractStringFrom(name, recordReader.recordBuffer);
     }
 
+    /**
+     * Appends a text field from the .yxdb file to a StringBuilder, without building a String or copying the field's bytes
+     * @param  index   the index of the field to read, starting at 0
+     * @param  builder the builder the field's characters are appended to
+     * @return true if the field was appended, or false if the field is null
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a text field
+     */
+    public boolean readStringInto(int index, StringBuilder builder) throws IllegalArgumentException {
+        return record.extractStringInto(index, recordReader.recordBuffer, builder);
+    }
+
+    /**
+     * Appends a text field from the .yxdb file to a StringBuilder, without building a String or copying the field's bytes
+     * @param  name    the name of the field to read
+     * @param  builder the builder the field's characters are appended to
+     * @return true if the field was appended, or false if the field is null
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a text field
+     */
+    public boolean readStringInto(String name, StringBuilder builder) throws IllegalArgumentException {
+        return record.extractStringInto(name, recordReader.recordBuffer, builder);
+    }
+
+    /**
+     * Copies the raw bytes of a text field from the .yxdb file into a ByteBuffer, without decoding them.
+     * <p>
+     * String and V_String fields are encoded as ISO-8859-1 and WString and V_WString fields as UTF-16LE. Trailing nulls of
+     * fixed-length fields are not copied.
+     * @param  index  the index of the field to read, starting at 0
+     * @param  target the buffer the bytes are put into, starting at its position
+     * @return the number of bytes copied, or -1 if the field is null
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a text field
+     * @throws java.nio.BufferOverflowException thrown when the field does not fit in the remaining space of target
+     */
+    public int readStringBytes(int index, ByteBuffer target) throws IllegalArgumentException {
+        return record.extractStringBytes(index, recordReader.recordBuffer, target);
+    }
+
+    /**
+     * Copies the raw bytes of a text field from the .yxdb file into a ByteBuffer, without decoding them.
+     * <p>
+     * String and V_String fields are encoded as ISO-8859-1 and WString and V_WString fields as UTF-16LE. Trailing nulls of
+     * fixed-length fields are not copied.
+     * @param  name   the name of the field to read
+     * @param  target the buffer the bytes are put into, starting at its position
+     * @return the number of bytes copied, or -1 if the field is null
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a text field
+     * @throws java.nio.BufferOverflowException thrown when the field does not fit in the remaining space of target
+     */
+    public int readStringBytes(String name, ByteBuffer target) throws IllegalArgumentException {
+        return record.extractStringBytes(name, recordReader.recordBuffer, target);
+    }
+
     /**
      * Reads a date/datetime field from the .yxdb file
      * @param  index the index of the field to read, starting at 0
@@ -234,6 +619,70 @@ public class YxdbReader {
         return record.extractDateFrom(name, recordReader.recordBuffer);
     }
 
+    /**
+     * Reads a date/datetime field from the .yxdb file as a LocalDate. The time of a datetime field is dropped.
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the date/datetime field at the specified index. May be null.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a date/datetime field
+     */
+    public LocalDate readLocalDate(int index) throws IllegalArgumentException {
+        return record.extractLocalDateFrom(index, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a date/datetime field from the .yxdb file as a LocalDate. The time of a datetime field is dropped.
+     * @param  name the name of the field to read
+     * @return the value of the specified date/datetime field. May be null.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a date field
+     */
+    public LocalDate readLocalDate(String name) throws IllegalArgumentException {
+        return record.extractLocalDateFrom(name, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a date/datetime field from the .yxdb file as a LocalDateTime. Date fields are read as midnight.
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the date/datetime field at the specified index. May be null.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a date/datetime field
+     */
+    public LocalDateTime readLocalDateTime(int index) throws IllegalArgumentException {
+        return record.extractLocalDateTimeFrom(index, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a date/datetime field from the .yxdb file as a LocalDateTime. Date fields are read as midnight.
+     * @param  name the name of the field to read
+     * @return the value of the specified date/datetime field. May be null.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a date field
+     */
+    public LocalDateTime readLocalDateTime(String name) throws IllegalArgumentException {
+        return record.extractLocalDateTimeFrom(name, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a date/datetime field from the .yxdb file as milliseconds since 1970-01-01 00:00:00, without allocating.
+     * <p>
+     * YXDB dates carry no time zone, so the value is read as if it were UTC. Use readDate to read the value in the default time zone.
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the date/datetime field at the specified index, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a date/datetime field
+     */
+    public long readEpochMillis(int index) throws IllegalArgumentException {
+        return record.extractEpochMillisValueFrom(index, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a date/datetime field from the .yxdb file as milliseconds since 1970-01-01 00:00:00, without allocating.
+     * <p>
+     * YXDB dates carry no time zone, so the value is read as if it were UTC. Use readDate to read the value in the default time zone.
+     * @param  name the name of the field to read
+     * @return the value of the specified date/datetime field, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a date field
+     */
+    public long readEpochMillis(String name) throws IllegalArgumentException {
+        return record.extractEpochMillisValueFrom(name, recordReader.recordBuffer);
+    }
+
     /**
      * Reads a blob field from the .yxdb file
      * @param  index the index of the field to read, starting at 0
@@ -254,17 +703,400 @@ public class YxdbReader {
         return record.extractBlobFrom(name, recordReader.recordBuffer);
     }
 
+    /**
+     * Checks whether a field in the current record is null. Works for fields of every type.
+     * <p>
+     * Use isNull together with the readXValue methods, which return primitives instead of nullable boxed values.
+     * @param  index the index of the field to check, starting at 0
+     * @return true if the field at the specified index is null
+     * @throws IllegalArgumentException thrown when the index is out of range
+     */
+    public boolean isNull(int index) throws IllegalArgumentException {
+        return record.isNull(index, recordReader.recordBuffer);
+    }
+
+    /**
+     * Checks whether a field in the current record is null. Works for fields of every type.
+     * <p>
+     * Use isNull together with the readXValue methods, which return primitives instead of nullable boxed values.
+     * @param  name the name of the field to check
+     * @return true if the specified field is null
+     * @throws IllegalArgumentException thrown when the field does not exist
+     */
+    public boolean isNull(String name) throws IllegalArgumentException {
+        return record.isNull(name, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a byte field from the .yxdb file without boxing the value
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the byte field at the specified index, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a byte field
+     */
+    public byte readByteValue(int index) throws IllegalArgumentException {
+        return record.extractByteValueFrom(index, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a byte field from the .yxdb file without boxing the value
+     * @param  name the name of the field to read
+     * @return the value of the specified byte field, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a byte field
+     */
+    public byte readByteValue(String name) throws IllegalArgumentException {
+        return record.extractByteValueFrom(name, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a boolean field from the .yxdb file without boxing the value
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the boolean field at the specified index, or false if the field is null. Use isNull to tell a null from false.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a boolean field
+     */
+    public boolean readBooleanValue(int index) throws IllegalArgumentException {
+        return record.extractBooleanValueFrom(index, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a boolean field from the .yxdb file without boxing the value
+     * @param  name the name of the field to read
+     * @return the value of the specified boolean field, or false if the field is null. Use isNull to tell a null from false.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a boolean field
+     */
+    public boolean readBooleanValue(String name) throws IllegalArgumentException {
+        return record.extractBooleanValueFrom(name, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a long integer field from the .yxdb file without boxing the value
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the long integer field at the specified index, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a long integer field
+     */
+    public long readLongValue(int index) throws IllegalArgumentException {
+        return record.extractLongValueFrom(index, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a long integer field from the .yxdb file without boxing the value
+     * @param  name the name of the field to read
+     * @return the value of the specified long integer field, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a long integer field
+     */
+    public long readLongValue(String name) throws IllegalArgumentException {
+        return record.extractLongValueFrom(name, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a numeric field from the .yxdb file without boxing the value
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the numeric field at the specified index, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a numeric field
+     */
+    public double readDoubleValue(int index) throws IllegalArgumentException {
+        return record.extractDoubleValueFrom(index, recordReader.recordBuffer);
+    }
+
+    /**
+     * Reads a numeric field from the .yxdb file without boxing the value
+     * @param  name the name of the field to read
+     * @return the value of the specified numeric field, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a numeric field
+     */
+    public double readDoubleValue(String name) throws IllegalArgumentException {
+        return record.extractDoubleValueFrom(name, recordReader.recordBuffer);
+    }
+
+    /**
+     * Resolves a field by name so it can be read from every record without looking up the name again.
+     * <p>
+     * The returned handle is the typed handle that matches the field's data type, for example a FieldHandle.LongField
+     * for a long integer field. Resolve handles once, before iterating with next().
+     * @param  name the name of the field
+     * @return a handle that reads the field from the current record
+     * @throws IllegalArgumentException thrown when the field does not exist
+     * @see FieldHandle
+     */
+    public FieldHandle field(String name) throws IllegalArgumentException {
+        return FieldHandle.resolve(this, record, record.indexOf(name));
+    }
+
+    /**
+     * Resolves a long integer field by name so it can be read from every record without looking up the name again.
+     * @param  name the name of the field
+     * @return a handle that reads the field from the current record
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a long integer field
+     */
+    public FieldHandle.LongField longField(String name) throws IllegalArgumentException {
+        if (field(name) instanceof FieldHandle.LongField handle) {
+            return handle;
+        }
+        throw new IllegalArgumentException("field " + name + " is not a long integer field");
+    }
+
+    /**
+     * Resolves a numeric field by name so it can be read from every record without looking up the name again.
+     * @param  name the name of the field
+     * @return a handle that reads the field from the current record
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a numeric field
+     */
+    public FieldHandle.DoubleField doubleField(String name) throws IllegalArgumentException {
+        if (field(name) instanceof FieldHandle.DoubleField handle) {
+            return handle;
+        }
+        throw new IllegalArgumentException("field " + name + " is not a numeric field");
+    }
+
+    /**
+     * Resolves a FixedDecimal field by name so it can be read from every record without looking up the name again.
+     * @param  name the name of the field
+     * @return a handle that reads the field from the current record
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a FixedDecimal field
+     */
+    public FieldHandle.DecimalField decimalField(String name) throws IllegalArgumentException {
+        if (field(name) instanceof FieldHandle.DecimalField handle) {
+            return handle;
+        }
+        throw new IllegalArgumentException("field " + name + " is not a FixedDecimal field");
+    }
+
+    /**
+     * Resolves a text field by name so it can be read from every record without looking up the name again.
+     * @param  name the name of the field
+     * @return a handle that reads the field from the current record
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a text field
+     */
+    public FieldHandle.StringField stringField(String name) throws IllegalArgumentException {
+        if (field(name) instanceof FieldHandle.StringField handle) {
+            return handle;
+        }
+        throw new IllegalArgumentException("field " + name + " is not a text field");
+    }
+
+    /**
+     * Resolves a date/datetime field by name so it can be read from every record without looking up the name again.
+     * @param  name the name of the field
+     * @return a handle that reads the field from the current record
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a date/datetime field
+     */
+    public FieldHandle.DateField dateField(String name) throws IllegalArgumentException {
+        if (field(name) instanceof FieldHandle.DateField handle) {
+            return handle;
+        }
+        throw new IllegalArgumentException("field " + name + " is not a date/datetime field");
+    }
+
+    /**
+     * Resolves a boolean field by name so it can be read from every record without looking up the name again.
+     * @param  name the name of the field
+     * @return a handle that reads the field from the current record
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a boolean field
+     */
+    public FieldHandle.BooleanField booleanField(String name) throws IllegalArgumentException {
+        if (field(name) instanceof FieldHandle.BooleanField handle) {
+            return handle;
+        }
+        throw new IllegalArgumentException("field " + name + " is not a boolean field");
+    }
+
+    /**
+     * Resolves a byte field by name so it can be read from every record without looking up the name again.
+     * @param  name the name of the field
+     * @return a handle that reads the field from the current record
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a byte field
+     */
+    public FieldHandle.ByteField byteField(String name) throws IllegalArgumentException {
+        if (field(name) instanceof FieldHandle.ByteField handle) {
+            return handle;
+        }
+        throw new IllegalArgumentException("field " + name + " is not a byte field");
+    }
+
+    /**
+     * Resolves a blob field by name so it can be read from every record without looking up the name again.
+     * @param  name the name of the field
+     * @return a handle that reads the field from the current record
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a blob field
+     */
+    public FieldHandle.BlobField blobField(String name) throws IllegalArgumentException {
+        if (field(name) instanceof FieldHandle.BlobField handle) {
+            return handle;
+        }
+        throw new IllegalArgumentException("field " + name + " is not a blob field");
+    }
+
+    ByteBuffer currentRecord() {
+        return recordReader.recordBuffer;
+    }
+
+    // The number of bytes of the current record in currentRecord(), including its variable-length data.
+    int currentRecordLength() {
+        return recordReader.recordBufferIndex;
+    }
+
     private void loadHeaderAndMetaInfo() throws IOException, IllegalArgumentException {
-        var header = getHeader();
+        if (pool == null) {
+            loadHeader(getHeader());
+            loadMetaInfo();
+            record = YxdbRecord.newFromFieldList(fields);
+            listedFields = record.fields;
+        } else {
+            var scratch = BlockBufferPool.shared.take();
+            try {
+                loadPooledHeaderAndMetaInfo(scratch);
+            } finally {
+                BlockBufferPool.shared.give(scratch);
+            }
+        }
+        if (options.fieldNames != null || options.fieldIndexes != null) {
+            record = project(record);
+            listedFields = record.fields;
+        }
+        recordReader = newRecordReader(newBlockSource(), numRecords);
+    }
+
+    private void loadHeader(ByteBuffer header) throws IllegalArgumentException {
         var fileType = new String(header.array(), 0, 21, StandardCharsets.ISO_8859_1);
         if (!"Alteryx Database File".equals(fileType)) {
             closeStreamAndThrow();
         }
         numRecords = header.getLong(104);
+        spatialIndexPos = header.getLong(88);
+        recordBlockIndexPos = header.getLong(96);
         metaInfoSize = header.getInt(80);
-        loadMetaInfo();
-        record = YxdbRecord.newFromFieldList(fields);
-        recordReader = new BufferedRecordReader(stream, record.fixedSize, record.hasVar, numRecords);
+    }
+
+    // Reads the header, then the meta info with its null terminator, into scratch and looks the meta info up in the
+    // pool before parsing it.
+    private void loadPooledHeaderAndMetaInfo(ByteBuffer scratch) throws IOException, IllegalArgumentException {
+        var bytes = scratch.array();
+        if (stream.readNBytes(bytes, 0, 512) < 512) {
+            closeStreamAndThrow();
+        }
+        loadHeader(scratch);
+        var metaInfoLength = (metaInfoSize * 2) - 2;
+        if (metaInfoSize < 1 || metaInfoLength + 2 > bytes.length) {
+            loadMetaInfo();
+            record = YxdbRecord.newFromFieldList(fields);
+            listedFields = record.fields;
+            return;
+        }
+        if (stream.readNBytes(bytes, 0, metaInfoLength + 2) < metaInfoLength + 2) {
+            closeStreamAndThrow();
+        }
+        var layout = pool.layout(bytes, metaInfoLength);
+        if (layout == null) {
+            metaInfoStr = new String(bytes, 0, metaInfoLength, StandardCharsets.UTF_16LE);
+            getFields();
+            layout = new YxdbReaderPool.Layout(metaInfoStr, fields, YxdbRecord.newFromFieldList(fields));
+            pool.addLayout(bytes, metaInfoLength, layout);
+        }
+        metaInfoStr = layout.metaInfoStr();
+        fields = layout.fields();
+        record = layout.record();
+        listedFields = layout.listedFields();
+    }
+
+    private YxdbRecord project(YxdbRecord full) throws IOException, IllegalArgumentException {
+        var projected = new boolean[full.fields.size()];
+        try {
+            if (options.fieldNames != null) {
+                for (var name : options.fieldNames) {
+                    projected[full.indexOf(name)] = true;
+                }
+            } else {
+                for (var index : options.fieldIndexes) {
+                    if (index < 0 || index >= projected.length) {
+                        throw new IllegalArgumentException("index " + index + " is not a valid index");
+                    }
+                    projected[index] = true;
+                }
+            }
+        } catch (IllegalArgumentException ex) {
+            stream.close();
+            throw ex;
+        }
+        return full.project(projected);
+    }
+
+    private BufferedRecordReader newRecordReader(LzfBlockSource source, long totalRecords) {
+        var reader = new BufferedRecordReader(source, record.fixedSize, record.hasVar, totalRecords, options.readAheadBlocks, pool);
+        reader.skipVarData = !record.readsVarData;
+        return reader;
+    }
+
+    private RecordSpliterator newSpliterator() throws IOException {
+        if (!path.isEmpty() && recordReader.currentRecord == 0 && recordReader.totalRecords == numRecords) {
+            var index = seekIndex();
+            if (index != null && index.blockCount() > 1) {
+                recordReader.close();
+                stream.close();
+                streamChannel = FileChannel.open(Path.of(path), StandardOpenOption.READ);
+                return new RecordSpliterator(record, streamChannel, index, filter, options.blockCache, cacheKey, pool);
+            }
+        }
+        var remaining = Math.max(0, recordReader.totalRecords - recordReader.currentRecord);
+        return new RecordSpliterator(record, recordReader, remaining, filter);
+    }
+
+    // The index used to start reading part way into the file: the reader's YxdbIndex if it has one, or else the
+    // file's own index. Null when neither is available.
+    private BlockIndex seekIndex() throws IOException {
+        if (options.index != null) {
+            return options.index.splitPoints();
+        }
+        return nativeIndex();
+    }
+
+    private BlockIndex nativeIndex() throws IOException {
+        if (!nativeIndexRead && !path.isEmpty()) {
+            nativeIndexRead = true;
+            try (var indexChannel = FileChannel.open(Path.of(path), StandardOpenOption.READ)) {
+                nativeIndex = BlockIndex.readNative(indexChannel, recordBlockIndexPos, recordsStart(), numRecords);
+            }
+        }
+        return nativeIndex;
+    }
+
+    YxdbRecord record() {
+        return record;
+    }
+
+    List<MetaInfoField> metaInfoFields() {
+        return fields;
+    }
+
+    long recordsStart() {
+        return 512 + (metaInfoSize * 2L);
+    }
+
+    // The LZF blocks holding the records end where the spatial index starts, if the file has one, or else where the
+    // record block index starts.
+    long recordsEnd() {
+        if (spatialIndexPos != 0) {
+            return Math.min(spatialIndexPos, recordBlockIndexPos);
+        }
+        return recordBlockIndexPos;
+    }
+
+    private LzfBlockSource newBlockSource() throws IOException {
+        LzfBlockSource source;
+        if (channel != null) {
+            source = new MappedBlockSource(channel, recordsStart());
+        } else {
+            source = new StreamBlockSource(stream, recordsStart());
+        }
+        prepare(source);
+        return source;
+    }
+
+    private void prepare(LzfBlockSource source) {
+        if (recordsEnd() > recordsStart()) {
+            source.end = recordsEnd();
+        }
+        if (cacheKey != null) {
+            source.useCache(options.blockCache, cacheKey);
+        }
     }
 
     private void loadMetaInfo() throws IOException, IllegalArgumentException {
@@ -291,6 +1123,7 @@ public class YxdbReader {
 
     private void getFields() throws IllegalArgumentException {
         var nodes = getRecordInfoNodes();
+        fields = new ArrayList<>();
 
         for (int i = 0; i < nodes.getLength(); i++) {
             var field = nodes.item(i);
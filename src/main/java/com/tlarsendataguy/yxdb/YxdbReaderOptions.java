@@ -0,0 +1,103 @@
+package com.tlarsendataguy.yxdb;
+
+/**
+ * Optional settings that change how YxdbReader reads a .yxdb file.
+ * <p>
+ * The defaults match the behavior of the YxdbReader constructors that do not take options. Each setter returns the
+ * same options object so settings can be chained:
+ * <p>
+ * <code>
+ * var reader = new YxdbReader(path, new YxdbReaderOptions().memoryMapped(true));
+ * </code>
+ */
+public class YxdbReaderOptions {
+    boolean memoryMapped;
+    int readAheadBlocks;
+    YxdbIndex index;
+    YxdbBlockCache blockCache;
+    String[] fieldNames;
+    int[] fieldIndexes;
+
+    /**
+     * Maps the file into memory with FileChannel.map and takes the LZF blocks straight from the mapped region instead
+     * of reading them through an InputStream. Files larger than 2 GB are mapped in segments.
+     * <p>
+     * Only applies when the reader is created from a file path.
+     * @param memoryMapped true to read the file through memory mapping. The default is false.
+     * @return these options
+     */
+    public YxdbReaderOptions memoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+        return this;
+    }
+
+    /**
+     * Reads and decompresses the next LZF blocks on a background thread while the caller works through the records
+     * of the current block. Each block of read-ahead holds up to 256 KB of decompressed data.
+     * <p>
+     * Errors hit by the background thread are thrown from next() when the reader reaches the failed block.
+     * @param blocks the number of blocks to decompress ahead of the caller. The default, 0, decompresses on the calling thread.
+     * @return these options
+     * @throws IllegalArgumentException thrown when blocks is negative
+     */
+    public YxdbReaderOptions readAhead(int blocks) throws IllegalArgumentException {
+        if (blocks < 0) {
+            throw new IllegalArgumentException("read ahead blocks cannot be negative");
+        }
+        this.readAheadBlocks = blocks;
+        return this;
+    }
+
+    /**
+     * Gives the reader a YxdbIndex of the file, so seekToRecord() only decompresses the block holding the record and
+     * stream() can split the file at every block where a record starts.
+     * <p>
+     * Only applies when the reader is created from a file path.
+     * @param index an index built from the same file. The default, null, reads without a YxdbIndex.
+     * @return these options
+     */
+    public YxdbReaderOptions index(YxdbIndex index) {
+        this.index = index;
+        return this;
+    }
+
+    /**
+     * Takes decompressed blocks from a cache shared with other readers, and adds the blocks this reader decompresses
+     * to it, so scanning a file that was scanned recently skips reading and decompressing its blocks. Seeking and
+     * stream() use the cache too.
+     * <p>
+     * Only applies when the reader is created from a file path.
+     * @param cache the cache to share. The default, null, decompresses every block.
+     * @return these options
+     */
+    public YxdbReaderOptions blockCache(YxdbBlockCache cache) {
+        this.blockCache = cache;
+        return this;
+    }
+
+    /**
+     * Reads only the named fields. Reading any other field throws an IllegalArgumentException. When none of the named
+     * fields are V_String, V_WString, Blob or SpatialObj fields, the reader moves past the variable-length data of each
+     * record without copying it, which is most of the bytes of files with large blobs or long text.
+     * <p>
+     * listFields() still lists every field of the file, so field indexes do not change.
+     * @param names the names of the fields to read. Replaces any fields set before.
+     * @return these options
+     */
+    public YxdbReaderOptions fields(String... names) {
+        fieldNames = names.clone();
+        fieldIndexes = null;
+        return this;
+    }
+
+    /**
+     * Reads only the fields at the given indexes. See fields(String...).
+     * @param indexes the indexes of the fields to read, starting at 0. Replaces any fields set before.
+     * @return these options
+     */
+    public YxdbReaderOptions fields(int... indexes) {
+        fieldIndexes = indexes.clone();
+        fieldNames = null;
+        return this;
+    }
+}
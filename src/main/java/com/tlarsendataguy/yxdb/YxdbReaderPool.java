@@ -0,0 +1,164 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opens YxdbReaders that reuse what earlier readers from the same pool allocated, for applications that open many
+ * small .yxdb files.
+ * <p>
+ * A reader opened with new YxdbReader(path) allocates a stream buffer, arrays for the header and the meta info, a DOM
+ * tree to parse the meta info, the field list and record layout built from it, and a record buffer. Readers opened
+ * with open() instead:
+ * <ul>
+ *     <li>read the header and meta info through a FileChannel into a buffer borrowed from the same pool as the LZF
+ *     block buffers, rather than through a BufferedInputStream</li>
+ *     <li>share the fields and record layout of any earlier file whose meta info was byte for byte the same, so the
+ *     XML is only parsed once for each layout. The pool keeps the maxSize most recently used layouts.</li>
+ *     <li>take their record buffer from the pool and give it back when close() is called on them, or when
+ *     seekToRecord() starts reading from a new block. The pool keeps up to maxSize idle record buffers.</li>
+ * </ul>
+ * <p>
+ * A reader's record buffer may be in use by another reader once close() has been called, so do not call the readX
+ * methods of a pooled reader after closing it. Readers that reach the end of their file close their file on their own
+ * but keep their record buffer until close() is called, so call close() on pooled readers once they are no longer
+ * needed, or their record buffers are left to the garbage collector. Readers that share a layout also share the list
+ * returned by listFields(), which cannot be changed.
+ * <p>
+ * A pool can be shared by any number of threads.
+ * <p>
+ * <code>
+ * var pool = new YxdbReaderPool(32);
+ * for (var path : paths) {
+ *     var reader = pool.open(path);
+ *     while (reader.next()) {
+ *         // do something
+ *     }
+ *     reader.close();
+ * }
+ * </code>
+ */
+public class YxdbReaderPool {
+    /**
+     * @param maxSize                   the number of record layouts, and of idle record buffers, the pool keeps
+     * @throws IllegalArgumentException thrown when maxSize is less than 1
+     */
+    public YxdbReaderPool(int maxSize) throws IllegalArgumentException {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("a reader pool must keep at least 1 item");
+        }
+        this.maxSize = maxSize;
+        layouts = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<MetaInfoKey, Layout> eldest) {
+                return size() > YxdbReaderPool.this.maxSize;
+            }
+        };
+    }
+
+    private final int maxSize;
+    private final LinkedHashMap<MetaInfoKey, Layout> layouts;
+    private final ArrayList<ByteBuffer> recordBuffers = new ArrayList<>();
+
+    /**
+     * Opens a reader of the .yxdb file at path. See new YxdbReader(String).
+     *
+     * @param path                      the path to a .yxdb file
+     * @return                          a reader positioned before the first record
+     * @throws IllegalArgumentException thrown when the provided file path does not exist or is not a valid YXDB file
+     * @throws IOException              thrown when there are issues reading the file
+     */
+    public YxdbReader open(String path) throws IOException, IllegalArgumentException {
+        return new YxdbReader(path, new YxdbReaderOptions(), this);
+    }
+
+    /**
+     * Opens a reader of the .yxdb file at path with the provided options. See new YxdbReader(String, YxdbReaderOptions).
+     *
+     * @param path                      the path to a .yxdb file
+     * @param options                   settings that change how the file is read
+     * @return                          a reader positioned before the first record
+     * @throws IllegalArgumentException thrown when the provided file path does not exist or is not a valid YXDB file
+     * @throws IOException              thrown when there are issues reading the file
+     */
+    public YxdbReader open(String path, YxdbReaderOptions options) throws IOException, IllegalArgumentException {
+        return new YxdbReader(path, options, this);
+    }
+
+    // The layout parsed from meta info whose UTF-16LE bytes are the first length bytes of metaInfo, or null if the
+    // pool does not have it.
+    synchronized Layout layout(byte[] metaInfo, int length) {
+        return layouts.get(new MetaInfoKey(metaInfo, length));
+    }
+
+    synchronized void addLayout(byte[] metaInfo, int length, Layout layout) {
+        layouts.put(new MetaInfoKey(Arrays.copyOf(metaInfo, length), length), layout);
+    }
+
+    synchronized int layoutCount() {
+        return layouts.size();
+    }
+
+    /**
+     * @return a cleared little-endian buffer of at least capacity bytes. Its contents are left over from its last user.
+     */
+    synchronized ByteBuffer takeRecordBuffer(int capacity) {
+        for (int i = recordBuffers.size() - 1; i >= 0; i--) {
+            if (recordBuffers.get(i).capacity() >= capacity) {
+                return recordBuffers.remove(i).clear();
+            }
+        }
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    synchronized void giveRecordBuffer(ByteBuffer buffer) {
+        if (recordBuffers.size() < maxSize) {
+            recordBuffers.add(buffer);
+        }
+    }
+
+    synchronized int idleRecordBuffers() {
+        return recordBuffers.size();
+    }
+
+    // The parsed meta info of a file. The field lists are unmodifiable, since every reader of the layout shares them.
+    record Layout(String metaInfoStr, List<MetaInfoField> fields, YxdbRecord record, List<YxdbField> listedFields) {
+        Layout(String metaInfoStr, List<MetaInfoField> fields, YxdbRecord record) {
+            this(metaInfoStr, Collections.unmodifiableList(fields), record, Collections.unmodifiableList(record.fields));
+        }
+    }
+
+    private static final class MetaInfoKey {
+        MetaInfoKey(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+            var hash = 1;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + bytes[i];
+            }
+            this.hash = hash;
+        }
+
+        private final byte[] bytes;
+        private final int length;
+        private final int hash;
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof MetaInfoKey key &&
+                    Arrays.equals(bytes, 0, length, key.bytes, 0, key.length);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
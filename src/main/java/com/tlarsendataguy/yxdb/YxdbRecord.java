@@ -1,32 +1,60 @@
 package com.tlarsendataguy.yxdb;
 
+import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.function.Function;
 
+/**
+ * Describes the layout of a record and decodes its fields.
+ * <p>
+ * The layout is kept in a flat field table: parallel arrays, indexed by field number, holding each field's type tag,
+ * start position, size and scale from the metadata, and the position of its null flag. The typed accessors look up the field
+ * in the arrays and switch on the type tag, so reading a field needs no map lookup, boxing of the index, or call
+ * through a Function.
+ * <p>
+ * A projected record keeps the layout of the full record but tags the fields outside the projection as NOT_PROJECTED,
+ * so the accessors reject them. If no projected field is stored in the variable-length data, readsVarData is false
+ * and the reader does not copy that data at all.
+ */
 class YxdbRecord {
+    static final byte BOOL = 0;
+    static final byte BYTE = 1;
+    static final byte INT16 = 2;
+    static final byte INT32 = 3;
+    static final byte INT64 = 4;
+    static final byte FIXED_DECIMAL = 5;
+    static final byte FLOAT = 6;
+    static final byte DOUBLE = 7;
+    static final byte STRING = 8;
+    static final byte WSTRING = 9;
+    static final byte V_STRING = 10;
+    static final byte V_WSTRING = 11;
+    static final byte DATE = 12;
+    static final byte DATETIME = 13;
+    static final byte BLOB = 14;
+    static final byte NOT_PROJECTED = 15;
+
     private YxdbRecord(int fieldCount){
         nameToIndex = new HashMap<>(fieldCount);
         fields = new ArrayList<>(fieldCount);
-        boolExtractors = new HashMap<>(fieldCount);
-        byteExtractors = new HashMap<>(fieldCount);
-        longExtractors = new HashMap<>(fieldCount);
-        doubleExtractors = new HashMap<>(fieldCount);
-        stringExtractors = new HashMap<>(fieldCount);
-        dateExtractors = new HashMap<>(fieldCount);
-        blobExtractors = new HashMap<>(fieldCount);
+        types = new byte[fieldCount];
+        starts = new int[fieldCount];
+        sizes = new int[fieldCount];
+        scales = new int[fieldCount];
+        nullFlags = new int[fieldCount];
     }
     public final List<YxdbField> fields;
     public int fixedSize;
     public boolean hasVar;
+    boolean readsVarData = true;
     private final Map<String, Integer> nameToIndex;
-    private final Map<Integer, Function<ByteBuffer,Boolean>> boolExtractors;
-    private final Map<Integer, Function<ByteBuffer,Byte>> byteExtractors;
-    private final Map<Integer, Function<ByteBuffer,Long>> longExtractors;
-    private final Map<Integer, Function<ByteBuffer,Double>> doubleExtractors;
-    private final Map<Integer, Function<ByteBuffer,String>> stringExtractors;
-    private final Map<Integer, Function<ByteBuffer,Date>> dateExtractors;
-    private final Map<Integer, Function<ByteBuffer,byte[]>> blobExtractors;
+    final byte[] types;
+    final int[] starts;
+    final int[] sizes;
+    final int[] scales;
+    final int[] nullFlags; // -1 for Bool fields, which mark nulls in the value byte, and for variable-length fields
 
 
     static YxdbRecord newFromFieldList(List<MetaInfoField> fields) throws IllegalArgumentException {
@@ -36,68 +64,68 @@ class YxdbRecord {
         for (MetaInfoField field: fields) {
             switch (field.type()) {
                 case "Int16" -> {
-                    record.addLongExtractor(field.name(), Extractors.NewInt16Extractor(startAt));
+                    record.addField(field, YxdbField.DataType.LONG, INT16, startAt, 2, startAt + 2);
                     startAt += 3;
                 }
                 case "Int32" -> {
-                    record.addLongExtractor(field.name(), Extractors.NewInt32Extractor(startAt));
+                    record.addField(field, YxdbField.DataType.LONG, INT32, startAt, 4, startAt + 4);
                     startAt += 5;
                 }
                 case "Int64" -> {
-                    record.addLongExtractor(field.name(), Extractors.NewInt64Extractor(startAt));
+                    record.addField(field, YxdbField.DataType.LONG, INT64, startAt, 8, startAt + 8);
                     startAt += 9;
                 }
                 case "Float" -> {
-                    record.addDoubleExtractor(field.name(), Extractors.NewFloatExtractor(startAt));
+                    record.addField(field, YxdbField.DataType.DOUBLE, FLOAT, startAt, 4, startAt + 4);
                     startAt += 5;
                 }
                 case "Double" -> {
-                    record.addDoubleExtractor(field.name(), Extractors.NewDoubleExtractor(startAt));
+                    record.addField(field, YxdbField.DataType.DOUBLE, DOUBLE, startAt, 8, startAt + 8);
                     startAt += 9;
                 }
                 case "FixedDecimal" -> {
                     size = field.size();
-                    record.addDoubleExtractor(field.name(), Extractors.NewFixedDecimalExtractor(startAt, size));
+                    record.addField(field, YxdbField.DataType.DOUBLE, FIXED_DECIMAL, startAt, size, startAt + size);
                     startAt += size + 1;
                 }
                 case "String" -> {
                     size = field.size();
-                    record.addStringExtractor(field.name(), Extractors.NewStringExtractor(startAt, size));
+                    record.addField(field, YxdbField.DataType.STRING, STRING, startAt, size, startAt + size);
                     startAt += size + 1;
                 }
                 case "WString" -> {
                     size = field.size();
-                    record.addStringExtractor(field.name(), Extractors.NewWStringExtractor(startAt, size));
+                    record.addField(field, YxdbField.DataType.STRING, WSTRING, startAt, size, startAt + (size * 2));
                     startAt += (size * 2) + 1;
                 }
                 case "V_String" -> {
-                    record.addStringExtractor(field.name(), Extractors.NewV_StringExtractor(startAt));
+                    record.addField(field, YxdbField.DataType.STRING, V_STRING, startAt, 4, -1);
                     startAt += 4;
                     record.hasVar = true;
                 }
                 case "V_WString" -> {
-                    record.addStringExtractor(field.name(), Extractors.NewV_WStringExtractor(startAt));
+                    record.addField(field, YxdbField.DataType.STRING, V_WSTRING, startAt, 4, -1);
                     startAt += 4;
                     record.hasVar = true;
                 }
                 case "Date" -> {
-                    record.addDateExtractor(field.name(), Extractors.NewDateExtractor(startAt));
+                    record.addField(field, YxdbField.DataType.DATE, DATE, startAt, 10, startAt + 10);
                     startAt += 11;
                 }
                 case "DateTime" -> {
-                    record.addDateExtractor(field.name(), Extractors.NewDateTimeExtractor(startAt));
+                    record.addField(field, YxdbField.DataType.DATE, DATETIME, startAt, 19, startAt + 19);
                     startAt += 20;
                 }
                 case "Bool" -> {
-                    record.addBooleanExtractor(field.name(), Extractors.NewBoolExtractor(startAt));
+                    record.addField(field, YxdbField.DataType.BOOLEAN, BOOL, startAt, 1, -1);
                     startAt++;
                 }
                 case "Byte" -> {
-                    record.addByteExtractor(field.name(), Extractors.NewByteExtractor(startAt));
+                    record.addField(field, YxdbField.DataType.BYTE, BYTE, startAt, 1, startAt + 1);
                     startAt += 2;
                 }
                 case "Blob", "SpatialObj" -> {
-                    record.addBlobExtractor(field.name(), Extractors.NewBlobExtractor(startAt));
+                    record.addField(field, YxdbField.DataType.BLOB, BLOB, startAt, 4, -1);
                     startAt += 4;
                     record.hasVar = true;
                 }
@@ -108,164 +136,330 @@ class YxdbRecord {
         return record;
     }
 
+    /**
+     * @param projected for each field, whether it is part of the projection
+     * @return a copy of this record in which only the projected fields can be read
+     */
+    YxdbRecord project(boolean[] projected) {
+        var projection = new YxdbRecord(types.length);
+        projection.fields.addAll(fields);
+        projection.nameToIndex.putAll(nameToIndex);
+        System.arraycopy(types, 0, projection.types, 0, types.length);
+        System.arraycopy(starts, 0, projection.starts, 0, starts.length);
+        System.arraycopy(sizes, 0, projection.sizes, 0, sizes.length);
+        System.arraycopy(scales, 0, projection.scales, 0, scales.length);
+        System.arraycopy(nullFlags, 0, projection.nullFlags, 0, nullFlags.length);
+        projection.fixedSize = fixedSize;
+        projection.hasVar = hasVar;
+        projection.readsVarData = false;
+        for (int i = 0; i < types.length; i++) {
+            if (!projected[i]) {
+                projection.types[i] = NOT_PROJECTED;
+            } else if (types[i] == V_STRING || types[i] == V_WSTRING || types[i] == BLOB) {
+                projection.readsVarData = true;
+            }
+        }
+        return projection;
+    }
+
+    public boolean isNull(int index, ByteBuffer buffer) {
+        if (index < 0 || index >= types.length) {
+            throwInvalidIndex(index);
+        }
+        return switch (types[index]) {
+            case BOOL -> buffer.get(starts[index]) == 2;
+            case V_STRING, V_WSTRING, BLOB -> buffer.getInt(starts[index]) == 1;
+            case NOT_PROJECTED -> throw notProjected(index);
+            default -> buffer.get(nullFlags[index]) == 1;
+        };
+    }
+
+    public boolean isNull(String name, ByteBuffer buffer) {
+        return isNull(indexOf(name), buffer);
+    }
+
+    public long extractLongValueFrom(int index, ByteBuffer buffer) {
+        return switch (typeOf(index)) {
+            case INT16 -> buffer.get(starts[index]+2) == 1 ? 0 : buffer.getShort(starts[index]);
+            case INT32 -> buffer.get(starts[index]+4) == 1 ? 0 : buffer.getInt(starts[index]);
+            case INT64 -> buffer.get(starts[index]+8) == 1 ? 0 : buffer.getLong(starts[index]);
+            default -> throw invalidIndex(index, "long integer");
+        };
+    }
+
+    public long extractLongValueFrom(String name, ByteBuffer buffer) {
+        return extractLongValueFrom(indexOf(name), buffer);
+    }
+
     public Long extractLongFrom(int index, ByteBuffer buffer) {
-        var extractor = longExtractors.get(index);
-        if (extractor == null) {
-            throwInvalidIndex(index, "long integer");
+        var value = extractLongValueFrom(index, buffer);
+        if (buffer.get(nullFlags[index]) == 1) {
+            return null;
         }
-        return extractor.apply(buffer);
+        return value;
     }
 
     public Long extractLongFrom(String name, ByteBuffer buffer) {
-        var index = nameToIndex.get(name);
-        if (index == null) {
-            throwInvalidName(name);
-        }
-        return extractLongFrom(index, buffer);
+        return extractLongFrom(indexOf(name), buffer);
+    }
+
+    public double extractDoubleValueFrom(int index, ByteBuffer buffer) {
+        return switch (typeOf(index)) {
+            case FLOAT -> buffer.get(starts[index]+4) == 1 ? 0 : buffer.getFloat(starts[index]);
+            case DOUBLE -> buffer.get(starts[index]+8) == 1 ? 0 : buffer.getDouble(starts[index]);
+            case FIXED_DECIMAL -> buffer.get(nullFlags[index]) == 1 ? 0 : Extractors.getFixedDecimal(buffer, starts[index], sizes[index]);
+            default -> throw invalidIndex(index, "numeric");
+        };
+    }
+
+    public double extractDoubleValueFrom(String name, ByteBuffer buffer) {
+        return extractDoubleValueFrom(indexOf(name), buffer);
     }
 
     public Double extractDoubleFrom(int index, ByteBuffer buffer) {
-        var extractor = doubleExtractors.get(index);
-        if (extractor == null) {
-            throwInvalidIndex(index, "numeric");
+        var value = extractDoubleValueFrom(index, buffer);
+        if (buffer.get(nullFlags[index]) == 1) {
+            return null;
         }
-        return extractor.apply(buffer);
+        return value;
     }
 
     public Double extractDoubleFrom(String name, ByteBuffer buffer) {
-        var index = nameToIndex.get(name);
-        if (index == null) {
-            throwInvalidName(name);
+        return extractDoubleFrom(indexOf(name), buffer);
+    }
+
+    public BigDecimal extractDecimalFrom(int index, ByteBuffer buffer) {
+        if (typeOf(index) != FIXED_DECIMAL) {
+            throw invalidIndex(index, "fixed decimal");
         }
-        return extractDoubleFrom(index, buffer);
+        if (buffer.get(nullFlags[index]) == 1) {
+            return null;
+        }
+        return Extractors.getBigDecimal(buffer, starts[index], sizes[index], scales[index]);
     }
 
-    public String extractStringFrom(int index, ByteBuffer buffer) {
-        var extractor = stringExtractors.get(index);
-        if (extractor == null) {
-            throwInvalidIndex(index, "text");
+    public BigDecimal extractDecimalFrom(String name, ByteBuffer buffer) {
+        return extractDecimalFrom(indexOf(name), buffer);
+    }
+
+    public long extractUnscaledLongValueFrom(int index, ByteBuffer buffer) {
+        if (typeOf(index) != FIXED_DECIMAL) {
+            throw invalidIndex(index, "fixed decimal");
+        }
+        if (buffer.get(nullFlags[index]) == 1) {
+            return 0;
+        }
+        return unscaledLong(buffer, starts[index], sizes[index], scales[index]);
+    }
+
+    public long extractUnscaledLongValueFrom(String name, ByteBuffer buffer) {
+        return extractUnscaledLongValueFrom(indexOf(name), buffer);
+    }
+
+    static long unscaledLong(ByteBuffer buffer, int start, int size, int scale) throws ArithmeticException {
+        var value = Extractors.getUnscaledFixedDecimal(buffer, start, size, scale);
+        if (value == Extractors.notALong) {
+            return Extractors.getBigDecimal(buffer, start, size, scale).setScale(scale).unscaledValue().longValueExact();
         }
-        return extractor.apply(buffer);
+        return value;
+    }
+
+    public String extractStringFrom(int index, ByteBuffer buffer) {
+        return switch (typeOf(index)) {
+            case STRING -> buffer.get(nullFlags[index]) == 1 ? null : Extractors.getString(buffer, starts[index], sizes[index], 1);
+            case WSTRING -> buffer.get(nullFlags[index]) == 1 ? null : Extractors.getString(buffer, starts[index], sizes[index], 2);
+            case V_STRING -> Extractors.getV_String(buffer, starts[index]);
+            case V_WSTRING -> Extractors.getV_WString(buffer, starts[index]);
+            default -> throw invalidIndex(index, "text");
+        };
     }
 
     public String extractStringFrom(String name, ByteBuffer buffer) {
-        var index = nameToIndex.get(name);
-        if (index == null) {
-            throwInvalidName(name);
+        return extractStringFrom(indexOf(name), buffer);
+    }
+
+    // Returns the packed start and byte length of the text, or Extractors.nullLocation if the field is null.
+    long locateStringFrom(int index, ByteBuffer buffer) {
+        return switch (typeOf(index)) {
+            case STRING, WSTRING, V_STRING, V_WSTRING -> Extractors.locateText(buffer, types[index], starts[index], sizes[index], nullFlags[index]);
+            default -> throw invalidIndex(index, "text");
+        };
+    }
+
+    public boolean extractStringInto(int index, ByteBuffer buffer, StringBuilder builder) {
+        var location = locateStringFrom(index, buffer);
+        if (location == Extractors.nullLocation) {
+            return false;
         }
-        return extractStringFrom(index, buffer);
+        Extractors.appendText(builder, buffer, Extractors.locationStart(location), Extractors.locationLength(location), Extractors.charSizeOf(types[index]));
+        return true;
     }
 
-    public Date extractDateFrom(int index, ByteBuffer buffer) {
-        var extractor = dateExtractors.get(index);
-        if (extractor == null) {
-            throwInvalidIndex(index, "date/datetime");
+    public boolean extractStringInto(String name, ByteBuffer buffer, StringBuilder builder) {
+        return extractStringInto(indexOf(name), buffer, builder);
+    }
+
+    public int extractStringBytes(int index, ByteBuffer buffer, ByteBuffer target) {
+        var location = locateStringFrom(index, buffer);
+        if (location == Extractors.nullLocation) {
+            return -1;
         }
-        return extractor.apply(buffer);
+        var length = Extractors.locationLength(location);
+        target.put(buffer.array(), Extractors.locationStart(location), length);
+        return length;
+    }
+
+    public int extractStringBytes(String name, ByteBuffer buffer, ByteBuffer target) {
+        return extractStringBytes(indexOf(name), buffer, target);
+    }
+
+    public Date extractDateFrom(int index, ByteBuffer buffer) {
+        return switch (typeOf(index)) {
+            case DATE -> buffer.get(starts[index]+10) == 1 ? null : Extractors.getDate(buffer, starts[index]);
+            case DATETIME -> buffer.get(starts[index]+19) == 1 ? null : Extractors.getDateTime(buffer, starts[index]);
+            default -> throw invalidIndex(index, "date/datetime");
+        };
     }
 
     public Date extractDateFrom(String name, ByteBuffer buffer) {
-        var index = nameToIndex.get(name);
-        if (index == null) {
-            throwInvalidName(name);
-        }
-        return extractDateFrom(index, buffer);
+        return extractDateFrom(indexOf(name), buffer);
     }
 
-    public Boolean extractBooleanFrom(int index, ByteBuffer buffer) {
-        var extractor = boolExtractors.get(index);
-        if (extractor == null) {
-            throwInvalidIndex(index, "boolean");
-        }
-        return extractor.apply(buffer);
+    public LocalDate extractLocalDateFrom(int index, ByteBuffer buffer) {
+        return switch (typeOf(index)) {
+            case DATE -> buffer.get(starts[index]+10) == 1 ? null : Extractors.getLocalDate(buffer, starts[index]);
+            case DATETIME -> buffer.get(starts[index]+19) == 1 ? null : Extractors.getLocalDate(buffer, starts[index]);
+            default -> throw invalidIndex(index, "date/datetime");
+        };
     }
 
-    public Boolean extractBooleanFrom(String name, ByteBuffer buffer) {
-        var index = nameToIndex.get(name);
-        if (index == null) {
-            throwInvalidName(name);
-        }
-        return extractBooleanFrom(index, buffer);
+    public LocalDate extractLocalDateFrom(String name, ByteBuffer buffer) {
+        return extractLocalDateFrom(indexOf(name), buffer);
     }
 
-    public Byte extractByteFrom(int index, ByteBuffer buffer) {
-        var extractor = byteExtractors.get(index);
-        if (extractor == null) {
-            throwInvalidIndex(index, "byte");
-        }
-        return extractor.apply(buffer);
+    public LocalDateTime extractLocalDateTimeFrom(int index, ByteBuffer buffer) {
+        return switch (typeOf(index)) {
+            case DATE -> buffer.get(starts[index]+10) == 1 ? null : Extractors.getLocalDateTime(buffer, starts[index], false);
+            case DATETIME -> buffer.get(starts[index]+19) == 1 ? null : Extractors.getLocalDateTime(buffer, starts[index], true);
+            default -> throw invalidIndex(index, "date/datetime");
+        };
     }
 
-    public Byte extractByteFrom(String name, ByteBuffer buffer) {
-        var index = nameToIndex.get(name);
-        if (index == null) {
-            throwInvalidName(name);
-        }
-        return extractByteFrom(index, buffer);
+    public LocalDateTime extractLocalDateTimeFrom(String name, ByteBuffer buffer) {
+        return extractLocalDateTimeFrom(indexOf(name), buffer);
     }
 
-    public byte[] extractBlobFrom(int index, ByteBuffer buffer) {
-        var extractor = blobExtractors.get(index);
-        if (extractor == null) {
-            throwInvalidIndex(index, "blob");
-        }
-        return extractor.apply(buffer);
+    public long extractEpochMillisValueFrom(int index, ByteBuffer buffer) {
+        var millis = switch (typeOf(index)) {
+            case DATE -> buffer.get(starts[index]+10) == 1 ? 0 : Extractors.getEpochMillis(buffer, starts[index], false);
+            case DATETIME -> buffer.get(starts[index]+19) == 1 ? 0 : Extractors.getEpochMillis(buffer, starts[index], true);
+            default -> throw invalidIndex(index, "date/datetime");
+        };
+        return millis == Extractors.invalidDate ? 0 : millis;
     }
 
-    public byte[] extractBlobFrom(String name, ByteBuffer buffer) {
-        var index = nameToIndex.get(name);
-        if (index == null) {
-            throwInvalidName(name);
+    public long extractEpochMillisValueFrom(String name, ByteBuffer buffer) {
+        return extractEpochMillisValueFrom(indexOf(name), buffer);
+    }
+
+    public boolean extractBooleanValueFrom(int index, ByteBuffer buffer) {
+        if (typeOf(index) != BOOL) {
+            throw invalidIndex(index, "boolean");
         }
-        return extractBlobFrom(index, buffer);
+        return buffer.get(starts[index]) == 1;
     }
 
-    private void addLongExtractor(String name, Function<ByteBuffer, Long> extractor) {
-        var index = addFieldNameToIndexMap(name, YxdbField.DataType.LONG);
-        longExtractors.put(index, extractor);
+    public boolean extractBooleanValueFrom(String name, ByteBuffer buffer) {
+        return extractBooleanValueFrom(indexOf(name), buffer);
     }
 
-    private void addDoubleExtractor(String name, Function<ByteBuffer, Double> extractor) {
-        var index = addFieldNameToIndexMap(name, YxdbField.DataType.DOUBLE);
-        doubleExtractors.put(index, extractor);
+    public Boolean extractBooleanFrom(int index, ByteBuffer buffer) {
+        var value = extractBooleanValueFrom(index, buffer);
+        if (buffer.get(starts[index]) == 2) {
+            return null;
+        }
+        return value;
     }
 
-    private void addStringExtractor(String name, Function<ByteBuffer, String> extractor) {
-        var index = addFieldNameToIndexMap(name, YxdbField.DataType.STRING);
-        stringExtractors.put(index, extractor);
+    public Boolean extractBooleanFrom(String name, ByteBuffer buffer) {
+        return extractBooleanFrom(indexOf(name), buffer);
+    }
 
+    public byte extractByteValueFrom(int index, ByteBuffer buffer) {
+        if (typeOf(index) != BYTE) {
+            throw invalidIndex(index, "byte");
+        }
+        var start = starts[index];
+        return buffer.get(start+1) == 1 ? 0 : buffer.get(start);
     }
 
-    private void addDateExtractor(String name, Function<ByteBuffer, Date> extractor) {
-        var index = addFieldNameToIndexMap(name, YxdbField.DataType.DATE);
-        dateExtractors.put(index, extractor);
+    public byte extractByteValueFrom(String name, ByteBuffer buffer) {
+        return extractByteValueFrom(indexOf(name), buffer);
+    }
 
+    public Byte extractByteFrom(int index, ByteBuffer buffer) {
+        var value = extractByteValueFrom(index, buffer);
+        if (buffer.get(nullFlags[index]) == 1) {
+            return null;
+        }
+        return value;
     }
 
-    private void addBooleanExtractor(String name, Function<ByteBuffer, Boolean> extractor) {
-        var index = addFieldNameToIndexMap(name, YxdbField.DataType.BOOLEAN);
-        boolExtractors.put(index, extractor);
+    public Byte extractByteFrom(String name, ByteBuffer buffer) {
+        return extractByteFrom(indexOf(name), buffer);
     }
 
-    private void addByteExtractor(String name, Function<ByteBuffer, Byte> extractor) {
-        var index = addFieldNameToIndexMap(name, YxdbField.DataType.BYTE);
-        byteExtractors.put(index, extractor);
+    public byte[] extractBlobFrom(int index, ByteBuffer buffer) {
+        if (typeOf(index) != BLOB) {
+            throw invalidIndex(index, "blob");
+        }
+        return Extractors.parseBlob(buffer, starts[index]);
     }
 
-    private void addBlobExtractor(String name, Function<ByteBuffer, byte[]> extractor) {
-        var index = addFieldNameToIndexMap(name, YxdbField.DataType.BLOB);
-        blobExtractors.put(index, extractor);
+    public byte[] extractBlobFrom(String name, ByteBuffer buffer) {
+        return extractBlobFrom(indexOf(name), buffer);
     }
 
-    private int addFieldNameToIndexMap(String name, YxdbField.DataType type) {
+    private void addField(MetaInfoField field, YxdbField.DataType dataType, byte type, int start, int size, int nullFlag) {
         var index = fields.size();
-        fields.add(new YxdbField(name, type));
-        nameToIndex.put(name, index);
+        fields.add(new YxdbField(field.name(), dataType));
+        nameToIndex.put(field.name(), index);
+        types[index] = type;
+        starts[index] = start;
+        sizes[index] = size;
+        scales[index] = field.scale();
+        nullFlags[index] = nullFlag;
+    }
+
+    // Returns -1 for an index that is out of range, so the accessors reject it with their type-specific message.
+    private byte typeOf(int index) {
+        if (index < 0 || index >= types.length) {
+            return -1;
+        }
+        return types[index];
+    }
+
+    int indexOf(String name) throws IllegalArgumentException {
+        var index = nameToIndex.get(name);
+        if (index == null) {
+            throwInvalidName(name);
+        }
         return index;
     }
 
-    private static void throwInvalidIndex(int index, String expectedType) throws IllegalArgumentException {
-        throw new IllegalArgumentException("index " + index + " is not a valid index or is not a " + expectedType + " field");
+    private IllegalArgumentException invalidIndex(int index, String expectedType) {
+        if (typeOf(index) == NOT_PROJECTED) {
+            return notProjected(index);
+        }
+        return new IllegalArgumentException("index " + index + " is not a valid index or is not a " + expectedType + " field");
+    }
+
+    IllegalArgumentException notProjected(int index) {
+        return new IllegalArgumentException("field " + fields.get(index).name() + " is not in the projection");
+    }
+
+    private static void throwInvalidIndex(int index) throws IllegalArgumentException {
+        throw new IllegalArgumentException("index " + index + " is not a valid index");
     }
 
     private static void throwInvalidName(String name) throws IllegalArgumentException {
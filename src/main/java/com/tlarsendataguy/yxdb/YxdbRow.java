@@ -0,0 +1,411 @@
+package com.tlarsendataguy.yxdb;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * One record of a .yxdb file, as produced by YxdbReader.stream() or passed to a YxdbParallelScanner consumer.
+ * <p>
+ * Rows produced by YxdbReader.stream() keep their own copy of the record's bytes. They stay valid after the reader
+ * moves on and can be read from any thread.
+ * <p>
+ * To avoid a copy per record, YxdbParallelScanner reuses one row per thread and points it at each record in turn. Such
+ * a row is only valid during the call to the consumer. Call copy() to keep it.
+ */
+public final class YxdbRow {
+    YxdbRow(YxdbRecord record, byte[] source, int length) {
+        this.record = record;
+        var bytes = new byte[length];
+        System.arraycopy(source, 0, bytes, 0, length);
+        buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        this.length = length;
+    }
+
+    YxdbRow(YxdbRecord record) {
+        this.record = record;
+    }
+
+    private final YxdbRecord record;
+    private ByteBuffer buffer;
+    private int length;
+
+    void point(ByteBuffer buffer, int length) {
+        this.buffer = buffer;
+        this.length = length;
+    }
+
+    /**
+     * @return a row with its own copy of this row's record, which stays valid after this row is reused
+     */
+    public YxdbRow copy() {
+        return new YxdbRow(record, buffer.array(), length);
+    }
+
+    /**
+     * @return the list of fields in the row. The index of each field in this list matches the index of the field in the .yxdb file.
+     */
+    public List<YxdbField> listFields() {
+        return record.fields;
+    }
+
+    /**
+     * Checks whether a field of the row is null. Works for fields of every type.
+     * @param  index the index of the field to check, starting at 0
+     * @return true if the field at the specified index is null
+     * @throws IllegalArgumentException thrown when the index is out of range
+     */
+    public boolean isNull(int index) throws IllegalArgumentException {
+        return record.isNull(index, buffer);
+    }
+
+    /**
+     * Checks whether a field of the row is null. Works for fields of every type.
+     * @param  name the name of the field to check
+     * @return true if the specified field is null
+     * @throws IllegalArgumentException thrown when the field does not exist
+     */
+    public boolean isNull(String name) throws IllegalArgumentException {
+        return record.isNull(name, buffer);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the byte field at the specified index. May be null.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a byte field
+     */
+    public Byte readByte(int index) throws IllegalArgumentException {
+        return record.extractByteFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the value of the specified byte field. May be null.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a byte field
+     */
+    public Byte readByte(String name) throws IllegalArgumentException {
+        return record.extractByteFrom(name, buffer);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the byte field at the specified index, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a byte field
+     */
+    public byte readByteValue(int index) throws IllegalArgumentException {
+        return record.extractByteValueFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the value of the specified byte field, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a byte field
+     */
+    public byte readByteValue(String name) throws IllegalArgumentException {
+        return record.extractByteValueFrom(name, buffer);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the boolean field at the specified index. May be null.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a boolean field
+     */
+    public Boolean readBoolean(int index) throws IllegalArgumentException {
+        return record.extractBooleanFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the value of the specified boolean field. May be null.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a boolean field
+     */
+    public Boolean readBoolean(String name) throws IllegalArgumentException {
+        return record.extractBooleanFrom(name, buffer);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the boolean field at the specified index, or false if the field is null. Use isNull to tell a null from false.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a boolean field
+     */
+    public boolean readBooleanValue(int index) throws IllegalArgumentException {
+        return record.extractBooleanValueFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the value of the specified boolean field, or false if the field is null. Use isNull to tell a null from false.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a boolean field
+     */
+    public boolean readBooleanValue(String name) throws IllegalArgumentException {
+        return record.extractBooleanValueFrom(name, buffer);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the long integer field at the specified index. May be null.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a long integer field
+     */
+    public Long readLong(int index) throws IllegalArgumentException {
+        return record.extractLongFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the value of the specified long integer field. May be null.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a long integer field
+     */
+    public Long readLong(String name) throws IllegalArgumentException {
+        return record.extractLongFrom(name, buffer);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the long integer field at the specified index, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a long integer field
+     */
+    public long readLongValue(int index) throws IllegalArgumentException {
+        return record.extractLongValueFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the value of the specified long integer field, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a long integer field
+     */
+    public long readLongValue(String name) throws IllegalArgumentException {
+        return record.extractLongValueFrom(name, buffer);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the numeric field at the specified index. May be null.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a numeric field
+     */
+    public Double readDouble(int index) throws IllegalArgumentException {
+        return record.extractDoubleFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the value of the specified numeric field. May be null.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a numeric field
+     */
+    public Double readDouble(String name) throws IllegalArgumentException {
+        return record.extractDoubleFrom(name, buffer);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the numeric field at the specified index, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a numeric field
+     */
+    public double readDoubleValue(int index) throws IllegalArgumentException {
+        return record.extractDoubleValueFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the value of the specified numeric field, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a numeric field
+     */
+    public double readDoubleValue(String name) throws IllegalArgumentException {
+        return record.extractDoubleValueFrom(name, buffer);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the exact value of the FixedDecimal field at the specified index. May be null.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a FixedDecimal field
+     */
+    public BigDecimal readDecimal(int index) throws IllegalArgumentException {
+        return record.extractDecimalFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the exact value of the specified FixedDecimal field. May be null.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a FixedDecimal field
+     */
+    public BigDecimal readDecimal(String name) throws IllegalArgumentException {
+        return record.extractDecimalFrom(name, buffer);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the FixedDecimal field at the specified index multiplied by 10^scale, where scale is the scale in the field's metadata, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a FixedDecimal field
+     * @throws ArithmeticException      thrown when the value does not fit in a long at the field's scale
+     */
+    public long readUnscaledLong(int index) throws IllegalArgumentException, ArithmeticException {
+        return record.extractUnscaledLongValueFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the value of the specified FixedDecimal field multiplied by 10^scale, where scale is the scale in the field's metadata, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a FixedDecimal field
+     * @throws ArithmeticException      thrown when the value does not fit in a long at the field's scale
+     */
+    public long readUnscaledLong(String name) throws IllegalArgumentException, ArithmeticException {
+        return record.extractUnscaledLongValueFrom(name, buffer);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the text field at the specified index. May be null.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a text field
+     */
+    public String readString(int index) throws IllegalArgumentException {
+        return record.extractStringFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the value of the specified text field. May be null.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a text field
+     */
+    public String readString(String name) throws IllegalArgumentException {
+        return record.extractStringFrom(name, buffer);
+    }
+
+    /**
+     * Appends a text field to a StringBuilder without building a String.
+     * @param  index   the index of the field to read, starting at 0
+     * @param  builder the builder the field's characters are appended to
+     * @return true if the field was appended, or false if the field is null
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a text field
+     */
+    public boolean readStringInto(int index, StringBuilder builder) throws IllegalArgumentException {
+        return record.extractStringInto(index, buffer, builder);
+    }
+
+    /**
+     * Appends a text field to a StringBuilder without building a String.
+     * @param  name    the name of the field to read
+     * @param  builder the builder the field's characters are appended to
+     * @return true if the field was appended, or false if the field is null
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a text field
+     */
+    public boolean readStringInto(String name, StringBuilder builder) throws IllegalArgumentException {
+        return record.extractStringInto(name, buffer, builder);
+    }
+
+    /**
+     * Copies the raw ISO-8859-1 or UTF-16LE bytes of a text field into a ByteBuffer, as YxdbReader.readStringBytes does.
+     * @param  index  the index of the field to read, starting at 0
+     * @param  target the buffer the bytes are put into, starting at its position
+     * @return the number of bytes copied, or -1 if the field is null
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a text field
+     * @throws java.nio.BufferOverflowException thrown when the field does not fit in the remaining space of target
+     */
+    public int readStringBytes(int index, ByteBuffer target) throws IllegalArgumentException {
+        return record.extractStringBytes(index, buffer, target);
+    }
+
+    /**
+     * Copies the raw ISO-8859-1 or UTF-16LE bytes of a text field into a ByteBuffer, as YxdbReader.readStringBytes does.
+     * @param  name   the name of the field to read
+     * @param  target the buffer the bytes are put into, starting at its position
+     * @return the number of bytes copied, or -1 if the field is null
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a text field
+     * @throws java.nio.BufferOverflowException thrown when the field does not fit in the remaining space of target
+     */
+    public int readStringBytes(String name, ByteBuffer target) throws IllegalArgumentException {
+        return record.extractStringBytes(name, buffer, target);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the date/datetime field at the specified index. May be null.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a date/datetime field
+     */
+    public Date readDate(int index) throws IllegalArgumentException {
+        return record.extractDateFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the value of the specified date/datetime field. May be null.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a date field
+     */
+    public Date readDate(String name) throws IllegalArgumentException {
+        return record.extractDateFrom(name, buffer);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the date/datetime field at the specified index as a LocalDate, without its time. May be null.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a date/datetime field
+     */
+    public LocalDate readLocalDate(int index) throws IllegalArgumentException {
+        return record.extractLocalDateFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the value of the specified date/datetime field as a LocalDate, without its time. May be null.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a date field
+     */
+    public LocalDate readLocalDate(String name) throws IllegalArgumentException {
+        return record.extractLocalDateFrom(name, buffer);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the date/datetime field at the specified index as a LocalDateTime. May be null.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a date/datetime field
+     */
+    public LocalDateTime readLocalDateTime(int index) throws IllegalArgumentException {
+        return record.extractLocalDateTimeFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the value of the specified date/datetime field as a LocalDateTime. May be null.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a date field
+     */
+    public LocalDateTime readLocalDateTime(String name) throws IllegalArgumentException {
+        return record.extractLocalDateTimeFrom(name, buffer);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the date/datetime field at the specified index as milliseconds since 1970-01-01 00:00:00 UTC, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a date/datetime field
+     */
+    public long readEpochMillis(int index) throws IllegalArgumentException {
+        return record.extractEpochMillisValueFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the value of the specified date/datetime field as milliseconds since 1970-01-01 00:00:00 UTC, or 0 if the field is null. Use isNull to tell a null from 0.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a date field
+     */
+    public long readEpochMillis(String name) throws IllegalArgumentException {
+        return record.extractEpochMillisValueFrom(name, buffer);
+    }
+
+    /**
+     * @param  index the index of the field to read, starting at 0
+     * @return the value of the blob field, as an array of bytes, at the specified index. May be null.
+     * @throws IllegalArgumentException thrown when the index is out of range or the field at the specified index is not a blob field
+     */
+    public byte[] readBlob(int index) throws IllegalArgumentException {
+        return record.extractBlobFrom(index, buffer);
+    }
+
+    /**
+     * @param  name the name of the field to read
+     * @return the value of the specified blob field, as an array of bytes. May be null.
+     * @throws IllegalArgumentException thrown when the field does not exist or is not a blob field
+     */
+    public byte[] readBlob(String name) throws IllegalArgumentException {
+        return record.extractBlobFrom(name, buffer);
+    }
+}
@@ -0,0 +1,249 @@
+package com.tlarsendataguy.yxdb;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lists the fields of a .yxdb file to be written by YxdbWriter, in the order they are stored in each record.
+ * <p>
+ * Each method adds a field of one of the YXDB field types and returns the same schema so fields can be chained:
+ * <p>
+ * <code>
+ * var schema = new YxdbSchema().addInt32("Id").addVWString("Name").addDouble("Amount");
+ * </code>
+ * <p>
+ * String and WString fields take the number of characters they hold. FixedDecimal fields take the number of
+ * characters of their text, including the sign and decimal point, and the number of digits after the decimal point.
+ */
+public class YxdbSchema {
+    final List<MetaInfoField> fields = new ArrayList<>();
+    private final Set<String> names = new HashSet<>();
+
+    /**
+     * Returns a schema with the fields of the reader's file, so the reader's records can be copied into a YxdbWriter
+     * with writeRecord(YxdbReader). Fields outside the reader's projection are included.
+     *
+     * @param reader a reader of the file whose fields are copied
+     * @return a new schema
+     */
+    public static YxdbSchema of(YxdbReader reader) {
+        var schema = new YxdbSchema();
+        for (var field : reader.metaInfoFields()) {
+            schema.add(field.name(), field.type(), field.size(), field.scale());
+        }
+        return schema;
+    }
+
+    /**
+     * @param name the name of the field
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used
+     */
+    public YxdbSchema addBool(String name) throws IllegalArgumentException {
+        return add(name, "Bool", 1, 0);
+    }
+
+    /**
+     * @param name the name of the field
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used
+     */
+    public YxdbSchema addByte(String name) throws IllegalArgumentException {
+        return add(name, "Byte", 1, 0);
+    }
+
+    /**
+     * @param name the name of the field
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used
+     */
+    public YxdbSchema addInt16(String name) throws IllegalArgumentException {
+        return add(name, "Int16", 2, 0);
+    }
+
+    /**
+     * @param name the name of the field
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used
+     */
+    public YxdbSchema addInt32(String name) throws IllegalArgumentException {
+        return add(name, "Int32", 4, 0);
+    }
+
+    /**
+     * @param name the name of the field
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used
+     */
+    public YxdbSchema addInt64(String name) throws IllegalArgumentException {
+        return add(name, "Int64", 8, 0);
+    }
+
+    /**
+     * @param name  the name of the field
+     * @param size  the number of characters of the field's text, from 1 to 50
+     * @param scale the number of digits after the decimal point, less than size
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used, or the size or scale are out of range
+     */
+    public YxdbSchema addFixedDecimal(String name, int size, int scale) throws IllegalArgumentException {
+        if (size < 1 || size > 50) {
+            throw new IllegalArgumentException("FixedDecimal size must be from 1 to 50");
+        }
+        if (scale < 0 || scale >= size) {
+            throw new IllegalArgumentException("FixedDecimal scale must be at least 0 and less than the size");
+        }
+        return add(name, "FixedDecimal", size, scale);
+    }
+
+    /**
+     * @param name the name of the field
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used
+     */
+    public YxdbSchema addFloat(String name) throws IllegalArgumentException {
+        return add(name, "Float", 4, 0);
+    }
+
+    /**
+     * @param name the name of the field
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used
+     */
+    public YxdbSchema addDouble(String name) throws IllegalArgumentException {
+        return add(name, "Double", 8, 0);
+    }
+
+    /**
+     * @param name the name of the field
+     * @param size the number of ISO-8859-1 characters the field holds. Longer values are cut short.
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used, or the size is less than 1
+     */
+    public YxdbSchema addString(String name, int size) throws IllegalArgumentException {
+        return add(name, "String", checkSize(size), 0);
+    }
+
+    /**
+     * @param name the name of the field
+     * @param size the number of UTF-16 characters the field holds. Longer values are cut short.
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used, or the size is less than 1
+     */
+    public YxdbSchema addWString(String name, int size) throws IllegalArgumentException {
+        return add(name, "WString", checkSize(size), 0);
+    }
+
+    /**
+     * @param name the name of the field
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used
+     */
+    public YxdbSchema addVString(String name) throws IllegalArgumentException {
+        return add(name, "V_String", 4, 0);
+    }
+
+    /**
+     * @param name the name of the field
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used
+     */
+    public YxdbSchema addVWString(String name) throws IllegalArgumentException {
+        return add(name, "V_WString", 4, 0);
+    }
+
+    /**
+     * @param name the name of the field
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used
+     */
+    public YxdbSchema addDate(String name) throws IllegalArgumentException {
+        return add(name, "Date", 10, 0);
+    }
+
+    /**
+     * @param name the name of the field
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used
+     */
+    public YxdbSchema addDateTime(String name) throws IllegalArgumentException {
+        return add(name, "DateTime", 19, 0);
+    }
+
+    /**
+     * @param name the name of the field
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used
+     */
+    public YxdbSchema addBlob(String name) throws IllegalArgumentException {
+        return add(name, "Blob", 4, 0);
+    }
+
+    /**
+     * Adds a field for spatial objects. Values are written with YxdbWriter.setBlob() in the binary SpatialObj format.
+     * @param name the name of the field
+     * @return this schema
+     * @throws IllegalArgumentException thrown when the name is empty or is already used
+     */
+    public YxdbSchema addSpatialObj(String name) throws IllegalArgumentException {
+        return add(name, "SpatialObj", 4, 0);
+    }
+
+    YxdbRecord record() {
+        return YxdbRecord.newFromFieldList(fields);
+    }
+
+    // The RecordInfo XML stored as the meta info of the file, laid out the way Alteryx writes it.
+    String toMetaInfo() {
+        var xml = new StringBuilder("<RecordInfo>\n");
+        for (var field : fields) {
+            xml.append("\t<Field name=\"").append(escape(field.name())).append('"');
+            switch (field.type()) {
+                case "FixedDecimal" -> xml.append(" scale=\"").append(field.scale()).append("\" size=\"").append(field.size()).append('"');
+                case "String", "WString" -> xml.append(" size=\"").append(field.size()).append('"');
+                case "V_String", "Blob", "SpatialObj" -> xml.append(" size=\"2147483647\"");
+                case "V_WString" -> xml.append(" size=\"1073741823\"");
+            }
+            xml.append(" type=\"").append(field.type()).append("\"/>\n");
+        }
+        return xml.append("</RecordInfo>\n").toString();
+    }
+
+    private YxdbSchema add(String name, String type, int size, int scale) throws IllegalArgumentException {
+        if (name == null || name.isEmpty()) {
+            throw new IllegalArgumentException("field name cannot be empty");
+        }
+        if (!names.add(name)) {
+            throw new IllegalArgumentException("field " + name + " already exists");
+        }
+        fields.add(new MetaInfoField(name, type, size, scale));
+        return this;
+    }
+
+    private static int checkSize(int size) throws IllegalArgumentException {
+        if (size < 1) {
+            throw new IllegalArgumentException("field size must be at least 1");
+        }
+        return size;
+    }
+
+    private static String escape(String value) {
+        var escaped = new StringBuilder(value.length());
+        for (var i = 0; i < value.length(); i++) {
+            var c = value.charAt(i);
+            switch (c) {
+                case '&' -> escaped.append("&amp;");
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '"' -> escaped.append("&quot;");
+                case '\t' -> escaped.append("&#9;");
+                case '\n' -> escaped.append("&#10;");
+                case '\r' -> escaped.append("&#13;");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
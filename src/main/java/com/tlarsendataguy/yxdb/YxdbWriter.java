@@ -0,0 +1,746 @@
+package com.tlarsendataguy.yxdb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * YxdbWriter writes records to a new .yxdb file.
+ * <p>
+ * The fields of the file are listed in a YxdbSchema. Set the fields of a record with the setX methods, then call
+ * writeRecord() to add it to the file. Fields that are not set are written as nulls. Call close() once every record has
+ * been written: the header at the start of the file and the record block index at its end are written then, and the
+ * file is not valid before that.
+ * <p>
+ * <code>
+ * try (var writer = new YxdbWriter(path, new YxdbSchema().addInt32("Id").addVWString("Name"))) {
+ *     writer.setLong(0, 1);
+ *     writer.setString(1, "Alice");
+ *     writer.writeRecord();
+ * }
+ * </code>
+ * <p>
+ * Records are laid out the way YxdbReader reads them and packed into LZF blocks of up to 256 KB. Each block is
+ * compressed and written as soon as it is full, and a block that does not get smaller is stored uncompressed. Blocks
+ * are compressed on worker threads while the calling thread lays out the records of the next block, and are written in
+ * order. A new block is started every 65,536 records, where the record block index points. Memory use is 2 blocks and
+ * their compressed copies per thread, plus the largest record written, no matter how many records the file holds.
+ * <p>
+ * Each setX method has 2 overloads, one taking the field index and one the field name, and throws an
+ * IllegalArgumentException if the field does not exist, is not of a type the method writes, or cannot hold the value.
+ */
+public class YxdbWriter implements Closeable {
+    private static final int maxVarOffset = 0x10000000; // larger offsets would be read as tiny values
+    private static final int maxVarLength = 0x3fffffff; // lengths of large values are stored doubled in an int
+
+    /**
+     * Creates the file at path, replacing any file already there, and writes its meta info. Blocks are compressed
+     * with one thread per available processor.
+     *
+     * @param path                      the path of the .yxdb file to write
+     * @param schema                    the fields of each record
+     * @throws IllegalArgumentException thrown when the schema has no fields
+     * @throws IOException              thrown when the file cannot be created or written
+     */
+    public YxdbWriter(String path, YxdbSchema schema) throws IOException, IllegalArgumentException {
+        this(path, schema, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates the file at path, replacing any file already there, and writes its meta info. With 1 thread, blocks
+     * are compressed on the calling thread.
+     *
+     * @param path                      the path of the .yxdb file to write
+     * @param schema                    the fields of each record
+     * @param threads                   the number of threads to compress blocks with
+     * @throws IllegalArgumentException thrown when the schema has no fields or threads is less than 1
+     * @throws IOException              thrown when the file cannot be created or written
+     */
+    public YxdbWriter(String path, YxdbSchema schema, int threads) throws IOException, IllegalArgumentException {
+        if (schema.fields.isEmpty()) {
+            throw new IllegalArgumentException("the schema must have at least 1 field");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("a writer needs at least 1 thread");
+        }
+        record = schema.record();
+        recordBuffer = ByteBuffer.allocate(record.fixedSize + 4).order(ByteOrder.LITTLE_ENDIAN);
+        varStarts = new int[record.types.length];
+        varLengths = new int[record.types.length];
+        emptyRecord = new byte[record.fixedSize];
+        var empty = ByteBuffer.wrap(emptyRecord).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < record.types.length; i++) {
+            writeNull(empty, i);
+        }
+        clearRecord();
+
+        var metaInfo = schema.toMetaInfo();
+        metaInfoSize = metaInfo.length() + 1; // the meta info is stored with a null terminator
+        channel = FileChannel.open(Path.of(path), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            var meta = ByteBuffer.allocate(metaInfoSize * 2);
+            meta.put(metaInfo.getBytes(StandardCharsets.UTF_16LE));
+            meta.clear();
+            LzfBlockWriter.writeFully(channel, meta, 512);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        blocks = new LzfBlockWriter(channel, recordsStart(), threads);
+    }
+
+    private final YxdbRecord record;
+    private final FileChannel channel;
+    private final int metaInfoSize;
+    private final byte[] emptyRecord;
+    private ByteBuffer recordBuffer;
+    private byte[] varValues = new byte[256];
+    private int varValuesLength;
+    private final int[] varStarts;
+    private final int[] varLengths;
+    private final LzfBlockWriter blocks;
+    private int blockLength;
+    private boolean blockStartsIndexEntry = true;
+    private long numRecords;
+    private YxdbReader checkedReader;
+    private boolean closed;
+
+    /**
+     * @return the number of records written so far
+     */
+    public long numRecords() {
+        return numRecords;
+    }
+
+    /**
+     * Writes the field as null.
+     *
+     * @param index                     the index of the field, starting at 0
+     * @throws IllegalArgumentException thrown when the index is not valid
+     */
+    public void setNull(int index) throws IllegalArgumentException {
+        if (index < 0 || index >= record.types.length) {
+            throw new IllegalArgumentException("index " + index + " is not a valid index");
+        }
+        writeNull(recordBuffer, index);
+    }
+
+    /**
+     * Writes the field as null.
+     *
+     * @param name                      the name of the field
+     * @throws IllegalArgumentException thrown when the name is not valid
+     */
+    public void setNull(String name) throws IllegalArgumentException {
+        setNull(record.indexOf(name));
+    }
+
+    /**
+     * Sets a Bool field.
+     *
+     * @param index                     the index of the field, starting at 0
+     * @param value                     the value of the field
+     * @throws IllegalArgumentException thrown when the index is not valid or is not a Bool field
+     */
+    public void setBoolean(int index, boolean value) throws IllegalArgumentException {
+        checkType(index, "boolean", YxdbRecord.BOOL);
+        recordBuffer.put(record.starts[index], (byte) (value ? 1 : 0));
+    }
+
+    /**
+     * Sets a Bool field.
+     *
+     * @param name                      the name of the field
+     * @param value                     the value of the field
+     * @throws IllegalArgumentException thrown when the name is not valid or is not a Bool field
+     */
+    public void setBoolean(String name, boolean value) throws IllegalArgumentException {
+        setBoolean(record.indexOf(name), value);
+    }
+
+    /**
+     * Sets a Byte field.
+     *
+     * @param index                     the index of the field, starting at 0
+     * @param value                     the value of the field
+     * @throws IllegalArgumentException thrown when the index is not valid or is not a Byte field
+     */
+    public void setByte(int index, byte value) throws IllegalArgumentException {
+        checkType(index, "byte", YxdbRecord.BYTE);
+        recordBuffer.put(record.starts[index], value);
+        recordBuffer.put(record.nullFlags[index], (byte) 0);
+    }
+
+    /**
+     * Sets a Byte field.
+     *
+     * @param name                      the name of the field
+     * @param value                     the value of the field
+     * @throws IllegalArgumentException thrown when the name is not valid or is not a Byte field
+     */
+    public void setByte(String name, byte value) throws IllegalArgumentException {
+        setByte(record.indexOf(name), value);
+    }
+
+    /**
+     * Sets an Int16, Int32 or Int64 field.
+     *
+     * @param index                     the index of the field, starting at 0
+     * @param value                     the value of the field
+     * @throws IllegalArgumentException thrown when the index is not valid, is not an integer field, or the value does not fit in the field
+     */
+    public void setLong(int index, long value) throws IllegalArgumentException {
+        var type = checkType(index, "long integer", YxdbRecord.INT16, YxdbRecord.INT32, YxdbRecord.INT64);
+        var start = record.starts[index];
+        switch (type) {
+            case YxdbRecord.INT16 -> {
+                if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+                    throw doesNotFit(value, index);
+                }
+                recordBuffer.putShort(start, (short) value);
+            }
+            case YxdbRecord.INT32 -> {
+                if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                    throw doesNotFit(value, index);
+                }
+                recordBuffer.putInt(start, (int) value);
+            }
+            default -> recordBuffer.putLong(start, value);
+        }
+        recordBuffer.put(record.nullFlags[index], (byte) 0);
+    }
+
+    /**
+     * Sets an Int16, Int32 or Int64 field.
+     *
+     * @param name                      the name of the field
+     * @param value                     the value of the field
+     * @throws IllegalArgumentException thrown when the name is not valid, is not an integer field, or the value does not fit in the field
+     */
+    public void setLong(String name, long value) throws IllegalArgumentException {
+        setLong(record.indexOf(name), value);
+    }
+
+    /**
+     * Sets a Float, Double or FixedDecimal field. Float fields store the value rounded to a float, and FixedDecimal
+     * fields store it rounded half up to the scale of the field.
+     *
+     * @param index                     the index of the field, starting at 0
+     * @param value                     the value of the field
+     * @throws IllegalArgumentException thrown when the index is not valid, is not a numeric field, or the value does not fit in a FixedDecimal field
+     */
+    public void setDouble(int index, double value) throws IllegalArgumentException {
+        var type = checkType(index, "numeric", YxdbRecord.FLOAT, YxdbRecord.DOUBLE, YxdbRecord.FIXED_DECIMAL);
+        switch (type) {
+            case YxdbRecord.FLOAT -> recordBuffer.putFloat(record.starts[index], (float) value);
+            case YxdbRecord.DOUBLE -> recordBuffer.putDouble(record.starts[index], value);
+            default -> {
+                if (Double.isNaN(value) || Double.isInfinite(value)) {
+                    throw doesNotFit(value, index);
+                }
+                writeDecimal(index, BigDecimal.valueOf(value));
+            }
+        }
+        recordBuffer.put(record.nullFlags[index], (byte) 0);
+    }
+
+    /**
+     * Sets a Float, Double or FixedDecimal field. See setDouble(int, double).
+     *
+     * @param name                      the name of the field
+     * @param value                     the value of the field
+     * @throws IllegalArgumentException thrown when the name is not valid, is not a numeric field, or the value does not fit in a FixedDecimal field
+     */
+    public void setDouble(String name, double value) throws IllegalArgumentException {
+        setDouble(record.indexOf(name), value);
+    }
+
+    /**
+     * Sets a FixedDecimal field to the value rounded half up to the scale of the field.
+     *
+     * @param index                     the index of the field, starting at 0
+     * @param value                     the value of the field, or null
+     * @throws IllegalArgumentException thrown when the index is not valid, is not a FixedDecimal field, or the value has more characters than the size of the field
+     */
+    public void setDecimal(int index, BigDecimal value) throws IllegalArgumentException {
+        checkType(index, "fixed decimal", YxdbRecord.FIXED_DECIMAL);
+        if (value == null) {
+            writeNull(recordBuffer, index);
+            return;
+        }
+        writeDecimal(index, value);
+        recordBuffer.put(record.nullFlags[index], (byte) 0);
+    }
+
+    /**
+     * Sets a FixedDecimal field. See setDecimal(int, BigDecimal).
+     *
+     * @param name                      the name of the field
+     * @param value                     the value of the field, or null
+     * @throws IllegalArgumentException thrown when the name is not valid, is not a FixedDecimal field, or the value has more characters than the size of the field
+     */
+    public void setDecimal(String name, BigDecimal value) throws IllegalArgumentException {
+        setDecimal(record.indexOf(name), value);
+    }
+
+    /**
+     * Sets a String, WString, V_String or V_WString field. String and V_String fields store ISO-8859-1 text, and
+     * characters outside of it are written as '?'. String and WString fields keep as many characters as their size
+     * and cut off the rest.
+     *
+     * @param index                     the index of the field, starting at 0
+     * @param value                     the value of the field, or null
+     * @throws IllegalArgumentException thrown when the index is not valid or is not a text field
+     */
+    public void setString(int index, String value) throws IllegalArgumentException {
+        var type = checkType(index, "string", YxdbRecord.STRING, YxdbRecord.WSTRING, YxdbRecord.V_STRING, YxdbRecord.V_WSTRING);
+        if (value == null) {
+            writeNull(recordBuffer, index);
+            return;
+        }
+        var start = record.starts[index];
+        switch (type) {
+            case YxdbRecord.STRING -> {
+                var length = Math.min(value.length(), record.sizes[index]);
+                var array = recordBuffer.array();
+                for (int i = 0; i < length; i++) {
+                    var c = value.charAt(i);
+                    array[start + i] = (byte) (c > 0xff ? '?' : c);
+                }
+                Arrays.fill(array, start + length, start + record.sizes[index], (byte) 0);
+            }
+            case YxdbRecord.WSTRING -> {
+                var length = Math.min(value.length(), record.sizes[index]);
+                if (length < value.length() && length > 0 && Character.isHighSurrogate(value.charAt(length - 1))) {
+                    length--; // do not split a surrogate pair
+                }
+                for (int i = 0; i < length; i++) {
+                    recordBuffer.putChar(start + (i * 2), value.charAt(i));
+                }
+                Arrays.fill(recordBuffer.array(), start + (length * 2), start + (record.sizes[index] * 2), (byte) 0);
+            }
+            case YxdbRecord.V_STRING -> setVarValue(index, value.getBytes(StandardCharsets.ISO_8859_1));
+            default -> setVarValue(index, value.getBytes(StandardCharsets.UTF_16LE));
+        }
+        if (type == YxdbRecord.STRING || type == YxdbRecord.WSTRING) {
+            recordBuffer.put(record.nullFlags[index], (byte) 0);
+        }
+    }
+
+    /**
+     * Sets a String, WString, V_String or V_WString field. See setString(int, String).
+     *
+     * @param name                      the name of the field
+     * @param value                     the value of the field, or null
+     * @throws IllegalArgumentException thrown when the name is not valid or is not a text field
+     */
+    public void setString(String name, String value) throws IllegalArgumentException {
+        setString(record.indexOf(name), value);
+    }
+
+    /**
+     * Sets a Date field.
+     *
+     * @param index                     the index of the field, starting at 0
+     * @param value                     the value of the field, or null
+     * @throws IllegalArgumentException thrown when the index is not valid, is not a Date field, or the year is outside 0 to 9999
+     */
+    public void setDate(int index, LocalDate value) throws IllegalArgumentException {
+        checkType(index, "date", YxdbRecord.DATE);
+        if (value == null) {
+            writeNull(recordBuffer, index);
+            return;
+        }
+        writeDate(index, value);
+        recordBuffer.put(record.nullFlags[index], (byte) 0);
+    }
+
+    /**
+     * Sets a Date field.
+     *
+     * @param name                      the name of the field
+     * @param value                     the value of the field, or null
+     * @throws IllegalArgumentException thrown when the name is not valid, is not a Date field, or the year is outside 0 to 9999
+     */
+    public void setDate(String name, LocalDate value) throws IllegalArgumentException {
+        setDate(record.indexOf(name), value);
+    }
+
+    /**
+     * Sets a DateTime field. Fractions of a second are dropped.
+     *
+     * @param index                     the index of the field, starting at 0
+     * @param value                     the value of the field, or null
+     * @throws IllegalArgumentException thrown when the index is not valid, is not a DateTime field, or the year is outside 0 to 9999
+     */
+    public void setDateTime(int index, LocalDateTime value) throws IllegalArgumentException {
+        checkType(index, "datetime", YxdbRecord.DATETIME);
+        if (value == null) {
+            writeNull(recordBuffer, index);
+            return;
+        }
+        writeDate(index, value.toLocalDate());
+        var start = record.starts[index];
+        recordBuffer.put(start + 10, (byte) ' ');
+        putDigits(start + 11, value.getHour(), 2);
+        recordBuffer.put(start + 13, (byte) ':');
+        putDigits(start + 14, value.getMinute(), 2);
+        recordBuffer.put(start + 16, (byte) ':');
+        putDigits(start + 17, value.getSecond(), 2);
+        recordBuffer.put(record.nullFlags[index], (byte) 0);
+    }
+
+    /**
+     * Sets a DateTime field. Fractions of a second are dropped.
+     *
+     * @param name                      the name of the field
+     * @param value                     the value of the field, or null
+     * @throws IllegalArgumentException thrown when the name is not valid, is not a DateTime field, or the year is outside 0 to 9999
+     */
+    public void setDateTime(String name, LocalDateTime value) throws IllegalArgumentException {
+        setDateTime(record.indexOf(name), value);
+    }
+
+    /**
+     * Sets a Blob or SpatialObj field. The bytes are copied, so the array can be reused once the method returns.
+     *
+     * @param index                     the index of the field, starting at 0
+     * @param value                     the value of the field, or null
+     * @throws IllegalArgumentException thrown when the index is not valid or is not a Blob or SpatialObj field
+     */
+    public void setBlob(int index, byte[] value) throws IllegalArgumentException {
+        checkType(index, "blob", YxdbRecord.BLOB);
+        if (value == null) {
+            writeNull(recordBuffer, index);
+            return;
+        }
+        setVarValue(index, value);
+    }
+
+    /**
+     * Sets a Blob or SpatialObj field. See setBlob(int, byte[]).
+     *
+     * @param name                      the name of the field
+     * @param value                     the value of the field, or null
+     * @throws IllegalArgumentException thrown when the name is not valid or is not a Blob or SpatialObj field
+     */
+    public void setBlob(String name, byte[] value) throws IllegalArgumentException {
+        setBlob(record.indexOf(name), value);
+    }
+
+    /**
+     * Adds the record made by the setX calls since the last call to writeRecord() to the file, and starts a new
+     * record in which every field is null.
+     *
+     * @throws IllegalArgumentException thrown when the variable-length values of the record add up to more than 256 MB. The record is not written.
+     * @throws IOException              thrown when there is an error writing the file or the writer is closed
+     */
+    public void writeRecord() throws IOException, IllegalArgumentException {
+        if (closed) {
+            throw new IOException("the writer is closed");
+        }
+        var length = record.fixedSize;
+        if (record.hasVar) {
+            try {
+                length = layOutVarData();
+            } catch (IllegalArgumentException ex) {
+                clearRecord();
+                throw ex;
+            }
+        }
+        appendRecord(recordBuffer.array(), length);
+        clearRecord();
+    }
+
+    /**
+     * Adds the current record of the reader to the file as it is, without decoding or encoding any of its fields.
+     * The reader's fields must have the layout of this writer's schema, as they do when the schema was made with
+     * YxdbSchema.of(reader). Fields set with the setX methods since the last record are discarded.
+     * <p>
+     * <code>
+     * var reader = new YxdbReader(path);
+     * reader.filter(reader.stringField("Country").whereEquals("US"));
+     * try (var writer = new YxdbWriter(outPath, YxdbSchema.of(reader))) {
+     *     while (reader.next()) {
+     *         writer.writeRecord(reader);
+     *     }
+     * }
+     * </code>
+     *
+     * @param reader                    a reader positioned on the record to copy by a call to next()
+     * @throws IllegalArgumentException thrown when the reader's records do not have the layout of the schema, or the reader skips variable-length data because of its projection
+     * @throws IOException              thrown when there is an error writing the file or the writer is closed
+     */
+    public void writeRecord(YxdbReader reader) throws IOException, IllegalArgumentException {
+        if (closed) {
+            throw new IOException("the writer is closed");
+        }
+        if (reader != checkedReader) {
+            checkLayout(reader.record());
+            checkedReader = reader;
+        }
+        appendRecord(reader.currentRecord().array(), reader.currentRecordLength());
+        clearRecord();
+    }
+
+    /**
+     * Copies the remaining records of the reader to the file with writeRecord(YxdbReader). The reader's filter decides
+     * which records are copied.
+     *
+     * @param reader                    the reader whose remaining records are copied
+     * @return                          the number of records copied
+     * @throws IllegalArgumentException thrown when the reader's records do not have the layout of the schema, or the reader skips variable-length data because of its projection
+     * @throws IOException              thrown when there is an error reading the records or writing the file
+     */
+    public long writeRecords(YxdbReader reader) throws IOException, IllegalArgumentException {
+        long copied = 0;
+        while (reader.next()) {
+            writeRecord(reader);
+            copied++;
+        }
+        return copied;
+    }
+
+    /**
+     * Writes the last block, the record block index and the header, and closes the file. Calling close() again has no effect.
+     *
+     * @throws IOException thrown when there is an error writing the file
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flushBlock();
+            var indexPosition = blocks.finish();
+            var offsets = blocks.indexOffsets();
+            if (offsets.length == 0) {
+                offsets = new long[]{recordsStart()};
+            }
+            var index = ByteBuffer.allocate(4 + (offsets.length * 8)).order(ByteOrder.LITTLE_ENDIAN);
+            index.putInt(offsets.length);
+            for (var offset : offsets) {
+                index.putLong(offset);
+            }
+            index.flip();
+            LzfBlockWriter.writeFully(channel, index, indexPosition);
+            LzfBlockWriter.writeFully(channel, header(indexPosition), 0);
+        } finally {
+            blocks.close();
+            channel.close();
+        }
+    }
+
+    private long recordsStart() {
+        return 512 + (metaInfoSize * 2L);
+    }
+
+    private ByteBuffer header(long indexPosition) {
+        var header = ByteBuffer.allocate(512).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("Alteryx Database File  (C) 2020 Alteryx\r\n".getBytes(StandardCharsets.ISO_8859_1));
+        header.putInt(64, 0x00440204);
+        header.putInt(68, (int) (System.currentTimeMillis() / 1000));
+        header.putInt(80, metaInfoSize);
+        header.putLong(96, indexPosition);
+        header.putLong(104, numRecords);
+        header.putInt(112, 1);
+        header.clear();
+        return header;
+    }
+
+    // Writes the variable-length values after the fixed part of the record, in field order, and points the fixed part
+    // of each field at its value. Returns the length of the record.
+    private int layOutVarData() throws IllegalArgumentException {
+        var position = record.fixedSize + 4;
+        for (int i = 0; i < record.types.length; i++) {
+            var type = record.types[i];
+            if (type != YxdbRecord.V_STRING && type != YxdbRecord.V_WSTRING && type != YxdbRecord.BLOB) {
+                continue;
+            }
+            var start = record.starts[i];
+            var length = varLengths[i];
+            if (length < 0) {
+                recordBuffer.putInt(start, 1);
+            } else if (length == 0) {
+                recordBuffer.putInt(start, 0);
+            } else if (length <= 3) {
+                // tiny values are stored in the fixed part, with the length in bits 28 and 29
+                var tiny = length << 28;
+                for (int b = 0; b < length; b++) {
+                    tiny |= (varValues[varStarts[i] + b] & 0xff) << (b * 8);
+                }
+                recordBuffer.putInt(start, tiny);
+            } else {
+                var offset = position - start;
+                if (offset >= maxVarOffset) {
+                    throw new IllegalArgumentException("the variable-length values of the record are too large");
+                }
+                recordBuffer.putInt(start, offset);
+                ensureRecordCapacity(position + 4 + length);
+                if (length <= 127) {
+                    recordBuffer.put(position, (byte) ((length << 1) | 1));
+                    position++;
+                } else {
+                    recordBuffer.putInt(position, length * 2);
+                    position += 4;
+                }
+                System.arraycopy(varValues, varStarts[i], recordBuffer.array(), position, length);
+                position += length;
+            }
+        }
+        recordBuffer.putInt(record.fixedSize, position - record.fixedSize - 4);
+        return position;
+    }
+
+    private void setVarValue(int index, byte[] value) throws IllegalArgumentException {
+        if (value.length > maxVarLength) {
+            throw doesNotFit(value.length + " bytes", index);
+        }
+        if (varValuesLength + value.length > varValues.length) {
+            varValues = Arrays.copyOf(varValues, Math.max(varValuesLength + value.length, varValues.length * 2));
+        }
+        System.arraycopy(value, 0, varValues, varValuesLength, value.length);
+        varStarts[index] = varValuesLength;
+        varLengths[index] = value.length;
+        varValuesLength += value.length;
+        recordBuffer.putInt(record.starts[index], 0);
+    }
+
+    private void checkLayout(YxdbRecord source) throws IllegalArgumentException {
+        if (record.hasVar && !source.readsVarData) {
+            throw new IllegalArgumentException("the reader's projection skips the variable-length data of its records");
+        }
+        var matches = source.fixedSize == record.fixedSize && source.types.length == record.types.length;
+        for (int i = 0; matches && i < record.types.length; i++) {
+            matches = source.starts[i] == record.starts[i] && source.sizes[i] == record.sizes[i] &&
+                    (source.types[i] == record.types[i] || source.types[i] == YxdbRecord.NOT_PROJECTED);
+        }
+        if (!matches) {
+            throw new IllegalArgumentException("the reader's records do not have the layout of the writer's schema");
+        }
+    }
+
+    private void writeDecimal(int index, BigDecimal value) throws IllegalArgumentException {
+        var text = value.setScale(record.scales[index], RoundingMode.HALF_UP).toPlainString();
+        var size = record.sizes[index];
+        if (text.length() > size) {
+            throw doesNotFit(text, index);
+        }
+        var start = record.starts[index];
+        var array = recordBuffer.array();
+        for (int i = 0; i < text.length(); i++) {
+            array[start + i] = (byte) text.charAt(i);
+        }
+        Arrays.fill(array, start + text.length(), start + size, (byte) 0);
+    }
+
+    private void writeDate(int index, LocalDate value) throws IllegalArgumentException {
+        if (value.getYear() < 0 || value.getYear() > 9999) {
+            throw doesNotFit(value, index);
+        }
+        var start = record.starts[index];
+        putDigits(start, value.getYear(), 4);
+        recordBuffer.put(start + 4, (byte) '-');
+        putDigits(start + 5, value.getMonthValue(), 2);
+        recordBuffer.put(start + 7, (byte) '-');
+        putDigits(start + 8, value.getDayOfMonth(), 2);
+    }
+
+    private void putDigits(int position, int value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            recordBuffer.put(position + i, (byte) ('0' + (value % 10)));
+            value /= 10;
+        }
+    }
+
+    private void writeNull(ByteBuffer buffer, int index) {
+        var start = record.starts[index];
+        switch (record.types[index]) {
+            case YxdbRecord.BOOL -> buffer.put(start, (byte) 2);
+            case YxdbRecord.V_STRING, YxdbRecord.V_WSTRING, YxdbRecord.BLOB -> {
+                buffer.putInt(start, 1);
+                varLengths[index] = -1;
+            }
+            default -> {
+                var nullFlag = record.nullFlags[index];
+                Arrays.fill(buffer.array(), start, nullFlag, (byte) 0);
+                buffer.put(nullFlag, (byte) 1);
+            }
+        }
+    }
+
+    private void clearRecord() {
+        System.arraycopy(emptyRecord, 0, recordBuffer.array(), 0, emptyRecord.length);
+        Arrays.fill(varLengths, -1);
+        varValuesLength = 0;
+    }
+
+    private byte checkType(int index, String expectedType, byte... types) throws IllegalArgumentException {
+        if (index >= 0 && index < record.types.length) {
+            for (var type : types) {
+                if (record.types[index] == type) {
+                    return type;
+                }
+            }
+        }
+        throw new IllegalArgumentException("index " + index + " is not a valid index or is not a " + expectedType + " field");
+    }
+
+    private IllegalArgumentException doesNotFit(Object value, int index) {
+        return new IllegalArgumentException("value " + value + " does not fit in field " + record.fields.get(index).name());
+    }
+
+    private void ensureRecordCapacity(int capacity) {
+        if (capacity > recordBuffer.capacity()) {
+            var grown = ByteBuffer.allocate(Math.max(capacity, recordBuffer.capacity() * 2)).order(ByteOrder.LITTLE_ENDIAN);
+            System.arraycopy(recordBuffer.array(), 0, grown.array(), 0, recordBuffer.capacity());
+            recordBuffer = grown;
+        }
+    }
+
+    private void appendRecord(byte[] bytes, int length) throws IOException {
+        if (numRecords > 0 && numRecords % BlockIndex.recordsPerNativeBlock == 0) {
+            flushBlock();
+            blockStartsIndexEntry = true;
+        }
+        append(bytes, length);
+        numRecords++;
+    }
+
+    // Copies the record into the current block, handing each block that fills up to the block writer. Records can
+    // span blocks.
+    private void append(byte[] bytes, int length) throws IOException {
+        var from = 0;
+        while (from < length) {
+            var block = blocks.block();
+            var count = Math.min(length - from, block.length - blockLength);
+            System.arraycopy(bytes, from, block, blockLength, count);
+            blockLength += count;
+            from += count;
+            if (blockLength == block.length) {
+                flushBlock();
+            }
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (blockLength == 0) {
+            return;
+        }
+        blocks.submit(blockLength, blockStartsIndexEntry);
+        blockStartsIndexEntry = false;
+        blockLength = 0;
+    }
+}
@@ -0,0 +1,119 @@
+package com.tlarsendataguy.yxdb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class BlockBufferPoolTest {
+    @Test
+    public void TestReturnedBuffersAreLentAgain() {
+        var pool = new BlockBufferPool(2);
+        var first = pool.take();
+        var second = pool.take();
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(BufferedRecordReader.lzfBufferSize, first.capacity());
+        Assertions.assertEquals(ByteOrder.LITTLE_ENDIAN, first.order());
+
+        first.limit(10);
+        pool.give(first);
+        pool.give(second);
+        Assertions.assertEquals(2, pool.idle());
+        Assertions.assertSame(second, pool.take());
+        var reused = pool.take();
+        Assertions.assertSame(first, reused);
+        Assertions.assertEquals(BufferedRecordReader.lzfBufferSize, reused.limit());
+        Assertions.assertEquals(0, pool.idle());
+    }
+
+    @Test
+    public void TestLentBuffersAreLittleEndian() {
+        var pool = new BlockBufferPool(2);
+        var buffer = ByteBuffer.allocate(BufferedRecordReader.lzfBufferSize);
+        pool.give(buffer);
+        Assertions.assertSame(buffer, pool.take());
+        Assertions.assertEquals(ByteOrder.LITTLE_ENDIAN, buffer.order());
+    }
+
+    @Test
+    public void TestIdleBuffersAreCapped() {
+        var pool = new BlockBufferPool(2);
+        pool.give(pool.take());
+        pool.give(ByteBuffer.allocate(BufferedRecordReader.lzfBufferSize));
+        pool.give(ByteBuffer.allocate(BufferedRecordReader.lzfBufferSize));
+        pool.give(ByteBuffer.allocate(100));
+        Assertions.assertEquals(2, pool.idle());
+    }
+
+    @Test
+    public void TestReadersGiveTheirBuffersBack() throws IOException {
+        var options = new YxdbReaderOptions[]{
+                new YxdbReaderOptions(),
+                new YxdbReaderOptions().memoryMapped(true),
+                new YxdbReaderOptions().readAhead(2),
+        };
+        for (var option : options) {
+            sumLotsOfRecords(new YxdbReader("src/test/resources/LotsOfRecords.yxdb", option));
+            var idle = BlockBufferPool.shared.idle();
+            Assertions.assertTrue(idle >= 2);
+            for (int i = 0; i < 5; i++) {
+                sumLotsOfRecords(new YxdbReader("src/test/resources/LotsOfRecords.yxdb", option));
+                Assertions.assertEquals(idle, BlockBufferPool.shared.idle());
+            }
+        }
+    }
+
+    @Test
+    public void TestStreamsGiveTheirBuffersBack() throws IOException {
+        for (int i = 0; i < 16; i++) {
+            BlockBufferPool.shared.give(ByteBuffer.allocate(BufferedRecordReader.lzfBufferSize).order(ByteOrder.LITTLE_ENDIAN));
+        }
+        var idle = BlockBufferPool.shared.idle();
+        for (int i = 0; i < 5; i++) {
+            sumLotsOfRecordsInParallel(new YxdbReader("src/test/resources/LotsOfRecords.yxdb"));
+            Assertions.assertTrue(BlockBufferPool.shared.idle() >= idle, "idle buffers went from " + idle + " to " + BlockBufferPool.shared.idle());
+        }
+    }
+
+    @Test
+    public void TestClosingTwiceDoesNotShareBuffers() throws IOException {
+        var finished = new YxdbReader("src/test/resources/LotsOfRecords.yxdb", new YxdbReaderOptions().readAhead(1));
+        sumLotsOfRecords(finished);
+        finished.close();
+        var seeking = new YxdbReader("src/test/resources/LotsOfRecords.yxdb");
+        seeking.seekToRecord(50000);
+        seeking.seekToRecord(10);
+        seeking.close();
+        seeking.close();
+
+        var first = new YxdbReader("src/test/resources/LotsOfRecords.yxdb");
+        var second = new YxdbReader("src/test/resources/LotsOfRecords.yxdb", new YxdbReaderOptions().readAhead(1));
+        var third = new YxdbReader("src/test/resources/LotsOfRecords.yxdb", new YxdbReaderOptions().memoryMapped(true));
+        long expected = 1;
+        while (first.next()) {
+            Assertions.assertTrue(second.next());
+            Assertions.assertTrue(third.next());
+            Assertions.assertEquals(expected, first.readLong(0));
+            Assertions.assertEquals(expected, second.readLong(0));
+            Assertions.assertEquals(expected, third.readLong(0));
+            expected++;
+        }
+        Assertions.assertEquals(100001, expected);
+    }
+
+    private static void sumLotsOfRecordsInParallel(YxdbReader reader) throws IOException {
+        try (var rows = reader.stream()) {
+            Assertions.assertEquals(5000050000L, rows.parallel().mapToLong(row -> row.readLong(0)).sum());
+        }
+    }
+
+    private static void sumLotsOfRecords(YxdbReader reader) throws IOException {
+        long sum = 0;
+        while (reader.next()) {
+            sum += reader.readLong(0);
+        }
+        Assertions.assertEquals(5000050000L, sum);
+    }
+}
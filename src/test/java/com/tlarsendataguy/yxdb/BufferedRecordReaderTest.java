@@ -3,10 +3,16 @@ package com.tlarsendataguy.yxdb;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 public class BufferedRecordReaderTest {
     @Test
@@ -33,13 +39,146 @@ public class BufferedRecordReaderTest {
         Assertions.assertEquals(3, recordsRead);
     }
 
+    @Test
+    public void TestMappedSegmentsSmallerThanFile() throws IOException {
+        var defaultSegmentSize = MappedBlockSource.segmentSize;
+        MappedBlockSource.segmentSize = 100000;
+        try {
+            var reader = generateMappedReader("src/test/resources/LotsOfRecords.yxdb", 5, false);
+            int recordsRead = 0;
+            while (reader.nextRecord()) {
+                recordsRead++;
+                Assertions.assertEquals(recordsRead, reader.recordBuffer.getInt(0));
+            }
+            Assertions.assertEquals(100000, recordsRead);
+
+            reader = generateMappedReader("src/test/resources/VeryLongField.yxdb", 6, true);
+            recordsRead = 0;
+            while (reader.nextRecord()) {
+                recordsRead++;
+                Assertions.assertEquals(recordsRead, reader.recordBuffer.get(0));
+            }
+            Assertions.assertEquals(3, recordsRead);
+        } finally {
+            MappedBlockSource.segmentSize = defaultSegmentSize;
+        }
+    }
+
+    @Test
+    public void TestReadAhead() throws IOException {
+        var reader = generateReader("src/test/resources/LotsOfRecords.yxdb", 5, false, 2);
+        int recordsRead = 0;
+        while (reader.nextRecord()) {
+            recordsRead++;
+            Assertions.assertEquals(recordsRead, reader.recordBuffer.getInt(0));
+        }
+        Assertions.assertEquals(100000, recordsRead);
+
+        reader = generateReader("src/test/resources/VeryLongField.yxdb", 6, true, 1);
+        recordsRead = 0;
+        while (reader.nextRecord()) {
+            recordsRead++;
+            Assertions.assertEquals(recordsRead, reader.recordBuffer.get(0));
+        }
+        Assertions.assertEquals(3, recordsRead);
+    }
+
+    @Test
+    public void TestReadAheadPassesErrorsToCaller() throws IOException {
+        var bytes = Files.readAllBytes(Path.of("src/test/resources/LotsOfRecords.yxdb"));
+        var stream = new ByteArrayInputStream(bytes, 0, 300000);
+        stream.skip(512 + 134);
+        var reader = new BufferedRecordReader(new StreamBlockSource(stream), 5, false, 100000, 2);
+        Assertions.assertThrows(IOException.class, () -> {
+            while (reader.nextRecord()) {
+                // read until the truncated block is reached
+            }
+        });
+        Assertions.assertThrows(IOException.class, reader::nextRecord);
+        Assertions.assertThrows(IOException.class, reader::nextRecord);
+    }
+
+    @Test
+    public void TestReadAheadStopsAtTheEndOfTheRecords() throws IOException {
+        var stream = new FileInputStream("src/test/resources/LotsOfRecords.yxdb");
+        stream.skip(512 + 134);
+        var source = new StreamBlockSource(stream, 512 + 134);
+        var reader = new BufferedRecordReader(source, 5, false, 200000, 2);
+        source.end = new YxdbReader("src/test/resources/LotsOfRecords.yxdb").recordsEnd();
+        int recordsRead = 0;
+        try {
+            while (reader.nextRecord()) {
+                recordsRead++;
+            }
+            Assertions.fail("the reader should not read past the last record block");
+        } catch (IOException ex) {
+            Assertions.assertEquals("yxdb file is not valid", ex.getMessage());
+        }
+        Assertions.assertEquals(100000, recordsRead);
+    }
+
+    @Test
+    public void TestCloseReadAheadEarly() throws IOException {
+        var reader = generateReader("src/test/resources/LotsOfRecords.yxdb", 5, false, 2);
+        Assertions.assertTrue(reader.nextRecord());
+        reader.close();
+    }
+
+    @Test
+    public void TestSkipRecords() throws IOException {
+        var reader = generateReader("src/test/resources/LotsOfRecords.yxdb", 5, false);
+        Assertions.assertEquals(70000, reader.skipRecords(70000));
+        Assertions.assertTrue(reader.nextRecord());
+        Assertions.assertEquals(70001, reader.recordBuffer.getInt(0));
+        Assertions.assertEquals(29998, reader.skipRecords(29998));
+        Assertions.assertTrue(reader.nextRecord());
+        Assertions.assertEquals(100000, reader.recordBuffer.getInt(0));
+        Assertions.assertEquals(0, reader.skipRecords(50000));
+        Assertions.assertFalse(reader.nextRecord());
+
+        reader = generateReader("src/test/resources/VeryLongField.yxdb", 6, true, 1);
+        Assertions.assertEquals(2, reader.skipRecords(2));
+        Assertions.assertTrue(reader.nextRecord());
+        Assertions.assertEquals(3, reader.recordBuffer.get(0));
+        Assertions.assertEquals(0, reader.skipRecords(1));
+        Assertions.assertFalse(reader.nextRecord());
+    }
+
+    @Test
+    public void TestSkipRecordsBetweenReads() throws IOException {
+        var reading = generateReader("src/test/resources/TutorialData.yxdb", 81, true);
+        var skipping = generateReader("src/test/resources/TutorialData.yxdb", 81, true);
+        var records = 0;
+        while (reading.nextRecord() && reading.nextRecord() && reading.nextRecord()) {
+            Assertions.assertEquals(2, skipping.skipRecords(2));
+            Assertions.assertTrue(skipping.nextRecord());
+            Assertions.assertArrayEquals(
+                    Arrays.copyOf(reading.recordBuffer.array(), reading.recordBufferIndex),
+                    Arrays.copyOf(skipping.recordBuffer.array(), skipping.recordBufferIndex));
+            records += 3;
+        }
+        Assertions.assertEquals(8715, records);
+    }
+
+    private BufferedRecordReader generateMappedReader(String path, int fixedLen, boolean hasVarFields) throws IOException {
+        var channel = FileChannel.open(Path.of(path), StandardOpenOption.READ);
+        var header = channel.map(FileChannel.MapMode.READ_ONLY, 0, 512).order(ByteOrder.LITTLE_ENDIAN);
+        var metaInfoSize = header.getInt(80) * 2;
+        var totalRecords = header.getLong(104);
+        return new BufferedRecordReader(new MappedBlockSource(channel, 512 + metaInfoSize), fixedLen, hasVarFields, totalRecords);
+    }
+
     private BufferedRecordReader generateReader(String path, int fixedLen, boolean hasVarFields) throws IOException {
+        return generateReader(path, fixedLen, hasVarFields, 0);
+    }
+
+    private BufferedRecordReader generateReader(String path, int fixedLen, boolean hasVarFields, int readAheadBlocks) throws IOException {
         var stream = new FileInputStream(path);
         var header = ByteBuffer.allocate(512).order(ByteOrder.LITTLE_ENDIAN);
         stream.readNBytes(header.array(), 0, 512);
         var metaInfoSize = header.getInt(80) * 2;
         var totalRecords = header.getLong(104);
         stream.skip(metaInfoSize);
-        return new BufferedRecordReader(stream,fixedLen, hasVarFields, totalRecords);
+        return new BufferedRecordReader(new StreamBlockSource(stream), fixedLen, hasVarFields, totalRecords, readAheadBlocks);
     }
 }
@@ -0,0 +1,143 @@
+package com.tlarsendataguy.yxdb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.IOException;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ColumnBatchTest {
+    @Test
+    public void TestBatchesMatchReader() throws IOException {
+        var files = List.of("AllNormalFields.yxdb", "LotsOfRecords.yxdb", "TutorialData.yxdb", "VeryLongField.yxdb", "TestNewYxdb.yxdb");
+        for (var file : files) {
+            var path = "src/test/resources/" + file;
+            var expected = new YxdbReader(path);
+            var reader = new YxdbReader(path);
+            var batch = new ColumnBatch();
+            long rows = 0;
+            while (reader.nextBatch(batch, 1000) > 0) {
+                Assertions.assertEquals(reader.listFields().size(), batch.columnCount());
+                for (int row = 0; row < batch.rowCount(); row++) {
+                    Assertions.assertTrue(expected.next());
+                    assertRowMatches(expected, batch, row, file);
+                    rows++;
+                }
+            }
+            Assertions.assertFalse(expected.next());
+            Assertions.assertEquals(reader.numRecords, rows, file);
+        }
+    }
+
+    @Test
+    public void TestBatchSizes() throws IOException {
+        var reader = new YxdbReader("src/test/resources/LotsOfRecords.yxdb");
+        var batch = new ColumnBatch();
+        var sizes = new ArrayList<Integer>();
+        long sum = 0;
+        while (reader.nextBatch(batch, 4096) > 0) {
+            sizes.add(batch.rowCount());
+            var values = batch.longs(0);
+            var nulls = batch.nulls(0);
+            for (int row = 0; row < batch.rowCount(); row++) {
+                sum += values[row];
+                Assertions.assertEquals(0, nulls[row >>> 6] & (1L << row));
+            }
+        }
+        Assertions.assertEquals(25, sizes.size());
+        Assertions.assertEquals(4096, sizes.get(0));
+        Assertions.assertEquals(100000 - (24 * 4096), sizes.get(24));
+        Assertions.assertEquals(5000050000L, sum);
+        Assertions.assertEquals(0, reader.nextBatch(batch, 4096));
+        Assertions.assertEquals(0, batch.rowCount());
+    }
+
+    @Test
+    public void TestBlobColumnWithNulls() throws IOException {
+        var reader = new YxdbReader("src/test/resources/VeryLongField.yxdb");
+        var batch = new ColumnBatch();
+        var blob = reader.field("Blob").index();
+
+        Assertions.assertEquals(2, reader.nextBatch(batch, 2));
+        var offsets = batch.offsets(blob);
+        Assertions.assertEquals(604732, offsets[1] - offsets[0]);
+        Assertions.assertTrue(batch.isNull(blob, 1));
+        Assertions.assertEquals(offsets[1], offsets[2]);
+
+        Assertions.assertEquals(1, reader.nextBatch(batch, 2));
+        Assertions.assertFalse(batch.isNull(blob, 0));
+        Assertions.assertEquals(604732, batch.offsets(blob)[1]);
+    }
+
+    @Test
+    public void TestBatchWithFilterAndProjection() throws IOException {
+        var reader = new YxdbReader("src/test/resources/TutorialData.yxdb", new YxdbReaderOptions().fields("Prefix", "Last"));
+        reader.filter(reader.stringField("Prefix").whereEquals("Mr"));
+        var prefix = reader.field("Prefix").index();
+        var batch = new ColumnBatch();
+        var count = 0;
+        while (reader.nextBatch(batch, 500) > 0) {
+            for (int row = 0; row < batch.rowCount(); row++) {
+                Assertions.assertEquals("Mr", batch.string(prefix, row));
+            }
+            count += batch.rowCount();
+        }
+        Assertions.assertEquals(4068, count);
+
+        var email = 0;
+        while (!reader.listFields().get(email).name().equals("Email")) {
+            email++;
+        }
+        var notProjected = email;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.bytes(notProjected));
+    }
+
+    @Test
+    public void InvalidColumnAccessThrows() throws IOException {
+        var reader = new YxdbReader("src/test/resources/AllNormalFields.yxdb");
+        var batch = new ColumnBatch();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.longs(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> reader.nextBatch(batch, 0));
+
+        reader.nextBatch(batch, 10);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.doubles(reader.field("Int16Field").index()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.longs(reader.field("StringField").index()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.epochDays(reader.field("DateTimeField").index()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.longs(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> batch.isNull(0, batch.rowCount()));
+    }
+
+    private static void assertRowMatches(YxdbReader expected, ColumnBatch batch, int row, String file) {
+        var fields = expected.listFields();
+        for (int i = 0; i < fields.size(); i++) {
+            var message = file + " " + fields.get(i).name();
+            if (expected.isNull(i)) {
+                Assertions.assertTrue(batch.isNull(i, row), message);
+                continue;
+            }
+            Assertions.assertFalse(batch.isNull(i, row), message);
+            var type = expected.record().types[i];
+            switch (fields.get(i).type()) {
+                case BYTE -> Assertions.assertEquals((long) expected.readByte(i), batch.longs(i)[row], message);
+                case LONG -> Assertions.assertEquals(expected.readLong(i), batch.longs(i)[row], message);
+                case DOUBLE -> Assertions.assertEquals(expected.readDouble(i), batch.doubles(i)[row], message);
+                case BOOLEAN -> Assertions.assertEquals(expected.readBoolean(i), batch.booleans(i)[row], message);
+                case DATE -> {
+                    if (type == YxdbRecord.DATE) {
+                        Assertions.assertEquals(expected.readLocalDate(i).toEpochDay(), batch.epochDays(i)[row], message);
+                    } else {
+                        Assertions.assertEquals(expected.readLocalDateTime(i).toInstant(ZoneOffset.UTC).toEpochMilli(), batch.epochMillis(i)[row], message);
+                    }
+                }
+                case STRING -> Assertions.assertEquals(expected.readString(i), batch.string(i, row), message);
+                case BLOB -> {
+                    var offsets = batch.offsets(i);
+                    Assertions.assertTrue(Arrays.equals(expected.readBlob(i), Arrays.copyOfRange(batch.bytes(i), offsets[row], offsets[row + 1])), message);
+                }
+            }
+        }
+    }
+}
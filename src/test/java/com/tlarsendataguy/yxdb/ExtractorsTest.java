@@ -3,12 +3,21 @@ package com.tlarsendataguy.yxdb;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 public class ExtractorsTest {
@@ -158,6 +167,80 @@ public class ExtractorsTest {
         Assertions.assertNull(result);
     }
 
+    @Test
+    public void ExtractDateTimeAfterNoon() throws ParseException {
+        var extract = Extractors.NewDateTimeExtractor(0);
+        Date result = extractFromBuffer(extract, textBytes("2021-01-02 13:04:05"));
+        Assertions.assertEquals(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2021-01-02 13:04:05"), result);
+
+        result = extractFromBuffer(extract, textBytes("2021-01-02 12:30:00"));
+        Assertions.assertEquals(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2021-01-02 12:30:00"), result);
+    }
+
+    @Test
+    public void ExtractInvalidDate() {
+        var extract = Extractors.NewDateExtractor(0);
+        Assertions.assertNull(extractFromBuffer(extract, textBytes("20x1-01-01")));
+        Assertions.assertNull(extractFromBuffer(extract, textBytes("2021/01/01")));
+        Assertions.assertEquals(Extractors.invalidDate, Extractors.getEpochMillis(wrap(textBytes("2021-01-01 2x:00:00")), 0, true));
+    }
+
+    @Test
+    public void ExtractOutOfRangeDateRollsOver() throws ParseException {
+        var lenient = new SimpleDateFormat("yyyy-MM-dd");
+        var extract = Extractors.NewDateExtractor(0);
+        for (var text : new String[]{"2021-02-30", "2020-02-30", "2021-13-01", "2021-00-00", "2021-04-31"}) {
+            Assertions.assertEquals(lenient.parse(text), extractFromBuffer(extract, textBytes(text)));
+        }
+        Assertions.assertEquals(LocalDate.of(2021, 3, 2), Extractors.getLocalDate(wrap(textBytes("2021-02-30")), 0));
+        Assertions.assertEquals(LocalDate.of(2022, 1, 1), Extractors.getLocalDate(wrap(textBytes("2021-13-01")), 0));
+        Assertions.assertEquals(LocalDateTime.of(2021, 1, 2, 0, 0, 0), Extractors.getLocalDateTime(wrap(textBytes("2021-01-01 24:00:00")), 0, true));
+        Assertions.assertEquals(LocalDateTime.of(2021, 1, 1, 1, 0, 30), Extractors.getLocalDateTime(wrap(textBytes("2021-01-01 00:59:90")), 0, true));
+    }
+
+    @Test
+    public void ExtractLocalDateAndDateTime() {
+        var buffer = wrap(textBytes("2020-02-29 23:59:58"));
+        Assertions.assertEquals(LocalDate.of(2020, 2, 29), Extractors.getLocalDate(buffer, 0));
+        Assertions.assertEquals(LocalDateTime.of(2020, 2, 29, 23, 59, 58), Extractors.getLocalDateTime(buffer, 0, true));
+        Assertions.assertEquals(LocalDateTime.of(2020, 2, 29, 0, 0, 0), Extractors.getLocalDateTime(buffer, 0, false));
+    }
+
+    @Test
+    public void ExtractEpochMillis() {
+        Assertions.assertEquals(86401000, Extractors.getEpochMillis(wrap(textBytes("1970-01-02 00:00:01")), 0, true));
+        Assertions.assertEquals(-86400000, Extractors.getEpochMillis(wrap(textBytes("1969-12-31")), 0, false));
+        for (var day = LocalDate.of(1, 1, 1); day.getYear() < 10000; day = day.plusDays(997)) {
+            var expected = day.atTime(7, 8, 9).toEpochSecond(ZoneOffset.UTC) * 1000;
+            Assertions.assertEquals(expected, Extractors.getEpochMillis(wrap(textBytes(day + " 07:08:09")), 0, true));
+        }
+    }
+
+    @Test
+    public void ExtractDatesConcurrently() throws InterruptedException {
+        var failures = new AtomicInteger();
+        var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            var expected = LocalDateTime.of(2000 + t, t + 1, t + 10, t + 12, t, t);
+            var bytes = textBytes(expected.toString().replace('T', ' '));
+            var thread = new Thread(() -> {
+                var extract = Extractors.NewDateTimeExtractor(0);
+                var expectedDate = Date.from(expected.atZone(ZoneId.systemDefault()).toInstant());
+                for (int i = 0; i < 10000; i++) {
+                    if (!expectedDate.equals(extractFromBuffer(extract, bytes))) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(0, failures.get());
+    }
+
     @Test
     public void ExtractString() {
         var extract = Extractors.NewStringExtractor(2, 15);
@@ -206,6 +289,37 @@ public class ExtractorsTest {
         Assertions.assertNull(result);
     }
 
+    @Test
+    public void ExtractFixedDecimalMatchesParseDouble() {
+        var random = new Random(42);
+        var values = new ArrayList<String>(List.of("0", "-0.00", "1", "-1.5", "0.1", "0.30000000000000004", "999999999999999999", "9007199254740993", "1e5", "12345678901234567890.5"));
+        for (int i = 0; i < 10000; i++) {
+            var scale = random.nextInt(10);
+            values.add(BigDecimal.valueOf(random.nextLong() % 100_000_000_000L, scale).toPlainString());
+        }
+        for (var value : values) {
+            var buffer = wrap(textBytes(value));
+            Assertions.assertEquals(Double.parseDouble(value), Extractors.getFixedDecimal(buffer, 0, value.length()), value);
+        }
+    }
+
+    @Test
+    public void ExtractUnscaledFixedDecimal() {
+        Assertions.assertEquals(123450000, Extractors.getUnscaledFixedDecimal(wrap(textBytes("123.4500")), 0, 19, 6));
+        Assertions.assertEquals(-5, Extractors.getUnscaledFixedDecimal(wrap(textBytes("-0.05")), 0, 19, 2));
+        Assertions.assertEquals(7000, Extractors.getUnscaledFixedDecimal(wrap(textBytes("7")), 0, 19, 3));
+        Assertions.assertEquals(Extractors.notALong, Extractors.getUnscaledFixedDecimal(wrap(textBytes("1.234")), 0, 19, 2));
+        Assertions.assertEquals(Extractors.notALong, Extractors.getUnscaledFixedDecimal(wrap(textBytes("99999999999999.99")), 0, 19, 6));
+        Assertions.assertEquals(Extractors.notALong, Extractors.getUnscaledFixedDecimal(wrap(textBytes("1.2.3")), 0, 19, 6));
+    }
+
+    @Test
+    public void ExtractBigDecimal() {
+        Assertions.assertEquals(new BigDecimal("123.450000"), Extractors.getBigDecimal(wrap(textBytes("123.4500")), 0, 19, 6));
+        Assertions.assertEquals(new BigDecimal("99999999999999.990000"), Extractors.getBigDecimal(wrap(textBytes("99999999999999.99")), 0, 19, 6));
+        Assertions.assertEquals(new BigDecimal("1.234"), Extractors.getBigDecimal(wrap(textBytes("1.234")), 0, 19, 2));
+    }
+
     @Test
     public void ExtractWString() {
         var extract = Extractors.NewWStringExtractor(2, 15);
@@ -321,6 +435,16 @@ public class ExtractorsTest {
         Assertions.assertEquals("", result);
     }
 
+    private static byte[] textBytes(String value) {
+        var bytes = new byte[value.length() + 1];
+        System.arraycopy(value.getBytes(StandardCharsets.ISO_8859_1), 0, bytes, 0, value.length());
+        return bytes;
+    }
+
+    private static ByteBuffer wrap(byte[] data) {
+        return ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
     private static <T> T extractFromBuffer(Function<ByteBuffer, T> extract, byte[] data){
         var buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
         return extract.apply(buffer);
@@ -0,0 +1,94 @@
+package com.tlarsendataguy.yxdb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public class LzfCompressorTest {
+    @Test
+    public void TestRepeatedBytesRoundTrip() {
+        var in = new byte[100000];
+        for (int i = 0; i < in.length; i++) {
+            in[i] = (byte) (i % 7 == 0 ? i : 'a' + (i % 3));
+        }
+        var length = assertRoundTrip(new LzfCompressor(), in, in.length);
+        Assertions.assertTrue(length < in.length / 4, "compressed to " + length);
+    }
+
+    @Test
+    public void TestLongRunsAndFarReferences() {
+        var random = new Random(7);
+        var in = new byte[50000];
+        // a run longer than the longest match, then random bytes repeated 8190 and 8193 bytes later
+        Arrays.fill(in, 0, 1000, (byte) 9);
+        var noise = new byte[300];
+        random.nextBytes(noise);
+        System.arraycopy(noise, 0, in, 1000, noise.length);
+        System.arraycopy(noise, 0, in, 1000 + 8190, noise.length);
+        System.arraycopy(noise, 0, in, 1000 + 8190 + 8193, noise.length);
+        assertRoundTrip(new LzfCompressor(), in, in.length);
+    }
+
+    @Test
+    public void TestShortInputs() {
+        var compressor = new LzfCompressor();
+        var out = new byte[16];
+        for (int length = 0; length < 6; length++) {
+            Assertions.assertEquals(-1, compressor.compress(new byte[]{1, 2, 3, 4, 5, 6}, length, out));
+        }
+        assertRoundTrip(compressor, new byte[]{5, 5, 5, 5, 5, 5, 5, 5}, 8);
+    }
+
+    @Test
+    public void TestIncompressibleInput() {
+        var in = new byte[BufferedRecordReader.lzfBufferSize];
+        new Random(1).nextBytes(in);
+        Assertions.assertEquals(-1, new LzfCompressor().compress(in, in.length, new byte[in.length]));
+    }
+
+    @Test
+    public void TestOutputTooSmall() {
+        var in = new byte[1000];
+        Arrays.fill(in, (byte) 1);
+        Assertions.assertEquals(-1, new LzfCompressor().compress(in, in.length, new byte[5]));
+    }
+
+    @Test
+    public void TestReusedCompressorOnRecordBlocks() throws IOException {
+        var compressor = new LzfCompressor();
+        var random = new Random(3);
+        for (var file : new String[]{"TutorialData.yxdb", "LotsOfRecords.yxdb", "AllNormalFields.yxdb"}) {
+            var bytes = Files.readAllBytes(Path.of("src/test/resources", file));
+            for (int i = 0; i < 20; i++) {
+                var length = Math.min(bytes.length, random.nextInt(BufferedRecordReader.lzfBufferSize));
+                var start = random.nextInt(bytes.length - length + 1);
+                var in = Arrays.copyOfRange(bytes, start, start + length);
+                var compressed = new byte[in.length];
+                var compressedLength = compressor.compress(in, in.length, compressed);
+                if (compressedLength >= 0) {
+                    assertDecompresses(in, compressed, compressedLength);
+                }
+            }
+        }
+    }
+
+    private static int assertRoundTrip(LzfCompressor compressor, byte[] in, int length) {
+        var compressed = new byte[length];
+        var compressedLength = compressor.compress(in, length, compressed);
+        Assertions.assertTrue(compressedLength > 0 && compressedLength < length, "compressed to " + compressedLength);
+        assertDecompresses(Arrays.copyOf(in, length), compressed, compressedLength);
+        return compressedLength;
+    }
+
+    private static void assertDecompresses(byte[] expected, byte[] compressed, int compressedLength) {
+        var out = new byte[expected.length];
+        var written = new Lzf(compressed, out).decompress(compressedLength);
+        Assertions.assertEquals(expected.length, written);
+        Assertions.assertTrue(Arrays.equals(expected, out));
+    }
+}
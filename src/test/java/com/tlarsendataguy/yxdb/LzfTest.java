@@ -3,6 +3,14 @@ package com.tlarsendataguy.yxdb;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Assertions;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
 public class LzfTest {
     @Test
     public void TestEmptyInput() {
@@ -93,4 +101,94 @@ public class LzfTest {
         Assertions.assertEquals(3, written);
         Assertions.assertArrayEquals(new byte[]{6, 7, 8, 4, 5}, out);
     }
+
+    @Test
+    public void MatchesReferenceOnFileBlocks() throws IOException {
+        var files = new String[]{"AllNormalFields.yxdb", "LotsOfRecords.yxdb", "TutorialData.yxdb", "VeryLongField.yxdb", "TestNewYxdb.yxdb", "poly.yxdb"};
+        var blocks = 0;
+        for (var file : files) {
+            var bytes = ByteBuffer.wrap(Files.readAllBytes(Path.of("src/test/resources", file))).order(ByteOrder.LITTLE_ENDIAN);
+            var position = 512 + (bytes.getInt(80) * 2);
+            var end = bytes.getLong(88) != 0 ? Math.min(bytes.getLong(88), bytes.getLong(96)) : bytes.getLong(96);
+            while (position < end) {
+                var lzfBlockLength = bytes.getInt(position);
+                var length = lzfBlockLength & 0x7fffffff;
+                if (LzfBlockSource.isCompressed(lzfBlockLength)) {
+                    assertMatchesReference(Arrays.copyOfRange(bytes.array(), position + 4, position + 4 + length), length, file);
+                    blocks++;
+                }
+                position += 4 + length;
+            }
+        }
+        Assertions.assertTrue(blocks > 10);
+    }
+
+    @Test
+    public void MatchesReferenceOnGeneratedBlocks() {
+        var random = new Random(5);
+        for (int seed = 0; seed < 200; seed++) {
+            var in = new byte[BufferedRecordReader.lzfBufferSize];
+            var inLength = 0;
+            var outLength = 0;
+            var maxOut = random.nextInt(BufferedRecordReader.lzfBufferSize - 300) + 1;
+            // short distances are the overlapping matches, so they are generated as often as long ones
+            var maxDistance = random.nextBoolean() ? 8 + random.nextInt(8) : 8192;
+            while (outLength < maxOut) {
+                if (outLength == 0 || random.nextInt(3) == 0) {
+                    var length = random.nextInt(32) + 1;
+                    in[inLength++] = (byte) (length - 1);
+                    for (int i = 0; i < length; i++) {
+                        in[inLength++] = (byte) random.nextInt(4);
+                    }
+                    outLength += length;
+                    continue;
+                }
+                var length = 3 + (random.nextBoolean() ? random.nextInt(6) : random.nextInt(262));
+                var offset = random.nextInt(Math.min(outLength, maxDistance));
+                var stored = length - 2;
+                if (stored < 7) {
+                    in[inLength++] = (byte) ((offset >>> 8) + (stored << 5));
+                } else {
+                    in[inLength++] = (byte) ((offset >>> 8) + (7 << 5));
+                    in[inLength++] = (byte) (stored - 7);
+                }
+                in[inLength++] = (byte) offset;
+                outLength += length;
+            }
+            if (outLength > BufferedRecordReader.lzfBufferSize) {
+                continue;
+            }
+            assertMatchesReference(in, inLength, "seed " + seed);
+        }
+    }
+
+    @Test
+    public void MatchesReferenceOnCompressorOutput() {
+        var text = new StringBuilder();
+        var random = new Random(9);
+        while (text.length() < BufferedRecordReader.lzfBufferSize / 2) {
+            text.append("record ").append(random.nextInt(1000)).append(random.nextBoolean() ? " aaaaaaaaaaaa " : " ab ");
+        }
+        var raw = text.toString().getBytes();
+        var compressed = new byte[raw.length];
+        var length = new LzfCompressor().compress(raw, raw.length, compressed);
+        assertMatchesReference(compressed, length, "text");
+    }
+
+    @Test
+    public void ReferenceBeforeStartOfOutputThrows() {
+        byte[] in = new byte[]{0, 1, 32, 5};
+        Lzf lzf = new Lzf(in, new byte[100]);
+
+        Assertions.assertThrows(IllegalArgumentException.class, ()->lzf.decompress(4));
+    }
+
+    private static void assertMatchesReference(byte[] in, int length, String message) {
+        var expected = new byte[BufferedRecordReader.lzfBufferSize];
+        var expectedLength = new LzfReference(in, expected).decompress(length);
+        var actual = new byte[BufferedRecordReader.lzfBufferSize];
+        var actualLength = new Lzf(in, actual).decompress(length);
+        Assertions.assertEquals(expectedLength, actualLength, message);
+        Assertions.assertTrue(Arrays.equals(expected, 0, expectedLength, actual, 0, actualLength), message);
+    }
 }
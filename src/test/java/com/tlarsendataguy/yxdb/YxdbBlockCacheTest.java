@@ -0,0 +1,159 @@
+package com.tlarsendataguy.yxdb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class YxdbBlockCacheTest {
+    private static final long cacheSize = 64L * 1024 * 1024;
+
+    @Test
+    public void TestRepeatedScansHitTheCache() throws IOException {
+        var cache = new YxdbBlockCache(cacheSize);
+        var expected = checksum(new YxdbReader("src/test/resources/TutorialData.yxdb"));
+
+        Assertions.assertEquals(expected, checksum(cachedReader("src/test/resources/TutorialData.yxdb", cache)));
+        var blocks = cache.misses();
+        Assertions.assertTrue(blocks > 0);
+        Assertions.assertEquals(0, cache.hits());
+        Assertions.assertTrue(cache.size() > 0);
+
+        Assertions.assertEquals(expected, checksum(cachedReader("src/test/resources/TutorialData.yxdb", cache)));
+        Assertions.assertEquals(blocks, cache.hits());
+        Assertions.assertEquals(blocks, cache.misses());
+    }
+
+    @Test
+    public void TestCachedBlocksWithEveryBlockSource() throws IOException {
+        var cache = new YxdbBlockCache(cacheSize);
+        var options = new YxdbReaderOptions[]{
+                new YxdbReaderOptions(),
+                new YxdbReaderOptions().memoryMapped(true),
+                new YxdbReaderOptions().readAhead(2),
+                new YxdbReaderOptions().memoryMapped(true).readAhead(1),
+        };
+        long blocks = 0;
+        for (var option : options) {
+            var yxdb = new YxdbReader("src/test/resources/LotsOfRecords.yxdb", option.blockCache(cache));
+            long sum = 0;
+            while (yxdb.next()) {
+                sum += yxdb.readLong(0);
+            }
+            Assertions.assertEquals(5000050000L, sum);
+            if (blocks == 0) {
+                blocks = cache.misses();
+            }
+        }
+        Assertions.assertEquals(3 * blocks, cache.hits());
+        Assertions.assertEquals(blocks, cache.misses());
+    }
+
+    @Test
+    public void TestSeekAndStreamUseTheCache() throws IOException {
+        var cache = new YxdbBlockCache(cacheSize);
+        var yxdb = cachedReader("src/test/resources/LotsOfRecords.yxdb", cache);
+        for (var record : new long[]{65536, 65535, 99999, 0, 65537}) {
+            yxdb.seekToRecord(record);
+            Assertions.assertTrue(yxdb.next());
+            Assertions.assertEquals(record + 1, yxdb.readLong(0));
+        }
+        Assertions.assertTrue(cache.hits() > 0);
+
+        var hits = cache.hits();
+        try (var rows = cachedReader("src/test/resources/LotsOfRecords.yxdb", cache).stream()) {
+            Assertions.assertEquals(5000050000L, rows.parallel().mapToLong(row -> row.readLong(0)).sum());
+        }
+        Assertions.assertTrue(cache.hits() > hits);
+    }
+
+    @Test
+    public void TestSharedAcrossThreads() throws Exception {
+        var cache = new YxdbBlockCache(cacheSize);
+        var files = new String[]{"TutorialData.yxdb", "LotsOfRecords.yxdb", "AllNormalFields.yxdb", "VeryLongField.yxdb"};
+        var expected = new long[files.length];
+        for (int i = 0; i < files.length; i++) {
+            expected[i] = checksum(new YxdbReader("src/test/resources/" + files[i]));
+        }
+        var failure = new AtomicReference<Throwable>();
+        var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            var first = t;
+            var thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < files.length * 2; i++) {
+                        var file = (first + i) % files.length;
+                        var actual = checksum(cachedReader("src/test/resources/" + files[file], cache));
+                        Assertions.assertEquals(expected[file], actual, files[file]);
+                    }
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        Assertions.assertTrue(cache.hits() > cache.misses());
+    }
+
+    @Test
+    public void TestEvictionKeepsTheCacheUnderItsSize() throws IOException {
+        var size = 4L * BufferedRecordReader.lzfBufferSize;
+        var cache = new YxdbBlockCache(size);
+        var expected = checksum(new YxdbReader("src/test/resources/TutorialData.yxdb"));
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(expected, checksum(cachedReader("src/test/resources/TutorialData.yxdb", cache)));
+            Assertions.assertTrue(cache.size() <= size, "cache holds " + cache.size());
+        }
+        cache.clear();
+        Assertions.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void TestRewrittenFileIsNotReadFromTheCache() throws IOException {
+        var cache = new YxdbBlockCache(cacheSize);
+        var file = Files.createTempFile("Cached", ".yxdb");
+        try {
+            Files.copy(Path.of("src/test/resources/TutorialData.yxdb"), file, StandardCopyOption.REPLACE_EXISTING);
+            checksum(cachedReader(file.toString(), cache));
+            Files.copy(Path.of("src/test/resources/LotsOfRecords.yxdb"), file, StandardCopyOption.REPLACE_EXISTING);
+            var expected = checksum(new YxdbReader("src/test/resources/LotsOfRecords.yxdb"));
+            Assertions.assertEquals(expected, checksum(cachedReader(file.toString(), cache)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void TooSmallCacheThrows() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new YxdbBlockCache(1000));
+    }
+
+    private static YxdbReader cachedReader(String path, YxdbBlockCache cache) throws IOException {
+        return new YxdbReader(path, new YxdbReaderOptions().blockCache(cache));
+    }
+
+    private static long checksum(YxdbReader reader) throws IOException {
+        long sum = 0;
+        long count = 0;
+        while (reader.next()) {
+            var record = reader.currentRecord().array();
+            for (int i = 0; i < reader.currentRecordLength(); i++) {
+                sum = sum * 31 + record[i];
+            }
+            count++;
+        }
+        return sum ^ count;
+    }
+}
@@ -0,0 +1,134 @@
+package com.tlarsendataguy.yxdb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.List;
+
+public class YxdbExporterTest {
+    @Test
+    public void TestCsvMatchesReader() throws IOException {
+        var files = List.of("AllNormalFields.yxdb", "LotsOfRecords.yxdb", "TutorialData.yxdb", "VeryLongField.yxdb", "TestNewYxdb.yxdb", "poly.yxdb");
+        for (var file : files) {
+            var path = "src/test/resources/" + file;
+            var expected = expectedCsv(new YxdbReader(path));
+            for (var threads : new int[]{1, 3}) {
+                var out = new ByteArrayOutputStream();
+                var records = new YxdbExporter(new YxdbReader(path), threads).writeCsv(out);
+                Assertions.assertEquals(new YxdbReader(path).numRecords, records, file);
+                Assertions.assertEquals(expected, out.toString(StandardCharsets.UTF_8), file);
+            }
+        }
+    }
+
+    @Test
+    public void TestCsvOfAllNormalFields() throws IOException {
+        var out = new ByteArrayOutputStream();
+        new YxdbExporter(new YxdbReader("src/test/resources/AllNormalFields.yxdb"), 1).writeCsv(out);
+        var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals("\"ByteField\",\"BoolField\",\"Int16Field\",\"Int32Field\",\"Int64Field\",\"FixedDecimalField\",\"FloatField\",\"DoubleField\",\"StringField\",\"WStringField\",\"V_StringShortField\",\"V_StringLongField\",\"V_WStringShortField\",\"V_WStringLongField\",\"DateField\",\"DateTimeField\"", lines[0]);
+        Assertions.assertTrue(lines[1].startsWith("1,true,16,32,64,123.450000,678.9,0.12345,\"A\",\"AB\",\"ABC\",\"BBB"), lines[1]);
+        Assertions.assertTrue(lines[1].endsWith("WWW\",2020-01-01,2020-02-03 04:05:06"), lines[1]);
+    }
+
+    @Test
+    public void TestJsonLines() throws IOException {
+        var out = new ByteArrayOutputStream();
+        var records = new YxdbExporter(new YxdbReader("src/test/resources/AllNormalFields.yxdb"), 2).writeJsonLines(out);
+        var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(records, lines.length);
+        Assertions.assertTrue(lines[0].startsWith("{\"ByteField\":1,\"BoolField\":true,\"Int16Field\":16,\"Int32Field\":32,\"Int64Field\":64,\"FixedDecimalField\":123.450000,\"FloatField\":678.9,\"DoubleField\":0.12345,\"StringField\":\"A\",\"WStringField\":\"AB\","), lines[0]);
+        Assertions.assertTrue(lines[0].endsWith(",\"DateField\":\"2020-01-01\",\"DateTimeField\":\"2020-02-03 04:05:06\"}"), lines[0]);
+
+        out = new ByteArrayOutputStream();
+        new YxdbExporter(new YxdbReader("src/test/resources/VeryLongField.yxdb"), 1).writeJsonLines(out);
+        lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(3, lines.length);
+        Assertions.assertTrue(lines[1].endsWith(",\"Blob\":null}"), lines[1]);
+        var blob = lines[0].substring(lines[0].indexOf("\"Blob\":\"") + 8, lines[0].length() - 2);
+        Assertions.assertEquals(((604732 + 2) / 3) * 4, blob.length());
+        Assertions.assertEquals(604732, Base64.getDecoder().decode(blob).length);
+    }
+
+    @Test
+    public void TestExportWithProjectionAndFilter() throws IOException {
+        var reader = new YxdbReader("src/test/resources/TutorialData.yxdb", new YxdbReaderOptions().fields("Prefix"));
+        reader.filter(reader.stringField("Prefix").whereEquals("Mr"));
+        var out = new ByteArrayOutputStream();
+        Assertions.assertEquals(4068, new YxdbExporter(reader, 2).writeJsonLines(out));
+        var lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        Assertions.assertEquals(4068, lines.length);
+        for (var line : lines) {
+            Assertions.assertEquals("{\"Prefix\":\"Mr\"}", line);
+        }
+    }
+
+    @Test
+    public void TestTextEscaping() throws IOException {
+        var record = new YxdbReader("src/test/resources/AllNormalFields.yxdb").record();
+        var sink = new TextEncoder.Sink(16);
+        var json = new TextEncoder.JsonLines(record);
+        json.putName(sink, "a\"b\\c\nd\u0001\u00e9\ud83d\ude00");
+        Assertions.assertEquals("a\\\"b\\\\c\\nd\\u0001\u00e9\ud83d\ude00", new String(sink.bytes, 0, sink.length, StandardCharsets.UTF_8));
+
+        sink.length = 0;
+        var csv = new TextEncoder.Csv(record);
+        csv.putName(sink, "say \"hi\", bye");
+        Assertions.assertEquals("say \"\"hi\"\", bye", new String(sink.bytes, 0, sink.length, StandardCharsets.UTF_8));
+
+        sink.length = 0;
+        TextEncoder.putLong(sink, -1234567890123L);
+        sink.put(' ');
+        TextEncoder.putLong(sink, 0);
+        sink.put(' ');
+        TextEncoder.putLong(sink, Long.MIN_VALUE);
+        Assertions.assertEquals("-1234567890123 0 " + Long.MIN_VALUE, new String(sink.bytes, 0, sink.length, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void InvalidThreadCountThrows() throws IOException {
+        var reader = new YxdbReader("src/test/resources/AllNormalFields.yxdb");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new YxdbExporter(reader, 0));
+    }
+
+    // Formats the records with the readX methods, the way the exporter should format them from the raw bytes.
+    private static String expectedCsv(YxdbReader reader) throws IOException {
+        var fields = reader.listFields();
+        var types = reader.record().types;
+        var builder = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            builder.append(i > 0 ? "," : "").append('"').append(fields.get(i).name().replace("\"", "\"\"")).append('"');
+        }
+        builder.append('\n');
+        var dateTime = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        while (reader.next()) {
+            for (int i = 0; i < fields.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                if (reader.isNull(i)) {
+                    continue;
+                }
+                switch (types[i]) {
+                    case YxdbRecord.BOOL -> builder.append(reader.readBoolean(i));
+                    case YxdbRecord.BYTE -> builder.append(reader.readByte(i));
+                    case YxdbRecord.INT16, YxdbRecord.INT32, YxdbRecord.INT64 -> builder.append(reader.readLong(i));
+                    case YxdbRecord.FLOAT -> builder.append((float) reader.readDoubleValue(i));
+                    case YxdbRecord.DOUBLE -> builder.append(reader.readDoubleValue(i));
+                    case YxdbRecord.FIXED_DECIMAL -> builder.append(reader.readDecimal(i).toPlainString());
+                    case YxdbRecord.DATE -> builder.append(reader.readLocalDate(i));
+                    case YxdbRecord.DATETIME -> builder.append(reader.readLocalDateTime(i).format(dateTime));
+                    case YxdbRecord.BLOB -> builder.append(Base64.getEncoder().encodeToString(reader.readBlob(i)));
+                    default -> builder.append('"').append(reader.readString(i).replace("\"", "\"\"")).append('"');
+                }
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+}
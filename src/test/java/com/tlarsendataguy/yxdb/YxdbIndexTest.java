@@ -0,0 +1,75 @@
+package com.tlarsendataguy.yxdb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class YxdbIndexTest {
+    @Test
+    public void TestBuildIndex() throws IOException {
+        var index = YxdbIndex.build("src/test/resources/LotsOfRecords.yxdb");
+        Assertions.assertEquals(100000, index.numRecords());
+        Assertions.assertTrue(index.blockCount() > 2);
+        Assertions.assertEquals(0, index.firstRecord(0));
+        Assertions.assertEquals(0, index.firstRecordOffset(0));
+
+        var reader = new YxdbReader("src/test/resources/LotsOfRecords.yxdb");
+        Assertions.assertEquals(reader.recordsStart(), index.blockOffset(0));
+        reader.close();
+        for (int i = 1; i < index.blockCount(); i++) {
+            Assertions.assertEquals(index.blockOffset(i - 1) + 4 + index.compressedLength(i - 1), index.blockOffset(i));
+            Assertions.assertTrue(index.firstRecord(i) > index.firstRecord(i - 1));
+            Assertions.assertTrue(index.uncompressedLength(i - 1) <= BufferedRecordReader.lzfBufferSize);
+        }
+    }
+
+    @Test
+    public void TestBuildIndexWithRecordsSpanningBlocks() throws IOException {
+        var index = YxdbIndex.build("src/test/resources/VeryLongField.yxdb");
+        Assertions.assertEquals(3, index.numRecords());
+        var blocksWithoutRecords = 0;
+        for (int i = 0; i < index.blockCount(); i++) {
+            if (index.firstRecord(i) == -1) {
+                blocksWithoutRecords++;
+            }
+        }
+        Assertions.assertTrue(blocksWithoutRecords > 0);
+    }
+
+    @Test
+    public void TestSaveAndLoad() throws IOException {
+        var index = YxdbIndex.build("src/test/resources/TutorialData.yxdb");
+        var file = Files.createTempFile("TutorialData", ".idx");
+        try {
+            index.save(file.toString());
+            var loaded = YxdbIndex.load(file.toString());
+            Assertions.assertEquals(index.numRecords(), loaded.numRecords());
+            Assertions.assertEquals(index.blockCount(), loaded.blockCount());
+            for (int i = 0; i < index.blockCount(); i++) {
+                Assertions.assertEquals(index.blockOffset(i), loaded.blockOffset(i));
+                Assertions.assertEquals(index.compressedLength(i), loaded.compressedLength(i));
+                Assertions.assertEquals(index.uncompressedLength(i), loaded.uncompressedLength(i));
+                Assertions.assertEquals(index.firstRecord(i), loaded.firstRecord(i));
+                Assertions.assertEquals(index.firstRecordOffset(i), loaded.firstRecordOffset(i));
+            }
+            Assertions.assertEquals(44 + (index.blockCount() * 28L), Files.size(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void LoadInvalidIndexThrows() {
+        Assertions.assertThrows(IOException.class, () -> YxdbIndex.load("src/test/resources/invalid.txt"));
+        Assertions.assertThrows(IOException.class, () -> YxdbIndex.load("src/test/resources/AllNormalFields.yxdb"));
+    }
+
+    @Test
+    public void BlockOutOfRangeThrows() throws IOException {
+        var index = YxdbIndex.build("src/test/resources/AllNormalFields.yxdb");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> index.blockOffset(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> index.firstRecord(index.blockCount()));
+    }
+}
@@ -0,0 +1,130 @@
+package com.tlarsendataguy.yxdb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+public class YxdbParallelScannerTest {
+    @Test
+    public void TestScanLotsOfRecords() throws IOException {
+        var scanner = new YxdbParallelScanner("src/test/resources/LotsOfRecords.yxdb", 4);
+        Assertions.assertEquals(100000, scanner.numRecords);
+
+        var result = scanner.scan(() -> new long[2], (state, row) -> {
+            state[0]++;
+            state[1] += row.readLongValue(0);
+        }, (a, b) -> {
+            a[0] += b[0];
+            a[1] += b[1];
+            return a;
+        });
+        Assertions.assertEquals(100000, result[0]);
+        Assertions.assertEquals(5000050000L, result[1]);
+    }
+
+    @Test
+    public void TestScanMatchesReader() throws IOException {
+        var files = List.of("AllNormalFields.yxdb", "LotsOfRecords.yxdb", "TutorialData.yxdb", "VeryLongField.yxdb",
+                "TestNewYxdb.yxdb", "line.yxdb", "multi-line.yxdb", "multi-point.yxdb", "multi-poly-holes.yxdb",
+                "multi-poly.yxdb", "null-spatial.yxdb", "point.yxdb", "poly.yxdb");
+        for (var file : files) {
+            var path = "src/test/resources/" + file;
+            var expected = new ArrayList<String>();
+            var yxdb = new YxdbReader(path);
+            while (yxdb.next()) {
+                expected.add(describe(yxdb.listFields(), yxdb::readString, yxdb::readLong, yxdb::readDouble, yxdb::readDate, yxdb::readBoolean, yxdb::readByte, yxdb::readBlob));
+            }
+
+            for (var threads : new int[]{1, 3}) {
+                var scanner = new YxdbParallelScanner(path, threads);
+                var actual = scanner.scan(ArrayList<String>::new, (state, row) -> state.add(
+                        describe(row.listFields(), row::readString, row::readLong, row::readDouble, row::readDate, row::readBoolean, row::readByte, row::readBlob)
+                ), (a, b) -> {
+                    a.addAll(b);
+                    return a;
+                });
+                actual.sort(null);
+                var sorted = new ArrayList<>(expected);
+                sorted.sort(null);
+                Assertions.assertEquals(sorted, actual, file);
+            }
+        }
+    }
+
+    @Test
+    public void TestScanRecordsThatStraddleBlocks() throws IOException {
+        var scanner = new YxdbParallelScanner("src/test/resources/VeryLongField.yxdb", 2);
+        var lengths = scanner.scan(ArrayList<Integer>::new, (state, row) -> {
+            var blob = row.readBlob("Blob");
+            state.add(blob == null ? -1 : blob.length);
+        }, (a, b) -> {
+            a.addAll(b);
+            return a;
+        });
+        lengths.sort(null);
+        Assertions.assertEquals(List.of(-1, 604732, 604732), lengths);
+    }
+
+    @Test
+    public void TestScanWithCopiedRows() throws IOException {
+        var scanner = new YxdbParallelScanner("src/test/resources/TutorialData.yxdb", 2);
+        var rows = scanner.scan(ArrayList<YxdbRow>::new, (state, row) -> {
+            if ("Mr".equals(row.readString("Prefix"))) {
+                state.add(row.copy());
+            }
+        }, (a, b) -> {
+            a.addAll(b);
+            return a;
+        });
+        Assertions.assertEquals(4068, rows.size());
+        for (var row : rows) {
+            Assertions.assertEquals("Mr", row.readString("Prefix"));
+        }
+    }
+
+    @Test
+    public void ExceptionInConsumerIsThrownFromScan() throws IOException {
+        var scanner = new YxdbParallelScanner("src/test/resources/LotsOfRecords.yxdb", 2);
+        var ex = Assertions.assertThrows(IllegalStateException.class, () -> scanner.scan(() -> null, (state, row) -> {
+            if (row.readLongValue(0) == 70000) {
+                throw new IllegalStateException("stop");
+            }
+        }, (a, b) -> a));
+        Assertions.assertEquals("stop", ex.getMessage());
+    }
+
+    @Test
+    public void InvalidThreadCountThrows() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new YxdbParallelScanner("src/test/resources/AllNormalFields.yxdb", 0));
+    }
+
+    private interface Reader<T> {
+        T read(int index);
+    }
+
+    private static String describe(List<YxdbField> fields, Reader<String> strings, Reader<Long> longs, Reader<Double> doubles,
+                                   Reader<Date> dates, Reader<Boolean> booleans, Reader<Byte> bytes, Reader<byte[]> blobs) {
+        var builder = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            Object value = switch (fields.get(i).type()) {
+                case STRING -> strings.read(i);
+                case LONG -> longs.read(i);
+                case DOUBLE -> doubles.read(i);
+                case DATE -> dates.read(i);
+                case BOOLEAN -> booleans.read(i);
+                case BYTE -> bytes.read(i);
+                case BLOB -> {
+                    var blob = blobs.read(i);
+                    yield blob == null ? null : Arrays.hashCode(blob);
+                }
+            };
+            builder.append(value).append('|');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,150 @@
+package com.tlarsendataguy.yxdb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class YxdbReaderPoolTest {
+    private static final String[] files = {"AllNormalFields.yxdb", "TutorialData.yxdb", "LotsOfRecords.yxdb", "VeryLongField.yxdb", "poly.yxdb"};
+
+    @Test
+    public void TestPooledReadersReadTheSameRecords() throws IOException {
+        var pool = new YxdbReaderPool(8);
+        for (int pass = 0; pass < 2; pass++) {
+            for (var file : files) {
+                var path = "src/test/resources/" + file;
+                var expected = new YxdbReader(path);
+                var actual = pool.open(path);
+                Assertions.assertEquals(expected.metaInfoStr, actual.metaInfoStr, file);
+                Assertions.assertEquals(expected.listFields(), actual.listFields(), file);
+                Assertions.assertEquals(expected.numRecords, actual.numRecords, file);
+                while (expected.next()) {
+                    Assertions.assertTrue(actual.next(), file);
+                    Assertions.assertEquals(expected.currentRecordLength(), actual.currentRecordLength(), file);
+                    Assertions.assertTrue(Arrays.equals(expected.currentRecord().array(), 0, expected.currentRecordLength(), actual.currentRecord().array(), 0, actual.currentRecordLength()), file);
+                }
+                Assertions.assertFalse(actual.next(), file);
+            }
+        }
+        Assertions.assertEquals(files.length, pool.layoutCount());
+    }
+
+    @Test
+    public void TestFilesWithTheSameMetaInfoShareALayout() throws IOException {
+        var pool = new YxdbReaderPool(4);
+        var first = pool.open("src/test/resources/TutorialData.yxdb");
+        var second = pool.open("src/test/resources/TutorialData.yxdb");
+        Assertions.assertSame(first.listFields(), second.listFields());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> first.listFields().remove(0));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> first.listFields().add(new YxdbField("Extra", YxdbField.DataType.LONG)));
+        Assertions.assertSame(first.metaInfoStr, second.metaInfoStr);
+        Assertions.assertEquals(1, pool.layoutCount());
+
+        var mrCount = 0;
+        while (first.next()) {
+            Assertions.assertTrue(second.next());
+            Assertions.assertEquals(first.readString("Prefix"), second.readString("Prefix"));
+            if (first.readString("Prefix").equals("Mr")) {
+                mrCount++;
+            }
+        }
+        Assertions.assertEquals(4068, mrCount);
+    }
+
+    @Test
+    public void TestLayoutsAndRecordBuffersAreCapped() throws IOException {
+        var pool = new YxdbReaderPool(2);
+        var readers = new YxdbReader[files.length];
+        for (int i = 0; i < files.length; i++) {
+            readers[i] = pool.open("src/test/resources/" + files[i]);
+        }
+        Assertions.assertEquals(2, pool.layoutCount());
+        for (var reader : readers) {
+            reader.close();
+        }
+        Assertions.assertEquals(2, pool.idleRecordBuffers());
+    }
+
+    @Test
+    public void TestRecordBuffersAreRecycled() throws IOException {
+        var pool = new YxdbReaderPool(4);
+        var first = pool.open("src/test/resources/AllNormalFields.yxdb");
+        Assertions.assertTrue(first.next());
+        var buffer = first.currentRecord();
+        Assertions.assertFalse(first.next());
+        Assertions.assertEquals(0, pool.idleRecordBuffers());
+        Assertions.assertEquals((byte) 1, first.readByte(0));
+        first.close();
+        Assertions.assertEquals(1, pool.idleRecordBuffers());
+        first.close();
+        Assertions.assertEquals(1, pool.idleRecordBuffers());
+
+        var second = pool.open("src/test/resources/AllNormalFields.yxdb");
+        Assertions.assertSame(buffer, second.currentRecord());
+        Assertions.assertEquals(0, pool.idleRecordBuffers());
+        Assertions.assertTrue(second.next());
+        Assertions.assertEquals((byte) 1, second.readByte(0));
+    }
+
+    @Test
+    public void TestSeeksAndStreamsUsePooledRecordBuffers() throws IOException {
+        var pool = new YxdbReaderPool(16);
+        var yxdb = pool.open("src/test/resources/LotsOfRecords.yxdb");
+        yxdb.seekToRecord(65536);
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals(65537, yxdb.readLong(0));
+        Assertions.assertEquals(0, pool.idleRecordBuffers());
+        yxdb.close();
+        Assertions.assertEquals(1, pool.idleRecordBuffers());
+
+        try (var rows = pool.open("src/test/resources/LotsOfRecords.yxdb").stream()) {
+            Assertions.assertEquals(5000050000L, rows.parallel().mapToLong(row -> row.readLong(0)).sum());
+        }
+        Assertions.assertTrue(pool.idleRecordBuffers() > 1);
+    }
+
+    @Test
+    public void TestPooledReadersWithOptions() throws IOException {
+        var pool = new YxdbReaderPool(4);
+        var options = new YxdbReaderOptions[]{
+                new YxdbReaderOptions().memoryMapped(true),
+                new YxdbReaderOptions().readAhead(2),
+                new YxdbReaderOptions().fields(0),
+                new YxdbReaderOptions().blockCache(new YxdbBlockCache(16L * 1024 * 1024)),
+        };
+        for (var option : options) {
+            for (int i = 0; i < 2; i++) {
+                var yxdb = pool.open("src/test/resources/LotsOfRecords.yxdb", option);
+                long sum = 0;
+                while (yxdb.next()) {
+                    sum += yxdb.readLong(0);
+                }
+                Assertions.assertEquals(5000050000L, sum);
+            }
+        }
+
+        var yxdb = pool.open("src/test/resources/LotsOfRecords.yxdb");
+        for (var record : new long[]{65536, 65535, 99999, 0, 65537}) {
+            yxdb.seekToRecord(record);
+            Assertions.assertTrue(yxdb.next());
+            Assertions.assertEquals(record + 1, yxdb.readLong(0));
+        }
+        yxdb.close();
+    }
+
+    @Test
+    public void InvalidFilesThrow() {
+        var pool = new YxdbReaderPool(4);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pool.open("src/test/resources/invalid.txt"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pool.open("src/test/resources/invalidSmall.txt"));
+        Assertions.assertThrows(IOException.class, () -> pool.open("src/test/resources/missing.yxdb"));
+        Assertions.assertEquals(0, pool.layoutCount());
+    }
+
+    @Test
+    public void EmptyPoolThrows() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new YxdbReaderPool(0));
+    }
+}
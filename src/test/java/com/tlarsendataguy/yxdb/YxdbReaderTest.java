@@ -6,8 +6,20 @@ import org.junit.jupiter.api.Assertions;
 import java.io.BufferedInputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
 
 public class YxdbReaderTest {
     @Test
@@ -88,6 +100,636 @@ public class YxdbReaderTest {
         Assertions.assertEquals(5000050000L, sum);
     }
 
+    @Test
+    public void TestMemoryMappedLotsOfRecords() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/LotsOfRecords.yxdb", new YxdbReaderOptions().memoryMapped(true));
+
+        long sum = 0;
+        while (yxdb.next()) {
+            sum += yxdb.readLong(0);
+        }
+        Assertions.assertEquals(5000050000L, sum);
+    }
+
+    @Test
+    public void TestMemoryMappedVeryLongField() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/VeryLongField.yxdb", new YxdbReaderOptions().memoryMapped(true));
+
+        yxdb.next();
+        Assertions.assertEquals(604732, yxdb.readBlob(1).length);
+        yxdb.next();
+        Assertions.assertNull(yxdb.readBlob(1));
+        yxdb.next();
+        Assertions.assertEquals(604732, yxdb.readBlob(1).length);
+        Assertions.assertFalse(yxdb.next());
+    }
+
+    @Test
+    public void TestReadAhead() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/TutorialData.yxdb", new YxdbReaderOptions().readAhead(2));
+        var mrCount = 0;
+        while (yxdb.next()) {
+            if (yxdb.readString("Prefix").equals("Mr")) {
+                mrCount++;
+            }
+        }
+        Assertions.assertEquals(4068, mrCount);
+    }
+
+    @Test
+    public void TestReadAheadWithMemoryMapping() throws IOException {
+        var options = new YxdbReaderOptions().memoryMapped(true).readAhead(1);
+        var yxdb = new YxdbReader("src/test/resources/LotsOfRecords.yxdb", options);
+
+        long sum = 0;
+        while (yxdb.next()) {
+            sum += yxdb.readLong(0);
+        }
+        Assertions.assertEquals(5000050000L, sum);
+    }
+
+    @Test
+    public void NegativeReadAheadThrows() {
+        Assertions.assertThrows(IllegalArgumentException.class, ()->new YxdbReaderOptions().readAhead(-1));
+    }
+
+    @Test
+    public void TestPrimitiveAccessors() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/AllNormalFields.yxdb");
+        Assertions.assertTrue(yxdb.next());
+        for (int i = 0; i < yxdb.listFields().size(); i++) {
+            Assertions.assertFalse(yxdb.isNull(i));
+        }
+        Assertions.assertEquals((byte)1, yxdb.readByteValue(0));
+        Assertions.assertEquals((byte)1, yxdb.readByteValue("ByteField"));
+        Assertions.assertTrue(yxdb.readBooleanValue(1));
+        Assertions.assertTrue(yxdb.readBooleanValue("BoolField"));
+        Assertions.assertEquals(16, yxdb.readLongValue(2));
+        Assertions.assertEquals(32, yxdb.readLongValue("Int32Field"));
+        Assertions.assertEquals(64, yxdb.readLongValue(4));
+        Assertions.assertEquals(123.45, yxdb.readDoubleValue(5));
+        Assertions.assertEquals(678.9f, yxdb.readDoubleValue("FloatField"));
+        Assertions.assertEquals(0.12345, yxdb.readDoubleValue(7));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.readLongValue(0));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.readDoubleValue(2));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.readBooleanValue(0));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.readByteValue(1));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.isNull(16));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.isNull("Invalid"));
+    }
+
+    @Test
+    public void TestPrimitiveAccessorsWithNulls() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/VeryLongField.yxdb");
+        yxdb.next();
+        Assertions.assertFalse(yxdb.isNull("Blob"));
+        yxdb.next();
+        Assertions.assertTrue(yxdb.isNull("Blob"));
+        Assertions.assertEquals((byte)2, yxdb.readByteValue(0));
+        yxdb.close();
+    }
+
+    @Test
+    public void TestJavaTimeAccessors() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/AllNormalFields.yxdb");
+        var dateTimeField = yxdb.dateField("DateTimeField");
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals(LocalDate.of(2020, 1, 1), yxdb.readLocalDate(14));
+        Assertions.assertEquals(LocalDate.of(2020, 2, 3), yxdb.readLocalDate("DateTimeField"));
+        Assertions.assertEquals(LocalDateTime.of(2020, 1, 1, 0, 0, 0), yxdb.readLocalDateTime("DateField"));
+        Assertions.assertEquals(LocalDateTime.of(2020, 2, 3, 4, 5, 6), yxdb.readLocalDateTime(15));
+        Assertions.assertEquals(1577836800000L, yxdb.readEpochMillis("DateField"));
+        Assertions.assertEquals(1580702706000L, yxdb.readEpochMillis(15));
+        Assertions.assertEquals(LocalDateTime.of(2020, 2, 3, 4, 5, 6), dateTimeField.readLocalDateTime());
+        Assertions.assertEquals(1580702706000L, dateTimeField.readEpochMillis());
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.readLocalDate(0));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.readLocalDateTime("StringField"));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.readEpochMillis(16));
+    }
+
+    @Test
+    public void TestDecimalAccessors() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/AllNormalFields.yxdb");
+        var decimalField = yxdb.decimalField("FixedDecimalField");
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals(new BigDecimal("123.450000"), yxdb.readDecimal(5));
+        Assertions.assertEquals(new BigDecimal("123.450000"), yxdb.readDecimal("FixedDecimalField"));
+        Assertions.assertEquals(123450000, yxdb.readUnscaledLong(5));
+        Assertions.assertEquals(123450000, yxdb.readUnscaledLong("FixedDecimalField"));
+        Assertions.assertEquals(6, decimalField.scale());
+        Assertions.assertEquals(new BigDecimal("123.450000"), decimalField.readDecimal());
+        Assertions.assertEquals(123450000, decimalField.readUnscaledLong());
+        Assertions.assertEquals(123.45, decimalField.readValue());
+        Assertions.assertInstanceOf(FieldHandle.DecimalField.class, yxdb.doubleField("FixedDecimalField"));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.readDecimal(7));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.readUnscaledLong("Int64Field"));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.decimalField("DoubleField"));
+    }
+
+    @Test
+    public void TestStringsWithoutCopying() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/AllNormalFields.yxdb");
+        var longString = yxdb.stringField("V_StringLongField");
+        var wString = yxdb.stringField("V_WStringShortField");
+        Assertions.assertTrue(yxdb.next());
+
+        var builder = new StringBuilder();
+        for (int i = 8; i < 14; i++) {
+            builder.setLength(0);
+            Assertions.assertTrue(yxdb.readStringInto(i, builder));
+            Assertions.assertEquals(yxdb.readString(i), builder.toString());
+        }
+
+        var target = ByteBuffer.allocate(1000);
+        Assertions.assertEquals(1, yxdb.readStringBytes("StringField", target));
+        Assertions.assertEquals(6, yxdb.readStringBytes(12, target));
+        Assertions.assertEquals("A", new String(target.array(), 0, 1, StandardCharsets.ISO_8859_1));
+        Assertions.assertEquals("XZY", new String(target.array(), 1, 6, StandardCharsets.UTF_16LE));
+
+        var view = longString.readView();
+        Assertions.assertEquals(500, view.length());
+        Assertions.assertEquals('B', view.charAt(499));
+        Assertions.assertTrue(view.contentEquals("B".repeat(500)));
+        Assertions.assertEquals("B".repeat(500).hashCode(), view.contentHashCode());
+        Assertions.assertEquals("XZY", wString.readView().toString());
+        Assertions.assertEquals("ZY", wString.readView().subSequence(1, 3));
+        Assertions.assertEquals(StandardCharsets.UTF_16LE, wString.charset());
+        Assertions.assertEquals(StandardCharsets.ISO_8859_1, longString.charset());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, ()->view.charAt(500));
+    }
+
+    @Test
+    public void TestFilterWithStringView() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/TutorialData.yxdb");
+        var prefix = yxdb.stringField("Prefix");
+        var mrCount = 0;
+        while (yxdb.next()) {
+            var view = prefix.readView();
+            if (view != null && view.contentEquals("Mr")) {
+                mrCount++;
+            }
+        }
+        Assertions.assertEquals(4068, mrCount);
+    }
+
+    @Test
+    public void TestFieldHandles() throws IOException, ParseException {
+        var yxdb = new YxdbReader("src/test/resources/AllNormalFields.yxdb");
+        var byteField = yxdb.byteField("ByteField");
+        var boolField = yxdb.booleanField("BoolField");
+        var int16Field = yxdb.longField("Int16Field");
+        var int32Field = yxdb.longField("Int32Field");
+        var int64Field = yxdb.longField("Int64Field");
+        var decimalField = yxdb.doubleField("FixedDecimalField");
+        var floatField = yxdb.doubleField("FloatField");
+        var doubleField = yxdb.doubleField("DoubleField");
+        var stringField = yxdb.stringField("StringField");
+        var wStringField = yxdb.stringField("WStringField");
+        var vStringField = yxdb.stringField("V_StringLongField");
+        var vWStringField = yxdb.stringField("V_WStringShortField");
+        var dateField = yxdb.dateField("DateField");
+        var dateTimeField = yxdb.dateField("DateTimeField");
+        Assertions.assertEquals(3, int32Field.index());
+        Assertions.assertEquals("Int32Field", int32Field.name());
+        Assertions.assertEquals(YxdbField.DataType.LONG, int32Field.type());
+
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals((byte)1, byteField.read());
+        Assertions.assertEquals((byte)1, byteField.readValue());
+        Assertions.assertTrue(boolField.read());
+        Assertions.assertTrue(boolField.readValue());
+        Assertions.assertEquals(16, int16Field.read());
+        Assertions.assertEquals(32, int32Field.readValue());
+        Assertions.assertEquals(64, int64Field.readValue());
+        Assertions.assertEquals(123.45, decimalField.read());
+        Assertions.assertEquals(678.9f, floatField.readValue());
+        Assertions.assertEquals(0.12345, doubleField.readValue());
+        Assertions.assertEquals("A", stringField.read());
+        Assertions.assertEquals("AB", wStringField.read());
+        Assertions.assertEquals("B".repeat(500), vStringField.read());
+        Assertions.assertEquals("XZY", vWStringField.read());
+        Assertions.assertEquals(yxdb.readDate("DateField"), dateField.read());
+        Assertions.assertEquals(yxdb.readDate("DateTimeField"), dateTimeField.read());
+        for (int i = 0; i < yxdb.listFields().size(); i++) {
+            Assertions.assertFalse(yxdb.field(yxdb.listFields().get(i).name()).isNull());
+        }
+        Assertions.assertInstanceOf(FieldHandle.LongField.class, yxdb.field("Int64Field"));
+    }
+
+    @Test
+    public void TestFieldHandlesWithNulls() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/VeryLongField.yxdb");
+        var blob = yxdb.blobField("Blob");
+
+        yxdb.next();
+        Assertions.assertFalse(blob.isNull());
+        Assertions.assertEquals(604732, blob.read().length);
+
+        yxdb.next();
+        Assertions.assertTrue(blob.isNull());
+        Assertions.assertNull(blob.read());
+
+        yxdb.next();
+        Assertions.assertEquals(604732, blob.read().length);
+        yxdb.close();
+    }
+
+    @Test
+    public void ResolvingFieldHandleWithWrongTypeOrNameThrows() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/AllNormalFields.yxdb");
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.longField("ByteField"));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.doubleField("Int16Field"));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.stringField("DateField"));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.dateField("StringField"));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.booleanField("ByteField"));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.byteField("BoolField"));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.blobField("StringField"));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.field("Invalid"));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->yxdb.longField("Invalid"));
+        yxdb.close();
+    }
+
+    @Test
+    public void TestFilterOnRawBytes() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/TutorialData.yxdb");
+        yxdb.filter(yxdb.stringField("Prefix").whereEquals("Mr"));
+        var count = 0;
+        while (yxdb.next()) {
+            Assertions.assertEquals("Mr", yxdb.readString("Prefix"));
+            count++;
+        }
+        Assertions.assertEquals(4068, count);
+
+        yxdb = new YxdbReader("src/test/resources/TutorialData.yxdb");
+        var prefix = yxdb.stringField("Prefix");
+        var expected = 0;
+        while (yxdb.next()) {
+            var value = prefix.read();
+            if (value != null && value.startsWith("M") && !value.equals("Mr")) {
+                expected++;
+            }
+        }
+        yxdb = new YxdbReader("src/test/resources/TutorialData.yxdb");
+        prefix = yxdb.stringField("Prefix");
+        yxdb.filter(prefix.whereStartsWith("M").and(prefix.whereEquals("Mr").negate()));
+        count = 0;
+        while (yxdb.next()) {
+            count++;
+        }
+        Assertions.assertTrue(expected > 0);
+        Assertions.assertEquals(expected, count);
+    }
+
+    @Test
+    public void TestFilterOnNumbers() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/LotsOfRecords.yxdb");
+        var rowCount = yxdb.longField("RowCount");
+        yxdb.filter(rowCount.whereLessThan(11).or(rowCount.whereBetween(99995, 99999)).or(rowCount.whereEquals(70000)));
+        var values = new ArrayList<Long>();
+        while (yxdb.next()) {
+            values.add(rowCount.readValue());
+        }
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 70000L, 99995L, 99996L, 99997L, 99998L, 99999L), values);
+
+        yxdb = new YxdbReader("src/test/resources/LotsOfRecords.yxdb");
+        yxdb.filter(yxdb.longField("RowCount").whereGreaterThan(Long.MAX_VALUE));
+        Assertions.assertFalse(yxdb.next());
+
+        yxdb = new YxdbReader("src/test/resources/AllNormalFields.yxdb");
+        yxdb.filter(yxdb.doubleField("FixedDecimalField").whereBetween(123.4, 123.5)
+                .and(yxdb.doubleField("DoubleField").whereLessThan(1))
+                .and(yxdb.booleanField("BoolField").whereEquals(true))
+                .and(yxdb.stringField("WStringField").whereEquals("AB")));
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals(123.45, yxdb.readDouble("FixedDecimalField"));
+    }
+
+    @Test
+    public void TestFilterOnNulls() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/VeryLongField.yxdb");
+        yxdb.filter(yxdb.blobField("Blob").whereNull());
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertNull(yxdb.readBlob("Blob"));
+        Assertions.assertFalse(yxdb.next());
+
+        yxdb = new YxdbReader("src/test/resources/VeryLongField.yxdb");
+        yxdb.filter(yxdb.blobField("Blob").whereNotNull());
+        var count = 0;
+        while (yxdb.next()) {
+            Assertions.assertEquals(604732, yxdb.readBlob("Blob").length);
+            count++;
+        }
+        Assertions.assertEquals(2, count);
+    }
+
+    @Test
+    public void TestFilterText() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/AllNormalFields.yxdb");
+        var vString = yxdb.stringField("V_StringLongField");
+        yxdb.filter(vString.whereEquals("B".repeat(500)).and(vString.whereStartsWith("BBB")));
+        Assertions.assertTrue(yxdb.next());
+
+        yxdb = new YxdbReader("src/test/resources/AllNormalFields.yxdb");
+        yxdb.filter(yxdb.stringField("StringField").whereEquals("\u0100"));
+        Assertions.assertFalse(yxdb.next());
+
+        yxdb = new YxdbReader("src/test/resources/AllNormalFields.yxdb");
+        yxdb.filter(yxdb.stringField("V_WStringShortField").whereStartsWith("XZYZ"));
+        Assertions.assertFalse(yxdb.next());
+    }
+
+    @Test
+    public void TestStreamWithFilter() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/LotsOfRecords.yxdb");
+        yxdb.filter(yxdb.longField("RowCount").whereGreaterThan(60000));
+        try (var stream = yxdb.stream()) {
+            var spliterator = stream.spliterator();
+            Assertions.assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+        }
+
+        yxdb = new YxdbReader("src/test/resources/LotsOfRecords.yxdb");
+        yxdb.filter(yxdb.longField("RowCount").whereGreaterThan(60000));
+        try (var stream = yxdb.stream()) {
+            Assertions.assertEquals(40000, stream.parallel().count());
+        }
+
+        var stream = new BufferedInputStream(new FileInputStream("src/test/resources/TutorialData.yxdb"));
+        yxdb = new YxdbReader(stream);
+        yxdb.filter(yxdb.stringField("Prefix").whereEquals("Mr"));
+        try (var rows = yxdb.stream()) {
+            Assertions.assertEquals(4068, rows.filter(row -> "Mr".equals(row.readString("Prefix"))).count());
+        }
+    }
+
+    @Test
+    public void TestStream() throws IOException {
+        var expected = new ArrayList<Long>();
+        var yxdb = new YxdbReader("src/test/resources/LotsOfRecords.yxdb");
+        while (yxdb.next()) {
+            expected.add(yxdb.readLong(0));
+        }
+
+        try (var stream = new YxdbReader("src/test/resources/LotsOfRecords.yxdb").stream()) {
+            Assertions.assertEquals(expected, stream.map(row -> row.readLong(0)).toList());
+        }
+        try (var stream = new YxdbReader("src/test/resources/LotsOfRecords.yxdb").stream()) {
+            Assertions.assertEquals(expected, stream.parallel().map(row -> row.readLong("RowCount")).toList());
+        }
+    }
+
+    @Test
+    public void TestStreamSplitsAtRecordBlocks() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/LotsOfRecords.yxdb");
+        var spliterator = yxdb.stream().spliterator();
+        Assertions.assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+        Assertions.assertEquals(100000, spliterator.estimateSize());
+
+        var prefix = spliterator.trySplit();
+        Assertions.assertNotNull(prefix);
+        Assertions.assertEquals(65536, prefix.estimateSize());
+        Assertions.assertEquals(34464, spliterator.estimateSize());
+        Assertions.assertNull(spliterator.trySplit());
+
+        var first = new ArrayList<Long>();
+        spliterator.tryAdvance(row -> first.add(row.readLong(0)));
+        prefix.tryAdvance(row -> first.add(row.readLong(0)));
+        Assertions.assertEquals(List.of(65537L, 1L), first);
+    }
+
+    @Test
+    public void TestStreamWithoutSplitting() throws IOException {
+        var stream = new BufferedInputStream(new FileInputStream("src/test/resources/AllNormalFields.yxdb"));
+        var rows = new YxdbReader(stream).stream().toList();
+        Assertions.assertEquals(1, rows.size());
+        Assertions.assertEquals("B".repeat(500), rows.get(0).readString("V_StringLongField"));
+        Assertions.assertEquals(new BigDecimal("123.450000"), rows.get(0).readDecimal(5));
+        Assertions.assertEquals(16, rows.get(0).listFields().size());
+
+        var yxdb = new YxdbReader("src/test/resources/VeryLongField.yxdb");
+        Assertions.assertTrue(yxdb.next());
+        var blobs = yxdb.stream().map(row -> row.readBlob("Blob")).toList();
+        Assertions.assertEquals(2, blobs.size());
+        Assertions.assertNull(blobs.get(0));
+        Assertions.assertEquals(604732, blobs.get(1).length);
+    }
+
+    @Test
+    public void TestStreamRowAccessors() throws IOException {
+        var rows = new YxdbReader("src/test/resources/AllNormalFields.yxdb").stream().toList();
+        var row = rows.get(0);
+        Assertions.assertEquals((byte)1, row.readByteValue("ByteField"));
+        Assertions.assertTrue(row.readBooleanValue(1));
+        Assertions.assertEquals(123450000, row.readUnscaledLong("FixedDecimalField"));
+        Assertions.assertEquals(LocalDate.of(2020, 1, 1), row.readLocalDate(14));
+        Assertions.assertEquals(1580702706000L, row.readEpochMillis("DateTimeField"));
+
+        var builder = new StringBuilder();
+        Assertions.assertTrue(row.readStringInto("V_StringLongField", builder));
+        Assertions.assertEquals("B".repeat(500), builder.toString());
+        var target = ByteBuffer.allocate(1000);
+        Assertions.assertEquals(1, row.readStringBytes(8, target));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->row.readByteValue(1));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->row.readEpochMillis("StringField"));
+    }
+
+    @Test
+    public void TestSeekToRecord() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/LotsOfRecords.yxdb");
+        yxdb.seekToRecord(70000);
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals(70001, yxdb.readLong(0));
+        yxdb.seekToRecord(5);
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals(6, yxdb.readLong(0));
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals(7, yxdb.readLong(0));
+        yxdb.seekToRecord(100000);
+        Assertions.assertFalse(yxdb.next());
+        yxdb.seekToRecord(99999);
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals(100000, yxdb.readLong(0));
+        Assertions.assertFalse(yxdb.next());
+    }
+
+    @Test
+    public void TestBlockCount() throws IOException {
+        Assertions.assertEquals(2, new YxdbReader("src/test/resources/LotsOfRecords.yxdb").blockCount());
+        Assertions.assertEquals(1, new YxdbReader("src/test/resources/AllNormalFields.yxdb").blockCount());
+        Assertions.assertEquals(1, new YxdbReader("src/test/resources/point.yxdb").blockCount());
+        var stream = new BufferedInputStream(new FileInputStream("src/test/resources/LotsOfRecords.yxdb"));
+        Assertions.assertEquals(0, new YxdbReader(stream).blockCount());
+    }
+
+    @Test
+    public void TestSeekToRecordInEveryBlock() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/LotsOfRecords.yxdb", new YxdbReaderOptions().readAhead(2));
+        for (var record : new long[]{65536, 65535, 99999, 0, 65537}) {
+            yxdb.seekToRecord(record);
+            Assertions.assertTrue(yxdb.next());
+            Assertions.assertEquals(record + 1, yxdb.readLong("RowCount"));
+        }
+        yxdb.close();
+    }
+
+    @Test
+    public void TestSeekToRecordWithIndex() throws IOException {
+        var path = "src/test/resources/LotsOfRecords.yxdb";
+        var options = new YxdbReaderOptions().index(YxdbIndex.build(path));
+        var yxdb = new YxdbReader(path, options);
+        for (var record : new long[]{99999, 0, 65535, 65536, 12345, 50000}) {
+            yxdb.seekToRecord(record);
+            Assertions.assertTrue(yxdb.next());
+            Assertions.assertEquals(record + 1, yxdb.readLong(0));
+        }
+        yxdb.close();
+
+        path = "src/test/resources/VeryLongField.yxdb";
+        yxdb = new YxdbReader(path, new YxdbReaderOptions().index(YxdbIndex.build(path)).memoryMapped(true));
+        yxdb.seekToRecord(2);
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals(604732, yxdb.readBlob(1).length);
+        yxdb.seekToRecord(1);
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertNull(yxdb.readBlob(1));
+        yxdb.close();
+    }
+
+    @Test
+    public void TestSeekToRecordInStream() throws IOException {
+        var stream = new BufferedInputStream(new FileInputStream("src/test/resources/LotsOfRecords.yxdb"));
+        var yxdb = new YxdbReader(stream);
+        yxdb.seekToRecord(1000);
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals(1001, yxdb.readLong(0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> yxdb.seekToRecord(10));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> yxdb.seekToRecord(100001));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> yxdb.seekToRecord(-1));
+        yxdb.close();
+    }
+
+    @Test
+    public void TestSkipAndLimit() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/LotsOfRecords.yxdb");
+        Assertions.assertEquals(10, yxdb.skip(10));
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals(11, yxdb.readLong(0));
+        yxdb.limit(3);
+        Assertions.assertEquals(1, yxdb.skip(1));
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals(13, yxdb.readLong(0));
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals(14, yxdb.readLong(0));
+        Assertions.assertFalse(yxdb.next());
+        Assertions.assertEquals(0, yxdb.skip(5));
+
+        yxdb = new YxdbReader("src/test/resources/LotsOfRecords.yxdb");
+        Assertions.assertEquals(100000, yxdb.skip(Long.MAX_VALUE));
+        Assertions.assertFalse(yxdb.next());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new YxdbReader("src/test/resources/LotsOfRecords.yxdb").skip(-1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new YxdbReader("src/test/resources/LotsOfRecords.yxdb").limit(-1));
+    }
+
+    @Test
+    public void TestSkipInStreamWithVarData() throws IOException {
+        var stream = new BufferedInputStream(new FileInputStream("src/test/resources/VeryLongField.yxdb"));
+        var yxdb = new YxdbReader(stream);
+        Assertions.assertEquals(2, yxdb.skip(2));
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals(604732, yxdb.readBlob(1).length);
+        Assertions.assertFalse(yxdb.next());
+
+        var limited = new YxdbReader("src/test/resources/TutorialData.yxdb");
+        limited.skip(100);
+        limited.limit(50);
+        try (var rows = limited.stream()) {
+            Assertions.assertEquals(50, rows.count());
+        }
+    }
+
+    @Test
+    public void TestStreamSplitsWithIndex() throws IOException {
+        var path = "src/test/resources/TutorialData.yxdb";
+        var index = YxdbIndex.build(path);
+        var yxdb = new YxdbReader(path, new YxdbReaderOptions().index(index));
+        var spliterator = yxdb.stream().spliterator();
+        Assertions.assertNotNull(spliterator.trySplit());
+
+        var expected = new ArrayList<String>();
+        var sequential = new YxdbReader(path);
+        while (sequential.next()) {
+            expected.add(sequential.readString("Prefix"));
+        }
+        try (var stream = new YxdbReader(path, new YxdbReaderOptions().index(index)).stream()) {
+            Assertions.assertEquals(expected, stream.parallel().map(row -> row.readString("Prefix")).toList());
+        }
+    }
+
+    @Test
+    public void IndexOfAnotherFileThrows() throws IOException {
+        var index = YxdbIndex.build("src/test/resources/AllNormalFields.yxdb");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new YxdbReader("src/test/resources/LotsOfRecords.yxdb", new YxdbReaderOptions().index(index)));
+    }
+
+    @Test
+    public void IndexOfChangedFileThrows() throws IOException {
+        var file = Files.createTempFile("Indexed", ".yxdb");
+        try {
+            Files.copy(Path.of("src/test/resources/TutorialData.yxdb"), file, StandardCopyOption.REPLACE_EXISTING);
+            var index = YxdbIndex.build(file.toString());
+            new YxdbReader(file.toString(), new YxdbReaderOptions().index(index)).close();
+
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10000));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> new YxdbReader(file.toString(), new YxdbReaderOptions().index(index)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void TestProjectionSkipsVarData() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/VeryLongField.yxdb", new YxdbReaderOptions().fields("Field1"));
+        var values = new ArrayList<Byte>();
+        while (yxdb.next()) {
+            values.add(yxdb.readByte("Field1"));
+            Assertions.assertTrue(yxdb.currentRecord().capacity() < 2000);
+        }
+        Assertions.assertEquals(List.of((byte)1, (byte)2, (byte)3), values);
+        Assertions.assertEquals(2, yxdb.listFields().size());
+
+        yxdb = new YxdbReader("src/test/resources/VeryLongField.yxdb", new YxdbReaderOptions().fields(1));
+        yxdb.skip(2);
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals(604732, yxdb.readBlob("Blob").length);
+    }
+
+    @Test
+    public void TestProjectionWithIndexesAndStream() throws IOException {
+        var options = new YxdbReaderOptions().fields("UserID", "Prefix");
+        var prefixes = new YxdbReader("src/test/resources/TutorialData.yxdb", options).stream()
+                .filter(row -> "Mr".equals(row.readString("Prefix")))
+                .count();
+        Assertions.assertEquals(4068, prefixes);
+
+        var yxdb = new YxdbReader("src/test/resources/AllNormalFields.yxdb", new YxdbReaderOptions().fields(0, 5));
+        Assertions.assertTrue(yxdb.next());
+        Assertions.assertEquals((byte)1, yxdb.readByte(0));
+        Assertions.assertEquals(new BigDecimal("123.450000"), yxdb.readDecimal(5));
+    }
+
+    @Test
+    public void ReadingFieldOutsideProjectionThrows() throws IOException {
+        var yxdb = new YxdbReader("src/test/resources/AllNormalFields.yxdb", new YxdbReaderOptions().fields("ByteField"));
+        Assertions.assertTrue(yxdb.next());
+        var ex = Assertions.assertThrows(IllegalArgumentException.class, () -> yxdb.readLong("Int16Field"));
+        Assertions.assertEquals("field Int16Field is not in the projection", ex.getMessage());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> yxdb.isNull(2));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> yxdb.readString("V_StringLongField"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> yxdb.field("BoolField"));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new YxdbReader("src/test/resources/AllNormalFields.yxdb", new YxdbReaderOptions().fields("Missing")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new YxdbReader("src/test/resources/AllNormalFields.yxdb", new YxdbReaderOptions().fields(16)));
+    }
+
     @Test
     public void RetrievingFieldWithWrongTypeThrows() throws IOException {
         var yxdb = new YxdbReader("src/test/resources/AllNormalFields.yxdb");
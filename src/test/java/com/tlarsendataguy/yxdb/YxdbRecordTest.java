@@ -3,8 +3,10 @@ package com.tlarsendataguy.yxdb;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -78,6 +80,33 @@ public class YxdbRecordTest {
         Assertions.assertFalse(record.hasVar);
     }
 
+    @Test
+    public void TestReadFixedDecimalRecordExactly() {
+        var fields = new ArrayList<MetaInfoField>(1);
+        fields.add(new MetaInfoField("value", "FixedDecimal", 10, 4));
+        var record = YxdbRecord.newFromFieldList(fields);
+        var source = wrap(new byte[]{45, 49, 50, 51, 46, 52, 53, 0, 67, 110, 0});
+
+        Assertions.assertEquals(new BigDecimal("-123.4500"), record.extractDecimalFrom(0, source));
+        Assertions.assertEquals(-1234500, record.extractUnscaledLongValueFrom(0, source));
+        Assertions.assertEquals(-123.45, record.extractDoubleValueFrom(0, source));
+
+        source.put(10, (byte)1);
+        Assertions.assertNull(record.extractDecimalFrom(0, source));
+        Assertions.assertEquals(0, record.extractUnscaledLongValueFrom(0, source));
+    }
+
+    @Test
+    public void TestUnscaledFixedDecimalOverflowThrows() {
+        var fields = new ArrayList<MetaInfoField>(1);
+        fields.add(new MetaInfoField("value", "FixedDecimal", 10, 2));
+        var record = YxdbRecord.newFromFieldList(fields);
+        var source = wrap(new byte[]{49, 46, 50, 51, 52, 0, 0, 0, 0, 0, 0});
+
+        Assertions.assertThrows(ArithmeticException.class, ()->record.extractUnscaledLongValueFrom(0, source));
+        Assertions.assertEquals(new BigDecimal("1.234"), record.extractDecimalFrom(0, source));
+    }
+
     @Test
     public void TestReadStringRecord() {
         var record = loadRecordWithValueColumn("String", 15);
@@ -102,6 +131,26 @@ public class YxdbRecordTest {
         Assertions.assertFalse(record.hasVar);
     }
 
+    @Test
+    public void TestReadStringWithoutCopying() {
+        var record = loadRecordWithValueColumn("WString", 4);
+        var source = wrap(new byte[]{104, 0, 105, 0, 0, 0, 0, 0, 0});
+        var builder = new StringBuilder("say ");
+        var target = ByteBuffer.allocate(10);
+
+        Assertions.assertTrue(record.extractStringInto(0, source, builder));
+        Assertions.assertEquals("say hi", builder.toString());
+        Assertions.assertEquals(4, record.extractStringBytes("value", source, target));
+        Assertions.assertEquals(4, target.position());
+        Assertions.assertEquals("hi", new String(target.array(), 0, 4, StandardCharsets.UTF_16LE));
+
+        source.put(8, (byte)1);
+        Assertions.assertFalse(record.extractStringInto(0, source, builder));
+        Assertions.assertEquals(-1, record.extractStringBytes(0, source, target));
+        Assertions.assertEquals("say hi", builder.toString());
+        Assertions.assertThrows(IllegalArgumentException.class, ()->loadRecordWithValueColumn("Int32", 4).extractStringInto(0, source, builder));
+    }
+
     @Test
     public void TestReadV_String() {
         var record = loadRecordWithValueColumn("V_String", 15);
@@ -203,6 +252,49 @@ public class YxdbRecordTest {
         Assertions.assertArrayEquals(new byte[]{}, record.extractBlobFrom(0, source));
     }
 
+    @Test
+    public void TestReadPrimitiveValues() {
+        var record = loadRecordWithValueColumn("Int32", 4);
+        Assertions.assertEquals(23, record.extractLongValueFrom(0, wrap(new byte[]{23,0,0,0,0})));
+        Assertions.assertEquals(23, record.extractLongValueFrom("value", wrap(new byte[]{23,0,0,0,0})));
+        Assertions.assertFalse(record.isNull(0, wrap(new byte[]{23,0,0,0,0})));
+        Assertions.assertEquals(0, record.extractLongValueFrom(0, wrap(new byte[]{23,0,0,0,1})));
+        Assertions.assertTrue(record.isNull(0, wrap(new byte[]{23,0,0,0,1})));
+
+        record = loadRecordWithValueColumn("Double", 8);
+        Assertions.assertEquals(1.1, record.extractDoubleValueFrom(0, wrap(new byte[]{-102,-103,-103,-103,-103,-103,-15,63,0})));
+        Assertions.assertEquals(0, record.extractDoubleValueFrom(0, wrap(new byte[]{-102,-103,-103,-103,-103,-103,-15,63,1})));
+
+        record = loadRecordWithValueColumn("FixedDecimal", 10);
+        Assertions.assertEquals(123.45, record.extractDoubleValueFrom(0, wrap(new byte[]{49, 50, 51, 46, 52, 53, 0, 43, 67, 110, 0})));
+        Assertions.assertEquals(0, record.extractDoubleValueFrom(0, wrap(new byte[]{49, 50, 51, 46, 52, 53, 0, 43, 67, 110, 1})));
+
+        record = loadRecordWithValueColumn("Bool", 1);
+        Assertions.assertTrue(record.extractBooleanValueFrom(0, wrap(new byte[]{1})));
+        Assertions.assertFalse(record.extractBooleanValueFrom(0, wrap(new byte[]{2})));
+        Assertions.assertTrue(record.isNull(0, wrap(new byte[]{2})));
+
+        record = loadRecordWithValueColumn("Byte", 2);
+        Assertions.assertEquals((byte)23, record.extractByteValueFrom(0, wrap(new byte[]{23, 0})));
+        Assertions.assertEquals((byte)0, record.extractByteValueFrom(0, wrap(new byte[]{23, 1})));
+        Assertions.assertTrue(record.isNull(0, wrap(new byte[]{23, 1})));
+    }
+
+    @Test
+    public void TestIsNullOnNonNumericFields() {
+        var record = loadRecordWithValueColumn("V_String", 15);
+        Assertions.assertTrue(record.isNull(0, wrap(new byte[]{1, 0, 0, 0})));
+        Assertions.assertFalse(record.isNull(0, wrap(new byte[]{0, 0, 0, 0})));
+
+        record = loadRecordWithValueColumn("WString", 2);
+        Assertions.assertTrue(record.isNull(0, wrap(new byte[]{65, 0, 0, 0, 1})));
+        Assertions.assertFalse(record.isNull(0, wrap(new byte[]{65, 0, 0, 0, 0})));
+
+        var dateTimeRecord = loadRecordWithValueColumn("DateTime", 19);
+        Assertions.assertTrue(dateTimeRecord.isNull("value", wrap(new byte[]{50,48,50,49,45,48,49,45,48,50,32,48,51,58,48,52,58,48,53,1})));
+        Assertions.assertThrows(IllegalArgumentException.class, ()->dateTimeRecord.isNull(1, wrap(new byte[20])));
+    }
+
     private static YxdbRecord loadRecordWithValueColumn(String type, int size) {
         var fields = new ArrayList<MetaInfoField>(1);
         fields.add(new MetaInfoField("value", type, size, 0));
@@ -0,0 +1,355 @@
+package com.tlarsendataguy.yxdb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+public class YxdbWriterTest {
+    @Test
+    public void TestAllFieldTypes() throws IOException {
+        var file = Files.createTempFile("AllFieldTypes", ".yxdb");
+        try {
+            var schema = new YxdbSchema()
+                    .addBool("Bool").addByte("Byte").addInt16("Int16").addInt32("Int32").addInt64("Int64")
+                    .addFixedDecimal("FixedDecimal", 12, 3).addFloat("Float").addDouble("Double")
+                    .addString("String", 5).addWString("WString", 5).addVString("V_String").addVWString("V_WString")
+                    .addDate("Date").addDateTime("DateTime").addBlob("Blob").addSpatialObj("Spatial");
+            var longText = "x".repeat(1000);
+            try (var writer = new YxdbWriter(file.toString(), schema)) {
+                writer.setBoolean(0, true);
+                writer.setByte(1, (byte) 200);
+                writer.setLong(2, -12345);
+                writer.setLong(3, 123456789);
+                writer.setLong(4, Long.MIN_VALUE);
+                writer.setDecimal(5, new BigDecimal("-1234.5678"));
+                writer.setDouble(6, 1.5);
+                writer.setDouble(7, 0.1);
+                writer.setString(8, "Hello, world");
+                writer.setString(9, "\u00e9t\u00e9 \u4e16\u754c");
+                writer.setString(10, "abc");
+                writer.setString(11, longText);
+                writer.setDate(12, LocalDate.of(2023, 4, 5));
+                writer.setDateTime(13, LocalDateTime.of(1999, 12, 31, 23, 59, 58, 999));
+                writer.setBlob(14, new byte[]{1, 2, 3, 4, 5});
+                writer.setBlob(15, new byte[200]);
+                writer.writeRecord();
+
+                writer.writeRecord(); // every field null
+
+                writer.setBoolean("Bool", false);
+                writer.setDouble("FixedDecimal", 2.0005);
+                writer.setString("String", "");
+                writer.setString("V_String", "");
+                writer.setString("V_WString", "\u00e9");
+                writer.setBlob("Blob", new byte[0]);
+                writer.setString("WString", "gone");
+                writer.setNull("WString");
+                writer.writeRecord();
+                Assertions.assertEquals(3, writer.numRecords());
+            }
+
+            var reader = new YxdbReader(file.toString());
+            Assertions.assertEquals(3, reader.numRecords);
+            Assertions.assertEquals(16, reader.listFields().size());
+            Assertions.assertEquals(YxdbField.DataType.BLOB, reader.listFields().get(15).type());
+
+            Assertions.assertTrue(reader.next());
+            Assertions.assertTrue(reader.readBoolean(0));
+            Assertions.assertEquals((byte) 200, reader.readByte(1));
+            Assertions.assertEquals(-12345, reader.readLong(2));
+            Assertions.assertEquals(123456789, reader.readLong(3));
+            Assertions.assertEquals(Long.MIN_VALUE, reader.readLong(4));
+            Assertions.assertEquals(new BigDecimal("-1234.568"), reader.readDecimal(5));
+            Assertions.assertEquals(1.5, reader.readDouble(6));
+            Assertions.assertEquals(0.1, reader.readDouble(7));
+            Assertions.assertEquals("Hello", reader.readString(8));
+            Assertions.assertEquals("\u00e9t\u00e9 \u4e16", reader.readString(9));
+            Assertions.assertEquals("abc", reader.readString(10));
+            Assertions.assertEquals(longText, reader.readString(11));
+            Assertions.assertEquals(LocalDate.of(2023, 4, 5), reader.readLocalDate(12));
+            Assertions.assertEquals(LocalDateTime.of(1999, 12, 31, 23, 59, 58), reader.readLocalDateTime(13));
+            Assertions.assertTrue(Arrays.equals(new byte[]{1, 2, 3, 4, 5}, reader.readBlob(14)));
+            Assertions.assertTrue(Arrays.equals(new byte[200], reader.readBlob(15)));
+
+            Assertions.assertTrue(reader.next());
+            for (int i = 0; i < 16; i++) {
+                Assertions.assertTrue(reader.isNull(i), "field " + i);
+            }
+
+            Assertions.assertTrue(reader.next());
+            Assertions.assertFalse(reader.readBoolean("Bool"));
+            Assertions.assertEquals(new BigDecimal("2.001"), reader.readDecimal("FixedDecimal"));
+            Assertions.assertEquals("", reader.readString("String"));
+            Assertions.assertEquals("", reader.readString("V_String"));
+            Assertions.assertEquals("\u00e9", reader.readString("V_WString"));
+            Assertions.assertEquals(0, reader.readBlob("Blob").length);
+            Assertions.assertNull(reader.readString("WString"));
+            Assertions.assertNull(reader.readLong("Int32"));
+            Assertions.assertFalse(reader.next());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void TestMetaInfo() throws IOException {
+        var file = Files.createTempFile("MetaInfo", ".yxdb");
+        try {
+            var schema = new YxdbSchema().addInt32("Id").addFixedDecimal("Amount \"USD\"", 19, 6).addString("Code", 2).addVWString("Name");
+            new YxdbWriter(file.toString(), schema).close();
+            var reader = new YxdbReader(file.toString());
+            var expected = """
+                    <RecordInfo>
+                    \t<Field name="Id" type="Int32"/>
+                    \t<Field name="Amount &quot;USD&quot;" scale="6" size="19" type="FixedDecimal"/>
+                    \t<Field name="Code" size="2" type="String"/>
+                    \t<Field name="Name" size="1073741823" type="V_WString"/>
+                    </RecordInfo>
+                    """;
+            Assertions.assertEquals(expected, reader.metaInfoStr);
+            Assertions.assertEquals("Amount \"USD\"", reader.listFields().get(1).name());
+            Assertions.assertEquals(0, reader.numRecords);
+            Assertions.assertFalse(reader.next());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void TestRecordBlockIndex() throws IOException {
+        var file = Files.createTempFile("ManyRecords", ".yxdb");
+        try {
+            var schema = new YxdbSchema().addInt32("Id").addVString("Text");
+            try (var writer = new YxdbWriter(file.toString(), schema)) {
+                for (int i = 0; i < 150000; i++) {
+                    writer.setLong(0, i);
+                    writer.setString(1, "record " + i);
+                    writer.writeRecord();
+                }
+            }
+
+            var reader = new YxdbReader(file.toString());
+            Assertions.assertEquals(150000, reader.numRecords);
+            Assertions.assertEquals(3, reader.blockCount());
+            reader.seekToRecord(140000);
+            Assertions.assertTrue(reader.next());
+            Assertions.assertEquals(140000, reader.readLong(0));
+            Assertions.assertEquals("record 140000", reader.readString(1));
+
+            try (var rows = new YxdbReader(file.toString()).stream()) {
+                Assertions.assertEquals(149999L * 150000 / 2, rows.parallel().mapToLong(row -> row.readLongValue(0)).sum());
+            }
+            Assertions.assertEquals(150000, YxdbIndex.build(file.toString()).numRecords());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void TestThreadsWriteTheSameFile() throws IOException {
+        var random = new Random(11);
+        var text = new String[1000];
+        for (int i = 0; i < text.length; i++) {
+            var chars = new char[random.nextInt(300)];
+            for (int c = 0; c < chars.length; c++) {
+                chars[c] = (char) ('a' + random.nextInt(random.nextBoolean() ? 3 : 26));
+            }
+            text[i] = new String(chars);
+        }
+        byte[] expected = null;
+        for (var threads : new int[]{1, 2, 5}) {
+            var file = Files.createTempFile("Threads", ".yxdb");
+            try {
+                try (var writer = new YxdbWriter(file.toString(), new YxdbSchema().addInt64("Id").addVString("Text"), threads)) {
+                    for (int i = 0; i < 200000; i++) {
+                        writer.setLong(0, i);
+                        writer.setString(1, text[i % text.length]);
+                        writer.writeRecord();
+                    }
+                }
+                var bytes = Files.readAllBytes(file);
+                Arrays.fill(bytes, 68, 72, (byte) 0); // the creation time
+                if (expected == null) {
+                    expected = bytes;
+                } else {
+                    Assertions.assertTrue(Arrays.equals(expected, bytes), threads + " threads");
+                }
+                var reader = new YxdbReader(file.toString());
+                Assertions.assertEquals(4, reader.blockCount());
+                reader.seekToRecord(199999);
+                Assertions.assertTrue(reader.next());
+                Assertions.assertEquals(text[199999 % text.length], reader.readString(1));
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void TestIncompressibleBlobs() throws IOException {
+        var file = Files.createTempFile("Blobs", ".yxdb");
+        try {
+            var random = new Random(42);
+            var blobs = new byte[5][];
+            for (int i = 0; i < blobs.length; i++) {
+                blobs[i] = new byte[100000 * i + 7];
+                random.nextBytes(blobs[i]);
+            }
+            try (var writer = new YxdbWriter(file.toString(), new YxdbSchema().addByte("Id").addBlob("Blob"))) {
+                for (int i = 0; i < blobs.length; i++) {
+                    writer.setByte(0, (byte) i);
+                    writer.setBlob(1, blobs[i]);
+                    writer.writeRecord();
+                }
+            }
+            var reader = new YxdbReader(file.toString());
+            for (int i = 0; i < blobs.length; i++) {
+                Assertions.assertTrue(reader.next());
+                Assertions.assertEquals((byte) i, reader.readByte(0));
+                Assertions.assertTrue(Arrays.equals(blobs[i], reader.readBlob(1)), "blob " + i);
+            }
+            Assertions.assertFalse(reader.next());
+            // random bytes do not compress, so the file holds them about as they are
+            Assertions.assertTrue(Files.size(file) < 1000000 + 2000);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void TestCopyOfTutorialData() throws IOException {
+        var file = Files.createTempFile("TutorialData", ".yxdb");
+        try {
+            var source = new YxdbReader("src/test/resources/TutorialData.yxdb");
+            var schema = new YxdbSchema().addInt32("UserID").addVWString("First").addVWString("Last").addVString("Prefix")
+                    .addString("Gender", 16).addDateTime("Birth Date").addDateTime("Registration Date/Time")
+                    .addVWString("Email").addString("Country", 2);
+            try (var writer = new YxdbWriter(file.toString(), schema)) {
+                while (source.next()) {
+                    writer.setLong(0, source.readLongValue(0));
+                    for (var i : new int[]{1, 2, 3, 4, 7, 8}) {
+                        writer.setString(i, source.readString(i));
+                    }
+                    writer.setDateTime(5, source.readLocalDateTime(5));
+                    writer.setDateTime(6, source.readLocalDateTime(6));
+                    writer.writeRecord();
+                }
+            }
+            var expected = new YxdbReader("src/test/resources/TutorialData.yxdb");
+            var actual = new YxdbReader(file.toString());
+            Assertions.assertEquals(expected.numRecords, actual.numRecords);
+            while (expected.next()) {
+                Assertions.assertTrue(actual.next());
+                for (int i = 0; i < 9; i++) {
+                    Assertions.assertEquals(expected.isNull(i), actual.isNull(i));
+                }
+                Assertions.assertTrue(Arrays.equals(expected.currentRecord().array(), 0, expected.currentRecordLength(), actual.currentRecord().array(), 0, actual.currentRecordLength()));
+            }
+            Assertions.assertFalse(actual.next());
+            // the blocks compress about as well as the ones Alteryx wrote
+            Assertions.assertTrue(Files.size(file) < Files.size(Path.of("src/test/resources/TutorialData.yxdb")) * 11 / 10);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void TestCopyRawRecords() throws IOException {
+        var files = new String[]{"AllNormalFields.yxdb", "LotsOfRecords.yxdb", "TutorialData.yxdb", "VeryLongField.yxdb", "poly.yxdb"};
+        for (var name : files) {
+            var path = "src/test/resources/" + name;
+            var file = Files.createTempFile("Copy", ".yxdb");
+            try {
+                var source = new YxdbReader(path);
+                try (var writer = new YxdbWriter(file.toString(), YxdbSchema.of(source))) {
+                    Assertions.assertEquals(source.numRecords, writer.writeRecords(source), name);
+                }
+                var expected = new YxdbReader(path);
+                var actual = new YxdbReader(file.toString());
+                Assertions.assertEquals(expected.numRecords, actual.numRecords, name);
+                Assertions.assertEquals(expected.listFields(), actual.listFields(), name);
+                while (expected.next()) {
+                    Assertions.assertTrue(actual.next(), name);
+                    Assertions.assertTrue(Arrays.equals(expected.currentRecord().array(), 0, expected.currentRecordLength(), actual.currentRecord().array(), 0, actual.currentRecordLength()), name);
+                }
+                Assertions.assertFalse(actual.next(), name);
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void TestCopyFilteredRecords() throws IOException {
+        var file = Files.createTempFile("Filtered", ".yxdb");
+        try {
+            var source = new YxdbReader("src/test/resources/TutorialData.yxdb", new YxdbReaderOptions().fields("Prefix", "Email"));
+            source.filter(source.stringField("Prefix").whereEquals("Mr"));
+            try (var writer = new YxdbWriter(file.toString(), YxdbSchema.of(source))) {
+                writer.setLong("UserID", 5); // discarded by the copy
+                while (source.next()) {
+                    writer.writeRecord(source);
+                }
+                Assertions.assertEquals(4068, writer.numRecords());
+            }
+            var reader = new YxdbReader(file.toString());
+            Assertions.assertEquals(4068, reader.numRecords);
+            Assertions.assertEquals(9, reader.listFields().size());
+            while (reader.next()) {
+                Assertions.assertEquals("Mr", reader.readString("Prefix"));
+                Assertions.assertNotEquals(Long.valueOf(5), reader.readLong("UserID"));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void CopyWithDifferentLayoutThrows() throws IOException {
+        var file = Files.createTempFile("Mismatch", ".yxdb");
+        try {
+            var source = new YxdbReader("src/test/resources/TutorialData.yxdb");
+            source.next();
+            try (var writer = new YxdbWriter(file.toString(), new YxdbSchema().addInt32("UserID").addVWString("First"))) {
+                Assertions.assertThrows(IllegalArgumentException.class, () -> writer.writeRecord(source));
+            }
+            var projected = new YxdbReader("src/test/resources/TutorialData.yxdb", new YxdbReaderOptions().fields("UserID"));
+            projected.next();
+            try (var writer = new YxdbWriter(file.toString(), YxdbSchema.of(projected))) {
+                Assertions.assertThrows(IllegalArgumentException.class, () -> writer.writeRecord(projected));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void InvalidValuesThrow() throws IOException {
+        var file = Files.createTempFile("Invalid", ".yxdb");
+        try (var writer = new YxdbWriter(file.toString(), new YxdbSchema().addInt16("Small").addFixedDecimal("Decimal", 5, 2).addDate("Date"))) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> writer.setLong(0, 40000));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> writer.setString(0, "text"));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> writer.setLong(3, 1));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> writer.setLong("Missing", 1));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> writer.setDouble(1, 1000));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> writer.setDouble(1, Double.NaN));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> writer.setDate(2, LocalDate.of(10000, 1, 1)));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> writer.setDateTime(2, LocalDateTime.of(2020, 1, 1, 0, 0)));
+        } finally {
+            Files.delete(file);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new YxdbSchema().addInt32("A").addDouble("A"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new YxdbSchema().addString("A", 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new YxdbSchema().addFixedDecimal("A", 5, 5));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new YxdbWriter("unused.yxdb", new YxdbSchema()));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new YxdbWriter("unused.yxdb", new YxdbSchema().addInt32("A"), 0));
+    }
+}